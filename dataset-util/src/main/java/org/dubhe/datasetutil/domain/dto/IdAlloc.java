@@ -16,47 +16,187 @@
  */
 package org.dubhe.datasetutil.domain.dto;
 
-import lombok.Data;
+import org.dubhe.datasetutil.common.enums.LogEnum;
+import org.dubhe.datasetutil.common.exception.DataSequenceException;
+import org.dubhe.datasetutil.common.util.LogUtil;
 import org.dubhe.datasetutil.domain.entity.DataSequence;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
- * @description ID策略实体
+ * @description ID策略实体，号段分配器，号段内通过CAS分配，剩余不足20%时异步预取下一号段（双缓冲）
  * @date 2020-10-16
  */
-@Data
 public class IdAlloc {
 
-    private Queue<Long> ids;
+    /**
+     * 触发预取的剩余比例
+     */
+    private static final double PREFETCH_RATIO = 0.2;
+
+    /**
+     * 号段加载（数据库扩容）
+     */
+    private final Supplier<DataSequence> loader;
+
+    /**
+     * 预取执行器
+     */
+    private final Executor prefetchExecutor;
+
+    /**
+     * 当前号段
+     */
+    private volatile Segment current;
 
-    private Long unUsed;
+    /**
+     * 预取中的下一号段
+     */
+    private final AtomicReference<CompletableFuture<Segment>> next = new AtomicReference<>();
 
-    public IdAlloc() {
-        ids = new LinkedList<>();
-        unUsed = 0L;
+    public IdAlloc(Supplier<DataSequence> loader, Executor prefetchExecutor) {
+        this.loader = loader;
+        this.prefetchExecutor = prefetchExecutor;
     }
 
     /**
-     * 补充ID
+     * 分配指定数量的序列号
      *
-     * @param dataSequence
+     * @param number 数量
+     * @return IdRange 序列号区间
      */
-    public void add(DataSequence dataSequence) {
-        for (Long i = dataSequence.getStart(); i < dataSequence.getStart() + dataSequence.getStep(); i++) {
-            ids.add(i);
-            unUsed++;
+    public IdRange allocate(int number) {
+        IdRange range = new IdRange();
+        long remaining = number;
+        while (remaining > 0) {
+            Segment segment = current;
+            long start = segment == null ? -1L : segment.take(remaining);
+            if (start < 0) {
+                switchSegment(segment);
+                continue;
+            }
+            long end = Math.min(start + remaining, segment.end);
+            range.add(start, end);
+            remaining -= end - start;
+            if (segment.remaining() <= segment.threshold) {
+                prefetch();
+            }
         }
+        return range;
+    }
+
+    /**
+     * 当前号段剩余可用数量
+     *
+     * @return long 数量
+     */
+    public long getUnUsed() {
+        Segment segment = current;
+        return segment == null ? 0L : segment.remaining();
     }
 
-    public Queue<Long> poll(int number) {
-        Queue<Long> result = new LinkedList<>();
-        for (int i = 0; i < number; i++) {
-            result.add(ids.poll());
-            unUsed--;
+    /**
+     * 异步预取下一号段
+     */
+    private void prefetch() {
+        if (next.get() != null) {
+            return;
+        }
+        CompletableFuture<Segment> future = new CompletableFuture<>();
+        if (!next.compareAndSet(null, future)) {
+            return;
+        }
+        try {
+            prefetchExecutor.execute(() -> {
+                try {
+                    future.complete(load());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (Exception e) {
+            next.compareAndSet(future, null);
+            LogUtil.warn(LogEnum.DATA_SEQUENCE, "prefetch id segment rejected: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 切换号段，仅在号段耗尽时按业务编码加锁
+     *
+     * @param exhausted 已耗尽的号段
+     */
+    private synchronized void switchSegment(Segment exhausted) {
+        if (current != exhausted) {
+            return;
+        }
+        CompletableFuture<Segment> future = next.getAndSet(null);
+        Segment segment = null;
+        if (future != null) {
+            try {
+                segment = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataSequenceException("获取序列号被中断");
+            } catch (ExecutionException e) {
+                LogUtil.error(LogEnum.DATA_SEQUENCE, "prefetch id segment failed, load synchronously: {}", e.getCause());
+            }
+        }
+        current = segment == null ? load() : segment;
+    }
+
+    /**
+     * 从数据库加载号段
+     *
+     * @return Segment 号段
+     */
+    private Segment load() {
+        DataSequence dataSequence = loader.get();
+        return new Segment(dataSequence.getStart(), dataSequence.getStart() + dataSequence.getStep());
+    }
+
+    /**
+     * 号段 [start, end)
+     */
+    private static class Segment {
+
+        private final long end;
+
+        private final long threshold;
+
+        private final AtomicLong cursor;
+
+        Segment(long start, long end) {
+            this.end = end;
+            this.threshold = (long) ((end - start) * PREFETCH_RATIO);
+            this.cursor = new AtomicLong(start);
+        }
+
+        /**
+         * 从号段中取出至多number个序列号
+         *
+         * @param number 数量
+         * @return long 起始值，号段耗尽返回-1
+         */
+        long take(long number) {
+            while (true) {
+                long start = cursor.get();
+                if (start >= end) {
+                    return -1L;
+                }
+                if (cursor.compareAndSet(start, Math.min(start + number, end))) {
+                    return start;
+                }
+            }
+        }
+
+        long remaining() {
+            return Math.max(end - cursor.get(), 0L);
         }
-        return result;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+package org.dubhe.biz.file.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.commons.lang.StringUtils;
+import org.dubhe.biz.base.constant.SymbolConstant;
+
+import java.io.Serializable;
+
+/**
+ * @description MinIO对象复制项
+ * @date 2026-10-17
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MinioCopyItemDTO implements Serializable {
+
+    /**
+     * 源桶名称
+     */
+    private String sourceBucket;
+    /**
+     * 源对象名称
+     */
+    private String sourceObject;
+    /**
+     * 目标桶名称
+     */
+    private String targetBucket;
+    /**
+     * 目标对象名称
+     */
+    private String targetObject;
+
+    /**
+     * 同桶内将对象复制到目标文件夹下，保持文件名不变
+     *
+     * @param bucketName   桶名称
+     * @param sourceObject 源对象名称
+     * @param targetDir    目标文件夹
+     * @return MinioCopyItemDTO 复制项
+     */
+    public static MinioCopyItemDTO toDir(String bucketName, String sourceObject, String targetDir) {
+        return new MinioCopyItemDTO(bucketName, sourceObject, bucketName,
+                targetDir + SymbolConstant.SLASH + StringUtils.substringAfterLast(sourceObject, SymbolConstant.SLASH));
+    }
+
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+package org.dubhe.biz.file.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @description MinIO批量复制结果
+ * @date 2026-10-17
+ */
+@Data
+public class MinioTransferResultDTO {
+
+    /**
+     * 复制总数
+     */
+    private long total;
+    /**
+     * 成功数量
+     */
+    private long succeeded;
+    /**
+     * 失败的复制项
+     */
+    private List<MinioCopyItemDTO> failedItems = Collections.synchronizedList(new ArrayList<>());
+    /**
+     * 耗时（毫秒）
+     */
+    private long costMillis;
+
+    public MinioTransferResultDTO(long total) {
+        this.total = total;
+    }
+
+    /**
+     * 是否全部复制成功
+     *
+     * @return boolean
+     */
+    public boolean isSuccess() {
+        return failedItems.isEmpty() && succeeded == total;
+    }
+
+}
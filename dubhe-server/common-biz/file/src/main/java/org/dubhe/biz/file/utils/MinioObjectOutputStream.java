@@ -0,0 +1,218 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+package org.dubhe.biz.file.utils;
+
+import io.minio.MinioClient;
+import io.minio.PutObjectOptions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description MinIO对象输出流，写入内容按块交给后台分片上传（multipart），内存占用与对象大小无关
+ * @date 2026-10-17
+ */
+public class MinioObjectOutputStream extends OutputStream {
+
+    /**
+     * 单个数据块大小
+     */
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * 等待上传的数据块上限
+     */
+    private static final int QUEUE_CAPACITY = 8;
+
+    /**
+     * 结束标记
+     */
+    private static final byte[] EOF = new byte[0];
+
+    /**
+     * 中止标记
+     */
+    private static final byte[] ABORT = new byte[0];
+
+    private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final Future<?> upload;
+
+    private final String objectName;
+
+    private byte[] buffer;
+
+    private int position;
+
+    private boolean closed;
+
+    MinioObjectOutputStream(MinioClient client, String bucketName, String objectName, long partSize, ExecutorService executor) {
+        this.objectName = objectName;
+        this.upload = executor.submit(() -> {
+            try (InputStream inputStream = new ChunkInputStream()) {
+                client.putObject(bucketName, objectName, inputStream, new PutObjectOptions(-1, partSize));
+            } finally {
+                //上传结束（含失败）后释放写入方可能阻塞的空间
+                chunks.clear();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (closed) {
+            throw new IOException("stream closed: " + objectName);
+        }
+        while (length > 0) {
+            if (buffer == null) {
+                buffer = new byte[CHUNK_SIZE];
+                position = 0;
+            }
+            int size = Math.min(length, CHUNK_SIZE - position);
+            System.arraycopy(bytes, offset, buffer, position, size);
+            position += size;
+            offset += size;
+            length -= size;
+            if (position == CHUNK_SIZE) {
+                enqueue(buffer);
+                buffer = null;
+            }
+        }
+    }
+
+    /**
+     * 写入结束，等待上传完成
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (buffer != null && position > 0) {
+            enqueue(Arrays.copyOf(buffer, position));
+        }
+        buffer = null;
+        closed = true;
+        enqueue(EOF);
+        awaitUpload();
+    }
+
+    /**
+     * 中止上传，已写入内容不会生成对象
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer = null;
+        upload.cancel(true);
+        chunks.clear();
+        chunks.offer(ABORT);
+    }
+
+    private void enqueue(byte[] chunk) throws IOException {
+        try {
+            while (!chunks.offer(chunk, 1, TimeUnit.SECONDS)) {
+                if (upload.isDone()) {
+                    awaitUpload();
+                    throw new IOException("upload finished unexpectedly: " + objectName);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort();
+            throw new InterruptedIOException("write interrupted: " + objectName);
+        }
+    }
+
+    private void awaitUpload() throws IOException {
+        try {
+            upload.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("upload interrupted: " + objectName);
+        } catch (ExecutionException e) {
+            throw new IOException("upload failed: " + objectName, e.getCause());
+        }
+    }
+
+    /**
+     * 上传端读取的输入流
+     */
+    private class ChunkInputStream extends InputStream {
+
+        private byte[] current;
+
+        private int offset;
+
+        private boolean finished;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int size = read(single, 0, 1);
+            return size < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (current == null || offset == current.length) {
+                if (finished) {
+                    return -1;
+                }
+                try {
+                    current = chunks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("upload aborted: " + objectName);
+                }
+                offset = 0;
+                if (current == ABORT) {
+                    throw new IOException("upload aborted: " + objectName);
+                }
+                if (current == EOF) {
+                    finished = true;
+                    return -1;
+                }
+            }
+            int size = Math.min(len, current.length - offset);
+            System.arraycopy(current, offset, bytes, off, size);
+            offset += size;
+            return size;
+        }
+    }
+
+}
@@ -0,0 +1,307 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+package org.dubhe.biz.file.utils;
+
+import cn.hutool.core.thread.ThreadUtil;
+import org.dubhe.biz.base.constant.MagicNumConstant;
+import org.dubhe.biz.base.exception.BusinessException;
+import org.dubhe.biz.file.dto.MinioCopyItemDTO;
+import org.dubhe.biz.file.dto.MinioTransferResultDTO;
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.utils.LogUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @description MinIO批量传输工具，服务端复制 + 有界并发 + 失败重试，另提供有界并发读取与逐项处理
+ * @date 2026-10-17
+ */
+@Component
+public class MinioTransferUtil {
+
+    @Autowired
+    private MinioUtil minioUtil;
+
+    /**
+     * 复制并发数
+     */
+    @Value("${minio.transfer.concurrency:32}")
+    private int concurrency;
+
+    /**
+     * 单个对象最大重试次数
+     */
+    @Value("${minio.transfer.max-retry:3}")
+    private int maxRetry;
+
+    /**
+     * 重试退避初始间隔（毫秒），按2的幂次递增
+     */
+    @Value("${minio.transfer.retry-backoff-millis:200}")
+    private long retryBackoffMillis;
+
+    /**
+     * 进度日志间隔（对象数）
+     */
+    @Value("${minio.transfer.progress-interval:10000}")
+    private long progressInterval;
+
+    private ThreadPoolExecutor transferExecutor;
+
+    @PostConstruct
+    public void init() {
+        transferExecutor = new ThreadPoolExecutor(concurrency, concurrency, MagicNumConstant.SIXTY, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), ThreadUtil.newNamedThreadFactory("minio-transfer-", true));
+        transferExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        transferExecutor.shutdownNow();
+    }
+
+    /**
+     * 传输监听器
+     */
+    public interface TransferListener {
+
+        /**
+         * 单个对象复制完成（成功或最终失败）
+         *
+         * @param item      复制项
+         * @param completed 已完成数量
+         * @param total     总数量
+         */
+        default void onProgress(MinioCopyItemDTO item, long completed, long total) {
+        }
+
+        /**
+         * 单个对象重试耗尽后复制失败
+         *
+         * @param item 复制项
+         * @param e    最后一次异常
+         */
+        default void onFailure(MinioCopyItemDTO item, Exception e) {
+        }
+    }
+
+    /**
+     * 同桶内将对象复制到目标文件夹下，阻塞直至全部完成
+     *
+     * @param bucketName  桶名称
+     * @param sourceFiles 源对象名称
+     * @param targetDir   目标文件夹
+     * @return MinioTransferResultDTO 复制结果
+     */
+    public MinioTransferResultDTO copyToDir(String bucketName, Collection<String> sourceFiles, String targetDir) {
+        return copy(sourceFiles.stream().map(sourceFile -> MinioCopyItemDTO.toDir(bucketName, sourceFile, targetDir))
+                .collect(Collectors.toList()), null);
+    }
+
+    /**
+     * 批量服务端复制，阻塞直至全部完成
+     *
+     * @param items 复制项
+     * @return MinioTransferResultDTO 复制结果
+     */
+    public MinioTransferResultDTO copy(List<MinioCopyItemDTO> items) {
+        return copy(items, null);
+    }
+
+    /**
+     * 批量服务端复制，阻塞直至全部完成
+     *
+     * @param items    复制项
+     * @param listener 传输监听器，可为空
+     * @return MinioTransferResultDTO 复制结果
+     */
+    public MinioTransferResultDTO copy(List<MinioCopyItemDTO> items, TransferListener listener) {
+        long startTime = System.currentTimeMillis();
+        MinioTransferResultDTO result = new MinioTransferResultDTO(items.size());
+        if (items.isEmpty()) {
+            return result;
+        }
+        //限制单次调用在途任务数，避免大批量对象一次性堆积在队列中
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong succeeded = new AtomicLong();
+        try {
+            for (MinioCopyItemDTO item : items) {
+                inFlight.acquire();
+                try {
+                    transferExecutor.execute(() -> {
+                        try {
+                            Exception e = copyWithRetry(item);
+                            if (e == null) {
+                                succeeded.incrementAndGet();
+                            } else {
+                                result.getFailedItems().add(item);
+                                LogUtil.error(LogEnum.BIZ_DATASET, "MinIO copy {} -> {} failed after {} retries, {}",
+                                        item.getSourceObject(), item.getTargetObject(), maxRetry, e);
+                                if (listener != null) {
+                                    listener.onFailure(item, e);
+                                }
+                            }
+                            long done = completed.incrementAndGet();
+                            if (listener != null) {
+                                listener.onProgress(item, done, items.size());
+                            }
+                            if (done % progressInterval == 0) {
+                                LogUtil.info(LogEnum.BIZ_DATASET, "MinIO copy progress {}/{}", done, items.size());
+                            }
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            }
+            //等待全部在途任务结束
+            inFlight.acquire(concurrency);
+            inFlight.release(concurrency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("MinIO copy interrupted");
+        }
+        result.setSucceeded(succeeded.get());
+        result.setCostMillis(System.currentTimeMillis() - startTime);
+        LogUtil.info(LogEnum.BIZ_DATASET, "MinIO copy finished, total: {}, succeeded: {}, failed: {}, cost: {}ms",
+                result.getTotal(), result.getSucceeded(), result.getFailedItems().size(), result.getCostMillis());
+        return result;
+    }
+
+    /**
+     * 有界并发读取文本对象，按输入顺序在调用线程回调，内存中至多保留一个窗口的内容
+     *
+     * @param bucketName 桶名称
+     * @param items      待读取项
+     * @param objectName 读取项对应的对象名称
+     * @param consumer   读取项、文本内容（读取失败时为null）
+     */
+    public <T> void readStrings(String bucketName, List<T> items, Function<T, String> objectName, BiConsumer<T, String> consumer) {
+        int window = concurrency * MagicNumConstant.FOUR;
+        Deque<Future<String>> pending = new ArrayDeque<>(window);
+        Iterator<T> submitting = items.iterator();
+        Iterator<T> consuming = items.iterator();
+        try {
+            while (consuming.hasNext()) {
+                while (pending.size() < window && submitting.hasNext()) {
+                    String name = objectName.apply(submitting.next());
+                    pending.addLast(transferExecutor.submit(() -> minioUtil.readString(bucketName, name)));
+                }
+                T item = consuming.next();
+                String content = null;
+                try {
+                    content = pending.removeFirst().get();
+                } catch (ExecutionException e) {
+                    LogUtil.error(LogEnum.BIZ_DATASET, "MinIO read {} failed, {}", objectName.apply(item), e.getCause());
+                }
+                consumer.accept(item, content);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("MinIO read interrupted");
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * 有界并发执行逐项操作（如读取、转换、写回），阻塞直至全部完成；单项异常仅记录日志
+     *
+     * @param items  待处理项
+     * @param action 处理操作
+     */
+    public <T> void parallelForEach(Collection<T> items, Consumer<T> action) {
+        Semaphore inFlight = new Semaphore(concurrency);
+        try {
+            for (T item : items) {
+                inFlight.acquire();
+                try {
+                    transferExecutor.execute(() -> {
+                        try {
+                            action.accept(item);
+                        } catch (Exception e) {
+                            LogUtil.error(LogEnum.BIZ_DATASET, "MinIO parallel task failed, {}", e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            }
+            inFlight.acquire(concurrency);
+            inFlight.release(concurrency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("MinIO task interrupted");
+        }
+    }
+
+    /**
+     * 带退避的单对象复制
+     *
+     * @param item 复制项
+     * @return Exception 重试耗尽后的最后一次异常，成功返回null
+     */
+    private Exception copyWithRetry(MinioCopyItemDTO item) {
+        Exception last = null;
+        for (int attempt = 0; attempt <= maxRetry; attempt++) {
+            if (attempt > 0) {
+                try {
+                    Thread.sleep(retryBackoffMillis << Math.min(attempt - 1, MagicNumConstant.TEN));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return e;
+                }
+            }
+            try {
+                minioUtil.copyObject(item.getSourceBucket(), item.getSourceObject(), item.getTargetBucket(), item.getTargetObject());
+                return null;
+            } catch (Exception e) {
+                last = e;
+                LogUtil.warn(LogEnum.BIZ_DATASET, "MinIO copy {} attempt {} failed: {}", item.getSourceObject(), attempt + 1, e.getMessage());
+            }
+        }
+        return last;
+    }
+
+}
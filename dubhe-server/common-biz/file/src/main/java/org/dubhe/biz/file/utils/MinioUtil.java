@@ -18,11 +18,15 @@
 package org.dubhe.biz.file.utils;
 
 import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.thread.ThreadUtil;
 import com.alibaba.fastjson.JSONObject;
+import io.minio.ComposeSource;
 import io.minio.CopyConditions;
+import io.minio.ErrorCode;
 import io.minio.MinioClient;
 import io.minio.PutObjectOptions;
 import io.minio.Result;
+import io.minio.errors.ErrorResponseException;
 import io.minio.errors.InvalidEndpointException;
 import io.minio.errors.InvalidPortException;
 import io.minio.messages.DeleteError;
@@ -37,10 +41,12 @@ import org.dubhe.biz.log.utils.LogUtil;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import javax.annotation.PostConstruct;
-import java.io.IOException;
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -58,8 +64,19 @@ public class MinioUtil {
     @Value("${minio.secretKey}")
     private String secretKey;
 
+    /**
+     * 流式上传分片大小，不小于5MiB
+     */
+    @Value("${minio.upload.part-size:10485760}")
+    private long uploadPartSize;
+
     private MinioClient client;
 
+    /**
+     * 流式上传线程池
+     */
+    private final ExecutorService uploadExecutor = Executors.newCachedThreadPool(ThreadUtil.newNamedThreadFactory("minio-upload-", true));
+
     @PostConstruct
     public void init() {
         try {
@@ -88,6 +105,61 @@ public class MinioUtil {
         client.putObject(bucket, fullFilePath, inputStream, options);
     }
 
+    /**
+     * 写字节内容
+     *
+     * @param bucket       桶名称
+     * @param fullFilePath 文件存储的全路径，包括文件名，非'/'开头
+     * @param content      文件内容
+     */
+    public void writeBytes(String bucket, String fullFilePath, byte[] content) throws Exception {
+        PutObjectOptions options = new PutObjectOptions(content.length, MagicNumConstant.NEGATIVE_ONE);
+        client.putObject(bucket, fullFilePath, new ByteArrayInputStream(content), options);
+    }
+
+    /**
+     * 写入长度未知的流，以分片方式上传
+     *
+     * @param bucket       桶名称
+     * @param fullFilePath 文件存储的全路径，包括文件名，非'/'开头
+     * @param inputStream  文件内容
+     */
+    public void writeStream(String bucket, String fullFilePath, InputStream inputStream) throws Exception {
+        PutObjectOptions options = new PutObjectOptions(MagicNumConstant.NEGATIVE_ONE, PutObjectOptions.MIN_MULTIPART_SIZE);
+        client.putObject(bucket, fullFilePath, inputStream, options);
+    }
+
+    /**
+     * 判断对象是否存在
+     *
+     * @param bucketName 桶
+     * @param objectName 对象名称
+     * @return boolean 是否存在
+     */
+    public boolean isExist(String bucketName, String objectName) throws Exception {
+        try {
+            client.statObject(bucketName, objectName);
+            return true;
+        } catch (ErrorResponseException e) {
+            ErrorCode errorCode = e.errorResponse().errorCode();
+            if (errorCode == ErrorCode.NO_SUCH_KEY || errorCode == ErrorCode.NO_SUCH_OBJECT) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 打开对象输出流，写入内容以分片方式流式上传，关闭时等待上传完成；写入失败时应调用abort中止
+     *
+     * @param bucket       桶名称
+     * @param fullFilePath 文件存储的全路径，包括文件名，非'/'开头
+     * @return MinioObjectOutputStream 对象输出流
+     */
+    public MinioObjectOutputStream newOutputStream(String bucket, String fullFilePath) {
+        return new MinioObjectOutputStream(client, bucket, fullFilePath, uploadPartSize, uploadExecutor);
+    }
+
     /**
      * 读取文件
      *
@@ -180,39 +252,14 @@ public class MinioUtil {
     }
 
     /**
-     * 文件夹复制
+     * 文件夹复制，逐个对象进行服务端复制，批量复制请使用 MinioTransferUtil
      *
      * @param bucketName      桶
      * @param sourceFiles 源文件
      * @param targetDir   目标文件夹
      */
     public void copyDir(String bucketName, List<String> sourceFiles, String targetDir) {
-        sourceFiles.forEach(sourceFile -> {
-            InputStream inputStream = null;
-            try {
-                String sourceObjectName = sourceFile;
-                String targetObjectName = targetDir + "/" + StringUtils.substringAfterLast(sourceObjectName, "/");
-                inputStream = client.getObject(bucketName, sourceObjectName);
-                byte[] buf = new byte[512];
-                int bytesRead;
-                int count = MagicNumConstant.ZERO;
-                while ((bytesRead = inputStream.read(buf, MagicNumConstant.ZERO, buf.length)) >= MagicNumConstant.ZERO) {
-                    count += bytesRead;
-                }
-                PutObjectOptions options = new PutObjectOptions(count, MagicNumConstant.ZERO);
-                client.putObject(bucketName, targetObjectName, client.getObject(bucketName, sourceObjectName), options);
-            } catch (Exception e) {
-                LogUtil.error(LogEnum.BIZ_DATASET, "MinIO file copy exception, {}", e);
-            } finally {
-                try {
-                    if (inputStream != null) {
-                        inputStream.close();
-                    }
-                } catch (IOException e) {
-                    LogUtil.error(LogEnum.BIZ_DATASET, "MinIO file read stream closed failed, {}", e);
-                }
-            }
-        });
+        copyObject(bucketName, sourceFiles, targetDir);
     }
 
     /**
@@ -223,17 +270,47 @@ public class MinioUtil {
      * @param targetDir     目标文件夹路径
      */
     public void copyObject(String bucketName, List<String> sourceFiles, String targetDir) {
-        CopyConditions copyConditions = new CopyConditions();
         sourceFiles.forEach(sourceFile -> {
             try {
                 String targetName = targetDir + "/" + StringUtils.substringAfterLast(sourceFile, "/");
-                client.copyObject(bucketName, targetName, null, null, bucketName, sourceFile, null, copyConditions);
+                copyObject(bucketName, sourceFile, bucketName, targetName);
             } catch (Exception e) {
                 LogUtil.error(LogEnum.BIZ_DATASET, "MinIO file copy failed, {}", e);
             }
         });
     }
 
+    /**
+     * 单个对象服务端复制，源对象超过单次复制上限（5GiB）时改用分片合并（compose）复制
+     *
+     * @param sourceBucket 源桶
+     * @param sourceObject 源对象名称
+     * @param targetBucket 目标桶
+     * @param targetObject 目标对象名称
+     * @throws Exception 复制异常
+     */
+    public void copyObject(String sourceBucket, String sourceObject, String targetBucket, String targetObject) throws Exception {
+        try {
+            client.copyObject(targetBucket, targetObject, null, null, sourceBucket, sourceObject, null, new CopyConditions());
+        } catch (ErrorResponseException e) {
+            if (!isCopySourceTooLarge(e)) {
+                throw e;
+            }
+            client.composeObject(targetBucket, targetObject,
+                    Collections.singletonList(new ComposeSource(sourceBucket, sourceObject)), null, null);
+        }
+    }
+
+    /**
+     * 判断是否因源对象超过单次复制上限导致复制失败
+     *
+     * @param e 服务端返回的异常
+     * @return boolean
+     */
+    private boolean isCopySourceTooLarge(ErrorResponseException e) {
+        return e.errorResponse().errorCode() == ErrorCode.ENTITY_TOO_LARGE;
+    }
+
     /**
      * 获取文件列表
      *
@@ -27,6 +27,7 @@ import org.dubhe.biz.base.constant.MagicNumConstant;
 import org.dubhe.biz.log.entity.LogInfo;
 import org.dubhe.biz.log.enums.LogEnum;
 import org.slf4j.MDC;
+import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 import org.slf4j.helpers.MessageFormatter;
 
@@ -58,6 +59,22 @@ public class LogUtil {
 
     private static final String ERROR_LEVEL = "ERROR";
 
+    private static final Marker TRACE_MARKER = MarkerFactory.getMarker(TRACE_LEVEL);
+
+    private static final Marker DEBUG_MARKER = MarkerFactory.getMarker(DEBUG_LEVEL);
+
+    private static final Marker GLOBAL_REQUEST_MARKER = MarkerFactory.getMarker(GLOBAL_REQUEST_LEVEL);
+
+    private static final Marker SCHEDULE_MARKER = MarkerFactory.getMarker(SCHEDULE_LEVEL);
+
+    private static final Marker K8S_CALLBACK_MARKER = MarkerFactory.getMarker(K8S_CALLBACK_LEVEL);
+
+    private static final Marker INFO_MARKER = MarkerFactory.getMarker(INFO_LEVEL);
+
+    private static final Marker WARN_MARKER = MarkerFactory.getMarker(WARN_LEVEL);
+
+    private static final Marker ERROR_MARKER = MarkerFactory.getMarker(ERROR_LEVEL);
+
 
     public static void startScheduleTrace() {
         MDC.put(TRACE_TYPE, SCHEDULE_LEVEL);
@@ -131,6 +148,7 @@ public class LogUtil {
 
     /**
      * 日志处理
+     * 先按最终日志级别判断是否输出，未开启的级别不再获取堆栈、生成traceId及序列化日志对象
      *
      * @param logType 日志类型
      * @param level   日志级别
@@ -139,41 +157,100 @@ public class LogUtil {
      */
     private static void logHandle(LogEnum logType, Level level, Object[] object) {
 
+        String logLevel = LogEnum.isLogType(logType) ? getLogLevel(logType, level) : ERROR_LEVEL;
+        if (!isEnabled(logLevel)) {
+            return;
+        }
+
         LogInfo logInfo = generateLogInfo(logType, level, object);
 
         switch (logInfo.getLevel()) {
             case TRACE_LEVEL:
-                log.trace(MarkerFactory.getMarker(TRACE_LEVEL), logJsonStringLengthLimit(logInfo));
+                log.trace(TRACE_MARKER, logJsonStringLengthLimit(logInfo));
                 break;
             case DEBUG_LEVEL:
-                log.debug(MarkerFactory.getMarker(DEBUG_LEVEL), logJsonStringLengthLimit(logInfo));
+                log.debug(DEBUG_MARKER, logJsonStringLengthLimit(logInfo));
                 break;
             case GLOBAL_REQUEST_LEVEL:
                 logInfo.setLevel(null);
                 logInfo.setType(null);
                 logInfo.setLocation(null);
-                log.info(MarkerFactory.getMarker(GLOBAL_REQUEST_LEVEL), logJsonStringLengthLimit(logInfo));
+                log.info(GLOBAL_REQUEST_MARKER, logJsonStringLengthLimit(logInfo));
                 break;
             case SCHEDULE_LEVEL:
-                log.info(MarkerFactory.getMarker(SCHEDULE_LEVEL), logJsonStringLengthLimit(logInfo));
+                log.info(SCHEDULE_MARKER, logJsonStringLengthLimit(logInfo));
                 break;
             case K8S_CALLBACK_LEVEL:
-                log.info(MarkerFactory.getMarker(K8S_CALLBACK_LEVEL), logJsonStringLengthLimit(logInfo));
+                log.info(K8S_CALLBACK_MARKER, logJsonStringLengthLimit(logInfo));
                 break;
             case INFO_LEVEL:
-                log.info(MarkerFactory.getMarker(INFO_LEVEL), logJsonStringLengthLimit(logInfo));
+                log.info(INFO_MARKER, logJsonStringLengthLimit(logInfo));
                 break;
             case WARN_LEVEL:
-                log.warn(MarkerFactory.getMarker(WARN_LEVEL), logJsonStringLengthLimit(logInfo));
+                log.warn(WARN_MARKER, logJsonStringLengthLimit(logInfo));
                 break;
             case ERROR_LEVEL:
-                log.error(MarkerFactory.getMarker(ERROR_LEVEL), logJsonStringLengthLimit(logInfo));
+                log.error(ERROR_MARKER, logJsonStringLengthLimit(logInfo));
                 break;
             default:
         }
 
     }
 
+    /**
+     * 判断日志级别是否开启
+     *
+     * @param logLevel 自定义日志级别
+     * @return boolean
+     */
+    private static boolean isEnabled(String logLevel) {
+        switch (logLevel) {
+            case TRACE_LEVEL:
+                return log.isTraceEnabled(TRACE_MARKER);
+            case DEBUG_LEVEL:
+                return log.isDebugEnabled(DEBUG_MARKER);
+            case GLOBAL_REQUEST_LEVEL:
+                return log.isInfoEnabled(GLOBAL_REQUEST_MARKER);
+            case SCHEDULE_LEVEL:
+                return log.isInfoEnabled(SCHEDULE_MARKER);
+            case K8S_CALLBACK_LEVEL:
+                return log.isInfoEnabled(K8S_CALLBACK_MARKER);
+            case INFO_LEVEL:
+                return log.isInfoEnabled(INFO_MARKER);
+            case WARN_LEVEL:
+                return log.isWarnEnabled(WARN_MARKER);
+            case ERROR_LEVEL:
+                return log.isErrorEnabled(ERROR_MARKER);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 获取自定义日志级别
+     * LogEnum、 MDC中的 TRACE_TYPE 做日志分流标识
+     *
+     * @param logType 日志类型
+     * @param level   日志级别
+     * @return String
+     */
+    private static String getLogLevel(LogEnum logType, Level level) {
+        if (Level.INFO.toInt() == level.toInt()) {
+            if (LogEnum.GLOBAL_REQ.equals(logType)) {
+                //info全局请求
+                return GLOBAL_REQUEST_LEVEL;
+            } else if (LogEnum.BIZ_K8S.equals(logType)) {
+                return K8S_CALLBACK_LEVEL;
+            } else {
+                //schedule定时等 链路记录
+                String traceType = MDC.get(TRACE_TYPE);
+                if (StringUtils.isNotBlank(traceType)) {
+                    return traceType;
+                }
+            }
+        }
+        return level.levelStr;
+    }
 
     /**
      * 日志信息组装的内部方法
@@ -200,28 +277,10 @@ public class LogUtil {
             MDC.put(LogAspect.TRACE_ID, UUID.randomUUID().toString());
         }
         // 设置logInfo的level,type,traceId属性
-        logInfo.setLevel(level.levelStr)
+        logInfo.setLevel(getLogLevel(logType, level))
                 .setType(logType.toString())
                 .setTraceId(MDC.get(LogAspect.TRACE_ID));
 
-
-        //自定义日志级别
-        //LogEnum、 MDC中的 TRACE_TYPE 做日志分流标识
-        if (Level.INFO.toInt() == level.toInt()) {
-            if (LogEnum.GLOBAL_REQ.equals(logType)) {
-                //info全局请求
-                logInfo.setLevel(GLOBAL_REQUEST_LEVEL);
-            } else if (LogEnum.BIZ_K8S.equals(logType)) {
-                logInfo.setLevel(K8S_CALLBACK_LEVEL);
-            } else {
-                //schedule定时等 链路记录
-                String traceType = MDC.get(TRACE_TYPE);
-                if (StringUtils.isNotBlank(traceType)) {
-                    logInfo.setLevel(traceType);
-                }
-            }
-        }
-
         // 设置logInfo的堆栈信息
         setLogStackInfo(logInfo);
         // 设置logInfo的info信息
@@ -237,9 +296,10 @@ public class LogUtil {
      * @return void
      */
     private static void setLogStackInfo(LogInfo logInfo) {
-        StackTraceElement[] elements = Thread.currentThread().getStackTrace();
-        if (elements.length >= MagicNumConstant.SIX) {
-            StackTraceElement element = elements[MagicNumConstant.FIVE];
+        // 栈帧依次为 setLogStackInfo、generateLogInfo、logHandle、info等入口方法、调用方
+        StackTraceElement[] elements = new Throwable().getStackTrace();
+        if (elements.length >= MagicNumConstant.FIVE) {
+            StackTraceElement element = elements[MagicNumConstant.FOUR];
             logInfo.setLocation(String.format("%s#%s:%s", element.getClassName(), element.getMethodName(), element.getLineNumber()));
         }
     }
@@ -303,6 +363,9 @@ public class LogUtil {
      */
     private static void errorObjectHandle(Object[] object) {
 
+        if (!log.isErrorEnabled()) {
+            return;
+        }
         if (object.length == MagicNumConstant.TWO && object[MagicNumConstant.ONE] instanceof Exception) {
             log.error(String.valueOf(object[MagicNumConstant.ZERO]), (Exception) object[MagicNumConstant.ONE]);
             object[MagicNumConstant.ONE] = ExceptionUtils.getStackTrace((Exception) object[MagicNumConstant.ONE]);
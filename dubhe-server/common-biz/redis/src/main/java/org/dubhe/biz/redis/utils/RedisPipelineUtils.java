@@ -0,0 +1,84 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.biz.redis.utils;
+
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * @description redis管道批量写入工具类
+ * 命令通过管道连接批量发送，按批次刷新，避免单条命令逐次往返以及大批量命令占用过多内存
+ * @date 2026-10-17
+ */
+@Component
+public class RedisPipelineUtils {
+
+    /**
+     * 默认每批发送的数据条数
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private RedisTemplate<Object, Object> redisTemplate;
+
+    public RedisPipelineUtils(RedisTemplate<Object, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 管道批量写入
+     *
+     * @param items  数据
+     * @param writer 单条数据的写入逻辑
+     */
+    public <T> void execute(Collection<T> items, BiConsumer<RedisPipelineWriter, T> writer) {
+        execute(items, DEFAULT_BATCH_SIZE, writer);
+    }
+
+    /**
+     * 管道批量写入
+     *
+     * @param items     数据
+     * @param batchSize 每批发送的数据条数
+     * @param writer    单条数据的写入逻辑
+     */
+    public <T> void execute(Collection<T> items, int batchSize, BiConsumer<RedisPipelineWriter, T> writer) {
+        if (CollectionUtils.isEmpty(items)) {
+            return;
+        }
+        List<T> list = items instanceof List ? (List<T>) items : new ArrayList<>(items);
+        int size = Math.max(batchSize, 1);
+        for (int from = 0; from < list.size(); from += size) {
+            List<T> batch = list.subList(from, Math.min(from + size, list.size()));
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                RedisPipelineWriter pipelineWriter = new RedisPipelineWriter(connection, redisTemplate.getKeySerializer(),
+                        redisTemplate.getValueSerializer(), redisTemplate.getHashKeySerializer(), redisTemplate.getHashValueSerializer());
+                for (T item : batch) {
+                    writer.accept(pipelineWriter, item);
+                }
+                return null;
+            });
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.biz.redis.utils;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description redis管道写入器，命令直接写入管道所在连接，序列化方式与RedisTemplate一致
+ * @date 2026-10-17
+ */
+@SuppressWarnings("unchecked")
+public class RedisPipelineWriter {
+
+    private final RedisConnection connection;
+
+    private final RedisSerializer<Object> keySerializer;
+
+    private final RedisSerializer<Object> valueSerializer;
+
+    private final RedisSerializer<Object> hashKeySerializer;
+
+    private final RedisSerializer<Object> hashValueSerializer;
+
+    RedisPipelineWriter(RedisConnection connection, RedisSerializer<?> keySerializer, RedisSerializer<?> valueSerializer,
+                        RedisSerializer<?> hashKeySerializer, RedisSerializer<?> hashValueSerializer) {
+        this.connection = connection;
+        this.keySerializer = (RedisSerializer<Object>) keySerializer;
+        this.valueSerializer = (RedisSerializer<Object>) valueSerializer;
+        this.hashKeySerializer = (RedisSerializer<Object>) hashKeySerializer;
+        this.hashValueSerializer = (RedisSerializer<Object>) hashValueSerializer;
+    }
+
+    /**
+     * 普通缓存放入
+     *
+     * @param key   键
+     * @param value 值
+     */
+    public void set(Object key, Object value) {
+        connection.set(keySerializer.serialize(key), valueSerializer.serialize(value));
+    }
+
+    /**
+     * 普通缓存放入并设置时间
+     *
+     * @param key   键
+     * @param value 值
+     * @param time  时间(秒)
+     */
+    public void set(Object key, Object value, long time) {
+        connection.set(keySerializer.serialize(key), valueSerializer.serialize(value),
+                Expiration.from(time, TimeUnit.SECONDS), RedisStringCommands.SetOption.UPSERT);
+    }
+
+    /**
+     * 添加zSet成员
+     *
+     * @param key   键
+     * @param score 分数
+     * @param value 成员
+     */
+    public void zAdd(Object key, double score, Object value) {
+        connection.zAdd(keySerializer.serialize(key), score, valueSerializer.serialize(value));
+    }
+
+    /**
+     * 向hash表中放入数据
+     *
+     * @param key   键
+     * @param item  项
+     * @param value 值
+     */
+    public void hSet(Object key, Object item, Object value) {
+        connection.hSet(keySerializer.serialize(key), hashKeySerializer.serialize(item), hashValueSerializer.serialize(value));
+    }
+
+    /**
+     * 删除缓存
+     *
+     * @param key 键
+     */
+    public void del(Object key) {
+        connection.del(keySerializer.serialize(key));
+    }
+
+    /**
+     * 指定缓存失效时间
+     *
+     * @param key  键
+     * @param time 时间(秒)
+     */
+    public void expire(Object key, long time) {
+        connection.expire(keySerializer.serialize(key), time);
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.biz.redis.utils;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @description redis lua脚本缓存
+ * 脚本内容只读取一次并缓存SHA1，RedisTemplate执行时优先使用EVALSHA，redis返回NOSCRIPT时自动回退为EVAL
+ * @date 2026-10-17
+ */
+@SuppressWarnings("unchecked")
+public class RedisScriptUtils {
+
+    private static final ConcurrentMap<String, RedisScript<?>> SCRIPTS = new ConcurrentHashMap<>();
+
+    private RedisScriptUtils() {
+
+    }
+
+    /**
+     * 获取classpath下的lua脚本
+     *
+     * @param location   脚本路径
+     * @param resultType 返回值类型
+     * @return 脚本
+     */
+    public static <T> RedisScript<T> fromClassPath(String location, Class<T> resultType) {
+        return (RedisScript<T>) SCRIPTS.computeIfAbsent(location + "@" + resultType.getName(),
+                key -> new DefaultRedisScript<>(readClassPath(location), resultType));
+    }
+
+    /**
+     * 获取脚本字符串对应的lua脚本
+     *
+     * @param script     脚本内容
+     * @param resultType 返回值类型
+     * @return 脚本
+     */
+    public static <T> RedisScript<T> fromText(String script, Class<T> resultType) {
+        return (RedisScript<T>) SCRIPTS.computeIfAbsent(script + "@" + resultType.getName(),
+                key -> new DefaultRedisScript<>(script, resultType));
+    }
+
+    private static String readClassPath(String location) {
+        try (InputStream inputStream = new ClassPathResource(location).getInputStream()) {
+            return StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("read redis script " + location + " error", e);
+        }
+    }
+}
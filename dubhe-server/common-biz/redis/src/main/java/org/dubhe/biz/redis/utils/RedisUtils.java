@@ -25,7 +25,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.*;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.stereotype.Component;
@@ -188,7 +187,7 @@ public class RedisUtils {
      */
     public Object executeRedisScript(String script, String key, Object... args) {
         try {
-            RedisScript<Long> redisScript = new DefaultRedisScript<>(script, Long.class);
+            RedisScript<Long> redisScript = RedisScriptUtils.fromText(script, Long.class);
             redisTemplate.setValueSerializer(new Jackson2JsonRedisSerializer<>(Object.class));
             return redisTemplate.execute(redisScript, Collections.singletonList(key), args);
         } catch (Exception e) {
@@ -206,7 +205,7 @@ public class RedisUtils {
      */
     public Object executeRedisObjectScript(String script, String key, Object... args) {
         try {
-            RedisScript<Object> redisScript = new DefaultRedisScript<>(script, Object.class);
+            RedisScript<Object> redisScript = RedisScriptUtils.fromText(script, Object.class);
             redisTemplate.setValueSerializer(new Jackson2JsonRedisSerializer<>(Object.class));
             return redisTemplate.execute(redisScript, Collections.singletonList(key), args);
         } catch (Exception e) {
@@ -710,6 +709,24 @@ public class RedisUtils {
         }
     }
 
+    /**
+     * 根据 key 和 member 移除元素并返回移除数量，可用于多实例间抢占同一成员
+     * @param key 健
+     * @param member 成员
+     * @return Long 移除数量，异常时返回null
+     */
+    public Long zRemCount(String key,Object member){
+        try{
+            if (StringUtils.isEmpty(key) || null == member){
+                return 0L;
+            }
+            return redisTemplate.opsForZSet().remove(key,member);
+        }catch (Exception e){
+            LogUtil.error(LogEnum.REDIS, "RedisUtils zRemCount key {} member {} error:{}", key, member, e);
+            return null;
+        }
+    }
+
     // ===============================list=================================
 
     /**
@@ -901,4 +918,23 @@ public class RedisUtils {
             return 0L;
         }
     }
+
+    // ============================pub/sub=============================
+
+    /**
+     * 向频道发布消息
+     *
+     * @param channel 频道
+     * @param message 消息
+     * @return true成功 false失败
+     */
+    public boolean publish(String channel, Object message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+            return true;
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.REDIS, "RedisUtils publish channel {} error:{}", channel, e);
+            return false;
+        }
+    }
 }
@@ -23,14 +23,20 @@ import org.dubhe.biz.statemachine.dto.StateChangeDTO;
 import org.dubhe.biz.base.utils.SpringContextHolder;
 import org.dubhe.biz.statemachine.exception.StateMachineException;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ReflectionUtils;
-import org.apache.poi.ss.formula.functions.T;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @description 代理执行状态机
@@ -39,6 +45,11 @@ import java.util.List;
 @Component
 public class StateMachineProxyUtil {
 
+    /**
+     * 全局状态机类 -> 状态机类型 -> 状态机事件分发表，首次切换时编译，之后不再反射查找
+     */
+    private static final Map<Class<?>, Map<String, StateMachineDispatcher>> DISPATCHERS = new ConcurrentHashMap<>();
+
     /**
      * 代理执行单个状态机的状态切换
      *
@@ -47,27 +58,29 @@ public class StateMachineProxyUtil {
      */
     public static void proxyExecutionSingleState(StateChangeDTO stateChangeDTO, Object objectService) {
         checkSingleParam(stateChangeDTO);
-        //获取全局状态机中的指定状态机
-        Field field = ReflectionUtils.findField(objectService.getClass(), stateChangeDTO.getStateMachineType());
-        if (field == null) {
-            throw new StateMachineException("The specified state machine was not found in the global state machine");
-        }
-        //获取需要执行的状态机对象
-        Object stateMachineObject = SpringContextHolder.getBean(field.getName());
-        try {
-            //获取目标执行方法的参数类型
-            List<Class<T>> paramTypesList = getMethodParamTypes(stateMachineObject, stateChangeDTO.getEventMethodName());
-            //构造目标执行方法
-            Method method = ReflectionUtils.findMethod(stateMachineObject.getClass(), stateChangeDTO.getEventMethodName(), paramTypesList.toArray(new Class[paramTypesList.size()]));
-            if (stateChangeDTO.getObjectParam().length != paramTypesList.size()) {
-                LogUtil.error(LogEnum.STATE_MACHINE, "Target execution method parameters {} Inconsistent with the number of incoming {}  ", paramTypesList.size(), stateChangeDTO.getObjectParam().length);
-            } else {
-                ReflectionUtils.invokeMethod(method, stateMachineObject, stateChangeDTO.getObjectParam());
+        getDispatcher(stateChangeDTO.getStateMachineType(), objectService).dispatch(stateChangeDTO);
+    }
+
+    /**
+     * 获取状态机事件分发表
+     *
+     * @param stateMachineType 状态机类型
+     * @param objectService    服务类
+     * @return StateMachineDispatcher 状态机事件分发表
+     */
+    private static StateMachineDispatcher getDispatcher(String stateMachineType, Object objectService) {
+        Map<String, StateMachineDispatcher> dispatchers = DISPATCHERS.computeIfAbsent(ClassUtils.getUserClass(objectService), key -> new ConcurrentHashMap<>());
+        StateMachineDispatcher dispatcher = dispatchers.get(stateMachineType);
+        if (dispatcher == null) {
+            //获取全局状态机中的指定状态机
+            Field field = ReflectionUtils.findField(objectService.getClass(), stateMachineType);
+            if (field == null) {
+                throw new StateMachineException("The specified state machine was not found in the global state machine");
             }
-        } catch (ClassNotFoundException e) {
-            LogUtil.error(LogEnum.STATE_MACHINE, "The specified class was not found {} ", e);
-            throw new StateMachineException("The specified class was not found");
+            //获取需要执行的状态机对象并编译其事件方法
+            dispatcher = dispatchers.computeIfAbsent(stateMachineType, key -> new StateMachineDispatcher(SpringContextHolder.getBean(field.getName())));
         }
+        return dispatcher;
     }
 
     /**
@@ -78,8 +91,14 @@ public class StateMachineProxyUtil {
      */
     public static void proxyExecutionRelationState(List<StateChangeDTO> stateChangeDTOList,Object objectService) {
         if (!CollectionUtils.isEmpty(stateChangeDTOList)) {
+            //先校验并解析全部切换的事件方法，避免部分状态机已切换后才发现方法名或参数个数错误
+            List<MethodHandle> handles = new ArrayList<>(stateChangeDTOList.size());
             for (StateChangeDTO stateChangeDTO : stateChangeDTOList) {
-                proxyExecutionSingleState(stateChangeDTO,objectService);
+                checkSingleParam(stateChangeDTO);
+                handles.add(getDispatcher(stateChangeDTO.getStateMachineType(), objectService).resolve(stateChangeDTO));
+            }
+            for (int i = 0; i < stateChangeDTOList.size(); i++) {
+                StateMachineDispatcher.invoke(handles.get(i), stateChangeDTOList.get(i));
             }
         }
     }
@@ -99,26 +118,84 @@ public class StateMachineProxyUtil {
     }
 
     /**
-     * 根据方法名获取所有参数的类型
-     *
-     * @param classInstance 类实例
-     * @param methodName    方法名
-     * @return List<Class<T>> 对象集合
-     * @throws ClassNotFoundException
+     * 状态机事件分发表，事件方法按(方法名, 参数个数)预先绑定到状态机对象
      */
-    public static List<Class<T>> getMethodParamTypes(Object classInstance, String methodName) throws ClassNotFoundException {
-        List<Class<T>> paramTypes = new ArrayList<>();
-        Method[] methods = classInstance.getClass().getMethods();
-        for (Method method : methods) {
-            if (method.getName().equals(methodName)) {
-                Class<?>[] params = method.getParameterTypes();
-                for (Class<?> classParamType : params) {
-                    paramTypes.addAll(Collections.singleton((Class<T>) Class.forName(classParamType.getName())));
+    private static class StateMachineDispatcher {
+
+        /**
+         * 方法名 -> 参数个数 -> 以Object[]为参数的方法句柄
+         */
+        private final Map<String, Map<Integer, MethodHandle>> handles = new HashMap<>();
+
+        private final String stateMachineName;
+
+        StateMachineDispatcher(Object stateMachineObject) {
+            this.stateMachineName = stateMachineObject.getClass().getSimpleName();
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            for (Method method : stateMachineObject.getClass().getMethods()) {
+                if (method.getDeclaringClass() == Object.class || method.isBridge()) {
+                    continue;
+                }
+                int arity = method.getParameterCount();
+                try {
+                    MethodHandle handle = lookup.unreflect(method).bindTo(stateMachineObject)
+                            .asType(MethodType.genericMethodType(arity))
+                            .asSpreader(Object[].class, arity);
+                    handles.computeIfAbsent(method.getName(), key -> new HashMap<>()).putIfAbsent(arity, handle);
+                } catch (IllegalAccessException e) {
+                    LogUtil.warn(LogEnum.STATE_MACHINE, "State machine {} method {} is not accessible: {}", stateMachineName, method.getName(), e.getMessage());
                 }
-                break;
             }
         }
-        return paramTypes;
+
+        /**
+         * 执行状态切换事件
+         *
+         * @param stateChangeDTO 状态切换信息
+         */
+        void dispatch(StateChangeDTO stateChangeDTO) {
+            invoke(resolve(stateChangeDTO), stateChangeDTO);
+        }
+
+        /**
+         * 按事件方法名及参数个数查找方法句柄
+         *
+         * @param stateChangeDTO 状态切换信息
+         * @return MethodHandle 以Object[]为参数的方法句柄
+         */
+        MethodHandle resolve(StateChangeDTO stateChangeDTO) {
+            Map<Integer, MethodHandle> methods = handles.get(stateChangeDTO.getEventMethodName());
+            if (methods == null) {
+                throw new StateMachineException("The specified event method was not found");
+            }
+            int arity = params(stateChangeDTO).length;
+            MethodHandle handle = methods.get(arity);
+            if (handle == null) {
+                LogUtil.error(LogEnum.STATE_MACHINE, "Target execution method parameters {} Inconsistent with the number of incoming {}  ", methods.keySet(), arity);
+                throw new StateMachineException("The number of event method parameters is inconsistent");
+            }
+            return handle;
+        }
+
+        /**
+         * 执行已解析的事件方法
+         *
+         * @param handle 方法句柄
+         * @param stateChangeDTO 状态切换信息
+         */
+        static void invoke(MethodHandle handle, StateChangeDTO stateChangeDTO) {
+            try {
+                Object ignored = handle.invokeExact(params(stateChangeDTO));
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        }
+
+        private static Object[] params(StateChangeDTO stateChangeDTO) {
+            return stateChangeDTO.getObjectParam() == null ? new Object[0] : stateChangeDTO.getObjectParam();
+        }
     }
 
 }
@@ -57,6 +57,15 @@ public interface LogMonitoringApi {
      */
     LogMonitoringVO searchLogByResName(int from, int size, LogMonitoringBO logMonitoringBo);
 
+    /**
+     * 游标日志查询方法，一次查询资源下所有Pod的日志，返回游标之后的日志
+     *
+     * @param size 日志查询记录数
+     * @param logMonitoringBo 日志查询bo，searchAfter为空时从第一条日志开始查询
+     * @return LogMonitoringVO 日志查询结果类，cursor为最后一条日志的游标，无新日志时为传入的游标
+     */
+    LogMonitoringVO searchLogAfter(int size, LogMonitoringBO logMonitoringBo);
+
     /**
      * 日志查询方法
      *
@@ -18,6 +18,7 @@
 package org.dubhe.k8s.api.impl;
 
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
 import io.fabric8.kubernetes.api.model.DoneablePod;
@@ -34,16 +35,13 @@ import org.dubhe.k8s.api.LogMonitoringApi;
 import org.dubhe.k8s.cache.ResourceCache;
 import org.dubhe.k8s.domain.bo.LogMonitoringBO;
 import org.dubhe.k8s.domain.vo.LogMonitoringVO;
+import org.dubhe.k8s.utils.EsBulkLogWriter;
 import org.dubhe.k8s.utils.K8sUtils;
-import org.elasticsearch.action.bulk.BulkRequest;
-import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.client.indices.CreateIndexRequest;
-import org.elasticsearch.client.indices.CreateIndexResponse;
-import org.elasticsearch.client.indices.GetIndexRequest;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.Operator;
@@ -51,9 +49,12 @@ import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+
+import javax.annotation.PostConstruct;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -79,6 +80,9 @@ public class LogMonitoringApiImpl implements LogMonitoringApi {
     @Autowired
     private ResourceCache resourceCache;
 
+    @Autowired
+    private EsBulkLogWriter esBulkLogWriter;
+
     private KubernetesClient kubernetesClient;
     private static final String INDEX_NAME = "kubelogs";
     private static final String TADL_INDEX_NAME = "tadllogs";
@@ -86,6 +90,7 @@ public class LogMonitoringApiImpl implements LogMonitoringApi {
     private static final String INDEX_REPLICAS_NUMBER = "index.number_of_replicas";
     private static final String TYPE = "type";
     private static final String TEXT = "text";
+    private static final String KEYWORD = "keyword";
     private static final String DATE = "date";
     private static final String PROPERTIES = "properties";
     private static final String EXPERIMENT_ID = "experimentId";
@@ -94,6 +99,26 @@ public class LogMonitoringApiImpl implements LogMonitoringApi {
     private static final String NAMESPACE_KEY = "kubernetes.namespace_name.keyword";
     private static final String NAMESPACE = "kubernetes.namespace_name";
     private static final String TIMESTAMP = "@timestamp";
+    /**
+     * 日志唯一标识，由EsBulkLogWriter写入，作为排序的唯一依据
+     */
+    private static final String LOG_ID_KEY = EsBulkLogWriter.LOG_ID + ".keyword";
+    /**
+     * 索引内文档顺序，仅用于区分无log_id的日志（如采集器写入的日志），须配合游标中的preference固定分片副本
+     */
+    private static final String DOC_ORDER = "_doc";
+    /**
+     * search_after游标中的排序值个数（时间戳、Pod名称、日志标识、文档顺序）
+     */
+    private static final int CURSOR_SORT_SIZE = 4;
+    /**
+     * 游标中的排序值
+     */
+    private static final String CURSOR_SORT_VALUES = "sortValues";
+    /**
+     * 游标中的查询偏好，同一游标链的查询路由到相同分片副本
+     */
+    private static final String CURSOR_PREFERENCE = "preference";
     private static final String MESSAGE = "log";
     private static final String LOG_PREFIX = "[Dubhe Service Log] ";
     private static final String INDEX_FORMAT = "yyyy.MM.dd";
@@ -108,6 +133,32 @@ public class LogMonitoringApiImpl implements LogMonitoringApi {
         this.kubernetesClient = k8sUtils.getClient();
     }
 
+    /**
+     * 注册 TADL 日志索引，首次写入前不存在则创建
+     */
+    @PostConstruct
+    public void registerTadlIndex() {
+        CreateIndexRequest createIndexRequest = new CreateIndexRequest(TADL_INDEX_NAME);
+        createIndexRequest.settings(Settings.builder()
+                .put(INDEX_SHARDS_NUMBER, 3)
+                .put(INDEX_REPLICAS_NUMBER, 2)
+        );
+        Map<String, String> timestampMapping = new HashMap<>();
+        timestampMapping.put(TYPE, DATE);
+        Map<String, String> logMapping = new HashMap<>();
+        logMapping.put(TYPE, TEXT);
+        Map<String, String> experimentIdMapping = new HashMap<>();
+        experimentIdMapping.put(TYPE, TEXT);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(TIMESTAMP,timestampMapping);
+        properties.put(EXPERIMENT_ID,experimentIdMapping);
+        properties.put(MESSAGE,logMapping);
+        Map<String, Object> mapping = new HashMap<>();
+        mapping.put(PROPERTIES, properties);
+        createIndexRequest.mapping(mapping);
+        esBulkLogWriter.registerIndex(TADL_INDEX_NAME, createIndexRequest);
+    }
+
 
     /**
      * 添加Pod日志到ES,无日志参数，默认从k8s集群查询日志添加到ES
@@ -138,45 +189,34 @@ public class LogMonitoringApiImpl implements LogMonitoringApi {
     }
 
     /**
-     * 添加Pod自定义日志到ES
+     * 添加Pod自定义日志到ES，日志进入异步写入队列后即返回
      *
      * @param podName Pod名称
      * @param namespace 命名空间
      * @param logList 日志信息
-     * @return boolean 日志添加是否成功
+     * @return boolean 日志是否全部进入写入队列
      */
     @Override
     public boolean addLogsToEs(String podName, String namespace, List<String> logList) {
-        Date date = new Date();
-        SimpleDateFormat indexFormat = new SimpleDateFormat(INDEX_FORMAT);
-        String timestamp = TimeTransferUtil.dateTransferToUtc(date);
-        BulkRequest bulkRequest = new BulkRequest();
-        try {
-            for (int i = 0; i < logList.size(); i++) {
-                /**准备日志json数据**/
-                String logString = logList.get(i);
-                LinkedHashMap<String, Object> jsonMap = new LinkedHashMap() {{
-                    put(POD_NAME, podName);
-                    put(NAMESPACE, namespace);
-                    put(MESSAGE, logString);
-                    put(TIMESTAMP, timestamp);
-                }};
-
-                /**添加索引创建对象到bulkRequest**/
-                bulkRequest.add(new IndexRequest(INDEX_NAME).source(jsonMap));
-            }
-
-            /**通过restHighLevelClient发送http的请求批量创建文档**/
-            restHighLevelClient.bulk(bulkRequest, RequestOptions.DEFAULT);
-        } catch (Exception e) {
-            LogUtil.error(LogEnum.BIZ_K8S, "LogMonitoringApi.addLogsToEs error:{}", e);
-            return false;
+        String timestamp = TimeTransferUtil.dateTransferToUtc(new Date());
+        boolean accepted = true;
+        for (String logString : logList) {
+            /**准备日志json数据**/
+            LinkedHashMap<String, Object> jsonMap = new LinkedHashMap<>();
+            jsonMap.put(POD_NAME, podName);
+            jsonMap.put(NAMESPACE, namespace);
+            jsonMap.put(MESSAGE, logString);
+            jsonMap.put(TIMESTAMP, timestamp);
+            accepted &= esBulkLogWriter.write(INDEX_NAME, jsonMap);
         }
-        return true;
+        if (!accepted) {
+            LogUtil.warn(LogEnum.BIZ_K8S, "LogMonitoringApi.addLogsToEs dropped logs of pod {}/{}: write queue is full", namespace, podName);
+        }
+        return accepted;
     }
 
     /**
-     * 日志查询方法
+     * 日志查询方法，资源下所有Pod的日志按时间合并后分页
      *
      * @param from 日志查询起始值，初始值为1，表示从第一条日志记录开始查询
      * @param size 日志查询记录数
@@ -185,35 +225,49 @@ public class LogMonitoringApiImpl implements LogMonitoringApi {
      */
     @Override
     public LogMonitoringVO searchLogByResName(int from, int size, LogMonitoringBO logMonitoringBo) {
-        List<String> logList = new ArrayList<>();
-        LogMonitoringVO logMonitoringResult = new LogMonitoringVO(ZERO, logList);
-        String namespace = logMonitoringBo.getNamespace();
-        String resourceName = logMonitoringBo.getResourceName();
-        if (StringUtils.isBlank(resourceName) || StringUtils.isBlank(namespace)) {
-            LogUtil.error(LogEnum.BIZ_K8S, "LogMonitoringApiImpl.searchLogByResName error: param [resourceName] and [namespace] are required");
+        LogMonitoringVO logMonitoringResult = new LogMonitoringVO(ZERO, new ArrayList<>());
+        if (!fillResourcePodNames(logMonitoringBo)) {
             return logMonitoringResult;
         }
+        return searchResourceLogInfoByEs(from, size, logMonitoringBo);
+    }
 
-        Set<String> podNameSet = resourceCache.getPodNameByResourceName(logMonitoringBo.getNamespace(), logMonitoringBo.getResourceName());
-
-        if (CollectionUtils.isEmpty(podNameSet)) {
+    /**
+     * 游标日志查询方法，一次查询资源下所有Pod的日志，返回游标之后的日志
+     *
+     * @param size 日志查询记录数
+     * @param logMonitoringBo 日志查询bo，searchAfter为空时从第一条日志开始查询
+     * @return LogMonitoringVO 日志查询结果类，cursor为最后一条日志的游标，无新日志时为传入的游标
+     */
+    @Override
+    public LogMonitoringVO searchLogAfter(int size, LogMonitoringBO logMonitoringBo) {
+        LogMonitoringVO logMonitoringResult = new LogMonitoringVO(ZERO, new ArrayList<>());
+        logMonitoringResult.setCursor(logMonitoringBo.getSearchAfter());
+        if (CollectionUtils.isEmpty(logMonitoringBo.getPodNames()) && !fillResourcePodNames(logMonitoringBo)) {
             return logMonitoringResult;
         }
-        /**遍历podNameSet,根据podName查询日志信息**/
-        for (String podName : podNameSet) {
-            logMonitoringBo.setPodName(podName);
-
-            /**查询ES存储的日志信息**/
-            List<String> logs = searchLogInfoByEs(from, size, logMonitoringBo);
+        return searchResourceLogInfoByEs(null, size, logMonitoringBo);
+    }
 
-            if (!CollectionUtils.isEmpty(logs)) {
-                logList.addAll(MagicNumConstant.ZERO, logs);
-            }
+    /**
+     * 根据资源名称填充查询的Pod名称集合
+     *
+     * @param logMonitoringBo 日志查询bo
+     * @return boolean 资源下是否有Pod
+     */
+    private boolean fillResourcePodNames(LogMonitoringBO logMonitoringBo) {
+        String namespace = logMonitoringBo.getNamespace();
+        String resourceName = logMonitoringBo.getResourceName();
+        if (StringUtils.isBlank(resourceName) || StringUtils.isBlank(namespace)) {
+            LogUtil.error(LogEnum.BIZ_K8S, "LogMonitoringApiImpl.fillResourcePodNames error: param [resourceName] and [namespace] are required");
+            return false;
         }
-
-        logMonitoringResult.setLogs(logList);
-        logMonitoringResult.setTotalLogs(logList.size());
-        return logMonitoringResult;
+        Set<String> podNameSet = resourceCache.getPodNameByResourceName(namespace, resourceName);
+        if (CollectionUtils.isEmpty(podNameSet)) {
+            return false;
+        }
+        logMonitoringBo.setPodNames(podNameSet);
+        return true;
     }
 
     /**
@@ -269,65 +323,22 @@ public class LogMonitoringApiImpl implements LogMonitoringApi {
     }
 
     /**
-     * 添加 TADL 服务日志到 Elasticsearch
+     * 添加 TADL 服务日志到 Elasticsearch，日志进入异步写入队列后即返回
      *
-     * @param experimentId 日志查询起始值，初始值为1，表示从第一条日志记录开始查询
+     * @param experimentId 实验ID
      * @param log 日志
-     * @return boolean 日志添加是否成功
+     * @return boolean 日志是否进入写入队列
      */
     @Override
     public boolean addTadlLogsToEs(long experimentId, String log) {
-
-
         Date date = new Date();
-        String timestamp = TimeTransferUtil.dateTransferToUtc(date);
-        BulkRequest bulkRequest = new BulkRequest();
-        try {
-            /**查询索引是否存在, 不存在则创建**/
-            GetIndexRequest getIndexRequest = new GetIndexRequest(TADL_INDEX_NAME);
-            boolean exists = restHighLevelClient.indices().exists(getIndexRequest, RequestOptions.DEFAULT);
-            if (!exists){
-                CreateIndexRequest createIndexRequest = new CreateIndexRequest(TADL_INDEX_NAME);
-                createIndexRequest.settings(Settings.builder()
-                        .put(INDEX_SHARDS_NUMBER, 3)
-                        .put(INDEX_REPLICAS_NUMBER, 2)
-                );
-                Map<String, String> timestampMapping = new HashMap<>();
-                timestampMapping.put(TYPE, DATE);
-                Map<String, String> logMapping = new HashMap<>();
-                logMapping.put(TYPE, TEXT);
-                Map<String, String> experimentIdMapping = new HashMap<>();
-                experimentIdMapping.put(TYPE, TEXT);
-                Map<String, Object> properties = new HashMap<>();
-                properties.put(TIMESTAMP,timestampMapping);
-                properties.put(EXPERIMENT_ID,experimentIdMapping);
-                properties.put(MESSAGE,logMapping);
-                Map<String, Object> mapping = new HashMap<>();
-                mapping.put(PROPERTIES, properties);
-                createIndexRequest.mapping(mapping);
-                CreateIndexResponse createIndexResponse = restHighLevelClient.indices().create(createIndexRequest, RequestOptions.DEFAULT);
-
-            }
-            LinkedHashMap<String, Object> jsonMap = new LinkedHashMap() {{
-                put(EXPERIMENT_ID, experimentId);
-                put(MESSAGE, new SimpleDateFormat(TIMESTAMP_FORMAT).format(date) + SPACE + log);
-                put(TIMESTAMP, timestamp);
-            }};
-
-            /**添加索引创建对象到bulkRequest**/
-            bulkRequest.add(new IndexRequest(TADL_INDEX_NAME).source(jsonMap));
-
-            /**通过restHighLevelClient发送http的请求创建文档**/
-            restHighLevelClient.bulk(bulkRequest, RequestOptions.DEFAULT);
-        } catch (Exception e) {
-            LogUtil.error(LogEnum.BIZ_K8S, "LogMonitoringApi.addTadlLogsToEs error:{}", e);
-            return false;
-        }
-        return true;
+        LinkedHashMap<String, Object> jsonMap = new LinkedHashMap<>();
+        jsonMap.put(EXPERIMENT_ID, experimentId);
+        jsonMap.put(MESSAGE, new SimpleDateFormat(TIMESTAMP_FORMAT).format(date) + SPACE + log);
+        jsonMap.put(TIMESTAMP, TimeTransferUtil.dateTransferToUtc(date));
+        return esBulkLogWriter.write(TADL_INDEX_NAME, jsonMap);
     }
 
-
-
     /**
      * TADL 服务日志查询方法
      *
@@ -500,6 +511,153 @@ public class LogMonitoringApiImpl implements LogMonitoringApi {
         return logList;
     }
 
+    /**
+     * 从Elasticsearch一次查询多个Pod的日志
+     *
+     * @param from 日志查询起始值，为空时按searchAfter游标查询
+     * @param size 日志查询记录数
+     * @param logMonitoringBo 日志查询bo
+     * @return LogMonitoringVO 日志查询结果类
+     */
+    private LogMonitoringVO searchResourceLogInfoByEs(Integer from, int size, LogMonitoringBO logMonitoringBo) {
+        List<String> logList = new ArrayList<>();
+        LogMonitoringVO logMonitoringResult = new LogMonitoringVO(ZERO, logList);
+        logMonitoringResult.setCursor(logMonitoringBo.getSearchAfter());
+
+        Object[] searchAfter = null;
+        String preference = UUID.randomUUID().toString();
+        if (from == null && StringUtils.isNotEmpty(logMonitoringBo.getSearchAfter())) {
+            JSONObject cursor = parseCursor(logMonitoringBo.getSearchAfter());
+            if (cursor == null) {
+                LogUtil.warn(LogEnum.BIZ_K8S, "LogMonitoringApiImpl.searchResourceLogInfoByEs invalid cursor:{}", logMonitoringBo.getSearchAfter());
+                return logMonitoringResult;
+            }
+            searchAfter = cursor.getJSONArray(CURSOR_SORT_VALUES).toArray();
+            preference = cursor.getString(CURSOR_PREFERENCE);
+        }
+        SearchRequest searchRequest = buildResourceSearchRequest(from, size, searchAfter, preference, logMonitoringBo);
+        /**执行搜索**/
+        SearchResponse searchResponse;
+        try {
+            searchResponse = restHighLevelClient.search(searchRequest, RequestOptions.DEFAULT);
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_K8S, "LogMonitoringApiImpl.searchResourceLogInfoByEs error,param:[logMonitoringBo]={}, error:{}", JSON.toJSONString(logMonitoringBo), e);
+            return logMonitoringResult;
+        }
+        SearchHit[] searchHits = searchResponse.getHits().getHits();
+        if (searchHits.length == MagicNumConstant.ZERO) {
+            return logMonitoringResult;
+        }
+
+        for (SearchHit hit : searchHits) {
+            /**取出message**/
+            String message = (String) hit.getSourceAsMap().get(MESSAGE);
+            message = message == null ? BLANK : message.replace(LINEBREAK, BLANK);
+            /**添加日志信息到集合**/
+            logList.add(LOG_PREFIX + message);
+        }
+        logMonitoringResult.setTotalLogs(logList.size());
+        JSONObject cursor = new JSONObject();
+        cursor.put(CURSOR_SORT_VALUES, searchHits[searchHits.length - 1].getSortValues());
+        cursor.put(CURSOR_PREFERENCE, preference);
+        logMonitoringResult.setCursor(cursor.toJSONString());
+        return logMonitoringResult;
+    }
+
+    /**
+     * 解析客户端传入的search_after游标
+     *
+     * @param cursor 游标
+     * @return JSONObject 包含排序值及查询偏好，格式不合法时返回null
+     */
+    private JSONObject parseCursor(String cursor) {
+        try {
+            JSONObject cursorObject = JSON.parseObject(cursor);
+            if (cursorObject == null || StringUtils.isEmpty(cursorObject.getString(CURSOR_PREFERENCE))) {
+                return null;
+            }
+            JSONArray sortValues = cursorObject.getJSONArray(CURSOR_SORT_VALUES);
+            if (sortValues == null || sortValues.size() != CURSOR_SORT_SIZE || sortValues.contains(null)) {
+                return null;
+            }
+            return cursorObject;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 构建多Pod搜索请求对象，按(时间戳, Pod名称, 日志标识, 文档顺序)排序以支持search_after翻页
+     *
+     * @param from 日志查询起始值，为空时按searchAfter游标查询
+     * @param size 日志查询记录数
+     * @param searchAfter 已校验的search_after排序值
+     * @param preference 查询偏好，同一游标链保持不变
+     * @param logMonitoringBo 日志查询bo
+     * @return SearchRequest ES搜索请求对象
+     */
+    private SearchRequest buildResourceSearchRequest(Integer from, int size, Object[] searchAfter, String preference, LogMonitoringBO logMonitoringBo) {
+
+        size = size <= MagicNumConstant.ZERO || size > TEN_THOUSAND ? TEN_THOUSAND : size;
+
+        /**创建搜索请求对象**/
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.indices(INDEX_NAME);
+        searchRequest.preference(preference);
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        searchSourceBuilder.size(size);
+        if (from != null) {
+            /**处理查询范围参数起始值**/
+            searchSourceBuilder.from(from <= MagicNumConstant.ZERO ? MagicNumConstant.ZERO : from - 1);
+        } else if (searchAfter != null) {
+            searchSourceBuilder.searchAfter(searchAfter);
+        }
+
+        /**根据时间戳、Pod名称、日志标识排序，保证翻页顺序稳定；无日志标识的文档按固定副本上的文档顺序排序**/
+        searchSourceBuilder.sort(TIMESTAMP, SortOrder.ASC)
+                .sort(POD_NAME_KEY, SortOrder.ASC)
+                .sort(SortBuilders.fieldSort(LOG_ID_KEY).order(SortOrder.ASC).unmappedType(KEYWORD).missing(BLANK))
+                .sort(DOC_ORDER, SortOrder.ASC);
+        /**过虑源字段**/
+        searchSourceBuilder.fetchSource(sourceField.split(COMMA), new String[]{});
+
+        /**创建布尔查询对象**/
+        BoolQueryBuilder boolQueryBuilder = QueryBuilders.boolQuery();
+
+        /**添加podName查询条件**/
+        Set<String> podNames = logMonitoringBo.getPodNames();
+        if (CollectionUtils.isNotEmpty(podNames)) {
+            boolQueryBuilder.filter(QueryBuilders.termsQuery(POD_NAME_KEY, podNames.toArray(new String[podNames.size()])));
+        }
+        /**添加namespace查询条件**/
+        String namespace = logMonitoringBo.getNamespace();
+        if (StringUtils.isNotEmpty(namespace)) {
+            boolQueryBuilder.filter(QueryBuilders.matchQuery(NAMESPACE_KEY, namespace));
+        }
+        /**添加关键字查询条件**/
+        String logKeyword = logMonitoringBo.getLogKeyword();
+        if (StringUtils.isNotEmpty(logKeyword)) {
+            boolQueryBuilder.filter(QueryBuilders.matchQuery(MESSAGE, logKeyword).operator(Operator.AND));
+        }
+        /**添加时间范围查询条件**/
+        Long beginTimeMillis = logMonitoringBo.getBeginTimeMillis();
+        Long endTimeMillis = logMonitoringBo.getEndTimeMillis();
+        if (beginTimeMillis != null || endTimeMillis != null){
+            beginTimeMillis = beginTimeMillis == null ? ZERO_LONG : beginTimeMillis;
+            endTimeMillis = endTimeMillis == null ? System.currentTimeMillis() : endTimeMillis;
+
+            /**将毫秒值转换为UTC时间**/
+            String beginUtcTime = TimeTransferUtil.dateTransferToUtc(new Date(beginTimeMillis));
+            String endUtcTime = TimeTransferUtil.dateTransferToUtc(new Date(endTimeMillis));
+            boolQueryBuilder.filter(QueryBuilders.rangeQuery(TIMESTAMP).gte(beginUtcTime).lte(endUtcTime));
+        }
+
+        /**设置boolQueryBuilder到searchSourceBuilder**/
+        searchSourceBuilder.query(boolQueryBuilder);
+
+        return searchRequest.source(searchSourceBuilder);
+    }
+
     /**
      * 构建搜索请求对象
      *
@@ -18,6 +18,7 @@
 package org.dubhe.k8s.api.impl;
 
 import cn.hutool.core.util.NumberUtil;
+import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.Quantity;
 import io.fabric8.kubernetes.api.model.metrics.v1beta1.ContainerMetrics;
 import io.fabric8.kubernetes.api.model.metrics.v1beta1.NodeMetricsList;
@@ -33,6 +34,7 @@ import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
 import org.dubhe.k8s.api.MetricsApi;
 import org.dubhe.k8s.api.PodApi;
+import org.dubhe.k8s.cache.K8sInformerCache;
 import org.dubhe.k8s.constant.K8sParamConstants;
 import org.dubhe.k8s.domain.bo.PrometheusMetricBO;
 import org.dubhe.k8s.domain.dto.PodQueryDTO;
@@ -42,12 +44,13 @@ import org.dubhe.k8s.domain.resource.BizQuantity;
 import org.dubhe.k8s.domain.vo.*;
 import org.dubhe.k8s.utils.BizConvertUtils;
 import org.dubhe.k8s.utils.K8sUtils;
-import org.dubhe.k8s.utils.PrometheusUtil;
+import org.dubhe.k8s.utils.PrometheusQueryTool;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.util.CollectionUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -59,6 +62,10 @@ public class MetricsApiImpl implements MetricsApi {
 
     @Autowired
     private PodApi podApi;
+    @Autowired
+    private K8sInformerCache informerCache;
+    @Autowired
+    private PrometheusQueryTool prometheusQueryTool;
     /**
      * prometheus 地址
      */
@@ -159,7 +166,7 @@ public class MetricsApiImpl implements MetricsApi {
         PodMetricsList metrics = client.top().pods().metrics();
         List<PtPodsVO> list = new ArrayList<>();
         /**将Pod和podName形成映射关系**/
-        Map<String, List<BizPod>> listMap = client.pods().inAnyNamespace().list().getItems().parallelStream().map(obj -> BizConvertUtils.toBizPod(obj)).collect(Collectors.groupingBy(BizPod::getName));
+        Map<String, List<BizPod>> listMap = listAllPods().parallelStream().map(obj -> BizConvertUtils.toBizPod(obj)).collect(Collectors.groupingBy(BizPod::getName));
         if (null == listMap) {
             return list;
         }
@@ -195,7 +202,7 @@ public class MetricsApiImpl implements MetricsApi {
             List<PtPodsVO> list = new ArrayList<>();
             Map<String, String> podNode = new HashMap<>();
             PodMetricsList metrics = client.top().pods().metrics();
-            List<BizPod> bizPodList = client.pods().inAnyNamespace().list().getItems().parallelStream().map(obj -> BizConvertUtils.toBizPod(obj)).collect(Collectors.toList());
+            List<BizPod> bizPodList = listAllPods().parallelStream().map(obj -> BizConvertUtils.toBizPod(obj)).collect(Collectors.toList());
             bizPodList.stream().forEach(bizPod -> podNode.put(bizPod.getName(), bizPod.getNodeName()));
             metrics.getItems().stream().forEach(metric -> {
                 for (BizPod bizPod : bizPodList) {
@@ -274,8 +281,8 @@ public class MetricsApiImpl implements MetricsApi {
                 }
             }
         }
+        generateGpuUsage(ptPodsVOS);
         for (PtPodsVO ptPodsVO : ptPodsVOS) {
-            generateGpuUsage(ptPodsVO);
             ptPodsVO.calculationPercent();
         }
         return ptPodsVOS;
@@ -304,8 +311,8 @@ public class MetricsApiImpl implements MetricsApi {
             LogUtil.error(LogEnum.BIZ_K8S, "MetricsApiImpl.getPodMetricsRealTimeByPodName error:{}", e);
         }
         ptPodsVOS = getPtPodsVO(pod, podMetrics);
+        generateGpuUsage(ptPodsVOS);
         for (PtPodsVO ptPodsVO : ptPodsVOS) {
-            generateGpuUsage(ptPodsVO);
             ptPodsVO.calculationPercent();
         }
         return ptPodsVOS;
@@ -342,10 +349,7 @@ public class MetricsApiImpl implements MetricsApi {
             return podRangeMetricsVOS;
         }
         podQueryDTO.generateDefaultParam();
-        for (BizPod pod : pods) {
-            podRangeMetricsVOS.add(getPodRangeMetricsVO(pod, podQueryDTO));
-        }
-        return podRangeMetricsVOS;
+        return getPodRangeMetricsVOS(pods, podQueryDTO);
     }
 
     /**
@@ -364,8 +368,38 @@ public class MetricsApiImpl implements MetricsApi {
             return podRangeMetricsVOS;
         }
         podQueryDTO.generateDefaultParam();
+        return getPodRangeMetricsVOS(pods, podQueryDTO);
+    }
+
+    /**
+     * 批量查询Pod历史监控指标，每个指标对所有pod只发起一次并发查询
+     *
+     * @param pods pod业务类列表
+     * @param podQueryDTO 查询参数
+     * @return List<PodRangeMetricsVO> Pod历史监控指标 列表
+     */
+    private List<PodRangeMetricsVO> getPodRangeMetricsVOS(List<BizPod> pods, PodQueryDTO podQueryDTO) {
+        List<String> podNames = pods.stream().map(BizPod::getName).distinct().collect(Collectors.toList());
+        String url = k8sPrometheusUrl + k8sPrometheusQueryRange;
+        CompletableFuture<Map<String, PrometheusMetricBO>> cpuFuture = prometheusQueryTool.queryRangeByPods(url, k8sPrometheusCpuRangeQueryParam, podNames, podQueryDTO);
+        CompletableFuture<Map<String, PrometheusMetricBO>> memFuture = prometheusQueryTool.queryRangeByPods(url, k8sPrometheusMemRangeQueryParam, podNames, podQueryDTO);
+        CompletableFuture<Map<String, PrometheusMetricBO>> gpuFuture = prometheusQueryTool.queryRangeByPods(url, k8sPrometheusGpuRangeQueryParam, podNames, podQueryDTO);
+        CompletableFuture<Map<String, PrometheusMetricBO>> gpuMemTotalFuture = prometheusQueryTool.queryRangeByPods(url, k8sPrometheusGpuMemTotalRangeQueryParam, podNames, podQueryDTO);
+        CompletableFuture<Map<String, PrometheusMetricBO>> gpuMemUseFuture = prometheusQueryTool.queryRangeByPods(url, k8sPrometheusGpuMemUseRangeQueryParam, podNames, podQueryDTO);
+        Map<String, PrometheusMetricBO> cpuRangeMetrics = cpuFuture.join();
+        Map<String, PrometheusMetricBO> memRangeMetrics = memFuture.join();
+        Map<String, PrometheusMetricBO> gpuRangeMetrics = gpuFuture.join();
+        Map<String, PrometheusMetricBO> gpuMemTotalRangeMetrics = gpuMemTotalFuture.join();
+        Map<String, PrometheusMetricBO> gpuMemUseRangeMetrics = gpuMemUseFuture.join();
+
+        List<PodRangeMetricsVO> podRangeMetricsVOS = new ArrayList<>();
         for (BizPod pod : pods) {
-            podRangeMetricsVOS.add(getPodRangeMetricsVO(pod, podQueryDTO));
+            podRangeMetricsVOS.add(getPodRangeMetricsVO(pod.getName(),
+                    cpuRangeMetrics.getOrDefault(pod.getName(), new PrometheusMetricBO()),
+                    memRangeMetrics.getOrDefault(pod.getName(), new PrometheusMetricBO()),
+                    gpuRangeMetrics.getOrDefault(pod.getName(), new PrometheusMetricBO()),
+                    gpuMemTotalRangeMetrics.getOrDefault(pod.getName(), new PrometheusMetricBO()),
+                    gpuMemUseRangeMetrics.getOrDefault(pod.getName(), new PrometheusMetricBO())));
         }
         return podRangeMetricsVOS;
     }
@@ -373,18 +407,17 @@ public class MetricsApiImpl implements MetricsApi {
     /**
      * 组装Pod历史监控指标
      *
-     * @param pod pod业务类
-     * @param podQueryDTO 查询参数
+     * @param podName pod名称
+     * @param cpuRangeMetrics cpu范围查询结果
+     * @param memRangeMetrics 内存范围查询结果
+     * @param gpuRangeMetrics gpu范围查询结果
+     * @param gpuMemTotalRangeMetrics gpu显存总量范围查询结果
+     * @param gpuMemUseRangeMetrics gpu显存使用量范围查询结果
      * @return PodRangeMetricsVO Pod历史监控指标 VO
      */
-    private PodRangeMetricsVO getPodRangeMetricsVO(BizPod pod, PodQueryDTO podQueryDTO) {
-        PodRangeMetricsVO podRangeMetricsVO = new PodRangeMetricsVO(pod.getName());
-        PrometheusMetricBO cpuRangeMetrics = PrometheusUtil.getQuery(k8sPrometheusUrl + k8sPrometheusQueryRange, PrometheusUtil.getQueryParamMap(k8sPrometheusCpuRangeQueryParam, pod.getName(), podQueryDTO));
-        PrometheusMetricBO memRangeMetrics = PrometheusUtil.getQuery(k8sPrometheusUrl + k8sPrometheusQueryRange, PrometheusUtil.getQueryParamMap(k8sPrometheusMemRangeQueryParam, pod.getName(), podQueryDTO));
-        PrometheusMetricBO gpuRangeMetrics = PrometheusUtil.getQuery(k8sPrometheusUrl + k8sPrometheusQueryRange, PrometheusUtil.getQueryParamMap(k8sPrometheusGpuRangeQueryParam, pod.getName(), podQueryDTO));
-        PrometheusMetricBO gpuMemTotalRangeMetrics = PrometheusUtil.getQuery(k8sPrometheusUrl + k8sPrometheusQueryRange, PrometheusUtil.getQueryParamMap(k8sPrometheusGpuMemTotalRangeQueryParam, pod.getName(), podQueryDTO));
-        PrometheusMetricBO gpuMemUseRangeMetrics = PrometheusUtil.getQuery(k8sPrometheusUrl + k8sPrometheusQueryRange, PrometheusUtil.getQueryParamMap(k8sPrometheusGpuMemUseRangeQueryParam, pod.getName(), podQueryDTO));
-
+    private PodRangeMetricsVO getPodRangeMetricsVO(String podName, PrometheusMetricBO cpuRangeMetrics, PrometheusMetricBO memRangeMetrics,
+                                                   PrometheusMetricBO gpuRangeMetrics, PrometheusMetricBO gpuMemTotalRangeMetrics, PrometheusMetricBO gpuMemUseRangeMetrics) {
+        PodRangeMetricsVO podRangeMetricsVO = new PodRangeMetricsVO(podName);
         StringFormat cpuMetricsFormat = (value) -> {
             return value == null ? String.valueOf(MagicNumConstant.ZERO) : NumberUtil.round(Double.valueOf(value.toString()), MagicNumConstant.TWO).toString();
         };
@@ -415,17 +448,37 @@ public class MetricsApiImpl implements MetricsApi {
     }
 
     /**
-     * 查询Gpu使用率
-     * @param ptPodsVO pod信息
+     * 批量查询Gpu使用率
+     * @param ptPodsVOS pod信息列表
      */
-    private void generateGpuUsage(PtPodsVO ptPodsVO) {
-        PrometheusMetricBO prometheusMetricBO = PrometheusUtil.getQuery(k8sPrometheusUrl + k8sPrometheusQuery, PrometheusUtil.getQueryParamMap(k8sPrometheusGpuQueryParam, ptPodsVO.getPodName()));
-        PrometheusMetricBO gpuMemTotalMetrics = PrometheusUtil.getQuery(k8sPrometheusUrl + k8sPrometheusQuery, PrometheusUtil.getQueryParamMap(k8sPrometheusGpuMemTotalQueryParam, ptPodsVO.getPodName()));
-        PrometheusMetricBO gpuMemUseMetrics = PrometheusUtil.getQuery(k8sPrometheusUrl + k8sPrometheusQuery, PrometheusUtil.getQueryParamMap(k8sPrometheusGpuMemUseQueryParam, ptPodsVO.getPodName()));
-
-        if (prometheusMetricBO == null || gpuMemTotalMetrics == null || gpuMemUseMetrics == null) {
+    private void generateGpuUsage(List<PtPodsVO> ptPodsVOS) {
+        if (CollectionUtils.isEmpty(ptPodsVOS)) {
             return;
         }
+        List<String> podNames = ptPodsVOS.stream().map(PtPodsVO::getPodName).distinct().collect(Collectors.toList());
+        String url = k8sPrometheusUrl + k8sPrometheusQuery;
+        CompletableFuture<Map<String, PrometheusMetricBO>> gpuFuture = prometheusQueryTool.queryByPods(url, k8sPrometheusGpuQueryParam, podNames);
+        CompletableFuture<Map<String, PrometheusMetricBO>> gpuMemTotalFuture = prometheusQueryTool.queryByPods(url, k8sPrometheusGpuMemTotalQueryParam, podNames);
+        CompletableFuture<Map<String, PrometheusMetricBO>> gpuMemUseFuture = prometheusQueryTool.queryByPods(url, k8sPrometheusGpuMemUseQueryParam, podNames);
+        Map<String, PrometheusMetricBO> gpuMetrics = gpuFuture.join();
+        Map<String, PrometheusMetricBO> gpuMemTotalMetrics = gpuMemTotalFuture.join();
+        Map<String, PrometheusMetricBO> gpuMemUseMetrics = gpuMemUseFuture.join();
+        for (PtPodsVO ptPodsVO : ptPodsVOS) {
+            generateGpuUsage(ptPodsVO,
+                    gpuMetrics.getOrDefault(ptPodsVO.getPodName(), new PrometheusMetricBO()),
+                    gpuMemTotalMetrics.getOrDefault(ptPodsVO.getPodName(), new PrometheusMetricBO()),
+                    gpuMemUseMetrics.getOrDefault(ptPodsVO.getPodName(), new PrometheusMetricBO()));
+        }
+    }
+
+    /**
+     * 组装Gpu使用率
+     * @param ptPodsVO pod信息
+     * @param prometheusMetricBO gpu使用率查询结果
+     * @param gpuMemTotalMetrics gpu显存总量查询结果
+     * @param gpuMemUseMetrics gpu显存使用量查询结果
+     */
+    private void generateGpuUsage(PtPodsVO ptPodsVO, PrometheusMetricBO prometheusMetricBO, PrometheusMetricBO gpuMemTotalMetrics, PrometheusMetricBO gpuMemUseMetrics) {
         List<GpuTotalMemResultVO> gpuTotalMemValue = gpuMemTotalMetrics.getGpuTotalMemValue();
         Map<String, String> gpuMemValue = gpuMemUseMetrics.getGpuMemValue();
         Map<String, Float> gpuUsage = prometheusMetricBO.getGpuUsage();
@@ -552,4 +605,14 @@ public class MetricsApiImpl implements MetricsApi {
             return Collections.EMPTY_LIST;
         }
     }
+
+    /**
+     * 查询集群所有Pod，优先读取本地informer缓存
+     *
+     * @return List<Pod> Pod 实体类集合
+     */
+    private List<Pod> listAllPods() {
+        List<Pod> pods = informerCache.listPods(null, null);
+        return pods != null ? pods : client.pods().inAnyNamespace().list().getItems();
+    }
 }
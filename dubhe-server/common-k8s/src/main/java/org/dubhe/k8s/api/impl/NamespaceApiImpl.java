@@ -29,6 +29,7 @@ import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.k8s.annotation.K8sValidation;
 import org.dubhe.k8s.api.NamespaceApi;
 import org.dubhe.k8s.api.ResourceQuotaApi;
+import org.dubhe.k8s.cache.K8sInformerCache;
 import org.dubhe.k8s.domain.PtBaseResult;
 import org.dubhe.k8s.domain.resource.BizNamespace;
 import org.dubhe.k8s.enums.K8sResponseEnum;
@@ -64,6 +65,9 @@ public class NamespaceApiImpl implements NamespaceApi {
     @Autowired
     private UserContextService userContextService;
 
+    @Autowired
+    private K8sInformerCache informerCache;
+
     @Value("${user.config.cpu-limit}")
     private Integer cpuLimit;
 
@@ -320,7 +324,8 @@ public class NamespaceApiImpl implements NamespaceApi {
      */
     @Override
     public List<ResourceQuota> listResourceQuotas(String namespace) {
-        return client.resourceQuotas().inNamespace(namespace).list().getItems();
+        List<ResourceQuota> resourceQuotas = informerCache.listResourceQuotas(namespace);
+        return resourceQuotas != null ? resourceQuotas : client.resourceQuotas().inNamespace(namespace).list().getItems();
     }
 
     /**
@@ -21,9 +21,7 @@ import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson.JSON;
 import io.fabric8.kubernetes.api.model.Node;
-import io.fabric8.kubernetes.api.model.NodeList;
 import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.api.model.PodList;
 import io.fabric8.kubernetes.api.model.Taint;
 import io.fabric8.kubernetes.api.model.Toleration;
 import io.fabric8.kubernetes.client.KubernetesClient;
@@ -37,6 +35,8 @@ import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
 import org.dubhe.k8s.api.MetricsApi;
 import org.dubhe.k8s.api.NodeApi;
+import org.dubhe.k8s.cache.K8sInformerCache;
+import org.dubhe.k8s.cache.NodeAllocationLedger;
 import org.dubhe.k8s.constant.K8sLabelConstants;
 import org.dubhe.k8s.constant.K8sParamConstants;
 import org.dubhe.k8s.domain.PtBaseResult;
@@ -71,6 +71,12 @@ public class NodeApiImpl implements NodeApi {
     @Autowired
     private UserContextService userContextService;
 
+    @Autowired
+    private K8sInformerCache informerCache;
+
+    @Autowired
+    private NodeAllocationLedger allocationLedger;
+
     public NodeApiImpl(K8sUtils k8sUtils) {
         this.client = k8sUtils.getClient();
     }
@@ -106,11 +112,11 @@ public class NodeApiImpl implements NodeApi {
     @Override
     public List<BizNode> listAll() {
         try {
-            NodeList nodes = client.nodes().list();
-            if (nodes == null || CollectionUtils.isEmpty(nodes.getItems())) {
+            List<Node> nodes = listNodes(null);
+            if (CollectionUtils.isEmpty(nodes)) {
                 return Collections.EMPTY_LIST;
             }
-            List<BizNode> bizNodeList = nodes.getItems().parallelStream().map(obj -> BizConvertUtils.toBizNode(obj).setReady()).collect(Collectors.toList());
+            List<BizNode> bizNodeList = nodes.parallelStream().map(obj -> BizConvertUtils.toBizNode(obj).setReady()).collect(Collectors.toList());
             LogUtil.info(LogEnum.BIZ_K8S, "Output {}", bizNodeList);
             return bizNodeList;
         } catch (KubernetesClientException e) {
@@ -227,9 +233,9 @@ public class NodeApiImpl implements NodeApi {
             if (StringUtils.isEmpty(key) || StringUtils.isEmpty(value)){
                 return bizNodes;
             }
-            NodeList nodeList = client.nodes().withLabel(key,value).list();
-            if (nodeList != null && !CollectionUtils.isEmpty(nodeList.getItems())){
-                return BizConvertUtils.toBizNodes(nodeList.getItems());
+            List<Node> nodeList = listNodes(Collections.singletonMap(key, value));
+            if (!CollectionUtils.isEmpty(nodeList)){
+                return BizConvertUtils.toBizNodes(nodeList);
             }
             return bizNodes;
         } catch (KubernetesClientException e) {
@@ -251,9 +257,9 @@ public class NodeApiImpl implements NodeApi {
             if (CollectionUtils.isEmpty(labels)){
                 return bizNodes;
             }
-            NodeList nodeList = client.nodes().withLabels(labels).list();
-            if (nodeList != null && !CollectionUtils.isEmpty(nodeList.getItems())){
-                return BizConvertUtils.toBizNodes(nodeList.getItems());
+            List<Node> nodeList = listNodes(labels);
+            if (!CollectionUtils.isEmpty(nodeList)){
+                return BizConvertUtils.toBizNodes(nodeList);
             }
             return bizNodes;
         } catch (KubernetesClientException e) {
@@ -302,15 +308,15 @@ public class NodeApiImpl implements NodeApi {
     @Override
     public LackOfResourcesEnum isAllocatable(Map<String, String> nodeSelector, List<BizTaint> taints, Integer cpuNum, Integer memNum, Integer gpuNum) {
         LogUtil.info(LogEnum.BIZ_K8S, "Input nodeSelector={};taints={};cpuNum={};memNum={};gpuNum={}", JSON.toJSONString(nodeSelector), JSON.toJSONString(taints), cpuNum, memNum, gpuNum);
-        NodeList list;
+        List<Node> nodeItems;
+        boolean ledgerReady = allocationLedger.isReady();
         try {
-            list = client.nodes().list();
+            nodeItems = ledgerReady ? allocationLedger.listNodes() : listNodes(null);
         }catch (KubernetesClientException e) {
             LogUtil.error(LogEnum.BIZ_K8S, "NodeApiImpl.isAllocatable error:{}", e);
             return LackOfResourcesEnum.LACK_OF_NODE;
         }
 
-        List<Node> nodeItems = list.getItems();
         //根据nodeSelector筛选节点
         if (CollectionUtil.isNotEmpty(nodeSelector) && nodeSelector.size() > NumberConstant.NUMBER_1){
             return LackOfResourcesEnum.LACK_OF_NODE;
@@ -335,22 +341,27 @@ public class NodeApiImpl implements NodeApi {
         if (CollectionUtils.isEmpty(nodeItems)) {
             return LackOfResourcesEnum.LACK_OF_NODE;
         }
+        Map<String, PtNodeMetricsVO> nodeMetrics = Collections.emptyMap();
+        if ((cpuNum != null && cpuNum >= MagicNumConstant.ZERO) || (memNum != null && memNum >= MagicNumConstant.ZERO)) {
+            nodeMetrics = metricsApi.getNodeMetrics().stream()
+                    .collect(Collectors.toMap(PtNodeMetricsVO::getNodeName, nodeMetric -> nodeMetric, (first, second) -> first));
+        }
         if (cpuNum != null && cpuNum >= MagicNumConstant.ZERO) {
-            nodeItems = isCpuAllocatable(cpuNum, nodeItems);
+            nodeItems = isCpuAllocatable(cpuNum, nodeItems, nodeMetrics);
             if (CollectionUtils.isEmpty(nodeItems)) {
                 return LackOfResourcesEnum.LACK_OF_CPU;
             }
         }
 
         if (memNum != null && memNum >= MagicNumConstant.ZERO) {
-            nodeItems = isMemAllocatable(memNum, nodeItems);
+            nodeItems = isMemAllocatable(memNum, nodeItems, nodeMetrics);
             if (CollectionUtils.isEmpty(nodeItems)) {
                 return LackOfResourcesEnum.LACK_OF_MEM;
             }
         }
 
         if (gpuNum != null && gpuNum >= MagicNumConstant.ZERO) {
-            nodeItems = isGpuAllocatable(gpuNum, nodeItems);
+            nodeItems = ledgerReady ? allocationLedger.bestFitGpuNodes(gpuNum, nodeItems) : isGpuAllocatable(gpuNum, nodeItems);
             if (CollectionUtils.isEmpty(nodeItems)) {
                 return LackOfResourcesEnum.LACK_OF_GPU;
             }
@@ -384,7 +395,8 @@ public class NodeApiImpl implements NodeApi {
      */
     @Override
     public LackOfResourcesEnum isOutOfTotalAllocatableGpu(Integer gpuNum){
-        Integer remainingGpuNum = getTotalGpuNum() - getAllocatedGpuNum();
+        Integer remainingGpuNum = allocationLedger.isReady() ?
+                allocationLedger.getTotalGpu() - allocationLedger.getAllocatedGpu() : getTotalGpuNum() - getAllocatedGpuNum();
         if (gpuNum > remainingGpuNum){
             return LackOfResourcesEnum.LACK_OF_GPU;
         }else {
@@ -586,33 +598,19 @@ public class NodeApiImpl implements NodeApi {
      *
      * @param memNum 单位为Mi 1Mi等于1024Ki
      * @param nodeItems Node集合
+     * @param nodeMetrics 节点名称 -> 节点资源使用量
      * @return List<Node> Node集合
      */
-    private List<Node> isMemAllocatable(int memNum, List<Node> nodeItems) {
-        List<Node> nodeItemResults = new ArrayList<>();
-        List<String> nodeNameList = new ArrayList<>();
-        List<PtNodeMetricsVO> nodeMetrics = metricsApi.getNodeMetrics();
-
-        nodeItems.forEach(nodeItem -> {
-            String nodeName = nodeItem.getMetadata().getName();
-            List<PtNodeMetricsVO> collect = nodeMetrics.stream().filter(nodeMetric -> nodeMetric.getNodeName().equals(nodeName)).collect(Collectors.toList());
-            if (!CollectionUtils.isEmpty(collect)){
-                String memAmount = collect.get(0).getMemoryUsageAmount();
-                int memCapacity = Integer.parseInt(nodeItem.getStatus().getCapacity().get(K8sParamConstants.QUANTITY_MEMORY_KEY).getAmount()) / MagicNumConstant.ONE_THOUSAND;
-                int memAmountInt = Integer.parseInt(memAmount) / MagicNumConstant.BINARY_TEN_EXP;
-                if (memCapacity - memAmountInt > memNum) {
-                    nodeNameList.add(nodeName);
-                }
+    private List<Node> isMemAllocatable(int memNum, List<Node> nodeItems, Map<String, PtNodeMetricsVO> nodeMetrics) {
+        return nodeItems.stream().filter(nodeItem -> {
+            PtNodeMetricsVO nodeMetric = nodeMetrics.get(nodeItem.getMetadata().getName());
+            if (nodeMetric == null) {
+                return false;
             }
-
-        });
-
-        nodeNameList.forEach(nodeName -> {
-            List<Node> collect = nodeItems.stream().filter(nodeItem -> nodeItem.getMetadata().getName().equals(nodeName)).collect(Collectors.toList());
-            nodeItemResults.addAll(collect);
-        });
-
-        return nodeItemResults;
+            int memCapacity = Integer.parseInt(nodeItem.getStatus().getCapacity().get(K8sParamConstants.QUANTITY_MEMORY_KEY).getAmount()) / MagicNumConstant.ONE_THOUSAND;
+            int memAmountInt = Integer.parseInt(nodeMetric.getMemoryUsageAmount()) / MagicNumConstant.BINARY_TEN_EXP;
+            return memCapacity - memAmountInt > memNum;
+        }).collect(Collectors.toList());
     }
 
 
@@ -621,33 +619,19 @@ public class NodeApiImpl implements NodeApi {
      *
      * @param cpuNum 单位为m 1核等于1000m
      * @param nodeItems Node集合
+     * @param nodeMetrics 节点名称 -> 节点资源使用量
      * @return List<Node> Node集合
      */
-    private List<Node> isCpuAllocatable(int cpuNum, List<Node> nodeItems) {
-
-        List<Node> nodeItemResults = new ArrayList<>();
-        List<String> nodeNameList = new ArrayList<>();
-        List<PtNodeMetricsVO> nodeMetrics = metricsApi.getNodeMetrics();
-
-        nodeItems.forEach(nodeItem -> {
-            String nodeName = nodeItem.getMetadata().getName();
-            List<PtNodeMetricsVO> collect = nodeMetrics.stream().filter(nodeMetric -> nodeMetric.getNodeName().equals(nodeName)).collect(Collectors.toList());
-            if (!CollectionUtils.isEmpty(collect)){
-                String cpuAmount = collect.get(0).getCpuUsageAmount();
-                int cpuCapacity = Integer.parseInt(nodeItem.getStatus().getCapacity().get(K8sParamConstants.QUANTITY_CPU_KEY).getAmount()) * MagicNumConstant.ONE_THOUSAND;
-                int cpuAmountInt = (int) (Long.parseLong(cpuAmount) / MagicNumConstant.ONE_THOUSAND / MagicNumConstant.ONE_THOUSAND);
-                if (cpuCapacity - cpuAmountInt >= cpuNum) {
-                    nodeNameList.add(nodeName);
-                }
+    private List<Node> isCpuAllocatable(int cpuNum, List<Node> nodeItems, Map<String, PtNodeMetricsVO> nodeMetrics) {
+        return nodeItems.stream().filter(nodeItem -> {
+            PtNodeMetricsVO nodeMetric = nodeMetrics.get(nodeItem.getMetadata().getName());
+            if (nodeMetric == null) {
+                return false;
             }
-        });
-
-        nodeNameList.forEach(nodeName -> {
-            List<Node> collect = nodeItems.stream().filter(nodeItem -> nodeItem.getMetadata().getName().equals(nodeName)).collect(Collectors.toList());
-            nodeItemResults.addAll(collect);
-        });
-
-        return nodeItemResults;
+            int cpuCapacity = Integer.parseInt(nodeItem.getStatus().getCapacity().get(K8sParamConstants.QUANTITY_CPU_KEY).getAmount()) * MagicNumConstant.ONE_THOUSAND;
+            int cpuAmountInt = (int) (Long.parseLong(nodeMetric.getCpuUsageAmount()) / MagicNumConstant.ONE_THOUSAND / MagicNumConstant.ONE_THOUSAND);
+            return cpuCapacity - cpuAmountInt >= cpuNum;
+        }).collect(Collectors.toList());
     }
 
 
@@ -698,9 +682,13 @@ public class NodeApiImpl implements NodeApi {
      * @return
      */
     private List<Pod> filterRequestGpuPod(){
-        PodList podList = client.pods().list();
-        if (CollectionUtil.isNotEmpty(podList.getItems())){
-            return podList.getItems().stream().filter(pod ->
+        // 与client.pods().list()一致，仅查询客户端默认命名空间
+        List<Pod> pods = informerCache.listPods(client.getNamespace(), null);
+        if (pods == null) {
+            pods = client.pods().list().getItems();
+        }
+        if (CollectionUtil.isNotEmpty(pods)){
+            return pods.stream().filter(pod ->
                     pod.getSpec().getContainers().get(0).getResources().getLimits() != null &&
                             pod.getSpec().getContainers().get(0).getResources().getLimits().containsKey(K8sParamConstants.GPU_RESOURCE_KEY) &&
                             pod.getStatus().getPhase().equals(PodPhaseEnum.RUNNING.getPhase())).collect(Collectors.toList());
@@ -740,4 +728,18 @@ public class NodeApiImpl implements NodeApi {
                 .collect(Collectors.toList());
         return CollectionUtil.isNotEmpty(taints);
     }
+
+    /**
+     * 按标签查询节点，优先读取本地informer缓存
+     *
+     * @param labels 标签，为空表示全部节点
+     * @return List<Node> 节点集合
+     */
+    private List<Node> listNodes(Map<String, String> labels) {
+        List<Node> nodes = informerCache.listNodes(labels);
+        if (nodes != null) {
+            return nodes;
+        }
+        return CollectionUtils.isEmpty(labels) ? client.nodes().list().getItems() : client.nodes().withLabels(labels).list().getItems();
+    }
 }
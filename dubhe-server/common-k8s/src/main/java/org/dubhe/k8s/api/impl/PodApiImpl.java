@@ -24,7 +24,6 @@ import cn.hutool.http.HttpRequest;
 import cn.hutool.http.HttpResponse;
 import cn.hutool.http.HttpStatus;
 import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.api.model.PodList;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import org.dubhe.biz.base.constant.SymbolConstant;
@@ -35,6 +34,7 @@ import org.dubhe.biz.log.utils.LogUtil;
 import org.dubhe.k8s.api.JupyterResourceApi;
 import org.dubhe.k8s.api.MetricsApi;
 import org.dubhe.k8s.api.PodApi;
+import org.dubhe.k8s.cache.K8sInformerCache;
 import org.dubhe.k8s.constant.K8sParamConstants;
 import org.dubhe.k8s.domain.bo.LabelBO;
 import org.dubhe.k8s.domain.resource.BizPod;
@@ -67,6 +67,8 @@ public class PodApiImpl implements PodApi {
     private JupyterResourceApi jupyterResourceApi;
     @Autowired
     private MetricsApi metricsApi;
+    @Autowired
+    private K8sInformerCache informerCache;
 
     public PodApiImpl(K8sUtils k8sUtils) {
         this.k8sUtils = k8sUtils;
@@ -112,11 +114,11 @@ public class PodApiImpl implements PodApi {
             if (StringUtils.isEmpty(namespace)) {
                 return bizPodList;
             }
-            PodList podList = client.pods().inNamespace(namespace).list();
-            if (podList == null || CollectionUtils.isEmpty(podList.getItems())){
+            List<Pod> pods = listPods(namespace, null);
+            if (CollectionUtils.isEmpty(pods)){
                 return bizPodList;
             }
-            for (Pod pod : podList.getItems()){
+            for (Pod pod : pods){
                 if (podNames.contains(pod.getMetadata().getName())){
                     bizPodList.add(BizConvertUtils.toBizPod(pod));
                 }
@@ -142,11 +144,11 @@ public class PodApiImpl implements PodApi {
             if (StringUtils.isEmpty(namespace)) {
                 return new BizPod().baseErrorBadRequest();
             }
-            PodList podList = client.pods().inNamespace(namespace).withLabels(LabelUtils.withEnvResourceName(resourceName)).list();
-            if (CollectionUtil.isEmpty(podList.getItems())) {
+            List<Pod> pods = listPods(namespace, LabelUtils.withEnvResourceName(resourceName));
+            if (CollectionUtil.isEmpty(pods)) {
                 return new BizPod().error(K8sResponseEnum.NOT_FOUND.getCode(), K8sResponseEnum.NOT_FOUND.getMessage());
             }
-            Pod pod = podList.getItems().get(0);
+            Pod pod = pods.get(0);
             BizPod bizPod = BizConvertUtils.toBizPod(pod);
             LogUtil.info(LogEnum.BIZ_K8S,"Output {}", bizPod);
             return bizPod;
@@ -170,11 +172,11 @@ public class PodApiImpl implements PodApi {
             if (StringUtils.isEmpty(namespace)) {
                 return Collections.EMPTY_LIST;
             }
-            PodList podList = client.pods().inNamespace(namespace).withLabels(LabelUtils.withEnvResourceName(resourceName)).list();
-            if (CollectionUtil.isEmpty(podList.getItems())) {
+            List<Pod> pods = listPods(namespace, LabelUtils.withEnvResourceName(resourceName));
+            if (CollectionUtil.isEmpty(pods)) {
                 return Collections.EMPTY_LIST;
             }
-            List<BizPod> bizPodList = BizConvertUtils.toBizPodList(podList.getItems());
+            List<BizPod> bizPodList = BizConvertUtils.toBizPodList(pods);
             LogUtil.info(LogEnum.BIZ_K8S,"Output {}", bizPodList);
             return bizPodList;
         }catch (KubernetesClientException e) {
@@ -193,11 +195,11 @@ public class PodApiImpl implements PodApi {
     public List<BizPod> getWithNamespace(String namespace) {
         try{
             List<BizPod> bizPodList = new ArrayList<>();
-            PodList podList = client.pods().inNamespace(namespace).list();
-            if (CollectionUtil.isEmpty(podList.getItems())) {
+            List<Pod> pods = listPods(namespace, null);
+            if (CollectionUtil.isEmpty(pods)) {
                 return bizPodList;
             }
-            bizPodList = BizConvertUtils.toBizPodList(podList.getItems());
+            bizPodList = BizConvertUtils.toBizPodList(pods);
             LogUtil.info(LogEnum.BIZ_K8S,"Output {}", bizPodList);
             return bizPodList;
         }catch (KubernetesClientException e) {
@@ -215,7 +217,7 @@ public class PodApiImpl implements PodApi {
     @Override
     public List<BizPod> listAll() {
         try{
-            List<BizPod> bizPodList = client.pods().inAnyNamespace().list().getItems().parallelStream().map(obj -> BizConvertUtils.toBizPod(obj)).collect(Collectors.toList());
+            List<BizPod> bizPodList = listPods(null, null).parallelStream().map(obj -> BizConvertUtils.toBizPod(obj)).collect(Collectors.toList());
             LogUtil.info(LogEnum.BIZ_K8S,"Output {}", bizPodList);
             return bizPodList;
         }catch (KubernetesClientException e) {
@@ -232,7 +234,8 @@ public class PodApiImpl implements PodApi {
      */
     @Override
     public List<BizPod> findByDtName(String dtname) {
-        List<Pod> items = client.pods().list().getItems();
+        // 与client.pods().list()一致，仅查询客户端默认命名空间
+        List<Pod> items = listPods(client.getNamespace(), null);
         LogUtil.info(LogEnum.BIZ_K8S,"Output {}",items);
         List<BizPod> bizPods = new ArrayList<>();
         if (!(CollectionUtil.isEmpty(items))) {
@@ -259,7 +262,7 @@ public class PodApiImpl implements PodApi {
     @Override
     public Map<String, List<BizPod>> listAllRuningPodGroupByNodeName() {
         try{
-            List<BizPod> bizPodList = client.pods().inAnyNamespace().list().getItems().parallelStream().map(obj -> BizConvertUtils.toBizPod(obj)).collect(Collectors.toList());
+            List<BizPod> bizPodList = listPods(null, null).parallelStream().map(obj -> BizConvertUtils.toBizPod(obj)).collect(Collectors.toList());
             Map<String, List<BizPod>> map = bizPodList.parallelStream().filter(pod -> PodPhaseEnum.RUNNING.getPhase().equals(pod.getPhase())).collect(Collectors.groupingBy(BizPod::getNodeName));
             LogUtil.info(LogEnum.BIZ_K8S,"Output {}", map);
             return map;
@@ -296,7 +299,7 @@ public class PodApiImpl implements PodApi {
      */
     @Override
     public List<Pod> list(LabelBO labelBO) {
-        return client.pods().inAnyNamespace().withLabels(LabelUtils.withEnvLabel(labelBO.getKey(), labelBO.getValue())).list().getItems();
+        return listPods(null, LabelUtils.withEnvLabel(labelBO.getKey(), labelBO.getValue()));
     }
 
     /**
@@ -308,7 +311,7 @@ public class PodApiImpl implements PodApi {
     @Override
     public List<Pod> list(Set<LabelBO> labelBos) {
         Map<String, String> labelMap = labelBos.stream().collect(Collectors.toMap(LabelBO::getKey, LabelBO::getValue));
-        return client.pods().inAnyNamespace().withLabels(labelMap).list().getItems();
+        return listPods(null, labelMap);
     }
 
     /**
@@ -319,7 +322,7 @@ public class PodApiImpl implements PodApi {
      */
     @Override
     public List<Pod> list(String namespace) {
-        return client.pods().inNamespace(namespace).list().getItems();
+        return listPods(namespace, null);
     }
 
     /**
@@ -331,7 +334,7 @@ public class PodApiImpl implements PodApi {
      */
     @Override
     public List<Pod> list(String namespace, LabelBO labelBO) {
-        return client.pods().inNamespace(namespace).withLabels(LabelUtils.withEnvLabel(labelBO.getKey(), labelBO.getValue())).list().getItems();
+        return listPods(namespace, LabelUtils.withEnvLabel(labelBO.getKey(), labelBO.getValue()));
     }
 
     /**
@@ -344,7 +347,7 @@ public class PodApiImpl implements PodApi {
     @Override
     public List<Pod> list(String namespace, Set<LabelBO> labelBos) {
         Map<String, String> labelMap = labelBos.stream().collect(Collectors.toMap(LabelBO::getKey, LabelBO::getValue));
-        return client.pods().inNamespace(namespace).withLabels(labelMap).list().getItems();
+        return listPods(namespace, labelMap);
     }
 
 
@@ -377,9 +380,9 @@ public class PodApiImpl implements PodApi {
     @Override
     public String getTokenByResourceName(String namespace, String resourceName) {
         try {
-            PodList podList = client.pods().inNamespace(namespace).withLabels(LabelUtils.withEnvResourceName(resourceName)).list();
-            if (podList != null && CollectionUtil.isNotEmpty(podList.getItems())) {
-                String podLog = client.pods().inNamespace(namespace).withName(podList.getItems().get(0).getMetadata().getName()).getLog();
+            List<Pod> pods = listPods(namespace, LabelUtils.withEnvResourceName(resourceName));
+            if (CollectionUtil.isNotEmpty(pods)) {
+                String podLog = client.pods().inNamespace(namespace).withName(pods.get(0).getMetadata().getName()).getLog();
                 return RegexUtil.getMatcher(podLog, TOKEN_REGEX);
             }
             return "";
@@ -446,4 +449,24 @@ public class PodApiImpl implements PodApi {
         return "";
     }
 
+    /**
+     * 按命名空间和标签查询Pod，优先读取本地informer缓存
+     *
+     * @param namespace 命名空间，为空表示所有命名空间
+     * @param labels 标签
+     * @return List<Pod> Pod 实体类集合
+     */
+    private List<Pod> listPods(String namespace, Map<String, String> labels) {
+        List<Pod> pods = informerCache.listPods(namespace, labels);
+        if (pods != null) {
+            return pods;
+        }
+        if (StringUtils.isEmpty(namespace)) {
+            return CollectionUtils.isEmpty(labels) ? client.pods().inAnyNamespace().list().getItems()
+                    : client.pods().inAnyNamespace().withLabels(labels).list().getItems();
+        }
+        return CollectionUtils.isEmpty(labels) ? client.pods().inNamespace(namespace).list().getItems()
+                : client.pods().inNamespace(namespace).withLabels(labels).list().getItems();
+    }
+
 }
@@ -22,7 +22,6 @@ import com.google.gson.reflect.TypeToken;
 import io.fabric8.kubernetes.api.model.Quantity;
 import io.fabric8.kubernetes.api.model.ResourceQuota;
 import io.fabric8.kubernetes.api.model.ResourceQuotaBuilder;
-import io.fabric8.kubernetes.api.model.ResourceQuotaList;
 import io.fabric8.kubernetes.api.model.ScopeSelector;
 import io.fabric8.kubernetes.api.model.ScopeSelectorBuilder;
 import io.fabric8.kubernetes.api.model.ScopedResourceSelectorRequirement;
@@ -34,6 +33,7 @@ import org.dubhe.biz.base.utils.StringUtils;
 import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
 import org.dubhe.k8s.api.ResourceQuotaApi;
+import org.dubhe.k8s.cache.K8sInformerCache;
 import org.dubhe.k8s.constant.K8sParamConstants;
 import org.dubhe.k8s.domain.PtBaseResult;
 import org.dubhe.k8s.domain.bo.PtResourceQuotaBO;
@@ -44,6 +44,7 @@ import org.dubhe.k8s.enums.LimitsOfResourcesEnum;
 import org.dubhe.k8s.utils.BizConvertUtils;
 import org.dubhe.k8s.utils.K8sUtils;
 import org.dubhe.k8s.utils.UnitConvertUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.CollectionUtils;
 
 import java.util.Collections;
@@ -59,6 +60,9 @@ import java.util.stream.Collectors;
 public class ResourceQuotaApiImpl implements ResourceQuotaApi {
     private KubernetesClient client;
 
+    @Autowired
+    private K8sInformerCache informerCache;
+
     public ResourceQuotaApiImpl(K8sUtils k8sUtils) {
         this.client = k8sUtils.getClient();
     }
@@ -147,12 +151,17 @@ public class ResourceQuotaApiImpl implements ResourceQuotaApi {
     public List<BizResourceQuota> list(String namespace) {
         try {
             LogUtil.info(LogEnum.BIZ_K8S,"Input namespace={}", namespace);
+            List<ResourceQuota> resourceQuotas = informerCache.listResourceQuotas(namespace);
             if (StringUtils.isEmpty(namespace)) {
-                ResourceQuotaList resourceQuotaList = client.resourceQuotas().inAnyNamespace().list();
-                return resourceQuotaList.getItems().parallelStream().map(obj -> BizConvertUtils.toBizResourceQuota(obj)).collect(Collectors.toList());
+                if (resourceQuotas == null) {
+                    resourceQuotas = client.resourceQuotas().inAnyNamespace().list().getItems();
+                }
+                return resourceQuotas.parallelStream().map(obj -> BizConvertUtils.toBizResourceQuota(obj)).collect(Collectors.toList());
             } else {
-                ResourceQuotaList resourceQuotaList = client.resourceQuotas().inNamespace(namespace).list();
-                List<BizResourceQuota> bizResourceQuotaList = resourceQuotaList.getItems().parallelStream().map(obj -> BizConvertUtils.toBizResourceQuota(obj)).collect(Collectors.toList());
+                if (resourceQuotas == null) {
+                    resourceQuotas = client.resourceQuotas().inNamespace(namespace).list().getItems();
+                }
+                List<BizResourceQuota> bizResourceQuotaList = resourceQuotas.parallelStream().map(obj -> BizConvertUtils.toBizResourceQuota(obj)).collect(Collectors.toList());
                 LogUtil.info(LogEnum.BIZ_K8S,"Output {}", bizResourceQuotaList);
                 return bizResourceQuotaList;
             }
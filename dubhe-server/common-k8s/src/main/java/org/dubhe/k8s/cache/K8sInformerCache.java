@@ -0,0 +1,333 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.k8s.cache;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.NodeList;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.api.model.ResourceQuota;
+import io.fabric8.kubernetes.api.model.ResourceQuotaList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.SharedInformerFactory;
+import org.dubhe.biz.base.utils.StringUtils;
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.utils.LogUtil;
+import org.dubhe.k8s.constant.K8sLabelConstants;
+import org.dubhe.k8s.utils.K8sUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.CollectionUtils;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * @description k8s资源本地缓存
+ * 以informer(list + watch，按resourceVersion续接)在进程内维护Pod/Node/ResourceQuota全量副本，
+ * 并建立命名空间、资源名称(BASE_TAG_SOURCE)、节点名称索引，供各ApiImpl的查询方法使用；
+ * 写操作及按名称查询单个对象时仍直接访问api server
+ * 缓存中的对象为共享实例，调用方不得修改
+ * @date 2026-10-17
+ */
+public class K8sInformerCache {
+
+    /**
+     * 命名空间索引
+     */
+    private static final String NAMESPACE_INDEX = "dubhe/namespace";
+
+    /**
+     * 资源名称索引
+     */
+    private static final String RESOURCE_NAME_INDEX = "dubhe/resource-name";
+
+    /**
+     * 节点名称索引
+     */
+    private static final String NODE_NAME_INDEX = "dubhe/node-name";
+
+    private final KubernetesClient client;
+
+    /**
+     * 是否启用本地缓存
+     */
+    @Value("${k8s.informer.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 全量重新同步周期(毫秒)
+     */
+    @Value("${k8s.informer.resync-millis:600000}")
+    private long resyncMillis;
+
+    /**
+     * 首次使用时等待初始list完成的最长时间(毫秒)，超时前的查询回退为直接访问api server
+     */
+    @Value("${k8s.informer.sync-timeout-millis:5000}")
+    private long syncTimeoutMillis;
+
+    private volatile boolean started;
+
+    private SharedInformerFactory informerFactory;
+
+    private SharedIndexInformer<Pod> podInformer;
+
+    private SharedIndexInformer<Node> nodeInformer;
+
+    private SharedIndexInformer<ResourceQuota> resourceQuotaInformer;
+
+    private final List<ResourceEventHandler<Pod>> podEventHandlers = new CopyOnWriteArrayList<>();
+
+    private final List<ResourceEventHandler<Node>> nodeEventHandlers = new CopyOnWriteArrayList<>();
+
+    public K8sInformerCache(K8sUtils k8sUtils) {
+        this.client = k8sUtils.getClient();
+    }
+
+    /**
+     * 按命名空间和标签查询Pod
+     *
+     * @param namespace 命名空间，为空表示所有命名空间
+     * @param labels    标签，为空表示不过滤
+     * @return List<Pod> 缓存不可用时返回null，由调用方回退为直接查询
+     */
+    public List<Pod> listPods(String namespace, Map<String, String> labels) {
+        if (!usable() || !podInformer.hasSynced()) {
+            return null;
+        }
+        List<Pod> candidates;
+        String resourceName = labels == null ? null : labels.get(K8sLabelConstants.BASE_TAG_SOURCE);
+        if (resourceName != null) {
+            candidates = podInformer.getIndexer().byIndex(RESOURCE_NAME_INDEX, resourceName);
+        } else if (StringUtils.isNotEmpty(namespace)) {
+            candidates = podInformer.getIndexer().byIndex(NAMESPACE_INDEX, namespace);
+        } else {
+            candidates = podInformer.getIndexer().list();
+        }
+        return filter(candidates, namespace, labels);
+    }
+
+    /**
+     * 查询调度到指定节点上的Pod
+     *
+     * @param nodeName 节点名称
+     * @return List<Pod> 缓存不可用时返回null
+     */
+    public List<Pod> listPodsByNode(String nodeName) {
+        if (!usable() || !podInformer.hasSynced()) {
+            return null;
+        }
+        return new ArrayList<>(podInformer.getIndexer().byIndex(NODE_NAME_INDEX, nodeName));
+    }
+
+    /**
+     * 按标签查询节点
+     *
+     * @param labels 标签，为空表示全部节点
+     * @return List<Node> 缓存不可用时返回null
+     */
+    public List<Node> listNodes(Map<String, String> labels) {
+        if (!usable() || !nodeInformer.hasSynced()) {
+            return null;
+        }
+        return filter(nodeInformer.getIndexer().list(), null, labels);
+    }
+
+    /**
+     * 按命名空间查询ResourceQuota
+     *
+     * @param namespace 命名空间，为空表示所有命名空间
+     * @return List<ResourceQuota> 缓存不可用时返回null
+     */
+    public List<ResourceQuota> listResourceQuotas(String namespace) {
+        if (!usable() || !resourceQuotaInformer.hasSynced()) {
+            return null;
+        }
+        if (StringUtils.isEmpty(namespace)) {
+            return new ArrayList<>(resourceQuotaInformer.getIndexer().list());
+        }
+        return new ArrayList<>(resourceQuotaInformer.getIndexer().byIndex(NAMESPACE_INDEX, namespace));
+    }
+
+    /**
+     * 注册Pod事件处理器，informer启动时挂载（已启动则立即挂载）
+     *
+     * @param handler 事件处理器
+     */
+    public synchronized void addPodEventHandler(ResourceEventHandler<Pod> handler) {
+        podEventHandlers.add(handler);
+        if (started) {
+            podInformer.addEventHandler(handler);
+        }
+    }
+
+    /**
+     * 注册Node事件处理器，informer启动时挂载（已启动则立即挂载）
+     *
+     * @param handler 事件处理器
+     */
+    public synchronized void addNodeEventHandler(ResourceEventHandler<Node> handler) {
+        nodeEventHandlers.add(handler);
+        if (started) {
+            nodeInformer.addEventHandler(handler);
+        }
+    }
+
+    /**
+     * informer是否已启动（不触发启动）
+     *
+     * @return boolean 是否已启动
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * 启动informer（如未启动）并判断Pod、Node是否已完成初始同步
+     *
+     * @return boolean 是否可用
+     */
+    public boolean ensureSynced() {
+        return usable() && podInformer.hasSynced() && nodeInformer.hasSynced();
+    }
+
+    /**
+     * 停止所有informer
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (informerFactory != null) {
+            informerFactory.stopAllRegisteredInformers();
+            informerFactory = null;
+        }
+        started = false;
+    }
+
+    /**
+     * 判断缓存是否可用，首次调用时启动informer并等待初始同步
+     *
+     * @return boolean 是否可用
+     */
+    private boolean usable() {
+        if (!enabled || client == null) {
+            return false;
+        }
+        if (!started) {
+            start();
+        }
+        return started;
+    }
+
+    /**
+     * 注册并启动informer
+     */
+    private synchronized void start() {
+        if (started) {
+            return;
+        }
+        try {
+            informerFactory = client.informers();
+            podInformer = informerFactory.sharedIndexInformerFor(Pod.class, PodList.class, resyncMillis);
+            Map<String, Function<Pod, List<String>>> podIndexers = new HashMap<>();
+            podIndexers.put(NAMESPACE_INDEX, K8sInformerCache::namespaceIndex);
+            podIndexers.put(RESOURCE_NAME_INDEX, pod -> labelIndex(pod, K8sLabelConstants.BASE_TAG_SOURCE));
+            podIndexers.put(NODE_NAME_INDEX, pod -> pod.getSpec() == null || pod.getSpec().getNodeName() == null ?
+                    Collections.emptyList() : Collections.singletonList(pod.getSpec().getNodeName()));
+            podInformer.addIndexers(podIndexers);
+            podEventHandlers.forEach(podInformer::addEventHandler);
+
+            nodeInformer = informerFactory.sharedIndexInformerFor(Node.class, NodeList.class, resyncMillis);
+            nodeEventHandlers.forEach(nodeInformer::addEventHandler);
+
+            resourceQuotaInformer = informerFactory.sharedIndexInformerFor(ResourceQuota.class, ResourceQuotaList.class, resyncMillis);
+            resourceQuotaInformer.addIndexers(Collections.singletonMap(NAMESPACE_INDEX, K8sInformerCache::namespaceIndex));
+
+            informerFactory.startAllRegisteredInformers();
+            started = true;
+            waitForSync();
+            LogUtil.info(LogEnum.BIZ_K8S, "k8s informer cache started, pod synced {}, node synced {}, resourceQuota synced {}",
+                    podInformer.hasSynced(), nodeInformer.hasSynced(), resourceQuotaInformer.hasSynced());
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_K8S, "k8s informer cache start error, fallback to live query:{}", e);
+            enabled = false;
+        }
+    }
+
+    private void waitForSync() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + syncTimeoutMillis;
+        while (System.currentTimeMillis() < deadline
+                && !(podInformer.hasSynced() && nodeInformer.hasSynced() && resourceQuotaInformer.hasSynced())) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+    }
+
+    private static List<String> namespaceIndex(HasMetadata resource) {
+        String namespace = resource.getMetadata() == null ? null : resource.getMetadata().getNamespace();
+        return namespace == null ? Collections.emptyList() : Collections.singletonList(namespace);
+    }
+
+    private static List<String> labelIndex(HasMetadata resource, String labelKey) {
+        Map<String, String> labels = resource.getMetadata() == null ? null : resource.getMetadata().getLabels();
+        String value = labels == null ? null : labels.get(labelKey);
+        return value == null ? Collections.emptyList() : Collections.singletonList(value);
+    }
+
+    /**
+     * 按命名空间和标签过滤，语义与withLabels一致（标签值为null时仅要求存在该标签）
+     */
+    private static <T extends HasMetadata> List<T> filter(List<T> candidates, String namespace, Map<String, String> labels) {
+        List<T> result = new ArrayList<>();
+        for (T candidate : candidates) {
+            ObjectMeta meta = candidate.getMetadata();
+            if (StringUtils.isNotEmpty(namespace) && !namespace.equals(meta.getNamespace())) {
+                continue;
+            }
+            if (matchLabels(meta.getLabels(), labels)) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    private static boolean matchLabels(Map<String, String> resourceLabels, Map<String, String> labels) {
+        if (CollectionUtils.isEmpty(labels)) {
+            return true;
+        }
+        if (resourceLabels == null) {
+            return false;
+        }
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            if (label.getValue() == null ? !resourceLabels.containsKey(label.getKey())
+                    : !label.getValue().equals(resourceLabels.get(label.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,362 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.k8s.cache;
+
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.utils.LogUtil;
+import org.dubhe.k8s.constant.K8sParamConstants;
+import org.dubhe.k8s.enums.PodPhaseEnum;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.CollectionUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * @description 集群GPU分配台账
+ * 基于K8sInformerCache的Pod/Node事件增量维护各节点GPU容量及运行中Pod已占用的GPU数，
+ * 资源准入判断直接读取台账而无需每次全量list节点与Pod；informer周期resync时事件重放，
+ * 另按固定周期以informer本地副本全量重建以纠正漂移
+ * @date 2026-10-17
+ */
+public class NodeAllocationLedger {
+
+    private final K8sInformerCache informerCache;
+
+    /**
+     * 全量对账周期(毫秒)
+     */
+    @Value("${k8s.ledger.reconcile-millis:60000}")
+    private long reconcileMillis;
+
+    /**
+     * 节点名称 -> 节点
+     */
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+
+    /**
+     * 节点名称 -> 节点GPU容量
+     */
+    private final Map<String, Integer> gpuCapacity = new ConcurrentHashMap<>();
+
+    /**
+     * 节点名称 -> 节点已分配GPU数
+     */
+    private final Map<String, Integer> gpuAllocated = new ConcurrentHashMap<>();
+
+    /**
+     * namespace/podName -> Pod占用的GPU，用于事件重复或乱序时按差量记账
+     */
+    private final Map<String, PodGpu> podGpus = new ConcurrentHashMap<>();
+
+    /**
+     * 集群已分配GPU总数
+     */
+    private final AtomicInteger totalAllocated = new AtomicInteger();
+
+    /**
+     * 是否已完成首次全量对账
+     */
+    private volatile boolean reconciled;
+
+    private ScheduledExecutorService reconcileExecutor;
+
+    public NodeAllocationLedger(K8sInformerCache informerCache) {
+        this.informerCache = informerCache;
+    }
+
+    /**
+     * 注册Pod/Node事件处理器并启动周期对账
+     */
+    @PostConstruct
+    public void init() {
+        informerCache.addPodEventHandler(new ResourceEventHandler<Pod>() {
+            @Override
+            public void onAdd(Pod pod) {
+                updatePod(pod);
+            }
+
+            @Override
+            public void onUpdate(Pod oldPod, Pod newPod) {
+                updatePod(newPod);
+            }
+
+            @Override
+            public void onDelete(Pod pod, boolean deletedFinalStateUnknown) {
+                removePod(podKey(pod));
+            }
+        });
+        informerCache.addNodeEventHandler(new ResourceEventHandler<Node>() {
+            @Override
+            public void onAdd(Node node) {
+                updateNode(node);
+            }
+
+            @Override
+            public void onUpdate(Node oldNode, Node newNode) {
+                updateNode(newNode);
+            }
+
+            @Override
+            public void onDelete(Node node, boolean deletedFinalStateUnknown) {
+                removeNode(node.getMetadata().getName());
+            }
+        });
+        reconcileExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "k8s-allocation-ledger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconcileExecutor.scheduleWithFixedDelay(this::reconcile, reconcileMillis, reconcileMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (reconcileExecutor != null) {
+            reconcileExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 台账是否可用，首次调用时启动informer并完成全量对账
+     *
+     * @return boolean 不可用时调用方回退为全量查询
+     */
+    public boolean isReady() {
+        if (!informerCache.ensureSynced()) {
+            return false;
+        }
+        if (!reconciled) {
+            reconcile();
+        }
+        return reconciled;
+    }
+
+    /**
+     * 台账中的全部节点
+     *
+     * @return List<Node> 节点集合，对象为informer共享实例，不得修改
+     */
+    public List<Node> listNodes() {
+        return new ArrayList<>(nodes.values());
+    }
+
+    /**
+     * 查询节点剩余可分配GPU数
+     *
+     * @param nodeName 节点名称
+     * @return int 剩余GPU数，非GPU节点返回0
+     */
+    public int getFreeGpu(String nodeName) {
+        return gpuCapacity.getOrDefault(nodeName, 0) - gpuAllocated.getOrDefault(nodeName, 0);
+    }
+
+    /**
+     * 按最佳适配从候选节点中筛选剩余GPU满足要求的节点，剩余GPU越少越靠前
+     *
+     * @param gpuNum 单位为显卡，即"1"表示1张显卡
+     * @param candidates 候选节点
+     * @return List<Node> 满足要求的节点
+     */
+    public List<Node> bestFitGpuNodes(int gpuNum, Collection<Node> candidates) {
+        return candidates.stream()
+                .filter(node -> gpuCapacity.containsKey(node.getMetadata().getName()))
+                .filter(node -> getFreeGpu(node.getMetadata().getName()) >= gpuNum)
+                .sorted(Comparator.comparingInt(node -> getFreeGpu(node.getMetadata().getName())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 查询集群总gpu数量（可调度且无污点的GPU节点）
+     *
+     * @return int 总gpu数量
+     */
+    public int getTotalGpu() {
+        return nodes.values().stream()
+                .filter(node -> !Boolean.TRUE.equals(node.getSpec().getUnschedulable()) && CollectionUtils.isEmpty(node.getSpec().getTaints()))
+                .mapToInt(node -> gpuCapacity.getOrDefault(node.getMetadata().getName(), 0))
+                .sum();
+    }
+
+    /**
+     * 查询集群已分配gpu数量
+     *
+     * @return int 已分配gpu数量
+     */
+    public int getAllocatedGpu() {
+        return totalAllocated.get();
+    }
+
+    /**
+     * 以informer本地副本全量重建台账
+     */
+    public synchronized void reconcile() {
+        if (!informerCache.isStarted()) {
+            return;
+        }
+        List<Node> nodeList = informerCache.listNodes(null);
+        List<Pod> podList = informerCache.listPods(null, null);
+        if (nodeList == null || podList == null) {
+            return;
+        }
+        Map<String, PodGpu> podSnapshot = new HashMap<>();
+        Map<String, Integer> allocatedSnapshot = new HashMap<>();
+        int allocated = 0;
+        for (Pod pod : podList) {
+            PodGpu podGpu = podGpu(pod);
+            if (podGpu != null) {
+                podSnapshot.put(podKey(pod), podGpu);
+                allocatedSnapshot.merge(podGpu.nodeName, podGpu.gpu, Integer::sum);
+                allocated += podGpu.gpu;
+            }
+        }
+        if (reconciled && allocated != totalAllocated.get()) {
+            LogUtil.warn(LogEnum.BIZ_K8S, "k8s allocation ledger drift corrected, allocated gpu {} -> {}", totalAllocated.get(), allocated);
+        }
+        //原地替换而非先清空，避免并发读取到空台账
+        nodeList.forEach(this::putNode);
+        nodes.keySet().retainAll(nodeList.stream().map(node -> node.getMetadata().getName()).collect(Collectors.toSet()));
+        gpuCapacity.keySet().retainAll(nodes.keySet());
+        replace(podGpus, podSnapshot);
+        replace(gpuAllocated, allocatedSnapshot);
+        totalAllocated.set(allocated);
+        reconciled = true;
+    }
+
+    private static <K, V> void replace(Map<K, V> target, Map<K, V> snapshot) {
+        target.putAll(snapshot);
+        target.keySet().retainAll(snapshot.keySet());
+    }
+
+    private synchronized void updatePod(Pod pod) {
+        String key = podKey(pod);
+        PodGpu current = podGpu(pod);
+        if (current == null) {
+            removePod(key);
+            return;
+        }
+        PodGpu previous = podGpus.put(key, current);
+        if (previous != null) {
+            allocate(previous.nodeName, -previous.gpu);
+        }
+        allocate(current.nodeName, current.gpu);
+    }
+
+    private synchronized void removePod(String key) {
+        PodGpu previous = podGpus.remove(key);
+        if (previous != null) {
+            allocate(previous.nodeName, -previous.gpu);
+        }
+    }
+
+    private void allocate(String nodeName, int gpu) {
+        gpuAllocated.merge(nodeName, gpu, (oldValue, delta) -> oldValue + delta == 0 ? null : oldValue + delta);
+        totalAllocated.addAndGet(gpu);
+    }
+
+    private synchronized void updateNode(Node node) {
+        putNode(node);
+    }
+
+    private synchronized void removeNode(String nodeName) {
+        nodes.remove(nodeName);
+        gpuCapacity.remove(nodeName);
+    }
+
+    private void putNode(Node node) {
+        String nodeName = node.getMetadata().getName();
+        nodes.put(nodeName, node);
+        Integer capacity = gpuAmount(node.getStatus() == null ? null : node.getStatus().getCapacity());
+        if (capacity == null) {
+            gpuCapacity.remove(nodeName);
+        } else {
+            gpuCapacity.put(nodeName, capacity);
+        }
+    }
+
+    /**
+     * 计算运行中且首个容器申请了GPU的Pod所占用的GPU，与NodeApiImpl原全量统计口径一致
+     *
+     * @param pod Pod
+     * @return PodGpu 不占用GPU时返回null
+     */
+    private static PodGpu podGpu(Pod pod) {
+        if (pod.getSpec() == null || pod.getStatus() == null || pod.getSpec().getNodeName() == null
+                || CollectionUtils.isEmpty(pod.getSpec().getContainers())
+                || !PodPhaseEnum.RUNNING.getPhase().equals(pod.getStatus().getPhase())) {
+            return null;
+        }
+        List<Container> containers = pod.getSpec().getContainers();
+        if (containerGpu(containers.get(0)) == null) {
+            return null;
+        }
+        int gpu = 0;
+        for (Container container : containers) {
+            Integer amount = containerGpu(container);
+            gpu += amount == null ? 0 : amount;
+        }
+        return new PodGpu(pod.getSpec().getNodeName(), gpu);
+    }
+
+    private static Integer containerGpu(Container container) {
+        return container.getResources() == null ? null : gpuAmount(container.getResources().getLimits());
+    }
+
+    private static Integer gpuAmount(Map<String, Quantity> resources) {
+        if (resources == null || !resources.containsKey(K8sParamConstants.GPU_RESOURCE_KEY)) {
+            return null;
+        }
+        return Integer.parseInt(resources.get(K8sParamConstants.GPU_RESOURCE_KEY).getAmount());
+    }
+
+    private static String podKey(Pod pod) {
+        return pod.getMetadata().getNamespace() + "/" + pod.getMetadata().getName();
+    }
+
+    /**
+     * Pod占用GPU记录
+     */
+    private static class PodGpu {
+
+        private final String nodeName;
+
+        private final int gpu;
+
+        PodGpu(String nodeName, int gpu) {
+            this.nodeName = nodeName;
+            this.gpu = gpu;
+        }
+    }
+}
@@ -25,8 +25,11 @@ import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
 import org.dubhe.k8s.api.*;
 import org.dubhe.k8s.api.impl.*;
+import org.dubhe.k8s.cache.K8sInformerCache;
+import org.dubhe.k8s.cache.NodeAllocationLedger;
 import org.dubhe.k8s.cache.ResourceCache;
 import org.dubhe.k8s.properties.ClusterProperties;
+import org.dubhe.k8s.utils.EsBulkLogWriter;
 import org.dubhe.k8s.utils.K8sUtils;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
@@ -141,6 +144,16 @@ public class K8sConfig {
         return new ResourceCache();
     }
 
+    @Bean
+    public K8sInformerCache k8sInformerCache(K8sUtils k8sUtils) {
+        return new K8sInformerCache(k8sUtils);
+    }
+
+    @Bean
+    public NodeAllocationLedger nodeAllocationLedger(K8sInformerCache k8sInformerCache) {
+        return new NodeAllocationLedger(k8sInformerCache);
+    }
+
     @Bean
     public MetricsApi metricsApi(K8sUtils k8sUtils) {
         return new MetricsApiImpl(k8sUtils);
@@ -184,6 +197,11 @@ public class K8sConfig {
         }));
     }
 
+    @Bean
+    public EsBulkLogWriter esBulkLogWriter(RestHighLevelClient restHighLevelClient) {
+        return new EsBulkLogWriter(restHighLevelClient);
+    }
+
     @Bean
     public ModelServingApi modelServingApi(K8sUtils k8sUtils){
         return new ModelServingApiImpl(k8sUtils);
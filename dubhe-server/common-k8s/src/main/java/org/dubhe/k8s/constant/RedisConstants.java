@@ -44,4 +44,12 @@ public class RedisConstants {
      * 延时队列值
      */
     public static final String DELAY_ZSET_VALUE = "%s__%s";
+    /**
+     * 延时动作队列
+     */
+    public static final String DELAY_ACTION_ZSET_KEY = "k8sclient:task:delay_action_zset";
+    /**
+     * 延时动作队列值 动作类型__命名空间__资源名称
+     */
+    public static final String DELAY_ACTION_ZSET_VALUE = "%s__%s__%s";
 }
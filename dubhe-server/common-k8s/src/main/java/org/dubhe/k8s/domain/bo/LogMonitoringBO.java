@@ -67,6 +67,11 @@ public class LogMonitoringBO {
      **/
     private Integer size;
 
+    /**
+     * 日志查询游标，上一次查询返回的游标（最后一条日志的排序值及查询偏好），传入时查询其后的日志
+     **/
+    private String searchAfter;
+
     /**
      * 业务标签,用于标识一个组的业务模块 比如:TRAIN模块的trainId, TADL模块的experimentId
      */
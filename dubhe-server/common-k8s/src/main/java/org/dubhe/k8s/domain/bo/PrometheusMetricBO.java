@@ -204,6 +204,33 @@ public class PrometheusMetricBO {
         return list;
     }
 
+    /**
+     * 按pod标签拆分批量查询结果
+     * @return Map<String, PrometheusMetricBO> pod名称 -> 该pod的查询结果
+     */
+    public Map<String, PrometheusMetricBO> splitByPod() {
+        Map<String, PrometheusMetricBO> map = new HashMap<>();
+        if (data == null || CollectionUtils.isEmpty(data.getResult())) {
+            return map;
+        }
+        for (MetricResult result : data.getResult()) {
+            if (result.getMetric() == null || StringUtils.isEmpty(result.getMetric().getPod())) {
+                continue;
+            }
+            PrometheusMetricBO podMetric = map.computeIfAbsent(result.getMetric().getPod(), pod -> {
+                PrometheusMetricBO bo = new PrometheusMetricBO();
+                bo.setStatus(status);
+                MetricData metricData = new MetricData();
+                metricData.setResultType(data.getResultType());
+                metricData.setResult(new ArrayList<>());
+                bo.setData(metricData);
+                return bo;
+            });
+            podMetric.getData().getResult().add(result);
+        }
+        return map;
+    }
+
 }
 
 @Data
@@ -17,7 +17,6 @@
 
 package org.dubhe.k8s.domain.vo;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.dubhe.k8s.domain.PtBaseResult;
 import java.util.List;
@@ -28,15 +27,23 @@ import java.util.List;
  * @date 2020-05-13
  */
 @Data
-@AllArgsConstructor
 public class LogMonitoringVO extends PtBaseResult {
     private Integer totalLogs;
     private List<String> logs;
+    /**
+     * 最后一条日志的游标，作为下次查询的searchAfter可继续翻页或拉取新增日志
+     */
+    private String cursor;
 
     public LogMonitoringVO() {
 
     }
 
+    public LogMonitoringVO(Integer totalLogs, List<String> logs) {
+        this.totalLogs = totalLogs;
+        this.logs = logs;
+    }
+
     public LogMonitoringVO(String code, String message){
         super();
     }
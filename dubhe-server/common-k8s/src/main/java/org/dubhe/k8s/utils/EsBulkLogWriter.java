@@ -0,0 +1,310 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.k8s.utils;
+
+import org.dubhe.biz.base.constant.MagicNumConstant;
+import org.dubhe.biz.base.constant.SymbolConstant;
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.utils.LogUtil;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @description Elasticsearch 异步批量日志写入器
+ * 调用方只将日志放入有界队列后立即返回，由单个写入线程交给 BulkProcessor 按条数、大小、时间批量提交；
+ * ES 变慢时并发 bulk 数达到上限后写入线程阻塞，队列写满即丢弃新日志并计数，需要预建的索引只在首次写入前检查创建一次；
+ * 每条日志写入全局唯一的 log_id 字段，供查询排序时作为唯一的翻页依据
+ * @date 2026-10-17
+ */
+public class EsBulkLogWriter {
+
+    /**
+     * 日志唯一标识字段，格式为 写入器标识-序号
+     */
+    public static final String LOG_ID = "log_id";
+
+    private final RestHighLevelClient restHighLevelClient;
+
+    /**
+     * 写入器标识，区分多个实例的序号
+     */
+    private final String writerId = UUID.randomUUID().toString().replace(SymbolConstant.HYPHEN, SymbolConstant.BLANK);
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 待写入日志队列容量
+     */
+    @Value("${k8s.elasticsearch.log.queue-capacity:10000}")
+    private int queueCapacity;
+
+    /**
+     * 单批最大日志条数
+     */
+    @Value("${k8s.elasticsearch.log.bulk-actions:1000}")
+    private int bulkActions;
+
+    /**
+     * 单批最大字节数(MB)
+     */
+    @Value("${k8s.elasticsearch.log.bulk-size-mb:5}")
+    private long bulkSizeMb;
+
+    /**
+     * 定时提交间隔(毫秒)
+     */
+    @Value("${k8s.elasticsearch.log.flush-millis:1000}")
+    private long flushMillis;
+
+    /**
+     * 同时进行中的bulk请求数
+     */
+    @Value("${k8s.elasticsearch.log.concurrent-requests:2}")
+    private int concurrentRequests;
+
+    private BlockingQueue<LogDoc> queue;
+
+    private BulkProcessor bulkProcessor;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    /**
+     * 索引名称 -> 索引创建请求，首次写入前不存在则创建
+     */
+    private final Map<String, CreateIndexRequest> indexCreators = new ConcurrentHashMap<>();
+
+    /**
+     * 已确认存在的索引
+     */
+    private final Set<String> readyIndices = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong accepted = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    public EsBulkLogWriter(RestHighLevelClient restHighLevelClient) {
+        this.restHighLevelClient = restHighLevelClient;
+    }
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        bulkProcessor = BulkProcessor.builder(
+                (request, listener) -> restHighLevelClient.bulkAsync(request, RequestOptions.DEFAULT, listener),
+                new BulkListener())
+                .setBulkActions(bulkActions)
+                .setBulkSize(new ByteSizeValue(bulkSizeMb, ByteSizeUnit.MB))
+                .setFlushInterval(TimeValue.timeValueMillis(flushMillis))
+                .setConcurrentRequests(concurrentRequests)
+                .setBackoffPolicy(BackoffPolicy.exponentialBackoff(TimeValue.timeValueMillis(MagicNumConstant.ONE_HUNDRED), MagicNumConstant.THREE))
+                .build();
+        running = true;
+        writerThread = new Thread(this::drain, "es-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(MagicNumConstant.ONE_THOUSAND);
+            LogDoc doc;
+            while ((doc = queue.poll()) != null) {
+                add(doc);
+            }
+            bulkProcessor.awaitClose(MagicNumConstant.TEN, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LogUtil.info(LogEnum.BIZ_K8S, "EsBulkLogWriter closed, accepted:{}, written:{}, failed:{}, dropped:{}", accepted.get(), written.get(), failed.get(), dropped.get());
+    }
+
+    /**
+     * 注册需预建的索引
+     *
+     * @param index 索引名称
+     * @param createIndexRequest 索引不存在时的创建请求
+     */
+    public void registerIndex(String index, CreateIndexRequest createIndexRequest) {
+        indexCreators.put(index, createIndexRequest);
+    }
+
+    /**
+     * 异步写入一条日志
+     *
+     * @param index 索引名称
+     * @param source 文档内容，写入时添加log_id字段
+     * @return boolean 是否进入写入队列，队列已满时丢弃并返回false
+     */
+    public boolean write(String index, Map<String, Object> source) {
+        source.put(LOG_ID, String.format("%s-%016x", writerId, sequence.incrementAndGet()));
+        if (!running || !queue.offer(new LogDoc(index, source))) {
+            long droppedCount = dropped.incrementAndGet();
+            if (droppedCount % MagicNumConstant.ONE_THOUSAND == MagicNumConstant.ONE) {
+                LogUtil.warn(LogEnum.BIZ_K8S, "EsBulkLogWriter queue is full, dropped {} logs so far", droppedCount);
+            }
+            return false;
+        }
+        accepted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 写入线程：取出日志交给BulkProcessor，并发bulk达到上限时在此阻塞
+     */
+    private void drain() {
+        while (running) {
+            try {
+                add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LogUtil.error(LogEnum.BIZ_K8S, "EsBulkLogWriter drain error:{}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void add(LogDoc doc) {
+        if (!ensureIndex(doc.index)) {
+            failed.incrementAndGet();
+            return;
+        }
+        bulkProcessor.add(new IndexRequest(doc.index).source(doc.source));
+    }
+
+    /**
+     * 确认索引存在，成功后缓存结果不再检查
+     *
+     * @param index 索引名称
+     * @return boolean 索引是否可用
+     */
+    private boolean ensureIndex(String index) {
+        CreateIndexRequest createIndexRequest = indexCreators.get(index);
+        if (createIndexRequest == null || readyIndices.contains(index)) {
+            return true;
+        }
+        try {
+            if (!restHighLevelClient.indices().exists(new GetIndexRequest(index), RequestOptions.DEFAULT)) {
+                restHighLevelClient.indices().create(createIndexRequest, RequestOptions.DEFAULT);
+            }
+            readyIndices.add(index);
+            return true;
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_K8S, "EsBulkLogWriter create index {} error:{}", index, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * bulk结果统计
+     */
+    private class BulkListener implements BulkProcessor.Listener {
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            int failedItems = 0;
+            if (response.hasFailures()) {
+                for (BulkItemResponse item : response.getItems()) {
+                    if (item.isFailed()) {
+                        failedItems++;
+                    }
+                }
+                LogUtil.warn(LogEnum.BIZ_K8S, "EsBulkLogWriter bulk {} partially failed:{}", executionId, response.buildFailureMessage());
+            }
+            failed.addAndGet(failedItems);
+            written.addAndGet(request.numberOfActions() - failedItems);
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            failed.addAndGet(request.numberOfActions());
+            LogUtil.error(LogEnum.BIZ_K8S, "EsBulkLogWriter bulk {} of {} logs failed:{}", executionId, request.numberOfActions(), failure.getMessage());
+        }
+    }
+
+    /**
+     * 待写入日志
+     */
+    private static class LogDoc {
+
+        private final String index;
+
+        private final Map<String, Object> source;
+
+        LogDoc(String index, Map<String, Object> source) {
+            this.index = index;
+            this.source = source;
+        }
+    }
+}
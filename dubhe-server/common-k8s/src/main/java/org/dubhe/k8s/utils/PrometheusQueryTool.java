@@ -0,0 +1,271 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.k8s.utils;
+
+import com.alibaba.fastjson.JSON;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.dubhe.biz.base.constant.MagicNumConstant;
+import org.dubhe.biz.base.constant.StringConstant;
+import org.dubhe.biz.base.constant.SymbolConstant;
+import org.dubhe.biz.base.utils.StringUtils;
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.utils.LogUtil;
+import org.dubhe.k8s.constant.K8sParamConstants;
+import org.dubhe.k8s.domain.bo.PrometheusMetricBO;
+import org.dubhe.k8s.domain.dto.PodQueryDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * @description prometheus 批量查询工具类
+ * 同一指标的多个pod合并为一次 pod=~"a|b" 查询后按pod标签拆分，各查询在线程池中并发执行并复用连接；
+ * 范围查询按步长对齐起止时间后短时缓存(失败结果不缓存)，相同查询的并发请求共享同一次HTTP调用
+ * @date 2026-10-17
+ */
+@Component
+public class PrometheusQueryTool {
+
+    /**
+     * 单pod查询匹配条件
+     */
+    private static final String POD_MATCHER = "pod=\"" + K8sParamConstants.POD_NAME_PLACEHOLDER + "\"";
+
+    /**
+     * 批量查询匹配条件
+     */
+    private static final String POD_REGEX_MATCHER = "pod=~\"%s\"";
+
+    /**
+     * 查询并发线程数
+     */
+    @Value("${k8s.prometheus.query-threads:8}")
+    private int queryThreads;
+
+    /**
+     * 单次批量查询的最大pod数
+     */
+    @Value("${k8s.prometheus.batch-size:50}")
+    private int batchSize;
+
+    /**
+     * 范围查询结果缓存时间(毫秒)
+     */
+    @Value("${k8s.prometheus.range-cache-ttl-millis:15000}")
+    private long rangeCacheTtlMillis;
+
+    /**
+     * 范围查询结果最大缓存条数
+     */
+    @Value("${k8s.prometheus.range-cache-size:1000}")
+    private int rangeCacheSize;
+
+    private OkHttpClient httpClient;
+
+    private ExecutorService executor;
+
+    /**
+     * 查询条件 -> 范围查询结果
+     */
+    private final Map<String, CacheEntry> rangeCache = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(queryThreads);
+        httpClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(queryThreads, MagicNumConstant.FIVE, TimeUnit.MINUTES))
+                .connectTimeout(MagicNumConstant.FIVE, TimeUnit.SECONDS)
+                .readTimeout(MagicNumConstant.SIXTY, TimeUnit.SECONDS)
+                .build();
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(queryThreads, runnable -> {
+            Thread thread = new Thread(runnable, "prometheus-query-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * 异步即时查询多个pod的同一指标
+     *
+     * @param url 查询地址
+     * @param template 查询表达式，含 pod="pod-name-placeholder"
+     * @param podNames pod名称列表
+     * @return CompletableFuture<Map<String, PrometheusMetricBO>> pod名称 -> 查询结果，查询失败的pod不在结果中
+     */
+    public CompletableFuture<Map<String, PrometheusMetricBO>> queryByPods(String url, String template, List<String> podNames) {
+        return queryByPods(url, template, podNames, null);
+    }
+
+    /**
+     * 异步范围查询多个pod的同一指标，起止时间按步长对齐并短时缓存
+     *
+     * @param url 查询地址
+     * @param template 查询表达式，含 pod="pod-name-placeholder"
+     * @param podNames pod名称列表
+     * @param podQueryDTO 查询参数，已生成默认参数
+     * @return CompletableFuture<Map<String, PrometheusMetricBO>> pod名称 -> 查询结果，查询失败的pod不在结果中
+     */
+    public CompletableFuture<Map<String, PrometheusMetricBO>> queryRangeByPods(String url, String template, List<String> podNames, PodQueryDTO podQueryDTO) {
+        Map<String, Object> rangeParams = new LinkedHashMap<>();
+        long step = podQueryDTO.getStep();
+        rangeParams.put(StringConstant.START_LOW, podQueryDTO.getStartTime() / step * step);
+        rangeParams.put(StringConstant.END_LOW, podQueryDTO.getEndTime() / step * step);
+        rangeParams.put(StringConstant.STEP_LOW, step);
+        return queryByPods(url, template, podNames, rangeParams);
+    }
+
+    private CompletableFuture<Map<String, PrometheusMetricBO>> queryByPods(String url, String template, List<String> podNames, Map<String, Object> rangeParams) {
+        if (StringUtils.isEmpty(url) || StringUtils.isEmpty(template) || CollectionUtils.isEmpty(podNames)) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+        List<CompletableFuture<Map<String, PrometheusMetricBO>>> futures = new ArrayList<>();
+        if (isBatchable(template)) {
+            for (int from = 0; from < podNames.size(); from += batchSize) {
+                List<String> batch = podNames.subList(from, Math.min(from + batchSize, podNames.size()));
+                String query = template.replace(POD_MATCHER, String.format(POD_REGEX_MATCHER, podRegex(batch)));
+                futures.add(query(url, query, rangeParams).thenApply(bo -> bo == null ? Collections.emptyMap() : bo.splitByPod()));
+            }
+        } else {
+            for (String podName : podNames) {
+                String query = template.replace(K8sParamConstants.POD_NAME_PLACEHOLDER, podName);
+                futures.add(query(url, query, rangeParams).thenApply(bo -> bo == null ? Collections.emptyMap() : Collections.singletonMap(podName, bo)));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            Map<String, PrometheusMetricBO> result = new HashMap<>(podNames.size());
+            futures.forEach(future -> result.putAll(future.join()));
+            return result;
+        });
+    }
+
+    /**
+     * 查询表达式按pod精确匹配且结果按pod分组时才能合并为正则查询并拆分结果，否则逐pod查询
+     *
+     * @param template 查询表达式
+     * @return boolean 是否可合并
+     */
+    private static boolean isBatchable(String template) {
+        return template.contains(POD_MATCHER) && template.replace(SymbolConstant.SPACE, SymbolConstant.BLANK).contains("by(pod");
+    }
+
+    private static String podRegex(List<String> podNames) {
+        return podNames.stream().map(podName -> podName.replace(".", "\\\\.")).collect(Collectors.joining("|"));
+    }
+
+    /**
+     * 执行查询，范围查询优先读取缓存，失败的查询不缓存
+     */
+    private CompletableFuture<PrometheusMetricBO> query(String url, String query, Map<String, Object> rangeParams) {
+        if (rangeParams == null) {
+            return CompletableFuture.supplyAsync(() -> get(url, query, null), executor);
+        }
+        String cacheKey = url + SymbolConstant.SPACE + query + SymbolConstant.SPACE + rangeParams;
+        long now = System.currentTimeMillis();
+        CacheEntry entry = rangeCache.compute(cacheKey, (key, cached) -> {
+            if (cached != null && cached.expireAt > now && !cached.isFailed()) {
+                return cached;
+            }
+            return new CacheEntry(CompletableFuture.supplyAsync(() -> get(url, query, rangeParams), executor), now + rangeCacheTtlMillis);
+        });
+        if (rangeCache.size() > rangeCacheSize) {
+            rangeCache.entrySet().removeIf(cached -> cached.getValue().expireAt <= now);
+        }
+        return entry.future;
+    }
+
+    /**
+     * prometheus get查询
+     */
+    private PrometheusMetricBO get(String url, String query, Map<String, Object> rangeParams) {
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        if (httpUrl == null) {
+            LogUtil.error(LogEnum.BIZ_K8S, "prometheus url {} is invalid", url);
+            return null;
+        }
+        HttpUrl.Builder builder = httpUrl.newBuilder().addQueryParameter(StringConstant.QUERY, query);
+        if (rangeParams != null) {
+            rangeParams.forEach((name, value) -> builder.addQueryParameter(name, String.valueOf(value)));
+        }
+        Request request = new Request.Builder().url(builder.build()).get().build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                LogUtil.error(LogEnum.BIZ_K8S, "prometheus query {} status {}", query, response.code());
+                return null;
+            }
+            return JSON.parseObject(body.string(), PrometheusMetricBO.class);
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_K8S, "prometheus query {} error:{}", query, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 范围查询缓存项
+     */
+    private static class CacheEntry {
+
+        private final CompletableFuture<PrometheusMetricBO> future;
+
+        private final long expireAt;
+
+        CacheEntry(CompletableFuture<PrometheusMetricBO> future, long expireAt) {
+            this.future = future;
+            this.expireAt = expireAt;
+        }
+
+        /**
+         * 查询已完成但失败，get失败时返回null
+         */
+        private boolean isFailed() {
+            return future.isDone() && (future.isCompletedExceptionally() || future.join() == null);
+        }
+    }
+}
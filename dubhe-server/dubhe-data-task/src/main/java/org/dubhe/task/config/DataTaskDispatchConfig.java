@@ -0,0 +1,56 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.task.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @description 数据集任务分发配置
+ * @date 2026-10-17
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "data-task.dispatch")
+public class DataTaskDispatchConfig {
+
+    /**
+     * 单次从数据库获取待处理任务的数量
+     */
+    private int batchSize = 32;
+
+    /**
+     * 没有收到新任务通知时的兜底轮询间隔(毫秒)
+     */
+    private long idleWaitMillis = 5000L;
+
+    /**
+     * 每个工作组线程池的等待队列长度
+     */
+    private int queueCapacity = 4;
+
+    /**
+     * 各工作组线程数，key为工作组名称，未配置时使用默认值
+     */
+    private Map<String, Integer> poolSize = new HashMap<>();
+
+}
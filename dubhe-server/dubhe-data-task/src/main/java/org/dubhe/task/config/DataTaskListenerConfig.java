@@ -0,0 +1,44 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.task.config;
+
+import org.dubhe.data.constant.Constant;
+import org.dubhe.task.data.DataTaskDispatcher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * @description 数据集任务创建通知监听配置
+ * @date 2026-10-17
+ */
+@Configuration
+public class DataTaskListenerConfig {
+
+    @Bean
+    public RedisMessageListenerContainer dataTaskListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                   DataTaskDispatcher dataTaskDispatcher) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener((message, pattern) -> dataTaskDispatcher.wakeup(),
+                new ChannelTopic(Constant.DATA_TASK_CREATED_CHANNEL));
+        return container;
+    }
+}
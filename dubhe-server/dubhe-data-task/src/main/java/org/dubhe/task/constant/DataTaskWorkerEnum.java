@@ -0,0 +1,94 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.task.constant;
+
+import lombok.Getter;
+import org.dubhe.data.constant.DataTaskTypeEnum;
+
+import java.util.*;
+
+/**
+ * @description 数据集任务处理工作组(每个工作组拥有独立的有界线程池)
+ * @date 2026-10-17
+ */
+@Getter
+public enum DataTaskWorkerEnum {
+
+    ANNOTATION("annotation", 4, DataTaskTypeEnum.ANNOTATION, DataTaskTypeEnum.AGAIN_ANNOTATION),
+    OF_RECORD("ofRecord", 2, DataTaskTypeEnum.OFRECORD),
+    TRACK("track", 2, DataTaskTypeEnum.TARGET_TRACK),
+    ENHANCE("enhance", 2, DataTaskTypeEnum.ENHANCE),
+    MEDICINE("medicine", 2, DataTaskTypeEnum.MEDICINE_ANNOTATION),
+    TEXT_CLASSIFICATION("textClassification", 2, DataTaskTypeEnum.TEXT_CLASSIFICATION),
+    CSV_IMPORT("csvImport", 2, DataTaskTypeEnum.CSV_IMPORT),
+    CONVERT_PRE_DATASET("convertPreDataset", 1, DataTaskTypeEnum.CONVERT_PRE_DATASET);
+
+    /**
+     * 工作组名称(用于线程名、配置项和监控指标)
+     */
+    private String name;
+
+    /**
+     * 默认工作线程数
+     */
+    private int defaultPoolSize;
+
+    /**
+     * 该工作组处理的任务类型
+     */
+    private List<Integer> taskTypes;
+
+    private static final Map<Integer, DataTaskWorkerEnum> map = new HashMap<>();
+
+    static {
+        for (DataTaskWorkerEnum workerEnum : EnumSet.allOf(DataTaskWorkerEnum.class)) {
+            for (Integer taskType : workerEnum.getTaskTypes()) {
+                map.put(taskType, workerEnum);
+            }
+        }
+    }
+
+    DataTaskWorkerEnum(String name, int defaultPoolSize, DataTaskTypeEnum... taskTypeEnums) {
+        this.name = name;
+        this.defaultPoolSize = defaultPoolSize;
+        List<Integer> types = new ArrayList<>(taskTypeEnums.length);
+        for (DataTaskTypeEnum taskTypeEnum : taskTypeEnums) {
+            types.add(taskTypeEnum.getValue());
+        }
+        this.taskTypes = Collections.unmodifiableList(types);
+    }
+
+    /**
+     * 根据任务类型获取工作组
+     *
+     * @param taskType 任务类型
+     * @return 工作组，未识别的任务类型返回null
+     */
+    public static DataTaskWorkerEnum getByTaskType(Integer taskType) {
+        return taskType == null ? null : map.get(taskType);
+    }
+
+    /**
+     * 获取全部工作组处理的任务类型
+     *
+     * @return 任务类型集合
+     */
+    public static Set<Integer> getAllTaskTypes() {
+        return Collections.unmodifiableSet(map.keySet());
+    }
+}
@@ -0,0 +1,243 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.task.data;
+
+import cn.hutool.core.collection.CollectionUtil;
+import org.dubhe.biz.base.constant.MagicNumConstant;
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.utils.LogUtil;
+import org.dubhe.data.domain.entity.Task;
+import org.dubhe.data.pool.DefaultThreadFactoryImpl;
+import org.dubhe.data.service.TaskService;
+import org.dubhe.task.config.DataTaskDispatchConfig;
+import org.dubhe.task.constant.DataTaskWorkerEnum;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * @description 数据集任务分发器
+ * 按任务类型划分工作组，每个工作组使用独立的有界线程池，单个耗时任务只占用本工作组的一个线程；
+ * 新任务创建时通过redis通知唤醒，无通知时按兜底间隔轮询
+ * @date 2026-10-17
+ */
+@Component
+public class DataTaskDispatcher implements Runnable {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private DataTaskExecuteThread dataTaskExecuteThread;
+
+    @Autowired
+    private DataTaskMetrics dataTaskMetrics;
+
+    @Autowired
+    private DataTaskDispatchConfig dispatchConfig;
+
+    private final Map<DataTaskWorkerEnum, ThreadPoolExecutor> executors = new EnumMap<>(DataTaskWorkerEnum.class);
+
+    /**
+     * 唤醒信号(新任务创建或工作组有空闲时释放)
+     */
+    private final Semaphore signal = new Semaphore(0);
+
+    private volatile boolean running = true;
+
+    /**
+     * 初始化工作组并启动分发线程
+     */
+    @PostConstruct
+    public void start() {
+        for (DataTaskWorkerEnum workerEnum : DataTaskWorkerEnum.values()) {
+            int poolSize = poolSize(workerEnum);
+            executors.put(workerEnum, new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(dispatchConfig.getQueueCapacity()),
+                    new DefaultThreadFactoryImpl("data-task-" + workerEnum.getName(), false, 0),
+                    new ThreadPoolExecutor.AbortPolicy()));
+        }
+        Thread thread = new Thread(this, "数据集任务分发");
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        wakeup();
+        executors.values().forEach(ThreadPoolExecutor::shutdown);
+    }
+
+    /**
+     * 唤醒分发线程
+     */
+    public void wakeup() {
+        if (signal.availablePermits() == 0) {
+            signal.release();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                if (dispatch() == 0) {
+                    signal.tryAcquire(dispatchConfig.getIdleWaitMillis(), TimeUnit.MILLISECONDS);
+                    signal.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LogUtil.error(LogEnum.BIZ_DATASET, "dispatch data task failed:{}", e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    /**
+     * 批量领取待处理任务并分发到对应工作组
+     *
+     * @return 本次成功领取的任务数
+     */
+    public int dispatch() {
+        return closeUnrecognizedTasks() + dispatchRecognizedTasks();
+    }
+
+    /**
+     * 领取各工作组有空闲容量的待处理任务并提交执行
+     *
+     * @return 本次成功领取的任务数
+     */
+    private int dispatchRecognizedTasks() {
+        Map<DataTaskWorkerEnum, Integer> capacity = new EnumMap<>(DataTaskWorkerEnum.class);
+        List<Integer> types = new ArrayList<>();
+        for (DataTaskWorkerEnum workerEnum : DataTaskWorkerEnum.values()) {
+            int free = poolSize(workerEnum) + dispatchConfig.getQueueCapacity() - dataTaskMetrics.inFlight(workerEnum);
+            if (free > 0) {
+                capacity.put(workerEnum, free);
+                types.addAll(workerEnum.getTaskTypes());
+            }
+        }
+        if (types.isEmpty()) {
+            return 0;
+        }
+        List<Task> tasks = taskService.getPendingTasks(types, dispatchConfig.getBatchSize());
+        if (CollectionUtil.isEmpty(tasks)) {
+            return 0;
+        }
+        int claimed = 0;
+        for (Task task : tasks) {
+            DataTaskWorkerEnum workerEnum = DataTaskWorkerEnum.getByTaskType(task.getType());
+            if (workerEnum == null || capacity.getOrDefault(workerEnum, 0) <= 0) {
+                continue;
+            }
+            // 任务加锁，其他实例已领取的任务跳过
+            if (taskService.updateTaskStatus(task.getId(), MagicNumConstant.ZERO, MagicNumConstant.ONE) == 0) {
+                continue;
+            }
+            if (submit(workerEnum, task)) {
+                capacity.put(workerEnum, capacity.get(workerEnum) - 1);
+                claimed++;
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * 领取没有对应工作组的任务并直接结束，避免其一直停留在待处理状态
+     *
+     * @return 本次结束的任务数
+     */
+    private int closeUnrecognizedTasks() {
+        List<Task> tasks = taskService.getUnrecognizedPendingTasks(DataTaskWorkerEnum.getAllTaskTypes(), dispatchConfig.getBatchSize());
+        if (CollectionUtil.isEmpty(tasks)) {
+            return 0;
+        }
+        int closed = 0;
+        for (Task task : tasks) {
+            if (taskService.updateTaskStatus(task.getId(), MagicNumConstant.ZERO, MagicNumConstant.ONE) == 0) {
+                continue;
+            }
+            LogUtil.info(LogEnum.BIZ_DATASET, "未识别任务, taskId:{}, type:{}", task.getId(), task.getType());
+            taskService.updateTaskStatus(task.getId(), MagicNumConstant.ONE, MagicNumConstant.TWO);
+            closed++;
+        }
+        return closed;
+    }
+
+    /**
+     * 提交任务到工作组，提交失败时释放任务锁以便重新领取
+     *
+     * @param workerEnum 工作组
+     * @param task       任务
+     * @return 是否提交成功
+     */
+    private boolean submit(DataTaskWorkerEnum workerEnum, Task task) {
+        long claimedAt = System.currentTimeMillis();
+        dataTaskMetrics.onClaimed(workerEnum);
+        try {
+            executors.get(workerEnum).execute(() -> process(workerEnum, task, claimedAt));
+            return true;
+        } catch (RejectedExecutionException e) {
+            dataTaskMetrics.onRejected(workerEnum);
+            taskService.updateTaskStatus(task.getId(), MagicNumConstant.ONE, MagicNumConstant.ZERO);
+            LogUtil.warn(LogEnum.BIZ_DATASET, "data task worker {} is full, release task {}", workerEnum.getName(), task.getId());
+            return false;
+        }
+    }
+
+    /**
+     * 工作线程执行任务
+     *
+     * @param workerEnum 工作组
+     * @param task       任务
+     * @param claimedAt  领取时间
+     */
+    private void process(DataTaskWorkerEnum workerEnum, Task task, long claimedAt) {
+        long startAt = System.currentTimeMillis();
+        dataTaskMetrics.onStarted(workerEnum, startAt - claimedAt);
+        boolean success = false;
+        try {
+            dataTaskExecuteThread.execute(task);
+            success = true;
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "execute data task {} failed:{}", task.getId(), e);
+        } finally {
+            dataTaskMetrics.onFinished(workerEnum, System.currentTimeMillis() - startAt, success);
+            wakeup();
+        }
+    }
+
+    private int poolSize(DataTaskWorkerEnum workerEnum) {
+        Integer size = dispatchConfig.getPoolSize().get(workerEnum.getName());
+        return size == null || size <= 0 ? workerEnum.getDefaultPoolSize() : size;
+    }
+
+    private void sleepQuietly() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(MagicNumConstant.ONE_THOUSAND);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -21,10 +21,8 @@ import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.util.ObjectUtil;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
-import com.alibaba.fastjson.support.spring.FastJsonRedisSerializer;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.ListUtils;
@@ -37,6 +35,7 @@ import org.dubhe.biz.file.dto.FileDTO;
 import org.dubhe.biz.file.utils.MinioUtil;
 import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
+import org.dubhe.biz.redis.utils.RedisPipelineUtils;
 import org.dubhe.biz.redis.utils.RedisUtils;
 import org.dubhe.biz.statemachine.dto.StateChangeDTO;
 import org.dubhe.data.constant.Constant;
@@ -64,18 +63,12 @@ import org.dubhe.task.constant.TaskQueueNameEnum;
 import org.dubhe.task.util.TableDataUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.dao.DataAccessException;
-import org.springframework.data.redis.connection.RedisConnection;
-import org.springframework.data.redis.core.RedisCallback;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.ObjectUtils;
 
-import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -85,7 +78,7 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @Component
-public class DataTaskExecuteThread implements Runnable {
+public class DataTaskExecuteThread {
 
     @Autowired
     private TaskService taskService;
@@ -94,10 +87,10 @@ public class DataTaskExecuteThread implements Runnable {
     @Autowired
     private DatasetService datasetService;
     @Autowired
-    private RedisTemplate redisTemplate;
-    @Autowired
     private RedisUtils redisUtils;
     @Autowired
+    private RedisPipelineUtils redisPipelineUtils;
+    @Autowired
     private DatasetLabelService datasetLabelService;
     @Autowired
     private DatasetVersionService datasetVersionService;
@@ -145,84 +138,45 @@ public class DataTaskExecuteThread implements Runnable {
     private static final Integer ANNOTATION_BATCH_SIZE = MagicNumConstant.SIXTEEN * MagicNumConstant.TEN_THOUSAND;
 
     /**
-     * 启动生成任务线程
-     */
-    @PostConstruct
-    public void start() {
-        Thread thread = new Thread(this, "数据集任务生成");
-        thread.start();
-    }
-
-    /**
-     * 生成任务run方法
-     */
-    @Override
-    public void run() {
-        while (true) {
-            try {
-                work();
-                TimeUnit.MILLISECONDS.sleep(MagicNumConstant.ONE_THOUSAND);
-            } catch (Exception e) {
-                LogUtil.error(LogEnum.BIZ_DATASET, "get algorithm task failed:{}", e);
-            }
-        }
-    }
-
-    /**
-     * 单个任务处理
-     */
-    public void work() {
-        // 获取一个待处理任务
-        Task task = taskService.getOnePendingTask();
-        if (ObjectUtil.isNotNull(task)) {
-            // 执行任务
-            execute(task);
-        }
-    }
-
-    /**
-     * 执行任务
+     * 执行任务(任务已由DataTaskDispatcher加锁领取)
      *
      * @param task 任务详情
      */
     public void execute(Task task) {
-        // 任务加锁
-        int count = taskService.updateTaskStatus(task.getId(), MagicNumConstant.ZERO, MagicNumConstant.ONE);
-        if (count != 0) {
-            switch (task.getType()) {
-                case MagicNumConstant.ZERO:
-                    annotationExecute(task);
-                    break;
-                case MagicNumConstant.ONE:
-                    ofRecordExecute(task);
-                    break;
-                case MagicNumConstant.FOUR:
-                    trackExecute(task);
-                    break;
-                case MagicNumConstant.THREE:
-                    enhanceExecute(task);
-                    break;
-                case MagicNumConstant.SIX:
-                    medicineExecute(task);
-                    break;
-                case MagicNumConstant.SEVEN:
-                    textClassificationExecute(task);
-                    break;
-                case MagicNumConstant.EIGHT:
-                    annotationService.deleteAnnotating(task.getDatasetId());
-                    annotationExecute(task);
-                    break;
-                case MagicNumConstant.TEN:
-                    csvImport(task);
-                    break;
-                case MagicNumConstant.ELEVEN:
-                    convertPreDataset(task);
-                default:
-                    LogUtil.info(LogEnum.BIZ_DATASET, "未识别任务");
-                    break;
-            }
-            taskService.updateTaskStatus(task.getId(), MagicNumConstant.ONE, MagicNumConstant.TWO);
+        switch (task.getType()) {
+            case MagicNumConstant.ZERO:
+                annotationExecute(task);
+                break;
+            case MagicNumConstant.ONE:
+                ofRecordExecute(task);
+                break;
+            case MagicNumConstant.FOUR:
+                trackExecute(task);
+                break;
+            case MagicNumConstant.THREE:
+                enhanceExecute(task);
+                break;
+            case MagicNumConstant.SIX:
+                medicineExecute(task);
+                break;
+            case MagicNumConstant.SEVEN:
+                textClassificationExecute(task);
+                break;
+            case MagicNumConstant.EIGHT:
+                annotationService.deleteAnnotating(task.getDatasetId());
+                annotationExecute(task);
+                break;
+            case MagicNumConstant.TEN:
+                csvImport(task);
+                break;
+            case MagicNumConstant.ELEVEN:
+                convertPreDataset(task);
+                break;
+            default:
+                LogUtil.info(LogEnum.BIZ_DATASET, "未识别任务");
+                break;
         }
+        taskService.updateTaskStatus(task.getId(), MagicNumConstant.ONE, MagicNumConstant.TWO);
     }
 
     /**
@@ -279,10 +233,10 @@ public class DataTaskExecuteThread implements Runnable {
      */
     @Transactional(rollbackFor = Exception.class)
     public void textClassificationExecute(Task task) {
-        int offset = 0;
+        long lastId = 0L;
         List<TaskSplitBO> allRedisTaskBo = new ArrayList<>();
         while (true) {
-            List<File> files = fileService.listBatchFile(task.getDatasetId(), offset, ANNOTATION_BATCH_SIZE,FileTypeEnum.getStatus(task.getFileType()));
+            List<File> files = fileService.listBatchFileAfterId(task.getDatasetId(), lastId, ANNOTATION_BATCH_SIZE, FileTypeEnum.getStatus(task.getFileType()));
             if (CollectionUtil.isNotEmpty(files)) {
                 //处理文件生成任务
                 DatasetVO datasetVO = datasetService.get(task.getDatasetId());
@@ -297,7 +251,7 @@ public class DataTaskExecuteThread implements Runnable {
                     }
                 });
                 allRedisTaskBo.addAll(taskSplitBOList);
-                offset += files.size();
+                lastId = files.get(files.size() - 1).getId();
             } else {
                 break;
             }
@@ -321,19 +275,21 @@ public class DataTaskExecuteThread implements Runnable {
             datasetLabels.put(label.getId().toString(), label.getName());
         });
         DatasetVersion datasetVersion = datasetVersionService.detail(task.getDatasetVersionId());
+        // 清单版本需先物化出真实目录供转换算法读取
+        datasetVersionService.materialize(datasetVersion.getVersionUrl());
         // 清理已经存在的ofrecord
         cleanOfRecord(datasetVersion.getVersionUrl() + "/ofrecord/train/");
         int partSize = MagicNumConstant.INTEGER_TWO_HUNDRED_AND_FIFTY_FIVE + 1;
         int batchSize = task.getTotal() <= partSize ? 1 : (task.getTotal() / partSize);
-        Integer offset = 0;
+        Long lastId = 0L;
         int partNum = 0;
         while (true) {
             if (task.getTotal() > partSize && partNum == MagicNumConstant.INTEGER_TWO_HUNDRED_AND_FIFTY_FIVE) {
                 batchSize = Integer.MAX_VALUE;
             }
-            offset = generateOfRecordTask(offset, task, datasetLabels, batchSize, datasetVersion, partNum);
+            lastId = generateOfRecordTask(lastId, task, datasetLabels, batchSize, datasetVersion, partNum);
             partNum++;
-            if (offset == null) {
+            if (lastId == null) {
                 break;
             }
         }
@@ -360,23 +316,23 @@ public class DataTaskExecuteThread implements Runnable {
     /**
      * 生成ofRecord任务
      *
-     * @param offset         偏移量
+     * @param lastId         上一批最后一条版本文件ID，首批传0
      * @param task           任务信息
      * @param datasetLabels  数据集标签
      * @param batchSize      批大小
      * @param datasetVersion 数据集版本
      * @param partNum        part编号
-     * @return
+     * @return 本批最后一条版本文件ID，无数据时返回null
      */
     @Transactional(rollbackFor = Exception.class)
-    public Integer generateOfRecordTask(Integer offset, Task task, Map<String, String> datasetLabels, int batchSize, DatasetVersion datasetVersion, int partNum) {
+    public Long generateOfRecordTask(Long lastId, Task task, Map<String, String> datasetLabels, int batchSize, DatasetVersion datasetVersion, int partNum) {
         OfRecordTaskDto ofRecordTaskDto = new OfRecordTaskDto();
         ofRecordTaskDto.setId(task.getId());
         ofRecordTaskDto.setDatasetPath(bucketName + java.io.File.separator + datasetVersion.getVersionUrl());
         ofRecordTaskDto.setDatasetLabels(datasetLabels);
-        List<DatasetVersionFile> datasetVersionFiles = datasetVersionFileService.getPages(offset, batchSize, task.getDatasetId(), datasetVersion.getVersionName());
+        List<DatasetVersionFile> datasetVersionFiles = datasetVersionFileService.getPagesAfterId(lastId, batchSize, task.getDatasetId(), datasetVersion.getVersionName());
         if (CollectionUtil.isNotEmpty(datasetVersionFiles)) {
-            offset = offset + datasetVersionFiles.size();
+            lastId = datasetVersionFiles.get(datasetVersionFiles.size() - 1).getId();
             Set<File> fileSet = fileService.get(datasetVersionFiles.stream().map(datasetVersionFile -> datasetVersionFile.getFileId()).collect(Collectors.toList()), task.getDatasetId());
             List<String> fileNames = fileSet.stream().map(file -> file.getUrl().substring(file.getUrl().lastIndexOf("/") + 1, file.getUrl().length())).collect(Collectors.toList());
             ofRecordTaskDto.setFiles(fileNames);
@@ -403,7 +359,7 @@ public class DataTaskExecuteThread implements Runnable {
 
             taskUtils.zAdd(taskQueue,taskId,10L);
             redisUtils.set(detail, ofRecordTaskDto);
-            return offset;
+            return lastId;
         }
         return null;
     }
@@ -416,11 +372,11 @@ public class DataTaskExecuteThread implements Runnable {
      */
     @Transactional(rollbackFor = Exception.class)
     public void annotationExecute(Task task) {
-        int offset = NumberConstant.NUMBER_0;
+        long lastId = 0L;
         TaskQueueNameEnum.TaskQueueConfigEnum configEnum = null;
         List<TaskSplitBO> allRedisTaskBo = new ArrayList<>();
         while (true) {
-            List<File> files = fileService.listBatchFile(task.getDatasetId(), offset, ANNOTATION_BATCH_SIZE, FileTypeEnum.getStatus(task.getFileType()));
+            List<File> files = fileService.listBatchFileAfterId(task.getDatasetId(), lastId, ANNOTATION_BATCH_SIZE, FileTypeEnum.getStatus(task.getFileType()));
             if (CollectionUtil.isNotEmpty(files)) {
                 //处理文件生成任务
                 DatasetVO datasetVO = datasetService.get(task.getDatasetId());
@@ -438,7 +394,7 @@ public class DataTaskExecuteThread implements Runnable {
                         TaskQueueNameEnum.TaskQueueConfigEnum.IMAGENET :
                         TaskQueueNameEnum.TaskQueueConfigEnum.ANNOTATION;
                 allRedisTaskBo.addAll(taskSplitBOList);
-                offset += files.size();
+                lastId = files.get(files.size() - 1).getId();
             } else {
                 break;
             }
@@ -462,38 +418,30 @@ public class DataTaskExecuteThread implements Runnable {
             }
         });
         try{
-            FastJsonRedisSerializer<Object> fastJsonRedisSerializer = new FastJsonRedisSerializer<>(Object.class);
-            redisTemplate.executePipelined(new RedisCallback<Object>() {
-                @SneakyThrows
-                @Override
-                public Object doInRedis(RedisConnection redisConnection) throws DataAccessException {
-                    for (int i = 0; i < taskSplitBOList.size(); i++) {
-                        String taskId = UUID.randomUUID().toString();
-                        taskSplitBOList.get(i).setReTaskId(taskId);
-
-                        String taskQueue = TaskQueueNameEnum.getTemplate(
-                                TaskQueueNameEnum.TASK,
-                                configEnum,
-                                String.valueOf(taskSplitBOList.get(i).getDatasetId()),
-                                task.getId().toString()
-                        );
-
-                        String detail = TaskQueueNameEnum.getTemplate(
-                                TaskQueueNameEnum.DETAIL,
-                                configEnum,
-                                String.valueOf(taskSplitBOList.get(i).getDatasetId()),
-                                task.getId().toString(),
-                                taskId
-                        );
-                        if(task.getModelServiceId() != null){
-                            taskQueue = taskQueue.replace(configEnum.getName(), task.getModelServiceId().toString());
-                            detail = detail.replace(configEnum.getName(), task.getModelServiceId().toString());
-                        }
-                        redisUtils.set(detail,taskSplitBOList.get(i));
-                        taskUtils.zAdd(taskQueue, taskId,10L);
-                    }
-                    return null;
+            redisPipelineUtils.execute(taskSplitBOList, (writer, taskSplitBO) -> {
+                String taskId = UUID.randomUUID().toString();
+                taskSplitBO.setReTaskId(taskId);
+
+                String taskQueue = TaskQueueNameEnum.getTemplate(
+                        TaskQueueNameEnum.TASK,
+                        configEnum,
+                        String.valueOf(taskSplitBO.getDatasetId()),
+                        task.getId().toString()
+                );
+
+                String detail = TaskQueueNameEnum.getTemplate(
+                        TaskQueueNameEnum.DETAIL,
+                        configEnum,
+                        String.valueOf(taskSplitBO.getDatasetId()),
+                        task.getId().toString(),
+                        taskId
+                );
+                if(task.getModelServiceId() != null){
+                    taskQueue = taskQueue.replace(configEnum.getName(), task.getModelServiceId().toString());
+                    detail = detail.replace(configEnum.getName(), task.getModelServiceId().toString());
                 }
+                writer.set(detail, taskSplitBO);
+                writer.zAdd(taskQueue, 10D, taskId);
             });
         } catch (Exception e){
             LogUtil.error(LogEnum.BIZ_DATASET, "redis pipeline error {}", e);
@@ -550,7 +498,7 @@ public class DataTaskExecuteThread implements Runnable {
             dataMedicineFileService.deleteAnnotation(task.getDatasetId());
         }
         List<List<DataMedicineFile>> medicalTasks = CollectionUtil.split(dataMedicineFiles, 16);
-        medicalTasks.forEach(medicalTask -> {
+        redisPipelineUtils.execute(medicalTasks, (writer, medicalTask) -> {
             JSONObject jsonObject = new JSONObject();
             jsonObject.put("taskId", task.getId().toString());
             List<String> dataMedicineFilesPaths = new ArrayList<>();
@@ -589,8 +537,8 @@ public class DataTaskExecuteThread implements Runnable {
                 detail = detail.replace(TaskQueueNameEnum.TaskQueueConfigEnum.LUNG_SEGMENTATION.getName()
                         ,task.getModelServiceId().toString());
             }
-            redisUtils.set(detail, jsonObject);
-            taskUtils.zAdd(taskQueue, detailKey, 10L);
+            writer.set(detail, jsonObject);
+            writer.zAdd(taskQueue, 10D, detailKey);
         });
     }
 
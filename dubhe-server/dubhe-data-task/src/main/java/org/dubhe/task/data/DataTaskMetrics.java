@@ -0,0 +1,159 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.task.data;
+
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.utils.LogUtil;
+import org.dubhe.task.constant.DataTaskWorkerEnum;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @description 数据集任务分发监控指标(按工作组统计队列深度和耗时)
+ * @date 2026-10-17
+ */
+@Component
+public class DataTaskMetrics {
+
+    private final Map<DataTaskWorkerEnum, WorkerStats> stats = new EnumMap<>(DataTaskWorkerEnum.class);
+
+    public DataTaskMetrics() {
+        for (DataTaskWorkerEnum workerEnum : DataTaskWorkerEnum.values()) {
+            stats.put(workerEnum, new WorkerStats());
+        }
+    }
+
+    /**
+     * 任务被领取并提交到工作组
+     *
+     * @param workerEnum 工作组
+     */
+    public void onClaimed(DataTaskWorkerEnum workerEnum) {
+        WorkerStats workerStats = stats.get(workerEnum);
+        workerStats.claimed.increment();
+        workerStats.inFlight.incrementAndGet();
+    }
+
+    /**
+     * 任务提交失败，归还占用的名额
+     *
+     * @param workerEnum 工作组
+     */
+    public void onRejected(DataTaskWorkerEnum workerEnum) {
+        stats.get(workerEnum).inFlight.decrementAndGet();
+    }
+
+    /**
+     * 任务开始执行
+     *
+     * @param workerEnum 工作组
+     * @param waitMillis 在工作组队列中等待的时间
+     */
+    public void onStarted(DataTaskWorkerEnum workerEnum, long waitMillis) {
+        stats.get(workerEnum).waitMillis.add(waitMillis);
+    }
+
+    /**
+     * 任务执行结束
+     *
+     * @param workerEnum 工作组
+     * @param costMillis 执行耗时
+     * @param success    是否执行成功
+     */
+    public void onFinished(DataTaskWorkerEnum workerEnum, long costMillis, boolean success) {
+        WorkerStats workerStats = stats.get(workerEnum);
+        workerStats.inFlight.decrementAndGet();
+        if (success) {
+            workerStats.completed.increment();
+        } else {
+            workerStats.failed.increment();
+        }
+        workerStats.costMillis.add(costMillis);
+        workerStats.maxCostMillis.accumulateAndGet(costMillis, Math::max);
+    }
+
+    /**
+     * 工作组中已领取但未执行完成的任务数(执行中 + 排队中)
+     *
+     * @param workerEnum 工作组
+     * @return 任务数
+     */
+    public int inFlight(DataTaskWorkerEnum workerEnum) {
+        return stats.get(workerEnum).inFlight.get();
+    }
+
+    /**
+     * 获取各工作组指标快照
+     *
+     * @return 工作组名称 -> 指标
+     */
+    public Map<String, Map<String, Long>> snapshot() {
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        stats.forEach((workerEnum, workerStats) -> result.put(workerEnum.getName(), workerStats.snapshot()));
+        return result;
+    }
+
+    /**
+     * 定时输出监控指标
+     */
+    @Scheduled(fixedDelayString = "${data-task.dispatch.metrics-log-interval:60000}")
+    public void report() {
+        stats.forEach((workerEnum, workerStats) -> {
+            if (workerStats.claimed.sum() > 0) {
+                LogUtil.info(LogEnum.BIZ_DATASET, "data task worker {} metrics:{}", workerEnum.getName(), workerStats.snapshot());
+            }
+        });
+    }
+
+    private static class WorkerStats {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private final LongAdder claimed = new LongAdder();
+
+        private final LongAdder completed = new LongAdder();
+
+        private final LongAdder failed = new LongAdder();
+
+        private final LongAdder waitMillis = new LongAdder();
+
+        private final LongAdder costMillis = new LongAdder();
+
+        private final AtomicLong maxCostMillis = new AtomicLong();
+
+        private Map<String, Long> snapshot() {
+            long finished = completed.sum() + failed.sum();
+            Map<String, Long> result = new LinkedHashMap<>();
+            result.put("inFlight", (long) inFlight.get());
+            result.put("claimed", claimed.sum());
+            result.put("completed", completed.sum());
+            result.put("failed", failed.sum());
+            result.put("avgWaitMillis", finished == 0 ? 0L : waitMillis.sum() / finished);
+            result.put("avgCostMillis", finished == 0 ? 0L : costMillis.sum() / finished);
+            result.put("maxCostMillis", maxCostMillis.get());
+            return result;
+        }
+    }
+}
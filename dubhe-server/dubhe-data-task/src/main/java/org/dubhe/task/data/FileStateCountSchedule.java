@@ -0,0 +1,49 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.task.data;
+
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.handler.ScheduleTaskHandler;
+import org.dubhe.biz.log.utils.LogUtil;
+import org.dubhe.data.machine.utils.FileStateCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * @description 数据集文件标注状态计数校正定时任务
+ * @date 2026-10-17
+ */
+@Component
+public class FileStateCountSchedule {
+
+    @Autowired
+    private FileStateCounter fileStateCounter;
+
+    /**
+     * 以数据库为准校正文件标注状态计数
+     */
+    @Scheduled(cron = "${data.state-counter.reconcile-cron:0 */5 * * * ?}")
+    public void reconcile() {
+        ScheduleTaskHandler.process(() -> {
+            int repaired = fileStateCounter.reconcile();
+            LogUtil.info(LogEnum.BIZ_DATASET, "file state count reconcile --- > end, repaired {}", repaired);
+        });
+    }
+
+}
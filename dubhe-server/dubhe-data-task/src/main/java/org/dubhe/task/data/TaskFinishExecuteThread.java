@@ -17,24 +17,42 @@
 
 package org.dubhe.task.data;
 
-import cn.hutool.core.util.ObjectUtil;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import org.apache.commons.collections4.ListUtils;
 import org.dubhe.biz.base.constant.MagicNumConstant;
 import org.dubhe.biz.base.utils.SpringContextHolder;
 import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
 import org.dubhe.biz.redis.utils.RedisUtils;
+import org.dubhe.data.pool.DefaultThreadFactoryImpl;
 import org.dubhe.data.util.TaskUtils;
 import org.dubhe.task.constant.DataAlgorithmEnum;
 import org.dubhe.task.constant.TaskQueueNameEnum;
 import org.dubhe.task.execute.AbstractAlgorithmExecute;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
-import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
 
+/**
+ * @description 算法任务完成处理
+ * 每次从redis批量领取完成/失败结果，按数据集ID分配到固定的处理通道：
+ * 同一数据集的结果在同一通道内顺序处理，不同数据集并行处理；处理完成的结果key和详情key统一批量删除。
+ * 领取的结果先转入处理中集合，处理成功后才移除；处理失败或进程重启、宕机时，结果在租约到期后放回原队列重试
+ * @date 2026-10-17
+ */
 @Component
 public class TaskFinishExecuteThread implements Runnable {
 
@@ -44,72 +62,383 @@ public class TaskFinishExecuteThread implements Runnable {
     @Autowired
     private RedisUtils redisUtils;
 
-    private Object object;
+    @Autowired
+    private RedisTemplate<Object, Object> redisTemplate;
+
+    @Autowired
+    private TaskFinishMetrics taskFinishMetrics;
 
-    private String detailQueue;
+    /**
+     * 单次从redis弹出的结果数量
+     */
+    @Value("${data-task.finish.batch-size:64}")
+    private int batchSize;
 
     /**
-     * 启动标注任务处理线程
+     * 处理通道数量
+     */
+    @Value("${data-task.finish.lanes:8}")
+    private int laneCount;
+
+    /**
+     * 每个处理通道的等待队列长度，队列满时阻塞弹出线程
+     */
+    @Value("${data-task.finish.lane-queue-capacity:256}")
+    private int laneQueueCapacity;
+
+    /**
+     * 没有待处理结果时的等待时间(毫秒)
+     */
+    @Value("${data-task.finish.idle-wait-millis:1000}")
+    private long idleWaitMillis;
+
+    /**
+     * 领取结果的租约时长(毫秒)，超时未确认的结果由任一实例放回原队列
+     */
+    @Value("${data-task.finish.lease-millis:1800000}")
+    private long leaseMillis;
+
+    /**
+     * 单个结果处理失败的最大重试次数，超过后丢弃并删除相关key
+     */
+    @Value("${data-task.finish.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * 处理失败的结果推迟重试的时长(毫秒)，到期后由租约检查放回原队列
+     */
+    @Value("${data-task.finish.retry-delay-millis:60000}")
+    private long retryDelayMillis;
+
+    /**
+     * 处理中集合，分值为租约到期时间
+     */
+    private static final String PROCESSING_KEY = "task_finish:processing";
+
+    /**
+     * 处理中结果的来源队列
+     */
+    private static final String SOURCE_KEY = "task_finish:source";
+
+    /**
+     * 处理失败的重试次数
+     */
+    private static final String ATTEMPTS_KEY = "task_finish:attempts";
+
+    private ThreadPoolExecutor[] lanes;
+
+    private volatile boolean running = true;
+
+    private Thread thread;
+
+    /**
+     * 待删除的redis key
+     */
+    private final ConcurrentLinkedQueue<Object> expiredKeys = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 已处理完成待确认的结果key
+     */
+    private final ConcurrentLinkedQueue<String> ackedObjects = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 启动任务完成处理线程
      */
     @PostConstruct
     public void start() {
-        Thread thread = new Thread(this, "任务完成任务处理队列");
+        lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(laneQueueCapacity),
+                    new DefaultThreadFactoryImpl("task-finish-lane" + i, false, 0),
+                    (runnable, executor) -> {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("task finish lane is shutdown");
+                        }
+                        try {
+                            executor.getQueue().put(runnable);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException(e);
+                        }
+                    });
+        }
+        thread = new Thread(this, "任务完成任务处理队列");
         thread.start();
     }
 
+    /**
+     * 停止领取，尚未开始处理的结果立即放回原队列，正在处理的结果等待完成后确认
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        thread.interrupt();
+        for (ThreadPoolExecutor lane : lanes) {
+            List<Runnable> pending = new ArrayList<>();
+            lane.getQueue().drainTo(pending);
+            lane.shutdown();
+            for (Runnable runnable : pending) {
+                requeue(((FinishJob) runnable).object, false);
+            }
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            try {
+                lane.awaitTermination(MagicNumConstant.SIXTY, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        deleteExpiredKeys();
+    }
+
     @Override
     public void run() {
-        while (true) {
+        while (running) {
             try {
-                finishExecute(true);
-                finishExecute(false);
-                TimeUnit.MILLISECONDS.sleep(MagicNumConstant.ONE_THOUSAND);
+                int popped = finishExecute(true) + finishExecute(false);
+                deleteExpiredKeys();
+                if (popped == 0) {
+                    TimeUnit.MILLISECONDS.sleep(idleWaitMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             } catch (Exception e) {
                 LogUtil.error(LogEnum.BIZ_DATASET, "finish algorithm task failed:{}", e);
             }
         }
     }
 
-    private void finishExecute(boolean ifFinish) {
-        String queueName;
-        if(ifFinish){
-            queueName = TaskQueueNameEnum.getTemplate(TaskQueueNameEnum.FINISHED_TASK, TaskQueueNameEnum.TaskQueueConfigEnum.ALL);
+    /**
+     * 批量弹出完成/失败结果并分发到处理通道
+     *
+     * @param ifFinish true:完成结果 false:失败结果
+     * @return 弹出的结果数量
+     */
+    private int finishExecute(boolean ifFinish) {
+        List<String> objects;
+        if (ifFinish) {
+            objects = taskUtils.claimFinishedTasks(TaskQueueNameEnum.getTemplate(TaskQueueNameEnum.FINISHED_TASK,
+                    TaskQueueNameEnum.TaskQueueConfigEnum.ALL), batchSize, PROCESSING_KEY, SOURCE_KEY, leaseMillis);
         } else {
-            queueName = TaskQueueNameEnum.getTemplate(TaskQueueNameEnum.FAILED_TASK, TaskQueueNameEnum.TaskQueueConfigEnum.ALL);
+            objects = taskUtils.claimFailedTasks(TaskQueueNameEnum.getTemplate(TaskQueueNameEnum.FAILED_TASK,
+                    TaskQueueNameEnum.TaskQueueConfigEnum.ALL), batchSize, PROCESSING_KEY, SOURCE_KEY, leaseMillis);
+        }
+        if (objects.isEmpty()) {
+            return 0;
+        }
+        // 结果与详情一次批量读取
+        List<Object> keys = new ArrayList<>(objects.size() * 2);
+        for (String object : objects) {
+            keys.add(object);
+            keys.add(getDetailKey(object));
         }
-        JSONObject detail = getDetail(queueName, ifFinish);
-        if(detail != null){
-            Integer algorithm = detail.getInteger("algorithm");
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        taskFinishMetrics.onPopped(objects.size());
+        for (int i = 0; i < objects.size(); i++) {
+            String object = objects.get(i);
+            String detailQueue = getDetailKey(object);
+            Object result = values == null ? null : values.get(i * 2);
+            Object detail = values == null ? null : values.get(i * 2 + 1);
+            if (detail == null) {
+                expiredKeys.add(object);
+                ackedObjects.add(object);
+                taskFinishMetrics.onProcessed(null, 0L, false);
+                continue;
+            }
+            JSONObject taskDetail = JSON.parseObject(JSON.toJSONString(detail));
+            taskDetail.put("object", JSONObject.parseObject(JSON.toJSONString(result)));
+            try {
+                lane(object).execute(new FinishJob(object, () -> process(object, detailQueue, taskDetail, ifFinish)));
+            } catch (RejectedExecutionException e) {
+                // 停止过程中无法再分发，本批剩余结果立即放回原队列
+                for (int j = i; j < objects.size(); j++) {
+                    requeue(objects.get(j), false);
+                }
+                break;
+            }
+        }
+        return objects.size();
+    }
+
+    /**
+     * 处理单个任务结果
+     *
+     * @param object      任务结果key
+     * @param detailQueue 任务详情key
+     * @param taskDetail  任务详情
+     * @param ifFinish    true:完成结果 false:失败结果
+     */
+    private void process(String object, String detailQueue, JSONObject taskDetail, boolean ifFinish) {
+        long start = System.currentTimeMillis();
+        Integer algorithm = taskDetail.getInteger("algorithm");
+        boolean success = false;
+        try {
             AbstractAlgorithmExecute abstractAlgorithmExecute = (AbstractAlgorithmExecute) SpringContextHolder.getBean(DataAlgorithmEnum.getType(algorithm).getClassName());
-            if(ifFinish){
-                abstractAlgorithmExecute.finishMethod(object,detailQueue,detail);
+            if (ifFinish) {
+                abstractAlgorithmExecute.executeFinish(object, detailQueue, taskDetail);
             } else {
-                abstractAlgorithmExecute.failMethod(object,detailQueue,detail);
+                abstractAlgorithmExecute.executeFail(object, detailQueue, taskDetail);
+            }
+            if (abstractAlgorithmExecute.releaseRedisKey(object, detailQueue)) {
+                expiredKeys.add(object);
+                expiredKeys.add(detailQueue);
             }
+            ackedObjects.add(object);
+            success = true;
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "execute {} task failed, key:{}, error:{}", ifFinish ? "finish" : "failed", object, e);
+            delay(object);
+        } finally {
+            taskFinishMetrics.onProcessed(algorithm, System.currentTimeMillis() - start, success);
         }
     }
 
-    private JSONObject getDetail(String queueName,boolean ifFinish){
-        if(ifFinish){
-            object = taskUtils.getFinishedTask(queueName);
-        } else {
-            object = taskUtils.getFailedTask(queueName);
-        }
-        if (ObjectUtil.isNotNull(object)) {
-            JSONObject jsonObject = JSONObject.parseObject(JSON.toJSONString(redisUtils.get(object.toString())));
-            //获取详情
-            String objectString = object.toString();
-            StringBuffer sb = new StringBuffer(objectString);
-            detailQueue = sb.replace(objectString.lastIndexOf("annotation")
-                    ,objectString.lastIndexOf("annotation")+"annotation".length(),"detail").toString();
-            JSONObject taskDetail = JSON.parseObject(JSON.toJSONString(redisUtils.get(detailQueue)));
-            if (taskDetail == null) {
-                redisUtils.del(object.toString());
+    /**
+     * 批量确认已处理的结果，并删除任务结果key和详情key
+     */
+    private void deleteExpiredKeys() {
+        List<String> acked = new ArrayList<>();
+        String object;
+        while ((object = ackedObjects.poll()) != null) {
+            acked.add(object);
+        }
+        for (List<String> part : ListUtils.partition(acked, MagicNumConstant.ONE_THOUSAND)) {
+            byte[][] members = part.stream().map(member -> member.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.zRem(PROCESSING_KEY.getBytes(StandardCharsets.UTF_8), members);
+                connection.hDel(SOURCE_KEY.getBytes(StandardCharsets.UTF_8), members);
+                connection.hDel(ATTEMPTS_KEY.getBytes(StandardCharsets.UTF_8), members);
+                return null;
+            });
+        }
+        List<Object> keys = new ArrayList<>();
+        Object key;
+        while ((key = expiredKeys.poll()) != null) {
+            keys.add(key);
+        }
+        for (List<Object> part : ListUtils.partition(keys, MagicNumConstant.ONE_THOUSAND)) {
+            redisTemplate.delete(part);
+        }
+    }
+
+    /**
+     * 将结果放回原队列
+     *
+     * @param object       任务结果key
+     * @param countAttempt 是否计入重试次数
+     * @return 1:已放回 0:不在处理中 -1:超过最大重试次数未放回
+     */
+    private long requeue(String object, boolean countAttempt) {
+        try {
+            return taskUtils.requeueTask(PROCESSING_KEY, SOURCE_KEY, ATTEMPTS_KEY, object, maxAttempts, countAttempt);
+        } catch (Exception e) {
+            // 放回失败时结果仍在处理中集合，租约到期后会被重新放回
+            LogUtil.error(LogEnum.BIZ_DATASET, "requeue task result failed, key:{}, error:{}", object, e);
+            return 0L;
+        }
+    }
+
+    /**
+     * 处理失败的结果留在处理中集合并推迟租约到期时间，避免立即重试
+     *
+     * @param object 任务结果key
+     */
+    private void delay(String object) {
+        try {
+            taskUtils.delayTask(PROCESSING_KEY, object, retryDelayMillis);
+        } catch (Exception e) {
+            // 推迟失败时结果仍在处理中集合，原租约到期后会被重新放回
+            LogUtil.error(LogEnum.BIZ_DATASET, "delay task result failed, key:{}, error:{}", object, e);
+        }
+    }
+
+    /**
+     * 租约到期仍未确认的结果(处理失败、实例重启、宕机等)放回原队列，超过最大重试次数的结果丢弃
+     */
+    @Scheduled(fixedDelayString = "${data-task.finish.lease-check-interval:60000}")
+    public void reclaimExpiredLeases() {
+        Set<byte[]> expired = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection ->
+                connection.zRangeByScore(PROCESSING_KEY.getBytes(StandardCharsets.UTF_8), 0, System.currentTimeMillis()));
+        if (expired == null || expired.isEmpty()) {
+            return;
+        }
+        for (byte[] member : expired) {
+            String object = new String(member, StandardCharsets.UTF_8);
+            LogUtil.warn(LogEnum.BIZ_DATASET, "task result lease expired, requeue key:{}", object);
+            if (requeue(object, true) < 0) {
+                LogUtil.error(LogEnum.BIZ_DATASET, "task result failed more than {} times, drop key:{}", maxAttempts, object);
+                expiredKeys.add(object);
+                expiredKeys.add(getDetailKey(object));
+            }
+        }
+    }
+
+    /**
+     * 统计redis中待处理的完成/失败结果数量并输出监控指标
+     */
+    @Scheduled(fixedDelayString = "${data-task.finish.metrics-log-interval:60000}")
+    public void reportBacklog() {
+        List<String> queues = new ArrayList<>(redisUtils.scan("dataset:*:*:*:finished:*"));
+        queues.addAll(redisUtils.scan("dataset:*:*:*:failed:*"));
+        long backlog = 0L;
+        if (!queues.isEmpty()) {
+            List<Object> sizes = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String queue : queues) {
+                    connection.zCard(queue.getBytes(StandardCharsets.UTF_8));
+                }
                 return null;
+            });
+            for (Object size : sizes) {
+                backlog += size == null ? 0L : ((Number) size).longValue();
             }
-            taskDetail.put("object", jsonObject);
-            return taskDetail;
         }
-        return null;
+        taskFinishMetrics.onRedisBacklog(backlog);
+        taskFinishMetrics.report();
+    }
+
+    /**
+     * 通道内的处理任务，记录结果key以便停止时放回原队列
+     */
+    private static class FinishJob implements Runnable {
+
+        private final String object;
+
+        private final Runnable runnable;
+
+        FinishJob(String object, Runnable runnable) {
+            this.object = object;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            runnable.run();
+        }
+    }
+
+    /**
+     * 同一数据集的结果固定分配到同一处理通道
+     *
+     * @param object 任务结果key，格式 dataset:{算法}:{数据集ID}:{任务ID}:annotation:{子任务ID}
+     * @return 处理通道
+     */
+    private ThreadPoolExecutor lane(String object) {
+        String[] segments = object.split(":");
+        String datasetId = segments.length > MagicNumConstant.TWO ? segments[MagicNumConstant.TWO] : object;
+        return lanes[Math.floorMod(datasetId.hashCode(), lanes.length)];
+    }
+
+    /**
+     * 根据任务结果key获取任务详情key
+     *
+     * @param object 任务结果key
+     * @return 任务详情key
+     */
+    private String getDetailKey(String object) {
+        StringBuilder sb = new StringBuilder(object);
+        return sb.replace(object.lastIndexOf("annotation"),
+                object.lastIndexOf("annotation") + "annotation".length(), "detail").toString();
     }
 }
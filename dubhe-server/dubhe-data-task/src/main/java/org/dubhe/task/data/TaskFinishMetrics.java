@@ -0,0 +1,121 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.task.data;
+
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.utils.LogUtil;
+import org.dubhe.task.constant.DataAlgorithmEnum;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @description 算法任务完成处理监控指标(积压量与各算法处理耗时)
+ * @date 2026-10-17
+ */
+@Component
+public class TaskFinishMetrics {
+
+    private final ConcurrentMap<Integer, AlgorithmStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * 已从redis弹出、等待处理的任务数
+     */
+    private final AtomicLong pending = new AtomicLong();
+
+    /**
+     * 最近一次统计的redis完成/失败队列积压数
+     */
+    private final AtomicLong redisBacklog = new AtomicLong();
+
+    public void onPopped(int count) {
+        pending.addAndGet(count);
+    }
+
+    public void onRedisBacklog(long backlog) {
+        redisBacklog.set(backlog);
+    }
+
+    /**
+     * 单个任务结果处理完成
+     *
+     * @param algorithm  算法类型
+     * @param costMillis 处理耗时
+     * @param success    是否处理成功
+     */
+    public void onProcessed(Integer algorithm, long costMillis, boolean success) {
+        pending.decrementAndGet();
+        AlgorithmStats algorithmStats = stats.computeIfAbsent(algorithm == null ? -1 : algorithm, key -> new AlgorithmStats());
+        if (success) {
+            algorithmStats.processed.increment();
+        } else {
+            algorithmStats.failed.increment();
+        }
+        algorithmStats.costMillis.add(costMillis);
+        algorithmStats.maxCostMillis.accumulateAndGet(costMillis, Math::max);
+    }
+
+    /**
+     * 获取指标快照
+     *
+     * @return 指标
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("pending", pending.get());
+        result.put("redisBacklog", redisBacklog.get());
+        stats.forEach((algorithm, algorithmStats) -> {
+            DataAlgorithmEnum algorithmEnum = DataAlgorithmEnum.getType(algorithm);
+            result.put(algorithmEnum == null ? String.valueOf(algorithm) : algorithmEnum.getDesc(), algorithmStats.snapshot());
+        });
+        return result;
+    }
+
+    /**
+     * 输出监控指标
+     */
+    public void report() {
+        LogUtil.info(LogEnum.BIZ_DATASET, "task finish metrics:{}", snapshot());
+    }
+
+    private static class AlgorithmStats {
+
+        private final LongAdder processed = new LongAdder();
+
+        private final LongAdder failed = new LongAdder();
+
+        private final LongAdder costMillis = new LongAdder();
+
+        private final AtomicLong maxCostMillis = new AtomicLong();
+
+        private Map<String, Long> snapshot() {
+            long total = processed.sum() + failed.sum();
+            Map<String, Long> result = new LinkedHashMap<>();
+            result.put("processed", processed.sum());
+            result.put("failed", failed.sum());
+            result.put("avgCostMillis", total == 0 ? 0L : costMillis.sum() / total);
+            result.put("maxCostMillis", maxCostMillis.get());
+            return result;
+        }
+    }
+}
@@ -18,38 +18,32 @@
 package org.dubhe.task.execute;
 
 import com.alibaba.fastjson.JSONObject;
-import org.dubhe.biz.base.utils.SpringContextHolder;
-import org.dubhe.biz.log.enums.LogEnum;
-import org.dubhe.biz.log.utils.LogUtil;
-import org.dubhe.biz.redis.utils.RedisUtils;
 
 public abstract class AbstractAlgorithmExecute {
 
-    private RedisUtils redisUtils;
-
-    public AbstractAlgorithmExecute(){
-        this.redisUtils = SpringContextHolder.getBean(RedisUtils.class);
-    }
-
-    public final void finishMethod(Object object, String queueName,JSONObject taskDetail){
-        try{
-            if(!checkStop(object, queueName,taskDetail)){
-                finishExecute(taskDetail);
-            }
-            deleteRedisKey(object,queueName);
-        } catch (Exception e){
-            LogUtil.error(LogEnum.BIZ_DATASET, "execute finish task failed:{}", e);
+    /**
+     * 处理完成任务，不删除redis中的任务结果和详情(由调用方批量删除)
+     *
+     * @param object     任务结果key
+     * @param queueName  任务详情key
+     * @param taskDetail 任务详情
+     */
+    public final void executeFinish(Object object, String queueName, JSONObject taskDetail){
+        if(!checkStop(object, queueName, taskDetail)){
+            finishExecute(taskDetail);
         }
     }
 
-    public final void failMethod(Object object, String queueName,JSONObject failDetail){
-        try {
-            if(!checkStop(object, queueName, failDetail)){
-                failExecute(failDetail);
-            }
-            deleteRedisKey(object,queueName);
-        } catch (Exception e){
-            LogUtil.error(LogEnum.BIZ_DATASET, "execute failed task failed:{}", e);
+    /**
+     * 处理失败任务，不删除redis中的任务结果和详情(由调用方批量删除)
+     *
+     * @param object     任务结果key
+     * @param queueName  任务详情key
+     * @param failDetail 任务详情
+     */
+    public final void executeFail(Object object, String queueName, JSONObject failDetail){
+        if(!checkStop(object, queueName, failDetail)){
+            failExecute(failDetail);
         }
     }
 
@@ -62,8 +56,15 @@ public abstract class AbstractAlgorithmExecute {
         return false;
     }
 
-    public void deleteRedisKey(Object object,String detailQueue) throws Exception{
-        redisUtils.del(object.toString());
-        redisUtils.del(detailQueue);
+    /**
+     * 处理完成后是否删除任务结果key和详情key(由调用方批量删除)，返回false时由子类自行处理任务结果
+     *
+     * @param object      任务结果key
+     * @param detailQueue 任务详情key
+     * @return 是否删除
+     * @throws Exception 异常
+     */
+    public boolean releaseRedisKey(Object object, String detailQueue) throws Exception{
+        return true;
     }
 }
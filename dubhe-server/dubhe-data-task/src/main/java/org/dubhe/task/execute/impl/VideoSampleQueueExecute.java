@@ -91,11 +91,11 @@ public class VideoSampleQueueExecute extends AbstractAlgorithmExecute {
     }
 
     @Override
-    public void deleteRedisKey(Object object, String detailQueue) throws Exception{
+    public boolean releaseRedisKey(Object object, String detailQueue) throws Exception{
         if(presentSegmentation) {
-            super.deleteRedisKey(object, detailQueue);
-        } else {
-            redisUtils.zAdd(object.toString().replace("task","finished"), System.currentTimeMillis()/1000, ("\"" + object.toString() + "\"").getBytes("utf-8"));
+            return true;
         }
+        redisUtils.zAdd(object.toString().replace("task","finished"), System.currentTimeMillis()/1000, ("\"" + object.toString() + "\"").getBytes("utf-8"));
+        return false;
     }
 }
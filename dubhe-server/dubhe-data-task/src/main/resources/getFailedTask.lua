@@ -1,4 +1,6 @@
 local namespace = KEYS[1]
+-- 单次弹出数量，未传入时弹出1条
+local count = tonumber(ARGV[1]) or 1
 local failed_task_queue_name = "failed_task"
 local failed_task_queue = redis.call("get", namespace..":"..failed_task_queue_name)
 local time = redis.call('TIME')
@@ -38,9 +40,18 @@ end
 if current_task_queue == nil then
     return nil
 else
-    local element = redis.call('zrangebyscore', current_task_queue, 0, 9999999999999, 'limit', 0, 1)
+    local element = redis.call('zrangebyscore', current_task_queue, 0, 9999999999999, 'limit', 0, count)
     if table.getn(element)>0 then
-        redis.call("zrem", current_task_queue, element[1])
+        redis.call("zrem", current_task_queue, unpack(element))
+        -- 传入处理中集合时，弹出的结果转入处理中集合(分值为租约到期时间)并记录来源队列，处理成功后再移除
+        if KEYS[2] ~= nil then
+            local deadline = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) + tonumber(ARGV[2])
+            for i=1,#element,1
+            do
+                redis.call("zadd", KEYS[2], deadline, element[i])
+                redis.call("hset", KEYS[3], element[i], current_task_queue)
+            end
+        end
     end
     return element
 end
\ No newline at end of file
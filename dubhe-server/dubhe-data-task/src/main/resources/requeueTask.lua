@@ -0,0 +1,18 @@
+-- 将处理中的结果放回来源队列
+-- KEYS[1] 处理中集合 KEYS[2] 来源队列hash KEYS[3] 重试次数hash
+-- ARGV[1] 结果key ARGV[2] 最大重试次数 ARGV[3] 放回队列时的分值 ARGV[4] 是否计入重试次数(1/0)
+local queue = redis.call('hget', KEYS[2], ARGV[1])
+redis.call('zrem', KEYS[1], ARGV[1])
+redis.call('hdel', KEYS[2], ARGV[1])
+if not queue then
+    return 0
+end
+if ARGV[4] == '1' then
+    local attempts = redis.call('hincrby', KEYS[3], ARGV[1], 1)
+    if attempts > tonumber(ARGV[2]) then
+        redis.call('hdel', KEYS[3], ARGV[1])
+        return -1
+    end
+end
+redis.call('zadd', queue, ARGV[3], ARGV[1])
+return 1
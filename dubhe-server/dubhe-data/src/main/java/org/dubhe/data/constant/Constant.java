@@ -254,6 +254,21 @@ public class Constant {
      */
     public final static String DATASET_LABEL_PUB_KEY = "dateset:label:pub";
 
+    /**
+     * redis 数据集任务创建通知频道
+     */
+    public final static String DATA_TASK_CREATED_CHANNEL = "dataset:task:created";
+
+    /**
+     * redis 数据集文件标注状态计数key前缀
+     */
+    public final static String DATASET_FILE_STATE_COUNT_KEY = "dataset:file:state:count:";
+
+    /**
+     * redis 已建立文件标注状态计数的数据集集合
+     */
+    public final static String DATASET_FILE_STATE_COUNT_ACTIVE_KEY = "dataset:file:state:count:active";
+
 
 
     /**
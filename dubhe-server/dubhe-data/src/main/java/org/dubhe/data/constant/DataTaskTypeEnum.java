@@ -66,6 +66,10 @@ public enum DataTaskTypeEnum {
      * csv导入
      */
     CSV_IMPORT(10, "csv导入"),
+    /**
+     * 转预置数据集
+     */
+    CONVERT_PRE_DATASET(11, "转预置数据集"),
     /**
      * 删除Redis任务
      */
@@ -76,6 +76,7 @@ public enum ErrorEnum implements ErrorCode {
      * 无标注信息
      */
     ANNOTATION_EMPTY_ERROR(1500, "无标注信息"),
+    ANNOTATION_WRITE_ERROR(1501, "标注文件写入中断"),
 
     /**
      * 标签定义错误
@@ -102,6 +102,32 @@ public interface FileMapper extends BaseMapper<File> {
             "</script>")
     List<File> selectListOne(@Param("datasetId") Long datasetId, @Param("currentVersionName") String currentVersionName, @Param("offset") int offset, @Param("batchSize") int batchSize, @Param("status") Collection<Integer> status);
 
+    /**
+     * 按文件ID游标（keyset）批量获取文件，避免大偏移量分页扫描
+     *
+     * @param datasetId          数据集ID
+     * @param currentVersionName 数据集版本名称
+     * @param lastId             上一批最后一个文件ID，首批传0
+     * @param batchSize          批长度
+     * @param status             标注状态
+     * @return List 文件列表，按ID升序
+     */
+    @Select("<script>" +
+            "select distinct df.* from data_dataset_version_file ddvf left join data_file df on ddvf.file_id = df.id where ddvf.dataset_id = #{datasetId} " +
+            " and df.dataset_id = #{datasetId} " +
+            "<if test='currentVersionName != null'> " +
+            "and ddvf.version_name =  #{currentVersionName} " +
+            "</if>" +
+            "and ddvf.annotation_status in " +
+            "<foreach item='item' collection='status' separator=',' open='(' close=')'>" +
+            "#{item}" +
+            "</foreach>" +
+            "and df.id &gt; #{lastId} " +
+            "order by df.id " +
+            "limit #{batchSize} " +
+            "</script>")
+    List<File> selectListAfterId(@Param("datasetId") Long datasetId, @Param("currentVersionName") String currentVersionName, @Param("lastId") long lastId, @Param("batchSize") int batchSize, @Param("status") Collection<Integer> status);
+
     /**
      * 更新文件状态
      *
@@ -32,12 +32,15 @@ import org.dubhe.data.machine.enums.DataStateEnum;
 import org.dubhe.data.machine.enums.FileStateEnum;
 import org.dubhe.data.machine.state.AbstractFileState;
 import org.dubhe.data.machine.state.specific.file.*;
+import org.dubhe.data.machine.utils.FileStateCounter;
 import org.dubhe.data.machine.utils.StateIdentifyUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -72,12 +75,20 @@ public class FileStateMachine extends AbstractFileState implements Serializable
      */
     private AbstractFileState memoryFileState;
 
+    /**
+     * <状态类实例, 文件状态码>，首次使用时解析一次
+     */
+    private volatile Map<Object, Integer> fileStateCodes;
+
     @Autowired
     private DatasetVersionFileMapper datasetVersionFileMapper;
 
     @Autowired
     private StateIdentifyUtil stateIdentify;
 
+    @Autowired
+    private FileStateCounter fileStateCounter;
+
     /**
      * 初始化状态机的状态
      *
@@ -180,7 +191,10 @@ public class FileStateMachine extends AbstractFileState implements Serializable
         ) {
             throw new StateMachineException(ErrorMessageConstant.FILE_CHANGE_ERR_MESSAGE);
         }
+        Integer sourceStatus = getMemoryFileStateCode();
         memoryFileState.manualAnnotationSaveEvent(datasetVersionFile);
+        fileStateCounter.move(datasetVersionFile.getDatasetId(), datasetVersionFile.getVersionName(), sourceStatus,
+                FileStateEnum.MANUAL_ANNOTATION_FILE_STATE.getCode(), NumberConstant.NUMBER_1);
     }
 
     /**
@@ -202,7 +216,10 @@ public class FileStateMachine extends AbstractFileState implements Serializable
         ) {
             throw new StateMachineException(ErrorMessageConstant.FILE_CHANGE_ERR_MESSAGE);
         }
+        Integer sourceStatus = getMemoryFileStateCode();
         memoryFileState.saveCompleteEvent(datasetVersionFile);
+        fileStateCounter.move(datasetVersionFile.getDatasetId(), datasetVersionFile.getVersionName(), sourceStatus,
+                FileStateEnum.ANNOTATION_COMPLETE_FILE_STATE.getCode(), NumberConstant.NUMBER_1);
     }
 
     /**
@@ -234,6 +251,8 @@ public class FileStateMachine extends AbstractFileState implements Serializable
             throw new StateMachineException(ErrorMessageConstant.FILE_CHANGE_ERR_MESSAGE);
         }
         memoryFileState.doFinishAutoAnnotationBatchEvent(filesId, datasetId, versionName);
+        fileStateCounter.move(datasetId, StringUtils.isBlank(versionName) ? null : versionName, FileStateEnum.NOT_ANNOTATION_FILE_STATE.getCode(),
+                FileStateEnum.AUTO_TAG_COMPLETE_FILE_STATE.getCode(), filesId.size());
     }
 
     /**
@@ -245,6 +264,7 @@ public class FileStateMachine extends AbstractFileState implements Serializable
     public void doFinishAutoTrackEvent(Dataset dataset) {
         initMemoryFileState(dataset.getId(), dataset.getCurrentVersionName());
         memoryFileState.doFinishAutoTrackEvent(dataset);
+        fileStateCounter.evict(dataset.getId());
     }
 
     /**
@@ -261,7 +281,27 @@ public class FileStateMachine extends AbstractFileState implements Serializable
             LogUtil.error(LogEnum.BIZ_DATASET,"doFinishAutoAnnotationInfoIsEmptyBatchEvent fail"+filesId+memoryFileState);
             throw new StateMachineException(ErrorMessageConstant.FILE_CHANGE_ERR_MESSAGE);
         }
+        Integer sourceStatus = getMemoryFileStateCode();
         memoryFileState.doFinishAutoAnnotationInfoIsEmptyBatchEvent(filesId, datasetId, versionName);
+        fileStateCounter.move(datasetId, StringUtils.isBlank(versionName) ? null : versionName, sourceStatus,
+                FileStateEnum.ANNOTATION_NOT_DISTINGUISH_FILE_STATE.getCode(), filesId.size());
+    }
+
+    /**
+     * 获取内存中状态机对应的文件状态码
+     *
+     * @return Integer 文件状态码
+     */
+    private Integer getMemoryFileStateCode() {
+        Map<Object, Integer> stateCodes = fileStateCodes;
+        if (stateCodes == null) {
+            stateCodes = new IdentityHashMap<>();
+            for (FileStateEnum fileStateEnum : FileStateEnum.values()) {
+                stateCodes.put(SpringContextHolder.getBean(fileStateEnum.getStateMachine()), fileStateEnum.getCode());
+            }
+            fileStateCodes = stateCodes;
+        }
+        return stateCodes.get(memoryFileState);
     }
 
 
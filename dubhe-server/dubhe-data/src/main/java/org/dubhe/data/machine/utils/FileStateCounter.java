@@ -0,0 +1,296 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.data.machine.utils;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.utils.LogUtil;
+import org.dubhe.biz.redis.utils.RedisScriptUtils;
+import org.dubhe.data.constant.Constant;
+import org.dubhe.data.dao.DatasetVersionFileMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * @description 数据集文件标注状态计数器
+ * 按(数据集, 版本)在redis hash中维护各标注状态的文件数量，文件状态机事件时原子增减，
+ * 数据集状态判断直接读取计数，避免每次对版本文件表做全量聚合；计数缺失时从数据库重建，定时任务校正漂移
+ * @date 2026-10-17
+ */
+@Component
+public class FileStateCounter {
+
+    /**
+     * 版本字段与状态之间的分隔符
+     */
+    private static final String FIELD_SEPARATOR = "|";
+
+    /**
+     * 计数已加载标记
+     */
+    private static final String LOADED_FIELD = "loaded";
+
+    private final RedisScript<Long> moveScript = RedisScriptUtils.fromClassPath("fileStateCountMove.lua", Long.class);
+
+    private final RedisScript<Long> resetScript = RedisScriptUtils.fromClassPath("fileStateCountReset.lua", Long.class);
+
+    @Autowired
+    private RedisTemplate<Object, Object> redisTemplate;
+
+    @Autowired
+    private DatasetVersionFileMapper datasetVersionFileMapper;
+
+    /**
+     * 计数过期时间(秒)，过期后下次读取从数据库重建
+     */
+    @Value("${data.state-counter.expire-seconds:3600}")
+    private int expireSeconds;
+
+    /**
+     * 获取数据集下文件的状态（去重，仅包含数量大于0的状态）
+     *
+     * @param datasetId   数据集ID
+     * @param versionName 数据集版本名称
+     * @return 数据集下文件状态的并集
+     */
+    public List<Integer> getStatusList(Long datasetId, String versionName) {
+        List<Integer> statusList = new ArrayList<>();
+        getCounts(datasetId, versionName).forEach((status, count) -> {
+            if (count > 0) {
+                statusList.add(status);
+            }
+        });
+        return statusList;
+    }
+
+    /**
+     * 获取数据集下各标注状态的文件数量
+     *
+     * @param datasetId   数据集ID
+     * @param versionName 数据集版本名称
+     * @return 标注状态 -> 文件数量
+     */
+    public Map<Integer, Long> getCounts(Long datasetId, String versionName) {
+        String prefix = fieldPrefix(versionName);
+        try {
+            Map<Object, Object> entries = redisTemplate.opsForHash().entries(key(datasetId));
+            if (entries.containsKey(prefix + LOADED_FIELD)) {
+                return parse(entries, prefix);
+            }
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "read file state count of dataset {} error:{}", datasetId, e);
+            return countFromDb(datasetId, versionName);
+        }
+        return rebuild(datasetId, versionName);
+    }
+
+    /**
+     * 文件状态迁移后更新计数
+     *
+     * @param datasetId    数据集ID
+     * @param versionName  数据集版本名称
+     * @param sourceStatus 源状态
+     * @param targetStatus 目标状态
+     * @param count        迁移的文件数量
+     */
+    public void move(Long datasetId, String versionName, Integer sourceStatus, Integer targetStatus, int count) {
+        if (datasetId == null || sourceStatus == null || targetStatus == null || count <= 0
+                || Objects.equals(sourceStatus, targetStatus)) {
+            return;
+        }
+        String prefix = fieldPrefix(versionName);
+        try {
+            Long result = redisTemplate.execute(moveScript, Collections.singletonList(key(datasetId)),
+                    prefix + LOADED_FIELD, prefix + sourceStatus, prefix + targetStatus, count);
+            if (result != null && result < 0) {
+                LogUtil.warn(LogEnum.BIZ_DATASET, "file state count of dataset {} version {} drifted, reload on next read", datasetId, versionName);
+            }
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "move file state count of dataset {} error:{}", datasetId, e);
+            evict(datasetId);
+            return;
+        }
+        // 事务回滚时计数已提前变更，直接失效由下次读取重建
+        evictOnRollback(datasetId);
+    }
+
+    /**
+     * 失效数据集的全部计数，适用于无法得知状态迁移明细的批量写入
+     *
+     * @param datasetId 数据集ID
+     */
+    public void evict(Long datasetId) {
+        if (datasetId == null) {
+            return;
+        }
+        delete(datasetId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 事务提交前的并发读取可能按旧数据重建，事务结束后再失效一次
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    delete(datasetId);
+                }
+            });
+        }
+    }
+
+    /**
+     * 以数据库为准校正已加载的计数
+     *
+     * @return 校正的(数据集, 版本)数量
+     */
+    public int reconcile() {
+        Set<Object> datasetIds = redisTemplate.opsForSet().members(Constant.DATASET_FILE_STATE_COUNT_ACTIVE_KEY);
+        if (datasetIds == null) {
+            return 0;
+        }
+        int repaired = 0;
+        for (Object member : datasetIds) {
+            Long datasetId = Long.valueOf(String.valueOf(member));
+            Map<Object, Object> entries = redisTemplate.opsForHash().entries(key(datasetId));
+            if (entries.isEmpty()) {
+                redisTemplate.opsForSet().remove(Constant.DATASET_FILE_STATE_COUNT_ACTIVE_KEY, member);
+                continue;
+            }
+            for (Object field : entries.keySet()) {
+                String name = String.valueOf(field);
+                if (!name.endsWith(FIELD_SEPARATOR + LOADED_FIELD)) {
+                    continue;
+                }
+                String prefix = name.substring(0, name.length() - LOADED_FIELD.length());
+                String versionName = prefix.length() == FIELD_SEPARATOR.length() ? null
+                        : prefix.substring(0, prefix.length() - FIELD_SEPARATOR.length());
+                Map<Integer, Long> cached = parse(entries, prefix);
+                Map<Integer, Long> actual = countFromDb(datasetId, versionName);
+                if (!withoutZero(cached).equals(withoutZero(actual))) {
+                    LogUtil.warn(LogEnum.BIZ_DATASET, "file state count of dataset {} version {} repaired, cached {} actual {}",
+                            datasetId, versionName, cached, actual);
+                    reset(datasetId, versionName, actual);
+                    repaired++;
+                }
+            }
+        }
+        return repaired;
+    }
+
+    /**
+     * 从数据库重建计数
+     *
+     * @param datasetId   数据集ID
+     * @param versionName 数据集版本名称
+     * @return 标注状态 -> 文件数量
+     */
+    private Map<Integer, Long> rebuild(Long datasetId, String versionName) {
+        Map<Integer, Long> counts = countFromDb(datasetId, versionName);
+        reset(datasetId, versionName, counts);
+        return counts;
+    }
+
+    private void reset(Long datasetId, String versionName, Map<Integer, Long> counts) {
+        List<Object> args = new ArrayList<>(counts.size() * 2 + 2);
+        args.add(fieldPrefix(versionName));
+        args.add(expireSeconds);
+        counts.forEach((status, count) -> {
+            args.add(String.valueOf(status));
+            args.add(count.intValue());
+        });
+        try {
+            redisTemplate.execute(resetScript, Collections.singletonList(key(datasetId)), args.toArray());
+            redisTemplate.opsForSet().add(Constant.DATASET_FILE_STATE_COUNT_ACTIVE_KEY, String.valueOf(datasetId));
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "reset file state count of dataset {} error:{}", datasetId, e);
+        }
+    }
+
+    private Map<Integer, Long> countFromDb(Long datasetId, String versionName) {
+        Map<Integer, Long> counts = new HashMap<>();
+        Map<Integer, Integer> fileStatus = datasetVersionFileMapper.getDatasetVersionFileCount(datasetId, versionName);
+        if (fileStatus != null) {
+            for (Map.Entry<Integer, Integer> entry : fileStatus.entrySet()) {
+                // @MapKey查询的值为整行数据
+                JSONObject row = JSON.parseObject(JSON.toJSONString(entry.getValue()));
+                counts.put(entry.getKey(), row.getLong("count"));
+            }
+        }
+        return counts;
+    }
+
+    private void delete(Long datasetId) {
+        try {
+            redisTemplate.delete(key(datasetId));
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "evict file state count of dataset {} error:{}", datasetId, e);
+        }
+    }
+
+    private void evictOnRollback(Long datasetId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != TransactionSynchronization.STATUS_COMMITTED) {
+                    delete(datasetId);
+                }
+            }
+        });
+    }
+
+    private static Map<Integer, Long> parse(Map<Object, Object> entries, String prefix) {
+        Map<Integer, Long> counts = new HashMap<>();
+        entries.forEach((field, value) -> {
+            String name = String.valueOf(field);
+            if (!name.startsWith(prefix) || name.endsWith(LOADED_FIELD)) {
+                return;
+            }
+            counts.put(Integer.valueOf(name.substring(prefix.length())), Long.valueOf(String.valueOf(value)));
+        });
+        return counts;
+    }
+
+    private static Map<Integer, Long> withoutZero(Map<Integer, Long> counts) {
+        Map<Integer, Long> result = new HashMap<>(counts);
+        result.values().removeIf(count -> count == 0);
+        return result;
+    }
+
+    private static String key(Long datasetId) {
+        return Constant.DATASET_FILE_STATE_COUNT_KEY + datasetId;
+    }
+
+    private static String fieldPrefix(String versionName) {
+        return (versionName == null ? "" : versionName) + FIELD_SEPARATOR;
+    }
+}
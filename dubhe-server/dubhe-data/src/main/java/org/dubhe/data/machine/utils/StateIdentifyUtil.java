@@ -26,7 +26,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ReflectionUtils;
 
+import javax.annotation.PostConstruct;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -51,9 +58,25 @@ public class StateIdentifyUtil{
     private StateSelect stateSelect;
 
     /**
-     * 状态判断中所有的自定义方法数组
+     * 状态判断中所有的自定义方法，启动时绑定到状态判断类实例
      */
-    private final Method[] method = ReflectionUtils.getDeclaredMethods(StateSelect.class);
+    private final List<MethodHandle> stateSelectHandles = new ArrayList<>();
+
+    /**
+     * 按声明顺序绑定状态判断方法，判断时不再反射调用
+     *
+     * @throws IllegalAccessException 状态判断方法不可访问
+     */
+    @PostConstruct
+    public void initStateSelectHandles() throws IllegalAccessException {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        for (Method stateSelectMethod : ReflectionUtils.getDeclaredMethods(StateSelect.class)) {
+            if (Modifier.isPublic(stateSelectMethod.getModifiers()) && !stateSelectMethod.isSynthetic()) {
+                stateSelectHandles.add(lookup.unreflect(stateSelectMethod).bindTo(stateSelect)
+                        .asType(MethodType.methodType(DataStateEnum.class, List.class)));
+            }
+        }
+    }
 
     /**
      * 获取数据集状态(指定版本)
@@ -113,8 +136,8 @@ public class StateIdentifyUtil{
                     state = DataStateEnum.NOT_ANNOTATION_STATE;
                     return;
                 }
-                for (Method stateSelectMethod : method) {
-                    state = (DataStateEnum) ReflectionUtils.invokeMethod(stateSelectMethod, stateSelect, new Object[]{stateList});
+                for (MethodHandle stateSelectHandle : stateSelectHandles) {
+                    state = invokeStateSelect(stateSelectHandle, stateList);
                     if (state != null) {
                         return;
                     }
@@ -126,4 +149,21 @@ public class StateIdentifyUtil{
             return this.state;
         }
     }
+
+    /**
+     * 执行状态判断方法
+     *
+     * @param stateSelectHandle 状态判断方法
+     * @param stateList         数据集下文件状态的并集
+     * @return DataStateEnum  数据集状态枚举，不满足该判断时为null
+     */
+    private DataStateEnum invokeStateSelect(MethodHandle stateSelectHandle, List<Integer> stateList) {
+        try {
+            return (DataStateEnum) stateSelectHandle.invokeExact(stateList);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
 }
\ No newline at end of file
@@ -17,8 +17,8 @@
 package org.dubhe.data.machine.utils.identify.data;
 
 import org.dubhe.data.machine.enums.DataStateEnum;
+import org.dubhe.data.machine.utils.FileStateCounter;
 import org.dubhe.data.service.DatasetService;
-import org.dubhe.data.service.DatasetVersionFileService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
@@ -33,10 +33,10 @@ import java.util.List;
 public class DataHub {
 
     /**
-     * 数据集版本文件关系服务类
+     * 数据集文件标注状态计数器
      */
     @Autowired
-    private DatasetVersionFileService datasetVersionFileService;
+    private FileStateCounter fileStateCounter;
 
     /**
      * 数据集服务类
@@ -55,13 +55,13 @@ public class DataHub {
     }
 
     /**
-     * 获取数据集下文件的状态（数据经过去重处理）
+     * 获取数据集下文件的状态（数据经过去重处理，读取状态计数）
      * @param datasetId     数据集ID
      * @param versionName   数据集版本名称
      * @return              数据集下文件状态的并集
      */
     public  List<Integer> getFileStatusListByDatasetAndVersion(Long datasetId, String versionName) {
-        return datasetVersionFileService.getFileStatusListByDatasetAndVersion(datasetId, versionName);
+        return fileStateCounter.getStatusList(datasetId, versionName);
     }
 
 }
@@ -113,4 +113,10 @@ public class DatasetVersionController {
         datasetVersionService.createOfRecord(datasetId, versionName);
         return new DataResponseBody();
     }
+
+    @ApiOperation("异步物化清单版本目录(远程调用)，返回是否已物化完成")
+    @PostMapping(value = "/materialize")
+    public DataResponseBody materialize(@RequestParam(value = "path") String path) {
+        return new DataResponseBody(datasetVersionService.materializeAsync(path));
+    }
 }
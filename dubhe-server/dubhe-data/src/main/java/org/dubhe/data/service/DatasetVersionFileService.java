@@ -210,6 +210,17 @@ public interface DatasetVersionFileService {
      */
     List<DatasetVersionFile> getPages(int offset, int pageSize, Long datasetId, String versionName);
 
+    /**
+     * 按ID游标分页获取数据集版本文件数据
+     *
+     * @param lastId      上一页最后一条记录ID，首页传0
+     * @param pageSize    页容量
+     * @param datasetId   数据集ID
+     * @param versionName 数据集版本名称
+     * @return 数据集版本文件列表（按ID升序）
+     */
+    List<DatasetVersionFile> getPagesAfterId(long lastId, int pageSize, Long datasetId, String versionName);
+
 
 
     /**
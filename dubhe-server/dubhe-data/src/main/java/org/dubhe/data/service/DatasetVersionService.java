@@ -204,4 +204,19 @@ public interface DatasetVersionService {
      * @param datasetVersion 数据集版本
      */
     void updateByEntity(DatasetVersion datasetVersion);
+
+    /**
+     * 按需物化清单版本目录，非清单版本或已物化时直接返回
+     *
+     * @param path 版本目录或其子路径. e.g. dataset/25/versionFile/V0001/ofrecord/train
+     */
+    void materialize(String path);
+
+    /**
+     * 异步物化清单版本目录，立即返回，调用方轮询直至返回true
+     *
+     * @param path 版本目录或其子路径
+     * @return boolean 是否已可直接使用（非清单版本或已物化）
+     */
+    boolean materializeAsync(String path);
 }
@@ -219,6 +219,17 @@ public interface FileService {
      */
     List<File> listBatchFile(Long datasetId, int offset, int batchSize, Collection<Integer> status);
 
+    /**
+     * 按文件ID游标批量获取数据集文件
+     *
+     * @param datasetId  数据集ID
+     * @param lastId     上一批最后一个文件ID，首批传0
+     * @param batchSize  批大小
+     * @param status     文件标注状态
+     * @return 文件列表（按ID升序）
+     */
+    List<File> listBatchFileAfterId(Long datasetId, long lastId, int batchSize, Collection<Integer> status);
+
     /**
      * 采样任务过期
      */
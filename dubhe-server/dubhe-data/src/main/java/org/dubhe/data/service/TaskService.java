@@ -23,6 +23,7 @@ import org.dubhe.data.domain.dto.AutoAnnotationCreateDTO;
 import org.dubhe.data.domain.entity.Dataset;
 import org.dubhe.data.domain.entity.Task;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -74,6 +75,24 @@ public interface TaskService {
      */
     Task getOnePendingTask();
 
+    /**
+     * 批量获取待处理任务
+     *
+     * @param types 任务类型
+     * @param limit 获取数量上限
+     * @return 任务列表
+     */
+    List<Task> getPendingTasks(Collection<Integer> types, int limit);
+
+    /**
+     * 批量获取未识别类型的待处理任务(不含视频采样任务)
+     *
+     * @param knownTypes 已识别的任务类型
+     * @param limit      获取数量上限
+     * @return 任务列表
+     */
+    List<Task> getUnrecognizedPendingTasks(Collection<Integer> knownTypes, int limit);
+
     /**
      * 修改任务状态(给任务加锁，解决并发问题)
      *
@@ -91,6 +110,13 @@ public interface TaskService {
      */
     void createTask(Task task);
 
+    /**
+     * 通知任务处理服务有新任务创建(事务提交后发送)
+     *
+     * @param taskId 任务ID
+     */
+    void notifyTaskCreated(Long taskId);
+
     /**
      * 数据集跟踪
      *
@@ -45,6 +45,7 @@ import org.dubhe.data.machine.constant.FileStateCodeConstant;
 import org.dubhe.data.machine.constant.FileStateMachineConstant;
 import org.dubhe.data.machine.enums.FileStateEnum;
 import org.dubhe.data.machine.utils.StateMachineUtil;
+import org.dubhe.data.pool.DefaultThreadFactoryImpl;
 import org.dubhe.data.service.*;
 import org.dubhe.data.service.store.IStoreService;
 import org.dubhe.data.service.store.MinioStoreServiceImpl;
@@ -69,11 +70,11 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 /**
@@ -174,6 +175,17 @@ public class AnnotationServiceImpl implements AnnotationService {
      */
     public static final int TRACKING_SIZE = MagicNumConstant.FIVE;
 
+    /**
+     * 自动标注结果写入对象存储的并发数
+     */
+    @Value("${data.annotation.write-parallelism:16}")
+    private int annotationWriteParallelism;
+
+    /**
+     * 自动标注结果写入线程池
+     */
+    private ExecutorService annotationWritePool;
+
     /**
      * 初始化
      */
@@ -182,6 +194,14 @@ public class AnnotationServiceImpl implements AnnotationService {
         queue = new PriorityBlockingQueue<>(QUEUE_SIZE, Comparator.comparingInt(TaskSplitBO::getPriority).reversed());
         autoAnnotating = new ConcurrentHashMap<>(MagicNumConstant.SIXTEEN);
         tracking = new ConcurrentHashSet<>(MagicNumConstant.SIXTEEN);
+        annotationWritePool = new ThreadPoolExecutor(annotationWriteParallelism, annotationWriteParallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MagicNumConstant.ONE_THOUSAND), new DefaultThreadFactoryImpl("annotation-write", true, 0),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        annotationWritePool.shutdown();
     }
 
     /**
@@ -599,6 +619,7 @@ public class AnnotationServiceImpl implements AnnotationService {
 
     /**
      * 完成自动标注
+     * 每个文件的标注结果只解析一次；标注文件并发写入对象存储，标签关系按整个子任务批量删除、批量写入
      *
      * @param taskSplit 标注任务
      * @param resMap    标注文件保存条件
@@ -606,7 +627,7 @@ public class AnnotationServiceImpl implements AnnotationService {
     @Transactional(rollbackFor = Exception.class)
     @Override
     public Map<Long, AnnotationInfoCreateDTO> doFinishAuto(TaskSplitBO taskSplit, Map<Long, AnnotationInfoCreateDTO> resMap) {
-        LogUtil.info(LogEnum.BIZ_DATASET, "finish auto. ts:{}, resMap:{}", taskSplit, resMap);
+        LogUtil.info(LogEnum.BIZ_DATASET, "finish auto. taskId:{}, datasetId:{}, files:{}", taskSplit.getTaskId(), taskSplit.getDatasetId(), resMap.size());
         //图片状态变更为自动标注完成
         Dataset dataset = datasetService.getOneById(taskSplit.getDatasetId());
         //保存标注信息
@@ -614,50 +635,64 @@ public class AnnotationServiceImpl implements AnnotationService {
         List<Label> uniqueLabels = labels.stream().collect(Collectors.collectingAndThen(Collectors.toCollection(
                 ()->new TreeSet<>(Comparator.comparing(Label::getName))),ArrayList::new));
         Map<String, Long> labelNameMap = uniqueLabels.stream().collect(Collectors.toMap(Label::getName, Label::getId));
+        Map<Long, List<AnnotationDTO>> annotationMap = new HashMap<>(resMap.size());
+        List<Future<Boolean>> writeFutures = new ArrayList<>(resMap.size());
         taskSplit.getFiles().forEach(fileBO -> {
             AnnotationInfoCreateDTO annotationInfo = resMap.get(fileBO.getId());
             if (annotationInfo == null) {
                 return;
             }
             JSONArray jsonArray = JSONObject.parseObject(annotationInfo.getAnnotation(), JSONArray.class);
+            List<AnnotationDTO> annotationDTOS = new ArrayList<>(jsonArray.size());
             for (int i = 0 ; i<jsonArray.size(); i++) {
                 JSONObject jsonObject = jsonArray.getJSONObject(i);
-                jsonObject.put("category_id" , labelNameMap.get(jsonObject.getString("category_id")));
+                Long categoryId = labelNameMap.get(jsonObject.getString("category_id"));
+                jsonObject.put("category_id" , categoryId);
+                AnnotationDTO annotationDTO = new AnnotationDTO();
+                annotationDTO.setCategoryId(categoryId);
+                annotationDTO.setScore(jsonObject.getDouble("score"));
+                annotationDTOS.add(annotationDTO);
             }
-            storeService.write(fileUtil.getAnnotationAbsPath(taskSplit.getDatasetId(), fileBO.getName()), jsonArray.toJSONString());
-            annotationInfo.setAnnotation(jsonArray.toJSONString());
-            resMap.put(fileBO.getId(),annotationInfo);
+            String annotation = jsonArray.toJSONString();
+            String annotationPath = fileUtil.getAnnotationAbsPath(dataset, fileBO.getName());
+            writeFutures.add(annotationWritePool.submit(() -> storeService.write(annotationPath, annotation)));
+            annotationInfo.setAnnotation(annotation);
+            annotationMap.put(fileBO.getId(), annotationDTOS);
         });
         taskSplit.setVersionName(dataset.getCurrentVersionName());
         List<DatasetVersionFile> versionFiles = datasetVersionFileService.getVersionFileByDatasetAndFile(dataset.getId(), dataset.getCurrentVersionName(), resMap.keySet());
         //清空之前的数据库标注信息
         List<Long> versionFileIds = versionFiles.stream().map(DatasetVersionFile::getId).collect(Collectors.toList());
-        dataFileAnnotationService.deleteBatch(dataset.getId(), versionFileIds);
+        if (!CollectionUtils.isEmpty(versionFileIds)) {
+            dataFileAnnotationService.deleteBatch(dataset.getId(), versionFileIds);
+        }
         //写入标签关系
         if (!CollectionUtils.isEmpty(resMap)) {
+            boolean classification = AnnotateTypeEnum.CLASSIFICATION.getValue().equals(dataset.getAnnotateType())
+                    || AnnotateTypeEnum.TEXT_CLASSIFICATION.getValue().equals(dataset.getAnnotateType());
+            boolean detection = AnnotateTypeEnum.OBJECT_DETECTION.getValue().equals(dataset.getAnnotateType())
+                    || AnnotateTypeEnum.OBJECT_TRACK.getValue().equals(dataset.getAnnotateType())
+                    || AnnotateTypeEnum.SEMANTIC_CUP.getValue().equals(dataset.getAnnotateType());
             List<DataFileAnnotation> dataFileAnnotations = new ArrayList<>();
             versionFiles.forEach(versionFile -> {
-                List<Long> dbLabelIds = dataFileAnnotationService.findInfoByVersionId(dataset.getId(),versionFile.getId());
-                if (!CollectionUtil.isEmpty(dbLabelIds)) {
-                    dataFileAnnotationService.deleteAnnotationFileByVersionIdAndLabelIds(dataset.getId(),versionFile.getId(), dbLabelIds);
-                }List<AnnotationDTO> annotationDTOS = JSONObject.parseArray(resMap.get(versionFile.getFileId()).getAnnotation(), AnnotationDTO.class);
-                if(!CollectionUtils.isEmpty(annotationDTOS)){
-                    if(AnnotateTypeEnum.CLASSIFICATION.getValue().equals(dataset.getAnnotateType()) || AnnotateTypeEnum.TEXT_CLASSIFICATION.getValue().equals(dataset.getAnnotateType())){
-                        AnnotationDTO annotationDTO = annotationDTOS.stream().max(Comparator.comparingDouble(AnnotationDTO::getScore)).get();
-                        dataFileAnnotations.add(new DataFileAnnotation(dataset.getId(), annotationDTO.getCategoryId(), versionFile.getId(), annotationDTOS.get(0).getScore(), versionFile.getFileName()));
-                    }
-                    if(AnnotateTypeEnum.OBJECT_DETECTION.getValue().equals(dataset.getAnnotateType()) || AnnotateTypeEnum.OBJECT_TRACK.getValue().equals(dataset.getAnnotateType())
-                            || AnnotateTypeEnum.SEMANTIC_CUP.getValue().equals(dataset.getAnnotateType())){
-                        annotationDTOS.forEach(annotationDTO -> {
-                            dataFileAnnotations.add(new DataFileAnnotation(dataset.getId(), annotationDTO.getCategoryId(), versionFile.getId(), annotationDTO.getScore(), versionFile.getFileName()));
-                        });
-                    }
+                List<AnnotationDTO> annotationDTOS = annotationMap.get(versionFile.getFileId());
+                if (CollectionUtils.isEmpty(annotationDTOS)) {
+                    return;
+                }
+                if (classification) {
+                    AnnotationDTO annotationDTO = annotationDTOS.stream().max(Comparator.comparingDouble(AnnotationDTO::getScore)).get();
+                    dataFileAnnotations.add(new DataFileAnnotation(dataset.getId(), annotationDTO.getCategoryId(), versionFile.getId(), annotationDTOS.get(0).getScore(), versionFile.getFileName()));
+                }
+                if (detection) {
+                    annotationDTOS.forEach(annotationDTO -> {
+                        dataFileAnnotations.add(new DataFileAnnotation(dataset.getId(), annotationDTO.getCategoryId(), versionFile.getId(), annotationDTO.getScore(), versionFile.getFileName()));
+                    });
                 }
             });
             if(!CollectionUtils.isEmpty(dataFileAnnotations)){
-                Queue<Long> dataFileAnnotionIds = generatorKeyUtil.getSequenceByBusinessCode(Constant.DATA_FILE_ANNOTATION, dataFileAnnotations.size());
+                PrimitiveIterator.OfLong dataFileAnnotionIds = generatorKeyUtil.getRangeByBusinessCode(Constant.DATA_FILE_ANNOTATION, dataFileAnnotations.size()).iterator();
                 for (DataFileAnnotation dataFileAnnotation : dataFileAnnotations) {
-                    dataFileAnnotation.setId(dataFileAnnotionIds.poll());
+                    dataFileAnnotation.setId(dataFileAnnotionIds.nextLong());
                     dataFileAnnotation.setStatus(MagicNumConstant.ZERO);
                     dataFileAnnotation.setInvariable(MagicNumConstant.ZERO);
                 }
@@ -665,9 +700,23 @@ public class AnnotationServiceImpl implements AnnotationService {
             }
         }
 
-        HashSet<Long> annotationInfoIsNotEmpty = new HashSet<Long>() {{
-            addAll(resMap.keySet().stream().filter(k -> !JSON.parseArray(resMap.get(k).getAnnotation()).isEmpty()).collect(Collectors.toSet()));
-        }};
+        HashSet<Long> annotationInfoIsNotEmpty = new HashSet<>();
+        HashSet<Long> annotationInfoIsEmpty = new HashSet<>();
+        resMap.keySet().forEach(fileId -> {
+            List<AnnotationDTO> annotationDTOS = annotationMap.get(fileId);
+            if (annotationDTOS == null) {
+                // 不属于本次子任务的文件，保持原有判断方式
+                if (JSON.parseArray(resMap.get(fileId).getAnnotation()).isEmpty()) {
+                    annotationInfoIsEmpty.add(fileId);
+                } else {
+                    annotationInfoIsNotEmpty.add(fileId);
+                }
+            } else if (annotationDTOS.isEmpty()) {
+                annotationInfoIsEmpty.add(fileId);
+            } else {
+                annotationInfoIsNotEmpty.add(fileId);
+            }
+        });
         //嵌入状态机（改变文件状态，标记文件状态被改变）->改变有标注数据的文件
         if (!annotationInfoIsNotEmpty.isEmpty()) {
             StateMachineUtil.stateChange(new StateChangeDTO() {{
@@ -676,9 +725,6 @@ public class AnnotationServiceImpl implements AnnotationService {
                 setStateMachineType(FileStateMachineConstant.FILE_STATE_MACHINE);
             }});
         }
-        HashSet<Long> annotationInfoIsEmpty = new HashSet<Long>() {{
-            addAll(resMap.keySet().stream().filter(k -> JSON.parseArray(resMap.get(k).getAnnotation()).isEmpty()).collect(Collectors.toSet()));
-        }};
         //嵌入状态机（改变文件状态，标记文件状态被改变）->改变无标注数据的文件
         if (!annotationInfoIsEmpty.isEmpty()) {
             StateMachineUtil.stateChange(new StateChangeDTO() {{
@@ -691,11 +737,39 @@ public class AnnotationServiceImpl implements AnnotationService {
             List<FileBO> fileBOS = taskSplit.getFiles();
             fileBOS.forEach(fileBO -> fileService.recoverEsStatus(taskSplit.getDatasetId(),fileBO.getId()));
         }
+        //等待标注文件写入完成
+        awaitAnnotationWrite(taskSplit, writeFutures);
         //任务加文件数量
         taskService.finishFile(taskSplit.getTaskId(), taskSplit.getFiles().size(), dataset);
         return resMap;
     }
 
+    /**
+     * 等待标注文件写入完成，写入失败只记录日志(与同步写入时的处理方式一致)
+     *
+     * @param taskSplit    标注任务
+     * @param writeFutures 写入结果
+     */
+    private void awaitAnnotationWrite(TaskSplitBO taskSplit, List<Future<Boolean>> writeFutures) {
+        int failed = 0;
+        for (Future<Boolean> writeFuture : writeFutures) {
+            try {
+                if (!Boolean.TRUE.equals(writeFuture.get())) {
+                    failed++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ErrorEnum.ANNOTATION_WRITE_ERROR);
+            } catch (ExecutionException e) {
+                failed++;
+                LogUtil.error(LogEnum.BIZ_DATASET, "write annotation file error:{}", e);
+            }
+        }
+        if (failed > 0) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "write annotation file failed. taskId:{}, datasetId:{}, failed:{}", taskSplit.getTaskId(), taskSplit.getDatasetId(), failed);
+        }
+    }
+
 
     /**
      * 完成目标跟踪
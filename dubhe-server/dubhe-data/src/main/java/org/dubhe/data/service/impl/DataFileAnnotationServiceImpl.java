@@ -40,7 +40,7 @@ import org.springframework.util.CollectionUtils;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.PrimitiveIterator;
 import java.util.stream.Collectors;
 
 /**
@@ -124,9 +124,9 @@ public class DataFileAnnotationServiceImpl extends ServiceImpl<DataFileAnnotatio
             return dataFileAnnotation;
         }).collect(Collectors.toList());
         if(!CollectionUtils.isEmpty(dataFileAnnotations)){
-            Queue<Long> dataFileAnnotionIds = generatorKeyUtil.getSequenceByBusinessCode(Constant.DATA_FILE_ANNOTATION, dataFileAnnotations.size());
+            PrimitiveIterator.OfLong dataFileAnnotionIds = generatorKeyUtil.getRangeByBusinessCode(Constant.DATA_FILE_ANNOTATION, dataFileAnnotations.size()).iterator();
             for (DataFileAnnotation dataFileAnnotation : dataFileAnnotations) {
-                dataFileAnnotation.setId(dataFileAnnotionIds.poll());
+                dataFileAnnotation.setId(dataFileAnnotionIds.nextLong());
             }
             dataFileAnnotationMapper.insertBatch(dataFileAnnotations);
         }
@@ -195,9 +195,9 @@ public class DataFileAnnotationServiceImpl extends ServiceImpl<DataFileAnnotatio
             }).collect(Collectors.toList());
             LogUtil.info(LogEnum.BIZ_DATASET, "文本数据集需备份文本标注数据4");
             if(!CollectionUtils.isEmpty(fileAnnotations)){
-                Queue<Long> dataFileAnnotionIds = generatorKeyUtil.getSequenceByBusinessCode(Constant.DATA_FILE_ANNOTATION, fileAnnotations.size());
+                PrimitiveIterator.OfLong dataFileAnnotionIds = generatorKeyUtil.getRangeByBusinessCode(Constant.DATA_FILE_ANNOTATION, fileAnnotations.size()).iterator();
                 for (DataFileAnnotation dataFileAnnotation : fileAnnotations) {
-                    dataFileAnnotation.setId(dataFileAnnotionIds.poll());
+                    dataFileAnnotation.setId(dataFileAnnotionIds.nextLong());
                     dataFileAnnotation.setStatus(MagicNumConstant.ZERO);
                     dataFileAnnotation.setInvariable(MagicNumConstant.ZERO);
                 }
@@ -32,6 +32,9 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.dubhe.biz.base.constant.*;
 import org.dubhe.biz.base.vo.DatasetVO;
+import org.dubhe.biz.file.dto.MinioCopyItemDTO;
+import org.dubhe.biz.file.dto.MinioTransferResultDTO;
+import org.dubhe.biz.file.utils.MinioTransferUtil;
 import org.dubhe.biz.file.utils.MinioUtil;
 import org.dubhe.biz.file.api.FileStoreApi;
 import org.dubhe.biz.file.api.impl.ShellFileStoreApiImpl;
@@ -265,6 +268,12 @@ public class DatasetServiceImpl extends ServiceImpl<DatasetMapper, Dataset> impl
     @Resource
     private MinioUtil minioUtil;
 
+    /**
+     * minIo批量传输工具
+     */
+    @Resource
+    private MinioTransferUtil minioTransferUtil;
+
     @Autowired
     private GeneratorKeyUtil generatorKeyUtil;
 
@@ -1034,9 +1043,9 @@ public class DatasetServiceImpl extends ServiceImpl<DatasetMapper, Dataset> impl
             }
         });
         if(!CollectionUtils.isEmpty(dataFileAnnotations)){
-            Queue<Long> dataFileAnnotionIds = generatorKeyUtil.getSequenceByBusinessCode(Constant.DATA_FILE_ANNOTATION, dataFileAnnotations.size());
+            PrimitiveIterator.OfLong dataFileAnnotionIds = generatorKeyUtil.getRangeByBusinessCode(Constant.DATA_FILE_ANNOTATION, dataFileAnnotations.size()).iterator();
             for (DataFileAnnotation dataFileAnnotation : dataFileAnnotations) {
-                dataFileAnnotation.setId(dataFileAnnotionIds.poll());
+                dataFileAnnotation.setId(dataFileAnnotionIds.nextLong());
                 dataFileAnnotation.setStatus(MagicNumConstant.ZERO);
                 dataFileAnnotation.setInvariable(MagicNumConstant.ZERO);
             }
@@ -1237,6 +1246,7 @@ public class DatasetServiceImpl extends ServiceImpl<DatasetMapper, Dataset> impl
                 .datasetId(dataset.getId())
                 .type(MagicNumConstant.THREE).build();
         taskMapper.insert(task);
+        taskService.notifyTaskCreated(task.getId());
 
         //状态调用 修改数据集状态为标注完成/自动标注完成 -> 数据增强中
         StateMachineUtil.stateChange(StateChangeDTO.builder()
@@ -1577,9 +1587,16 @@ public class DatasetServiceImpl extends ServiceImpl<DatasetMapper, Dataset> impl
                     + targetDataset.getCurrentVersionName() + java.io.File.separator + "origin";
             String annotationTargetDir = targetDataset.getUri() + java.io.File.separator + "versionFile" + java.io.File.separator
                     + targetDataset.getCurrentVersionName() + java.io.File.separator + "annotation";
-            minioUtil.copyDir(bucket, annotationNames, annotationTargetDir);
-            minioUtil.copyDir(bucket, picNames, fileTargetDir);
-            minioUtil.copyDir(bucket, picNames, fileTargetDirVersion);
+            List<MinioCopyItemDTO> copyItems = new ArrayList<>(annotationNames.size() + picNames.size() * MagicNumConstant.TWO);
+            annotationNames.forEach(annotationName -> copyItems.add(MinioCopyItemDTO.toDir(bucket, annotationName, annotationTargetDir)));
+            picNames.forEach(picName -> {
+                copyItems.add(MinioCopyItemDTO.toDir(bucket, picName, fileTargetDir));
+                copyItems.add(MinioCopyItemDTO.toDir(bucket, picName, fileTargetDirVersion));
+            });
+            MinioTransferResultDTO transferResult = minioTransferUtil.copy(copyItems);
+            if (!transferResult.isSuccess()) {
+                throw new BusinessException("文件资源复制失败，失败数量：" + transferResult.getFailedItems().size());
+            }
         } catch (Exception e) {
             LogUtil.error(LogEnum.BIZ_DATASET, "文件资源复制失败!  error:{}", e);
             throw new BusinessException(ResponseCode.ERROR, e.getMessage());
@@ -40,6 +40,7 @@ import org.dubhe.data.domain.bo.FileUploadBO;
 import org.dubhe.data.domain.dto.DatasetVersionFileDTO;
 import org.dubhe.data.domain.entity.*;
 import org.dubhe.data.machine.constant.FileStateCodeConstant;
+import org.dubhe.data.machine.utils.FileStateCounter;
 import org.dubhe.data.machine.constant.FileStateMachineConstant;
 import org.dubhe.data.machine.utils.StateMachineUtil;
 import org.dubhe.data.service.DataFileAnnotationService;
@@ -82,6 +83,9 @@ public class DatasetVersionFileServiceImpl extends ServiceImpl<DatasetVersionFil
     @Autowired
     private GeneratorKeyUtil generatorKeyUtil;
 
+    @Autowired
+    private FileStateCounter fileStateCounter;
+
     @Autowired
     private DataFileAnnotationService dataFileAnnotationService;
 
@@ -118,11 +122,12 @@ public class DatasetVersionFileServiceImpl extends ServiceImpl<DatasetVersionFil
                 datasetVersionFile.setAnnotationStatus(FileStateCodeConstant.NOT_ANNOTATION_FILE_STATE);
             }
         });
-        Queue<Long> dataFileIds = generatorKeyUtil.getSequenceByBusinessCode(Constant.DATA_VERSION_FILE, data.size());
+        PrimitiveIterator.OfLong dataFileIds = generatorKeyUtil.getRangeByBusinessCode(Constant.DATA_VERSION_FILE, data.size()).iterator();
         for (DatasetVersionFile datasetVersionFile : data) {
-            datasetVersionFile.setId(dataFileIds.poll());
+            datasetVersionFile.setId(dataFileIds.nextLong());
         }
         datasetVersionFileMapper.saveList(data);
+        data.stream().map(DatasetVersionFile::getDatasetId).distinct().forEach(fileStateCounter::evict);
         LogUtil.debug(LogEnum.BIZ_DATASET, "save dataset version files end, times {}" , (System.currentTimeMillis() - start));
     }
 
@@ -138,6 +143,7 @@ public class DatasetVersionFileServiceImpl extends ServiceImpl<DatasetVersionFil
         List<DataFileAnnotation> dataFileAnnotations = dataFileAnnotationService.getAnnotationByVersion(datasetId,versionSource,
                 MagicNumConstant.ZERO);
         datasetVersionFileMapper.newShipVersionNameChange(datasetId, versionSource, versionTarget);
+        fileStateCounter.evict(datasetId);
         List<DataFileAnnotation> updateAnnotations = new ArrayList<>();
         dataFileAnnotations.stream().filter(dataFileAnnotation -> dataFileAnnotation.getStatus().equals(MagicNumConstant.ZERO))
                 .forEach(dataFileAnnotation -> {
@@ -164,6 +170,7 @@ public class DatasetVersionFileServiceImpl extends ServiceImpl<DatasetVersionFil
             dataFileAnnotationService.updateStatusByVersionIds(datasetId,ids, true);
         }
         datasetVersionFileMapper.updateStatusByFileIdAndDatasetId(datasetId, versionName, fileIds);
+        fileStateCounter.evict(datasetId);
     }
 
 
@@ -393,6 +400,7 @@ public class DatasetVersionFileServiceImpl extends ServiceImpl<DatasetVersionFil
     public void doRollback(Dataset dataset) {
         //文件状态为删除新增的和标记为改变的
         datasetVersionFileMapper.rollbackFileAndAnnotationStatus(dataset.getId(), dataset.getCurrentVersionName(), Constant.CHANGED);
+        fileStateCounter.evict(dataset.getId());
     }
 
     /**
@@ -478,6 +486,28 @@ public class DatasetVersionFileServiceImpl extends ServiceImpl<DatasetVersionFil
         return baseMapper.selectList(datasetVersionFileQueryWrapper);
     }
 
+    /**
+     * 按ID游标分页获取数据集版本文件数据，避免大偏移量时的全量扫描
+     *
+     * @param lastId       上一页最后一条记录ID，首页传0
+     * @param pageSize     页容量
+     * @param datasetId    数据集ID
+     * @param versionName  数据集版本名称
+     * @return 数据集版本文件列表（按ID升序）
+     */
+    @Override
+    public List<DatasetVersionFile> getPagesAfterId(long lastId, int pageSize, Long datasetId, String versionName) {
+        QueryWrapper<DatasetVersionFile> datasetVersionFileQueryWrapper = new QueryWrapper<>();
+        datasetVersionFileQueryWrapper.eq("dataset_id", datasetId);
+        if (StringUtils.isNotEmpty(versionName)) {
+            datasetVersionFileQueryWrapper.eq("version_name", versionName);
+        }
+        datasetVersionFileQueryWrapper.gt("id", lastId);
+        datasetVersionFileQueryWrapper.orderByAsc("id");
+        datasetVersionFileQueryWrapper.last("limit " + pageSize);
+        return baseMapper.selectList(datasetVersionFileQueryWrapper);
+    }
+
 
     /**
      * 获取数据集当前版本文件数量
@@ -604,6 +634,7 @@ public class DatasetVersionFileServiceImpl extends ServiceImpl<DatasetVersionFil
                         .eq(DatasetVersionFile::getDatasetId, dataset.getId())
                         .eq(dataset.getCurrentVersionName() != null, DatasetVersionFile::getVersionName, dataset.getCurrentVersionName())
         );
+        fileStateCounter.evict(dataset.getId());
     }
 
 
@@ -637,6 +668,7 @@ public class DatasetVersionFileServiceImpl extends ServiceImpl<DatasetVersionFil
     @Override
     public void updateStatusById(DatasetVersionFile datasetVersionFile) {
         datasetVersionFileMapper.updateAnnotationStatusById(datasetVersionFile.getAnnotationStatus(), datasetVersionFile.getDatasetId(), datasetVersionFile.getId());
+        fileStateCounter.evict(datasetVersionFile.getDatasetId());
     }
 
 
@@ -692,9 +724,9 @@ public class DatasetVersionFileServiceImpl extends ServiceImpl<DatasetVersionFil
     @Override
     public void backupDatasetVersionFileDataByDatasetId(Dataset originDataset, Dataset targetDataset, List<DatasetVersionFile> versionFiles, List<File> files) {
         Map<String, Long> fileNameMap = files.stream().collect(Collectors.toMap(File::getName, File::getId));
-        Queue<Long> dataFileIds = generatorKeyUtil.getSequenceByBusinessCode(Constant.DATA_VERSION_FILE, versionFiles.size());
+        PrimitiveIterator.OfLong dataFileIds = generatorKeyUtil.getRangeByBusinessCode(Constant.DATA_VERSION_FILE, versionFiles.size()).iterator();
         for (DatasetVersionFile f : versionFiles) {
-            f.setId(dataFileIds.poll());
+            f.setId(dataFileIds.nextLong());
             f.setFileId(fileNameMap.get(f.getFileName()));
             f.setVersionName(DEFAULT_VERSION);
             f.setDatasetId(targetDataset.getId());
@@ -702,6 +734,7 @@ public class DatasetVersionFileServiceImpl extends ServiceImpl<DatasetVersionFil
         }
         List<List<DatasetVersionFile>> splitVersionFiles = CollectionUtil.split(versionFiles, MagicNumConstant.FOUR_THOUSAND);
         splitVersionFiles.forEach(splitVersionFile->baseMapper.insertBatch(splitVersionFile));
+        fileStateCounter.evict(targetDataset.getId());
     }
 
     /**
@@ -24,6 +24,7 @@ import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.JSONWriter;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
@@ -45,6 +46,10 @@ import org.dubhe.biz.base.utils.StringUtils;
 import org.dubhe.biz.base.vo.DataResponseBody;
 import org.dubhe.biz.db.utils.PageUtil;
 import org.dubhe.biz.db.utils.WrapperHelp;
+import org.dubhe.biz.file.dto.MinioCopyItemDTO;
+import org.dubhe.biz.file.dto.MinioTransferResultDTO;
+import org.dubhe.biz.file.utils.MinioObjectOutputStream;
+import org.dubhe.biz.file.utils.MinioTransferUtil;
 import org.dubhe.biz.file.utils.MinioUtil;
 import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
@@ -65,6 +70,7 @@ import org.dubhe.data.pool.BasePool;
 import org.dubhe.data.service.*;
 import org.dubhe.data.util.ConversionUtil;
 import org.dubhe.data.util.GeneratorKeyUtil;
+import org.dubhe.data.util.VersionManifestUtil;
 import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequest;
@@ -84,8 +90,12 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 import javax.annotation.Resource;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -132,6 +142,24 @@ public class DatasetVersionServiceImpl extends ServiceImpl<DatasetVersionMapper,
     @Resource
     private MinioUtil minioUtil;
 
+    /**
+     * minIo批量传输工具
+     */
+    @Resource
+    private MinioTransferUtil minioTransferUtil;
+
+    /**
+     * 版本清单工具
+     */
+    @Resource
+    private VersionManifestUtil versionManifestUtil;
+
+    /**
+     * 是否以清单方式发布版本（图片只复制到版本origin目录，COCO、YOLO目录按需物化）
+     */
+    @Value("${data.version.manifest-enabled:false}")
+    private boolean versionManifestEnabled;
+
     /**
      * 线程池
      */
@@ -343,36 +371,52 @@ public class DatasetVersionServiceImpl extends ServiceImpl<DatasetVersionMapper,
         picUrls.forEach(picUrl -> picNames.add(StringUtils.substringAfter(picUrl, "/")));
 
         //由于页面标注信息读取只支持TS格式，生成TS之外的其他格式数据集版本时，要同时生成TS格式数据集版本
+        //各格式的复制项合并为一批，由传输工具并发执行服务端复制
+        List<MinioCopyItemDTO> copyItems = new ArrayList<>();
+        List<MinioCopyItemDTO> formatItems = new ArrayList<>();
         if(datasetVersion.getFormat().equals("TS")){
-            copyTSFile(dataset,datasetVersion,targetDir,picNames);
+            copyTSFile(targetDir, picNames, copyItems);
         }else if(datasetVersion.getFormat().equals("COCO")){
-            copyTSFile(dataset,datasetVersion,targetDir,picNames);
-            copyCOCOFile(datasetVersion,targetDir+"COCO/",picNames);
+            copyTSFile(targetDir, picNames, copyItems);
+            copyCOCOFile(targetDir+"COCO/",picNames, formatItems);
         }else if(datasetVersion.getFormat().equals("YOLO")){
-            copyTSFile(dataset,datasetVersion,targetDir,picNames);
-            copyYOLOFile(datasetVersion,targetDir+"YOLO/",picNames);
+            copyTSFile(targetDir, picNames, copyItems);
+            copyYOLOFile(targetDir+"YOLO/",picNames, formatItems);
+        }
+        if (versionManifestEnabled && !formatItems.isEmpty()) {
+            //清单模式：图片只复制一份到版本origin目录，其他格式目录记录到版本自有对象的映射，由需要的使用方按需物化
+            Map<String, String> originObjects = copyItems.stream().collect(Collectors.toMap(
+                    MinioCopyItemDTO::getSourceObject, MinioCopyItemDTO::getTargetObject, (first, second) -> first));
+            versionManifestUtil.write(targetDir, formatItems.stream().map(item -> new MinioCopyItemDTO(bucketName,
+                    originObjects.get(item.getSourceObject()), bucketName, item.getTargetObject())).collect(Collectors.toList()));
+        } else {
+            copyItems.addAll(formatItems);
+        }
+        MinioTransferResultDTO transferResult = minioTransferUtil.copy(copyItems);
+        if (!transferResult.isSuccess()) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "version {} copy failed, failed count: {}", datasetVersion.getId(), transferResult.getFailedItems().size());
+            throw new BusinessException(ErrorEnum.DATASET_VERSION_ANNOTATION_COPY_EXCEPTION);
+        }
+        if (!copyItems.isEmpty() && AnnotateTypeEnum.OBJECT_DETECTION.getValue().equals(dataset.getAnnotateType())) {
+            LogUtil.info(LogEnum.BIZ_DATASET, "yolo conversion start");
+            conversionUtil.txtConversion(targetDir + "origin", dataset.getId());
+            LogUtil.info(LogEnum.BIZ_DATASET, "yolo conversion end");
         }
 
         datasetVersion.setDataConversion(ConversionStatusEnum.NOT_CONVERSION.getValue());
         getBaseMapper().updateById(datasetVersion);
     }
 
-    private void copyCOCOFile(DatasetVersion datasetVersion,String targetDir,List<String> picNames){
-        minioUtil.copyDir(bucketName, picNames, targetDir+ "images");
+    private void copyCOCOFile(String targetDir, List<String> picNames, List<MinioCopyItemDTO> copyItems){
+        picNames.forEach(picName -> copyItems.add(MinioCopyItemDTO.toDir(bucketName, picName, targetDir + "images")));
     }
 
-    private void copyYOLOFile(DatasetVersion datasetVersion,String targetDir,List<String> picNames){
-        minioUtil.copyDir(bucketName, picNames, targetDir+ "obj_train_data");
+    private void copyYOLOFile(String targetDir, List<String> picNames, List<MinioCopyItemDTO> copyItems){
+        picNames.forEach(picName -> copyItems.add(MinioCopyItemDTO.toDir(bucketName, picName, targetDir + "obj_train_data")));
     }
 
-    private void copyTSFile(Dataset dataset,DatasetVersion datasetVersion,String targetDir,List<String> picNames){
-        targetDir=targetDir+"origin";
-        minioUtil.copyDir(bucketName, picNames, targetDir);
-        if (AnnotateTypeEnum.OBJECT_DETECTION.getValue().equals(dataset.getAnnotateType())) {
-            LogUtil.info(LogEnum.BIZ_DATASET, "yolo conversion start");
-            conversionUtil.txtConversion(targetDir, dataset.getId());
-            LogUtil.info(LogEnum.BIZ_DATASET, "yolo conversion end");
-        }
+    private void copyTSFile(String targetDir, List<String> picNames, List<MinioCopyItemDTO> copyItems){
+        picNames.forEach(picName -> copyItems.add(MinioCopyItemDTO.toDir(bucketName, picName, targetDir + "origin")));
     }
 
     /**
@@ -440,10 +484,10 @@ public class DatasetVersionServiceImpl extends ServiceImpl<DatasetVersionMapper,
                 datasetVersionFile.setAnnotationStatus(FileStateCodeConstant.NOT_ANNOTATION_FILE_STATE);
             }
         });
-        Queue<Long> dataFileIds = generatorKeyUtil.getSequenceByBusinessCode(Constant.DATA_VERSION_FILE, datasetVersionFiles.size());
+        PrimitiveIterator.OfLong dataFileIds = generatorKeyUtil.getRangeByBusinessCode(Constant.DATA_VERSION_FILE, datasetVersionFiles.size()).iterator();
         Queue<Long> versionFileIds = new LinkedList<>();
         for (DatasetVersionFile datasetVersionFile : datasetVersionFiles) {
-            Long dataFileId = dataFileIds.poll();
+            long dataFileId = dataFileIds.nextLong();
             datasetVersionFile.setId(dataFileId);
             versionFileIds.add(dataFileId);
         }
@@ -488,9 +532,9 @@ public class DatasetVersionServiceImpl extends ServiceImpl<DatasetVersionMapper,
             });
         });
         if(!CollectionUtils.isEmpty(dataFileAnnotationList)){
-            Queue<Long> dataFileAnnotionIds = generatorKeyUtil.getSequenceByBusinessCode(Constant.DATA_FILE_ANNOTATION, dataFileAnnotationList.size());
+            PrimitiveIterator.OfLong dataFileAnnotionIds = generatorKeyUtil.getRangeByBusinessCode(Constant.DATA_FILE_ANNOTATION, dataFileAnnotationList.size()).iterator();
             for (DataFileAnnotation dataFileAnnotation : dataFileAnnotationList) {
-                dataFileAnnotation.setId(dataFileAnnotionIds.poll());
+                dataFileAnnotation.setId(dataFileAnnotionIds.nextLong());
             }
             List<List<DataFileAnnotation>> splitAnnotations = CollectionUtil.split(dataFileAnnotationList, MagicNumConstant.FOUR_THOUSAND);
             splitAnnotations.forEach(splitAnnotation->dataFileAnnotationServiceImpl.getBaseMapper().insertBatch(splitAnnotation));
@@ -884,12 +928,8 @@ public class DatasetVersionServiceImpl extends ServiceImpl<DatasetVersionMapper,
         List<Long> categoryIds = Lists.newArrayList();
         conversionUtil.writeYOLOCommon(targetDir,labels,categoryIds);
 
-        StringBuilder train = new StringBuilder();
-        //组装图片和标注数据
-        sourceFiles.stream().forEach(sourceFile->{
-            //组装 train.txt
-            String fileName = StringUtils.substringAfterLast(sourceFile.getFileUrl(), "/");
-            train.append("data/obj_train_data/").append(fileName).append("\n");;
+        //逐个标注文件有界并发读取、转换、写回
+        minioTransferUtil.parallelForEach(sourceFiles, sourceFile -> {
             try {
                 String jsonStr = minioUtil.readString(bucketName, sourceFile.getAnnotationUrl());
 
@@ -918,10 +958,17 @@ public class DatasetVersionServiceImpl extends ServiceImpl<DatasetVersionMapper,
             }
         });
 
-
-        try {
-            minioUtil.writeString(bucketName, targetDir + "train.txt", train.toString());
+        //组装 train.txt，流式写入
+        MinioObjectOutputStream outputStream = minioUtil.newOutputStream(bucketName, targetDir + "train.txt");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+            for (FileAnnotationBO sourceFile : sourceFiles) {
+                String fileName = StringUtils.substringAfterLast(sourceFile.getFileUrl(), "/");
+                writer.write("data/obj_train_data/");
+                writer.write(fileName);
+                writer.write('\n');
+            }
         } catch (Exception e) {
+            outputStream.abort();
             LogUtil.error(LogEnum.BIZ_DATASET, "MinIO file write  yolo train.txt exception, {}", e);
         }
     }
@@ -934,43 +981,66 @@ public class DatasetVersionServiceImpl extends ServiceImpl<DatasetVersionMapper,
      * @param targetDir   复制后文件保存地址
      */
     public void writeCOCOAnnotationMinoFile(Map<Long, String> labelMaps, List<FileAnnotationBO> sourceFiles, String targetDir) {
-        JSONObject cocoObject =ConversionUtil.buildCOCOCommon();
-        JSONArray imageArray = new JSONArray();
-        JSONArray annotationArray = new JSONArray();
-
-        Set<Long> categoryIdSet = new HashSet<>();
-        int annotationIndex=0;
-        //组装图片和标注数据
-        for(FileAnnotationBO sourceFile :sourceFiles){
-            //组装 image
-            JSONObject image = buildImageObject(sourceFile);
-            imageArray.add(image);
-            try {
-                String jsonStr = minioUtil.readString(bucketName, sourceFile.getAnnotationUrl());
-                JSONArray jsonArray = JSON.parseArray(jsonStr);
-                for(int i = 0; i < jsonArray.size(); i++) {
-                    JSONObject sourceAnnotationObject = jsonArray.getJSONObject(i);
-                    JSONObject annotationObject = buildAnnotationObject(sourceFile.getFileId(),sourceAnnotationObject);
-                    annotationObject.put("id",annotationIndex);
-                    categoryIdSet.add(Long.valueOf(annotationObject.get("category_id").toString()));
-                    annotationArray.add(annotationObject);
-                    annotationIndex++;
-                }
-            } catch (Exception e) {
-                LogUtil.error(LogEnum.BIZ_DATASET, "MinIO file read exception, {}", e);
+        //标注文件有界并发读取，按顺序经流式JSON写入分片上传，内存占用与数据集大小无关
+        MinioObjectOutputStream outputStream = minioUtil.newOutputStream(bucketName, targetDir + "annotations/instances_default.json");
+        Writer out = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        try {
+            JSONWriter writer = new JSONWriter(out);
+            writer.startObject();
+            for (Map.Entry<String, Object> entry : ConversionUtil.buildCOCOCommon().entrySet()) {
+                writer.writeKey(entry.getKey());
+                writer.writeValue(entry.getValue());
             }
-        }
-
-        cocoObject.put("images",imageArray);
-        cocoObject.put("annotations",annotationArray);
 
-        //组装标签
-        JSONArray categoryArray = buildCategoryArray(labelMaps,categoryIdSet);
-        cocoObject.put("categories",categoryArray);
-
-        try {
-            minioUtil.writeString(bucketName, targetDir + "annotations/instances_default.json", JSON.toJSONString(cocoObject));
+            //组装图片数据
+            writer.writeKey("images");
+            writer.startArray();
+            for (FileAnnotationBO sourceFile : sourceFiles) {
+                writer.writeValue(buildImageObject(sourceFile));
+            }
+            writer.endArray();
+
+            //组装标注数据
+            Set<Long> categoryIdSet = new HashSet<>();
+            int[] annotationIndex = {0};
+            writer.writeKey("annotations");
+            writer.startArray();
+            minioTransferUtil.readStrings(bucketName, sourceFiles, FileAnnotationBO::getAnnotationUrl, (sourceFile, jsonStr) -> {
+                if (jsonStr == null) {
+                    return;
+                }
+                //单个标注文件异常只跳过该文件，不影响整体导出
+                List<JSONObject> annotationObjects = new ArrayList<>();
+                List<Long> categoryIds = new ArrayList<>();
+                try {
+                    JSONArray jsonArray = JSON.parseArray(jsonStr);
+                    for (int i = 0; i < jsonArray.size(); i++) {
+                        JSONObject annotationObject = buildAnnotationObject(sourceFile.getFileId(), jsonArray.getJSONObject(i));
+                        categoryIds.add(Long.valueOf(annotationObject.get("category_id").toString()));
+                        annotationObjects.add(annotationObject);
+                    }
+                } catch (Exception e) {
+                    LogUtil.error(LogEnum.BIZ_DATASET, "MinIO file read exception, {}", e);
+                    return;
+                }
+                categoryIdSet.addAll(categoryIds);
+                for (JSONObject annotationObject : annotationObjects) {
+                    annotationObject.put("id",annotationIndex[0]);
+                    writer.writeValue(annotationObject);
+                    annotationIndex[0]++;
+                }
+            });
+            writer.endArray();
+
+            //组装标签
+            writer.writeKey("categories");
+            writer.writeValue(buildCategoryArray(labelMaps,categoryIdSet));
+            writer.endObject();
+            //JSONWriter.close只刷新自身缓冲，不会关闭底层流，需显式关闭以提交最后一个分片
+            writer.close();
+            out.close();
         } catch (Exception e) {
+            outputStream.abort();
             LogUtil.error(LogEnum.BIZ_DATASET, "MinIO file write exception, {}", e);
         }
     }
@@ -1029,7 +1099,7 @@ public class DatasetVersionServiceImpl extends ServiceImpl<DatasetVersionMapper,
          * 2.替换其中category_id为标签名称
          * 3.把新文件内容写入到新文件中
          */
-        sourceFiles.stream().forEach(annotationUrl->{
+        minioTransferUtil.parallelForEach(sourceFiles, annotationUrl->{
             try {
                 String jsonStr = minioUtil.readString(bucketName, annotationUrl);
                 JSONArray jsonArray = JSON.parseArray(jsonStr);
@@ -1276,4 +1346,46 @@ public class DatasetVersionServiceImpl extends ServiceImpl<DatasetVersionMapper,
     public void updateByEntity(DatasetVersion datasetVersion) {
         baseMapper.updateById(datasetVersion);
     }
+
+    /**
+     * 按需物化清单版本目录，非清单版本或已物化时直接返回
+     *
+     * @param path 版本目录或其子路径. e.g. dataset/25/versionFile/V0001/ofrecord/train
+     */
+    @Override
+    public void materialize(String path) {
+        String versionDir = getVersionDir(path);
+        if (versionDir != null) {
+            versionManifestUtil.materialize(versionDir);
+        }
+    }
+
+    /**
+     * 异步物化清单版本目录，立即返回
+     *
+     * @param path 版本目录或其子路径
+     * @return boolean 是否已可直接使用（非清单版本或已物化）
+     */
+    @Override
+    public boolean materializeAsync(String path) {
+        String versionDir = getVersionDir(path);
+        return versionDir == null || versionManifestUtil.materializeAsync(versionDir);
+    }
+
+    /**
+     * 从路径中截取版本目录
+     *
+     * @param path 版本目录或其子路径
+     * @return String 版本目录，以'/'结尾，非版本路径返回null
+     */
+    private String getVersionDir(String path) {
+        String versionPath = StringUtils.removeStart(path, File.separator);
+        String versionFilePath = File.separator + VERSION_FILE + File.separator;
+        int index = versionPath.indexOf(versionFilePath);
+        if (index < 0) {
+            return null;
+        }
+        String versionName = StringUtils.substringBefore(versionPath.substring(index + versionFilePath.length()), File.separator);
+        return versionPath.substring(0, index) + versionFilePath + versionName + File.separator;
+    }
 }
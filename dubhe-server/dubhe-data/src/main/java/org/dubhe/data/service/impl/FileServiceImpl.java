@@ -521,9 +521,9 @@ public class FileServiceImpl extends ServiceImpl<FileMapper, File> implements Fi
         if (!CollectionUtils.isEmpty(fail)) {
             throw new BusinessException(ErrorEnum.FILE_EXIST, JSON.toJSONString(fail), null);
         }
-        Queue<Long> dataFileIds = generatorKeyUtil.getSequenceByBusinessCode(Constant.DATA_FILE, newFiles.size());
+        PrimitiveIterator.OfLong dataFileIds = generatorKeyUtil.getRangeByBusinessCode(Constant.DATA_FILE, newFiles.size()).iterator();
         for (File f : newFiles) {
-            f.setId(dataFileIds.poll());
+            f.setId(dataFileIds.nextLong());
         }
         baseMapper.saveList(newFiles, JwtUtils.getCurUserId(), datasetUserId);
         LogUtil.debug(LogEnum.BIZ_DATASET, "save files end, times {}", (System.currentTimeMillis() - start));
@@ -549,9 +549,9 @@ public class FileServiceImpl extends ServiceImpl<FileMapper, File> implements Fi
             File file = FileCreateDTO.toFile(fileCreateDTO, fileId, type, pid);
             list.add(file);
         });
-        Queue<Long> dataFileIds = generatorKeyUtil.getSequenceByBusinessCode(Constant.DATA_FILE, list.size());
+        PrimitiveIterator.OfLong dataFileIds = generatorKeyUtil.getRangeByBusinessCode(Constant.DATA_FILE, list.size()).iterator();
         for (File f : list) {
-            f.setId(dataFileIds.poll());
+            f.setId(dataFileIds.nextLong());
         }
         baseMapper.saveList(list, userId, createUserId);
         return list;
@@ -1023,6 +1023,26 @@ public class FileServiceImpl extends ServiceImpl<FileMapper, File> implements Fi
         }
     }
 
+    /**
+     * 按文件ID游标批量获取文件列表
+     *
+     * @param datasetId 数据集ID
+     * @param lastId    上一批最后一个文件ID，首批传0
+     * @param batchSize 批大小
+     * @param status    文件标注状态
+     * @return 文件列表（按ID升序）
+     */
+    @Override
+    public List<File> listBatchFileAfterId(Long datasetId, long lastId, int batchSize, Collection<Integer> status) {
+        try{
+            Dataset dataset = datasetService.getOneById(datasetId);
+            return baseMapper.selectListAfterId(datasetId, dataset.getCurrentVersionName(), lastId, batchSize, status);
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "get annotation files after id {} error {}", lastId, e);
+            return null;
+        }
+    }
+
     /**
      * 判断执行中的采样任务是否过期
      */
@@ -1424,10 +1444,10 @@ public class FileServiceImpl extends ServiceImpl<FileMapper, File> implements Fi
         List<File> files = baseMapper.selectList(new LambdaQueryWrapper<File>().eq(File::getDatasetId, originDataset.getId())
                 .ne(File::getFileType, MagicNumConstant.ONE).or().isNull(File::getFileType));
         if (!CollectionUtils.isEmpty(files)) {
-            Queue<Long> dataFileIds = generatorKeyUtil.getSequenceByBusinessCode(Constant.DATA_FILE, files.size());
+            PrimitiveIterator.OfLong dataFileIds = generatorKeyUtil.getRangeByBusinessCode(Constant.DATA_FILE, files.size()).iterator();
             for (int i = 0; i < files.size(); i++) {
                 File f = files.get(i);
-                f.setId(dataFileIds.poll());
+                f.setId(dataFileIds.nextLong());
                 if (!Objects.isNull(f.getFileType()) && f.getFileType().compareTo(MagicNumConstant.ONE) == 0) {
                     f.setUrl(f.getUrl().replace(originDataset.getId().toString(), targetDataset.getId().toString()));
                     f.setName(FileUtil.spliceFileNameAndDatasetId(targetDataset.getId(), f.getName()));
@@ -1598,8 +1618,8 @@ public class FileServiceImpl extends ServiceImpl<FileMapper, File> implements Fi
                 .setPid(0L)
                 .setOriginUserId(contextService.getCurUserId())
                 .setExcludeHeader(datasetCsvImportDTO.getExcludeHeader()==null?true:datasetCsvImportDTO.getExcludeHeader());
-        Queue<Long> dataFileIds = generatorKeyUtil.getSequenceByBusinessCode(Constant.DATA_FILE, 1);
-        file.setId(dataFileIds.poll());
+        PrimitiveIterator.OfLong dataFileIds = generatorKeyUtil.getRangeByBusinessCode(Constant.DATA_FILE, 1).iterator();
+        file.setId(dataFileIds.nextLong());
         baseMapper.saveList(Arrays.asList(new File[]{file}), contextService.getCurUserId(), dataset.getCreateUserId());
         Task task = Task.builder().build().setDatasetId(datasetCsvImportDTO.getDatasetId())
                 .setCreateUserId(contextService.getCurUserId())
@@ -28,6 +28,7 @@ import org.dubhe.biz.base.constant.MagicNumConstant;
 import org.dubhe.biz.base.constant.NumberConstant;
 import org.dubhe.biz.base.enums.OperationTypeEnum;
 import org.dubhe.biz.base.exception.BusinessException;
+import org.dubhe.biz.redis.utils.RedisUtils;
 import org.dubhe.biz.statemachine.dto.StateChangeDTO;
 import org.dubhe.data.constant.*;
 import org.dubhe.data.dao.TaskMapper;
@@ -44,6 +45,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.CollectionUtils;
 
 import java.util.*;
@@ -82,6 +85,9 @@ public class TaskServiceImpl extends ServiceImpl<TaskMapper, Task> implements Ta
     @Autowired
     private AutoLabelModelServiceService autoLabelModelServiceService;
 
+    @Autowired
+    private RedisUtils redisUtils;
+
     /**
      * 十分钟(单位ms)
      */
@@ -207,6 +213,7 @@ public class TaskServiceImpl extends ServiceImpl<TaskMapper, Task> implements Ta
             task.setModelServiceId(autoAnnotationCreateDTO.getModelServiceId());
         }
         baseMapper.insert(task);
+        notifyTaskCreated(task.getId());
 
         //嵌入状态机
         StateMachineUtil.stateChange(new StateChangeDTO() {{
@@ -236,7 +243,7 @@ public class TaskServiceImpl extends ServiceImpl<TaskMapper, Task> implements Ta
                 .type(DataTaskTypeEnum.TARGET_TRACK.getValue())
                 .modelServiceId(modelServiceId)
                 .labels("").build();
-        baseMapper.insert(task);
+        createTask(task);
     }
 
     /**
@@ -340,6 +347,49 @@ public class TaskServiceImpl extends ServiceImpl<TaskMapper, Task> implements Ta
         return baseMapper.selectOne(queryWrapper);
     }
 
+    /**
+     * 批量获取待处理任务
+     *
+     * @param types 任务类型
+     * @param limit 获取数量上限
+     * @return 任务列表
+     */
+    @Override
+    public List<Task> getPendingTasks(Collection<Integer> types, int limit) {
+        if (CollectionUtils.isEmpty(types) || limit <= 0) {
+            return Collections.emptyList();
+        }
+        QueryWrapper<Task> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("status", MagicNumConstant.ZERO);
+        queryWrapper.in("type", types);
+        queryWrapper.orderByAsc("id");
+        queryWrapper.last("limit " + limit);
+        return baseMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 批量获取未识别类型的待处理任务(不含视频采样任务)
+     *
+     * @param knownTypes 已识别的任务类型
+     * @param limit      获取数量上限
+     * @return 任务列表
+     */
+    @Override
+    public List<Task> getUnrecognizedPendingTasks(Collection<Integer> knownTypes, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        QueryWrapper<Task> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("status", MagicNumConstant.ZERO);
+        queryWrapper.ne("type", MagicNumConstant.FIVE);
+        if (!CollectionUtils.isEmpty(knownTypes)) {
+            queryWrapper.notIn("type", knownTypes);
+        }
+        queryWrapper.orderByAsc("id");
+        queryWrapper.last("limit " + limit);
+        return baseMapper.selectList(queryWrapper);
+    }
+
     /**
      * 更新任务状态
      *
@@ -365,6 +415,27 @@ public class TaskServiceImpl extends ServiceImpl<TaskMapper, Task> implements Ta
     @Override
     public void createTask(Task task) {
         baseMapper.insert(task);
+        notifyTaskCreated(task.getId());
+    }
+
+    /**
+     * 通知任务处理服务有新任务创建
+     * 存在事务时在事务提交后发送，避免任务处理服务读取不到未提交的任务
+     *
+     * @param taskId 任务ID
+     */
+    @Override
+    public void notifyTaskCreated(Long taskId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    redisUtils.publish(Constant.DATA_TASK_CREATED_CHANNEL, String.valueOf(taskId));
+                }
+            });
+        } else {
+            redisUtils.publish(Constant.DATA_TASK_CREATED_CHANNEL, String.valueOf(taskId));
+        }
     }
 
     /**
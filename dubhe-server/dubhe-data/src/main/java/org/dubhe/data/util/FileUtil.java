@@ -132,8 +132,18 @@ public class FileUtil {
      * @return String 数据集指定文件标注地址(支持多版本)
      */
     public String getAnnotationAbsPath(Long datasetId, String fileName) {
-        Dataset dataset = datasetService.getOneById(datasetId);
-        return getAnnotationDirAbsPath(datasetId) +
+        return getAnnotationAbsPath(datasetService.getOneById(datasetId), fileName);
+    }
+
+    /**
+     * 获取数据集指定文件标注地址(支持多版本)
+     *
+     * @param dataset   数据集
+     * @param fileName  文件名称
+     * @return String 数据集指定文件标注地址(支持多版本)
+     */
+    public String getAnnotationAbsPath(Dataset dataset, String fileName) {
+        return getAnnotationDirAbsPath(dataset.getId()) +
                 (org.springframework.util.StringUtils.isEmpty(dataset.getCurrentVersionName()) ? "" : dataset.getCurrentVersionName() + File.separator)
                 + fileName;
     }
@@ -14,13 +14,11 @@
  * limitations under the License.
  * =============================================================
  */
-
 package org.dubhe.data.util;
 
-import cn.hutool.core.util.ObjectUtil;
 import org.dubhe.biz.base.constant.MagicNumConstant;
 import org.dubhe.biz.base.exception.DataSequenceException;
-import org.dubhe.data.domain.entity.DataSequence;
+import org.dubhe.data.pool.DefaultThreadFactoryImpl;
 import org.dubhe.data.service.DataSequenceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -28,6 +26,9 @@ import org.springframework.util.StringUtils;
 
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @description 生成ID工具类
@@ -40,49 +41,54 @@ public class GeneratorKeyUtil {
     @Autowired
     private DataSequenceService dataSequenceService;
 
-    private ConcurrentHashMap<String, IdAlloc> idAllocConcurrentHashMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, IdAlloc> idAllocConcurrentHashMap = new ConcurrentHashMap<>();
+
+    /**
+     * 号段预取线程池，每个业务编码同时至多一个预取任务
+     */
+    private final ThreadPoolExecutor prefetchExecutor = createPrefetchExecutor();
 
     /**
      * 根据业务编码，数量获取序列号
      *
      * @param businessCode 业务编码
      * @param number       数量
-     * @return Long 起始位置
+     * @return Queue<Long> 序列号队列
+     */
+    public Queue<Long> getSequenceByBusinessCode(String businessCode, int number) {
+        return getRangeByBusinessCode(businessCode, number).toQueue();
+    }
+
+    /**
+     * 根据业务编码，数量获取序列号区间
+     *
+     * @param businessCode 业务编码
+     * @param number       数量
+     * @return IdRange 序列号区间
      */
-    public synchronized Queue<Long> getSequenceByBusinessCode(String businessCode, int number) {
+    public IdRange getRangeByBusinessCode(String businessCode, int number) {
         if (StringUtils.isEmpty(businessCode)) {
             throw new DataSequenceException("业务编码不可为空");
         }
-        if (number == MagicNumConstant.ZERO) {
+        if (number <= MagicNumConstant.ZERO) {
             throw new DataSequenceException("需要获取的序列号长度不可为0或者空");
         }
-        IdAlloc idAlloc = idAllocConcurrentHashMap.get(businessCode);
-        if (ObjectUtil.isNull(idAlloc)) {
-            idAlloc = new IdAlloc();
-            idAllocConcurrentHashMap.put(businessCode, idAlloc);
-        }
-
-        if (idAlloc.getUnUsed() < number) {
-            //执行扩容操作
-            expansionUsedNumber(businessCode, number);
-        }
-        //获取ids
-        return idAlloc.poll(number);
+        IdAlloc idAlloc = idAllocConcurrentHashMap.computeIfAbsent(businessCode,
+                code -> new IdAlloc(() -> dataSequenceService.expansionUsedNumber(code), prefetchExecutor));
+        return idAlloc.allocate(number);
     }
 
     /**
-     * 扩容
-     * @param businessCode 业务编码
-     * @param number 数量
+     * 创建号段预取线程池
+     *
+     * @return ThreadPoolExecutor 线程池
      */
-    protected void expansionUsedNumber(String businessCode, int number) {
-        IdAlloc idAlloc = idAllocConcurrentHashMap.get(businessCode);
-        DataSequence dataSequenceNew = dataSequenceService.expansionUsedNumber(businessCode);
-        idAlloc.add(dataSequenceNew);
-        if(idAlloc.getUnUsed() < number) {
-            expansionUsedNumber(businessCode, number);
-        }
+    private static ThreadPoolExecutor createPrefetchExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MagicNumConstant.FOUR, MagicNumConstant.FOUR,
+                MagicNumConstant.SIXTY, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new DefaultThreadFactoryImpl("id-segment-prefetch", true, MagicNumConstant.ZERO));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
-
 }
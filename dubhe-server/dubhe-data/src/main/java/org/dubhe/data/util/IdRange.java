@@ -0,0 +1,234 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+package org.dubhe.data.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Queue;
+import java.util.function.LongConsumer;
+
+/**
+ * @description 序列号区间集合，由若干个左闭右开区间 [start, end) 组成，按申请顺序排列
+ * @date 2026-10-17
+ */
+public class IdRange {
+
+    /**
+     * 区间边界，偶数位为起始值（包含），奇数位为结束值（不包含）
+     */
+    private long[] bounds;
+
+    private int segmentCount;
+
+    private long size;
+
+    public IdRange() {
+        bounds = new long[4];
+    }
+
+    /**
+     * 追加区间，与上一区间首尾相连时直接合并
+     *
+     * @param start 起始值（包含）
+     * @param end   结束值（不包含）
+     */
+    void add(long start, long end) {
+        if (end <= start) {
+            return;
+        }
+        size += end - start;
+        if (segmentCount > 0 && bounds[segmentCount * 2 - 1] == start) {
+            bounds[segmentCount * 2 - 1] = end;
+            return;
+        }
+        if (bounds.length < (segmentCount + 1) * 2) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[segmentCount * 2] = start;
+        bounds[segmentCount * 2 + 1] = end;
+        segmentCount++;
+    }
+
+    /**
+     * @return long 序列号总数
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return int 区间个数
+     */
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * @param index 区间下标
+     * @return long 区间起始值（包含）
+     */
+    public long getStart(int index) {
+        return bounds[index * 2];
+    }
+
+    /**
+     * @param index 区间下标
+     * @return long 区间结束值（不包含）
+     */
+    public long getEnd(int index) {
+        return bounds[index * 2 + 1];
+    }
+
+    /**
+     * 按顺序遍历全部序列号
+     *
+     * @param consumer 消费者
+     */
+    public void forEach(LongConsumer consumer) {
+        for (int i = 0; i < segmentCount; i++) {
+            for (long id = bounds[i * 2]; id < bounds[i * 2 + 1]; id++) {
+                consumer.accept(id);
+            }
+        }
+    }
+
+    /**
+     * @return PrimitiveIterator.OfLong 序列号迭代器
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new Cursor(0, segmentCount > 0 ? bounds[0] : 0L);
+    }
+
+    /**
+     * 转换为队列视图，出队时才生成序列号，不预先装箱；入队的元素排在区间之后
+     *
+     * @return Queue<Long> 序列号队列
+     */
+    public Queue<Long> toQueue() {
+        Cursor ids = new Cursor(0, segmentCount > 0 ? bounds[0] : 0L);
+        Queue<Long> tail = new ArrayDeque<>();
+        return new AbstractQueue<Long>() {
+
+            private long remaining = size;
+
+            private Long head;
+
+            @Override
+            public Iterator<Long> iterator() {
+                Long first = head;
+                PrimitiveIterator.OfLong rest = ids.copy();
+                Iterator<Long> offered = tail.iterator();
+                return new Iterator<Long>() {
+
+                    private boolean firstReturned = first == null;
+
+                    @Override
+                    public boolean hasNext() {
+                        return !firstReturned || rest.hasNext() || offered.hasNext();
+                    }
+
+                    @Override
+                    public Long next() {
+                        if (!firstReturned) {
+                            firstReturned = true;
+                            return first;
+                        }
+                        return rest.hasNext() ? rest.nextLong() : offered.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return (int) Math.min(remaining + tail.size(), Integer.MAX_VALUE);
+            }
+
+            @Override
+            public boolean offer(Long id) {
+                return tail.offer(id);
+            }
+
+            @Override
+            public Long poll() {
+                if (remaining > 0) {
+                    Long id = peek();
+                    head = null;
+                    remaining--;
+                    return id;
+                }
+                return tail.poll();
+            }
+
+            @Override
+            public Long peek() {
+                if (remaining > 0) {
+                    if (head == null) {
+                        head = ids.nextLong();
+                    }
+                    return head;
+                }
+                return tail.peek();
+            }
+        };
+    }
+
+    /**
+     * 序列号游标，记录当前区间下标和下一个序列号
+     */
+    private class Cursor implements PrimitiveIterator.OfLong {
+
+        private int segment;
+
+        private long next;
+
+        Cursor(int segment, long next) {
+            this.segment = segment;
+            this.next = next;
+        }
+
+        /**
+         * @return Cursor 从当前位置开始的独立游标
+         */
+        Cursor copy() {
+            return new Cursor(segment, next);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (segment < segmentCount && next >= bounds[segment * 2 + 1]) {
+                segment++;
+                if (segment < segmentCount) {
+                    next = bounds[segment * 2];
+                }
+            }
+            return segment < segmentCount;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return next++;
+        }
+    }
+
+}
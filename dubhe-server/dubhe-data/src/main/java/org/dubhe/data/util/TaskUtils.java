@@ -21,14 +21,19 @@ import org.dubhe.biz.base.constant.MagicNumConstant;
 import org.dubhe.biz.base.utils.StringUtils;
 import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
-import org.springframework.core.io.ClassPathResource;
+import org.dubhe.biz.redis.utils.RedisScriptUtils;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -36,6 +41,7 @@ import java.util.Set;
  * @date 2020-09-10
  */
 @Component
+@SuppressWarnings({"unchecked", "rawtypes"})
 public class TaskUtils {
 
     private RedisTemplate<Object, Object> redisTemplate;
@@ -68,10 +74,8 @@ public class TaskUtils {
      * @return 任务是否存放成功
      */
     public boolean addTask(String queueName, String taskDetails, String detailKey,int score) {
-        DefaultRedisScript<Boolean> addTaskScript = new DefaultRedisScript<>();
-        addTaskScript.setResultType(Boolean.class);
-        addTaskScript.setLocation(new ClassPathResource("addTask.lua"));
         try {
+            RedisScript<Boolean> addTaskScript = RedisScriptUtils.fromClassPath("addTask.lua", Boolean.class);
             return redisTemplate.execute(addTaskScript, Collections.singletonList(detailKey)
                     , queueName, taskDetails, score);
         } catch (Exception e) {
@@ -90,10 +94,8 @@ public class TaskUtils {
      * @return boolean 是否完成
      */
     public boolean finishedTask(String queueName, String keyId, String taskType, String taskKey) {
-        DefaultRedisScript<Boolean> finishedTaskScript = new DefaultRedisScript<>();
-        finishedTaskScript.setResultType(Boolean.class);
-        finishedTaskScript.setLocation(new ClassPathResource("finishedTask.lua"));
         try {
+            RedisScript<Boolean> finishedTaskScript = RedisScriptUtils.fromClassPath("finishedTask.lua", Boolean.class);
             return redisTemplate.execute(finishedTaskScript, Collections.singletonList(queueName)
                     , keyId, taskType, taskKey);
         } catch (Exception e) {
@@ -108,10 +110,8 @@ public class TaskUtils {
      *
      */
     public String getFinishedTask(String queueName) {
-        DefaultRedisScript<String> finishedTaskScript = new DefaultRedisScript<>();
-        finishedTaskScript.setResultType(String.class);
-        finishedTaskScript.setLocation(new ClassPathResource("getFinishedTask.lua"));
         try {
+            RedisScript<String> finishedTaskScript = RedisScriptUtils.fromClassPath("getFinishedTask.lua", String.class);
             return redisTemplate.execute(finishedTaskScript, redisTemplate.getStringSerializer(),redisTemplate.getStringSerializer(),Collections.singletonList(queueName));
         } catch (Exception e) {
             return null;
@@ -124,16 +124,89 @@ public class TaskUtils {
      *
      */
     public String getFailedTask(String queueName) {
-        DefaultRedisScript<String> failedTaskScript = new DefaultRedisScript<>();
-        failedTaskScript.setResultType(String.class);
-        failedTaskScript.setLocation(new ClassPathResource("getFailedTask.lua"));
         try {
+            RedisScript<String> failedTaskScript = RedisScriptUtils.fromClassPath("getFailedTask.lua", String.class);
             return redisTemplate.execute(failedTaskScript, redisTemplate.getStringSerializer(),redisTemplate.getStringSerializer(), Collections.singletonList(queueName));
         } catch (Exception e) {
             return null;
         }
     }
 
+    /**
+     * 批量领取完成任务，领取的结果转入处理中集合，租约到期前需确认或放回
+     *
+     * @param queueName     队列命名空间
+     * @param count         单次最多获取的数量
+     * @param processingKey 处理中集合
+     * @param sourceKey     来源队列hash
+     * @param leaseMillis   租约时长(毫秒)
+     * @return 完成任务结果key列表
+     */
+    public List<String> claimFinishedTasks(String queueName, int count, String processingKey, String sourceKey, long leaseMillis) {
+        return popTasks("getFinishedTask.lua", Arrays.asList(queueName, processingKey, sourceKey), count, leaseMillis);
+    }
+
+    /**
+     * 批量领取失败任务，领取的结果转入处理中集合，租约到期前需确认或放回
+     *
+     * @param queueName     队列命名空间
+     * @param count         单次最多获取的数量
+     * @param processingKey 处理中集合
+     * @param sourceKey     来源队列hash
+     * @param leaseMillis   租约时长(毫秒)
+     * @return 失败任务结果key列表
+     */
+    public List<String> claimFailedTasks(String queueName, int count, String processingKey, String sourceKey, long leaseMillis) {
+        return popTasks("getFailedTask.lua", Arrays.asList(queueName, processingKey, sourceKey), count, leaseMillis);
+    }
+
+    /**
+     * 将处理中的结果放回来源队列
+     *
+     * @param processingKey 处理中集合
+     * @param sourceKey     来源队列hash
+     * @param attemptsKey   重试次数hash
+     * @param object        任务结果key
+     * @param maxAttempts   最大重试次数
+     * @param countAttempt  是否计入重试次数
+     * @return 1:已放回 0:不在处理中 -1:超过最大重试次数未放回
+     */
+    public long requeueTask(String processingKey, String sourceKey, String attemptsKey, String object, int maxAttempts, boolean countAttempt) {
+        RedisScript<Long> requeueTaskScript = RedisScriptUtils.fromClassPath("requeueTask.lua", Long.class);
+        RedisSerializer<String> stringSerializer = redisTemplate.getStringSerializer();
+        Long result = redisTemplate.execute(requeueTaskScript, stringSerializer, (RedisSerializer) stringSerializer,
+                Arrays.asList(processingKey, sourceKey, attemptsKey), object, String.valueOf(maxAttempts),
+                String.valueOf(System.currentTimeMillis()), countAttempt ? "1" : "0");
+        return result == null ? 0L : result;
+    }
+
+    /**
+     * 推迟处理中结果的租约到期时间，到期后由租约检查放回来源队列
+     *
+     * @param processingKey 处理中集合
+     * @param object        任务结果key
+     * @param delayMillis   推迟时长(毫秒)
+     */
+    public void delayTask(String processingKey, String object, long delayMillis) {
+        long deadline = System.currentTimeMillis() + delayMillis;
+        redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.zAdd(
+                processingKey.getBytes(StandardCharsets.UTF_8), deadline, object.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private List<String> popTasks(String scriptLocation, List<String> keys, int count, long leaseMillis) {
+        try {
+            RedisScript<List> popTaskScript = RedisScriptUtils.fromClassPath(scriptLocation, List.class);
+            RedisSerializer<String> stringSerializer = redisTemplate.getStringSerializer();
+            // 多条返回值逐条使用字符串序列化器反序列化
+            List<String> result = redisTemplate.execute(popTaskScript, stringSerializer, (RedisSerializer) stringSerializer,
+                    keys, String.valueOf(count), String.valueOf(leaseMillis));
+            return result == null ? Collections.emptyList() : result;
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "RedisUtils popTasks {} error:{}", scriptLocation, e.getMessage(), e);
+            return Collections.emptyList();
+        }
+    }
+
     /**
      * 重启任务
      *
@@ -145,10 +218,8 @@ public class TaskUtils {
      * @return boolean 重启任务是否成功
      */
     public boolean restartTask(String keyId, String processingName, String unprocessedName, String detailName, String datasetIdKey) {
-        DefaultRedisScript<Boolean> restartTaskScript = new DefaultRedisScript<>();
-        restartTaskScript.setResultType(Boolean.class);
-        restartTaskScript.setLocation(new ClassPathResource("restartTask.lua"));
         try {
+            RedisScript<Boolean> restartTaskScript = RedisScriptUtils.fromClassPath("restartTask.lua", Boolean.class);
             return redisTemplate.execute(restartTaskScript, Collections.singletonList(keyId),
                     processingName, unprocessedName, detailName, datasetIdKey);
         } catch (Exception e) {
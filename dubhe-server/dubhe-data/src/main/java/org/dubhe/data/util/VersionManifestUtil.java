@@ -0,0 +1,377 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+package org.dubhe.data.util;
+
+import org.dubhe.biz.base.constant.SymbolConstant;
+import org.dubhe.biz.base.exception.BusinessException;
+import org.dubhe.biz.file.dto.MinioCopyItemDTO;
+import org.dubhe.biz.file.dto.MinioTransferResultDTO;
+import org.dubhe.biz.file.utils.MinioTransferUtil;
+import org.dubhe.biz.file.utils.MinioUtil;
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.utils.LogUtil;
+import org.dubhe.biz.redis.utils.RedisUtils;
+import org.dubhe.data.constant.ErrorEnum;
+import org.dubhe.data.pool.DefaultThreadFactoryImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @description 数据集版本清单工具，版本内重复的文件（如COCO、YOLO目录下的图片）仅记录逻辑路径到版本自有对象的映射，按需物化为真实目录
+ * 清单只引用版本目录内已复制的对象，不引用数据集中可变的原始对象；物化的互斥与失败状态保存在redis中，多实例共享
+ * @date 2026-10-17
+ */
+@Component
+public class VersionManifestUtil {
+
+    /**
+     * 清单文件名（gzip压缩，每行：逻辑路径\t对象名称）
+     */
+    public static final String MANIFEST_NAME = "manifest.gz";
+
+    /**
+     * 物化完成标记文件名
+     */
+    public static final String MATERIALIZED_FLAG = "manifest.materialized";
+
+    /**
+     * 清单文件头
+     */
+    private static final String MANIFEST_HEADER = "#dubhe-version-manifest\t1";
+
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * 清单写入管道缓冲区大小
+     */
+    private static final int PIPE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * redis 版本物化互斥锁key前缀
+     */
+    private static final String MATERIALIZE_LOCK_KEY = "dataset:version:materialize:lock:";
+
+    /**
+     * redis 版本物化失败标记key前缀，被调用方轮询到后清除
+     */
+    private static final String MATERIALIZE_FAILED_KEY = "dataset:version:materialize:failed:";
+
+    @Value("${minio.bucketName}")
+    private String bucketName;
+
+    /**
+     * 物化锁超时时间（秒），持有锁的实例异常退出后由其他实例接管
+     */
+    @Value("${data.version.materialize-lock-seconds:3600}")
+    private long materializeLockSeconds;
+
+    /**
+     * 物化失败标记的保留时间（秒）
+     */
+    @Value("${data.version.materialize-failure-seconds:600}")
+    private long materializeFailureSeconds;
+
+    /**
+     * 同步物化时等待其他实例完成的轮询间隔（毫秒）
+     */
+    @Value("${data.version.materialize-wait-millis:3000}")
+    private long materializeWaitMillis;
+
+    /**
+     * 等待异步物化的版本数上限，超出时本次不提交，由调用方下次轮询时重试
+     */
+    @Value("${data.version.materialize-queue-capacity:16}")
+    private int materializeQueueCapacity;
+
+    @Autowired
+    private MinioUtil minioUtil;
+
+    @Autowired
+    private MinioTransferUtil minioTransferUtil;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    /**
+     * 异步物化线程池，物化本身已通过MinioTransferUtil并发复制，此处只需限制同时物化的版本数
+     */
+    private ExecutorService materializeExecutor;
+
+    /**
+     * 清单写入线程，gzip压缩后经管道交给上传线程
+     */
+    private final ExecutorService manifestWriteExecutor = Executors.newCachedThreadPool(
+            new DefaultThreadFactoryImpl("version-manifest-write", true, 0));
+
+    @PostConstruct
+    public void init() {
+        materializeExecutor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(materializeQueueCapacity), new DefaultThreadFactoryImpl("version-materialize", true, 0));
+    }
+
+    /**
+     * 写入版本清单，边压缩边上传，不在内存中缓存整个清单
+     *
+     * @param versionDir 版本目录，以'/'结尾. e.g. dataset/25/versionFile/V0001/
+     * @param items      清单条目，源对象为版本目录内的对象，目标对象名称为版本目录下的逻辑路径
+     */
+    public void write(String versionDir, List<MinioCopyItemDTO> items) {
+        String manifest = versionDir + MANIFEST_NAME;
+        try (PipedInputStream in = new PipedInputStream(PIPE_BUFFER_SIZE)) {
+            PipedOutputStream out = new PipedOutputStream(in);
+            Future<?> producer = manifestWriteExecutor.submit(() -> writeManifest(out, versionDir, items));
+            try {
+                minioUtil.writeStream(bucketName, manifest, in);
+            } catch (Exception e) {
+                producer.cancel(true);
+                throw e;
+            } finally {
+                // 上传中断时关闭读端，使写入线程退出
+                in.close();
+            }
+            // 写入线程异常时上传的清单不完整，需删除
+            producer.get();
+        } catch (Exception e) {
+            deleteQuietly(manifest);
+            LogUtil.error(LogEnum.BIZ_DATASET, "write version manifest {} error:{}", versionDir, e);
+            throw new BusinessException(ErrorEnum.DATASET_VERSION_ANNOTATION_COPY_EXCEPTION);
+        }
+        LogUtil.info(LogEnum.BIZ_DATASET, "version manifest {} written, entries: {}", versionDir, items.size());
+    }
+
+    /**
+     * 压缩清单内容写入管道
+     *
+     * @param out        管道写端
+     * @param versionDir 版本目录
+     * @param items      清单条目
+     * @return Void
+     * @throws IOException 写入异常
+     */
+    private Void writeManifest(OutputStream out, String versionDir, List<MinioCopyItemDTO> items) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(out), StandardCharsets.UTF_8))) {
+            writer.write(MANIFEST_HEADER);
+            writer.write('\n');
+            for (MinioCopyItemDTO item : items) {
+                writer.write(item.getTargetObject().substring(versionDir.length()));
+                writer.write(SEPARATOR);
+                writer.write(item.getSourceObject());
+                writer.write('\n');
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 版本是否以清单方式发布
+     *
+     * @param versionDir 版本目录，以'/'结尾
+     * @return boolean
+     */
+    public boolean exists(String versionDir) {
+        try {
+            return minioUtil.isExist(bucketName, versionDir + MANIFEST_NAME);
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "check version manifest {} error:{}", versionDir, e);
+            throw new BusinessException(ErrorEnum.DATASET_VERSION_ANNOTATION_COPY_EXCEPTION);
+        }
+    }
+
+    /**
+     * 流式读取版本清单
+     *
+     * @param versionDir 版本目录，以'/'结尾
+     * @param consumer   逻辑路径、对象名称
+     */
+    public void read(String versionDir, BiConsumer<String, String> consumer) {
+        try (InputStream is = minioUtil.getObjectInputStream(bucketName, versionDir + MANIFEST_NAME);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(is), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (!MANIFEST_HEADER.equals(line)) {
+                throw new IllegalStateException("unsupported manifest header: " + line);
+            }
+            while ((line = reader.readLine()) != null) {
+                int index = line.indexOf(SEPARATOR);
+                if (index > 0) {
+                    consumer.accept(line.substring(0, index), line.substring(index + 1));
+                }
+            }
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "read version manifest {} error:{}", versionDir, e);
+            throw new BusinessException(ErrorEnum.DATASET_VERSION_ANNOTATION_COPY_EXCEPTION);
+        }
+    }
+
+    /**
+     * 按需物化版本目录，仅对需要真实目录的使用方（ofRecord转换、训练挂载等）调用，已物化或非清单版本直接返回；
+     * 其他实例正在物化同一版本时等待其完成
+     *
+     * @param versionDir 版本目录，以'/'结尾
+     */
+    public void materialize(String versionDir) {
+        String dir = normalize(versionDir);
+        while (!isMaterialized(dir)) {
+            String requestId = UUID.randomUUID().toString();
+            if (redisUtils.getDistributedLock(MATERIALIZE_LOCK_KEY + dir, requestId, materializeLockSeconds)) {
+                try {
+                    doMaterialize(dir);
+                } finally {
+                    redisUtils.releaseDistributedLock(MATERIALIZE_LOCK_KEY + dir, requestId);
+                }
+                return;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(materializeWaitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ErrorEnum.DATASET_VERSION_ANNOTATION_COPY_EXCEPTION);
+            }
+        }
+    }
+
+    /**
+     * 异步物化版本目录，立即返回，调用方轮询直至返回true
+     *
+     * @param versionDir 版本目录，以'/'结尾
+     * @return boolean 是否已可直接使用（非清单版本或已物化）
+     */
+    public boolean materializeAsync(String versionDir) {
+        String dir = normalize(versionDir);
+        if (isMaterialized(dir)) {
+            return true;
+        }
+        if (redisUtils.get(MATERIALIZE_FAILED_KEY + dir) != null) {
+            redisUtils.del(MATERIALIZE_FAILED_KEY + dir);
+            throw new BusinessException(ErrorEnum.DATASET_VERSION_ANNOTATION_COPY_EXCEPTION);
+        }
+        String requestId = UUID.randomUUID().toString();
+        // 未取得锁说明本实例或其他实例正在物化
+        if (!redisUtils.getDistributedLock(MATERIALIZE_LOCK_KEY + dir, requestId, materializeLockSeconds)) {
+            return false;
+        }
+        try {
+            materializeExecutor.execute(() -> {
+                try {
+                    doMaterialize(dir);
+                } catch (Exception e) {
+                    redisUtils.set(MATERIALIZE_FAILED_KEY + dir, requestId, materializeFailureSeconds);
+                } finally {
+                    redisUtils.releaseDistributedLock(MATERIALIZE_LOCK_KEY + dir, requestId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            redisUtils.releaseDistributedLock(MATERIALIZE_LOCK_KEY + dir, requestId);
+            LogUtil.warn(LogEnum.BIZ_DATASET, "materialize queue is full, version {} will be retried", dir);
+        }
+        return false;
+    }
+
+    /**
+     * 物化版本目录，调用方需持有该版本的物化锁
+     *
+     * @param versionDir 版本目录，以'/'结尾
+     */
+    private void doMaterialize(String versionDir) {
+        try {
+            if (isMaterialized(versionDir)) {
+                return;
+            }
+            List<MinioCopyItemDTO> items = new ArrayList<>();
+            read(versionDir, (logicalPath, objectName) ->
+                    items.add(new MinioCopyItemDTO(bucketName, objectName, bucketName, versionDir + logicalPath)));
+            MinioTransferResultDTO result = minioTransferUtil.copy(items);
+            if (!result.isSuccess()) {
+                LogUtil.error(LogEnum.BIZ_DATASET, "materialize version {} failed, failed count: {}", versionDir, result.getFailedItems().size());
+                throw new BusinessException(ErrorEnum.DATASET_VERSION_ANNOTATION_COPY_EXCEPTION);
+            }
+            minioUtil.writeString(bucketName, versionDir + MATERIALIZED_FLAG, String.valueOf(System.currentTimeMillis()));
+            LogUtil.info(LogEnum.BIZ_DATASET, "version {} materialized, objects: {}", versionDir, items.size());
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "materialize version {} error:{}", versionDir, e);
+            throw new BusinessException(ErrorEnum.DATASET_VERSION_ANNOTATION_COPY_EXCEPTION);
+        }
+    }
+
+    /**
+     * 版本目录是否可直接使用
+     *
+     * @param versionDir 版本目录，以'/'结尾
+     * @return boolean 非清单版本或已物化返回true
+     */
+    private boolean isMaterialized(String versionDir) {
+        try {
+            return !exists(versionDir) || minioUtil.isExist(bucketName, versionDir + MATERIALIZED_FLAG);
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "check version {} materialized error:{}", versionDir, e);
+            throw new BusinessException(ErrorEnum.DATASET_VERSION_ANNOTATION_COPY_EXCEPTION);
+        }
+    }
+
+    private void deleteQuietly(String objectName) {
+        try {
+            minioUtil.del(bucketName, objectName);
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_DATASET, "delete {} error:{}", objectName, e);
+        }
+    }
+
+    private String normalize(String versionDir) {
+        return versionDir.endsWith(SymbolConstant.SLASH) ? versionDir : versionDir + SymbolConstant.SLASH;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        materializeExecutor.shutdownNow();
+        manifestWriteExecutor.shutdownNow();
+    }
+
+}
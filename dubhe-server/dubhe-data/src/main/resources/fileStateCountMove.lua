@@ -0,0 +1,13 @@
+local loadedField = cjson.decode(ARGV[1])
+if redis.call('HEXISTS', KEYS[1], loadedField) == 0
+then return 0
+end
+local count = tonumber(ARGV[4])
+local remain = redis.call('HINCRBY', KEYS[1], cjson.decode(ARGV[2]), -count)
+redis.call('HINCRBY', KEYS[1], cjson.decode(ARGV[3]), count)
+if remain < 0
+then
+    redis.call('HDEL', KEYS[1], loadedField)
+    return -1
+end
+return 1
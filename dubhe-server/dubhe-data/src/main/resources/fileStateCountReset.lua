@@ -0,0 +1,13 @@
+local prefix = cjson.decode(ARGV[1])
+local fields = redis.call('HKEYS', KEYS[1])
+for _, field in ipairs(fields) do
+    if string.sub(field, 1, string.len(prefix)) == prefix
+    then redis.call('HDEL', KEYS[1], field)
+    end
+end
+for i = 3, #ARGV, 2 do
+    redis.call('HSET', KEYS[1], prefix .. cjson.decode(ARGV[i]), tonumber(ARGV[i + 1]))
+end
+redis.call('HSET', KEYS[1], prefix .. 'loaded', 1)
+redis.call('EXPIRE', KEYS[1], tonumber(ARGV[2]))
+return 1
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.dubhek8s.domain.vo;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * @description Pod事件处理管道指标 VO
+ * @date 2026-10-17
+ */
+@Data
+@Accessors(chain = true)
+public class PodEventPipelineVO {
+    /**
+     * 工作线程数
+     */
+    private Integer workers;
+
+    /**
+     * 排队中的事件数
+     */
+    private Integer queueSize;
+
+    /**
+     * 队首事件已等待时长(毫秒)
+     */
+    private Long oldestWaitMillis;
+
+    /**
+     * 最近一个事件的排队时长(毫秒)
+     */
+    private Long lastLagMillis;
+
+    /**
+     * 最大排队时长(毫秒)
+     */
+    private Long maxLagMillis;
+
+    /**
+     * 接收事件数
+     */
+    private Long received;
+
+    /**
+     * 被合并的事件数
+     */
+    private Long coalesced;
+
+    /**
+     * 处理完成事件数
+     */
+    private Long processed;
+
+    /**
+     * 处理异常事件数
+     */
+    private Long failed;
+
+    /**
+     * 业务回调重试次数
+     */
+    private Long callbackRetries;
+
+    /**
+     * 重试后仍失败的业务回调数
+     */
+    private Long callbackFailures;
+}
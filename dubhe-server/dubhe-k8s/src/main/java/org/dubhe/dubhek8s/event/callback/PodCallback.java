@@ -38,13 +38,21 @@ import org.dubhe.k8s.service.K8sResourceService;
 import org.dubhe.k8s.utils.K8sCallBackTool;
 import org.dubhe.k8s.utils.K8sNameTool;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
 import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
@@ -67,8 +75,51 @@ public class PodCallback extends Observable {
     private K8sNameTool k8sNameTool;
 
 
+    /**
+     * 业务回调最大尝试次数
+     */
+    @Value("${k8s.pod-event.callback-max-attempts:3}")
+    private int callbackMaxAttempts;
+
+    /**
+     * 业务回调首次重试间隔(毫秒)，之后逐次翻倍
+     */
+    @Value("${k8s.pod-event.callback-backoff-millis:500}")
+    private long callbackBackoffMillis;
+
     private static final String POD_CONDITION_STATUS_FALSE = "False";
 
+    /**
+     * 观察者列表，事件由多个线程并发回调，不使用Observable的changed标记
+     */
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong callbackRetries = new AtomicLong();
+
+    private final AtomicLong callbackFailures = new AtomicLong();
+
+    @Override
+    public synchronized void addObserver(Observer observer) {
+        super.addObserver(observer);
+        if (!observers.contains(observer)) {
+            observers.add(observer);
+        }
+    }
+
+    @Override
+    public synchronized void deleteObserver(Observer observer) {
+        super.deleteObserver(observer);
+        observers.remove(observer);
+    }
+
+    public long getCallbackRetries() {
+        return callbackRetries.get();
+    }
+
+    public long getCallbackFailures() {
+        return callbackFailures.get();
+    }
+
     /**
      * pod事件回调
      * Action 为 DELETED 则 pod的phase视为 DELETED
@@ -91,8 +142,9 @@ public class PodCallback extends Observable {
             LogUtil.info(LogEnum.BIZ_K8S,"watch pod {} action:{} phase:{}",pod.getName(),watcherActionEnum.getAction(),pod.getPhase());
             cachePod(watcherActionEnum,pod);
             String waitingReason = dealWithWaiting(watcherActionEnum, pod);
-            setChanged();
-            notifyObservers(pod);
+            for (Observer observer : observers) {
+                observer.update(this, pod);
+            }
             if (StringUtils.isNotEmpty(businessLabel) && needCallback(watcherActionEnum,pod)){
                 dealWithDeleted(watcherActionEnum,pod);
                 BaseK8sPodCallbackCreateDTO baseK8sPodCallbackCreateDTO = new BaseK8sPodCallbackCreateDTO(pod.getNamespace(), pod.getLabel(K8sLabelConstants.BASE_TAG_SOURCE),pod.getName(), pod.getLabel(K8sLabelConstants.BASE_TAG_P_KIND), pod.getLabel(K8sLabelConstants.BASE_TAG_P_NAME), pod.getPhase(), waitingReason);
@@ -104,17 +156,44 @@ public class PodCallback extends Observable {
                 headers.setContentType(MediaType.APPLICATION_JSON);
                 headers.add(K8sCallBackTool.K8S_CALLBACK_TOKEN, token);
                 HttpEntity<String> entity = new HttpEntity<>(JSON.toJSONString(baseK8sPodCallbackCreateDTO), headers);
-                ResponseEntity<DataResponseBody> responseEntity = restTemplate.postForEntity(url,entity,DataResponseBody.class);
+                postWithRetry(url, entity, watcherActionEnum, pod);
+            }
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_K8S, "pod {} callback {} error {}",pod,watcherActionEnum.getAction(), e);
+        }
+    }
 
+    /**
+     * 回调业务服务，连接异常及5xx按指数退避重试
+     * 重试期间同一工作线程上的后续事件等待，以保证同一Pod的回调顺序
+     *
+     * @param url 回调地址
+     * @param entity 请求体
+     * @param watcherActionEnum 监控枚举类
+     * @param pod Pod对象
+     * @throws InterruptedException 退避等待被中断
+     */
+    private void postWithRetry(String url, HttpEntity<String> entity, WatcherActionEnum watcherActionEnum, BizPod pod) throws InterruptedException {
+        long backoff = callbackBackoffMillis;
+        for (int attempt = MagicNumConstant.ONE; ; attempt++) {
+            try {
+                ResponseEntity<DataResponseBody> responseEntity = restTemplate.postForEntity(url,entity,DataResponseBody.class);
                 if (HttpStatus.HTTP_OK == responseEntity.getStatusCodeValue()){
                     DataResponseBody dataResponseBody = responseEntity.getBody();
                     LogUtil.info(LogEnum.BIZ_K8S, "{} pod {} {} code {} msg：{} ", url, pod.getName(), watcherActionEnum.getAction(), dataResponseBody.getCode(),dataResponseBody.getMsg());
-                }else {
-                    LogUtil.error(LogEnum.BIZ_K8S, "{} pod {} {} callback status：{} ", url, pod.getName(), watcherActionEnum.getAction(),responseEntity.getStatusCodeValue());
+                    return;
                 }
+                LogUtil.error(LogEnum.BIZ_K8S, "{} pod {} {} callback status：{} attempt {}", url, pod.getName(), watcherActionEnum.getAction(),responseEntity.getStatusCodeValue(), attempt);
+            } catch (ResourceAccessException | HttpServerErrorException e) {
+                LogUtil.error(LogEnum.BIZ_K8S, "{} pod {} {} callback attempt {} error {}", url, pod.getName(), watcherActionEnum.getAction(), attempt, e.getMessage());
             }
-        } catch (Exception e) {
-            LogUtil.error(LogEnum.BIZ_K8S, "pod {} callback {} error {}",pod,watcherActionEnum.getAction(), e);
+            if (attempt >= callbackMaxAttempts) {
+                callbackFailures.incrementAndGet();
+                return;
+            }
+            callbackRetries.incrementAndGet();
+            Thread.sleep(backoff);
+            backoff *= MagicNumConstant.TWO;
         }
     }
 
@@ -0,0 +1,261 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.dubhek8s.event.pipeline;
+
+import org.dubhe.biz.base.utils.StringUtils;
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.utils.LogUtil;
+import org.dubhe.dubhek8s.domain.vo.PodEventPipelineVO;
+import org.dubhe.dubhek8s.event.callback.PodCallback;
+import org.dubhe.k8s.domain.resource.BizPod;
+import org.dubhe.k8s.enums.WatcherActionEnum;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @description Pod事件异步处理管道
+ * watch线程只负责入队，事件按 namespace/podName 哈希到固定数量的工作线程，同一Pod的事件严格按接收顺序处理；
+ * 同一Pod尚未开始处理的MODIFIED事件在phase不变时被后到事件覆盖，队列满时阻塞watch线程形成背压
+ * @date 2026-10-17
+ */
+@Component
+public class PodEventPipeline {
+
+    @Autowired
+    private PodCallback podCallback;
+
+    /**
+     * 工作线程数
+     */
+    @Value("${k8s.pod-event.workers:8}")
+    private int workers;
+
+    /**
+     * 单个工作线程的队列容量
+     */
+    @Value("${k8s.pod-event.queue-capacity:2000}")
+    private int queueCapacity;
+
+    /**
+     * 事件排队时间超过该值时输出告警日志(毫秒)
+     */
+    @Value("${k8s.pod-event.lag-warn-millis:10000}")
+    private long lagWarnMillis;
+
+    private Lane[] lanes;
+
+    private final AtomicLong received = new AtomicLong();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private final AtomicLong processed = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    private volatile long lastLagMillis;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        running = true;
+        lanes = new Lane[workers];
+        for (int i = 0; i < workers; i++) {
+            Lane lane = new Lane(queueCapacity);
+            lanes[i] = lane;
+            Thread thread = new Thread(() -> work(lane), "pod-event-worker-" + i);
+            thread.setDaemon(true);
+            lane.thread = thread;
+            thread.start();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        for (Lane lane : lanes) {
+            lane.thread.interrupt();
+        }
+    }
+
+    /**
+     * 提交Pod事件
+     *
+     * @param watcherActionEnum 监控枚举类
+     * @param pod Pod对象
+     */
+    public void submit(WatcherActionEnum watcherActionEnum, BizPod pod) {
+        if (pod == null) {
+            return;
+        }
+        received.incrementAndGet();
+        String key = pod.getNamespace() + "/" + pod.getName();
+        Lane lane = lanes[(key.hashCode() & Integer.MAX_VALUE) % lanes.length];
+        synchronized (lane) {
+            PodEvent pending = lane.pending.get(key);
+            if (pending != null && pending.coalesce(watcherActionEnum, pod)) {
+                coalesced.incrementAndGet();
+                return;
+            }
+            PodEvent event = new PodEvent(key, watcherActionEnum, pod);
+            lane.pending.put(key, event);
+            if (!lane.queue.offer(event)) {
+                LogUtil.warn(LogEnum.BIZ_K8S, "pod event queue of {} is full, watch thread blocked, pod {}", lane.thread.getName(), key);
+                try {
+                    lane.queue.put(event);
+                } catch (InterruptedException e) {
+                    lane.pending.remove(key, event);
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * 查询管道运行指标
+     *
+     * @return PodEventPipelineVO 管道指标
+     */
+    public PodEventPipelineVO getMetrics() {
+        long now = System.currentTimeMillis();
+        int queueSize = 0;
+        long oldestWaitMillis = 0;
+        for (Lane lane : lanes) {
+            queueSize += lane.queue.size();
+            PodEvent head = lane.queue.peek();
+            if (head != null) {
+                oldestWaitMillis = Math.max(oldestWaitMillis, now - head.enqueueTime);
+            }
+        }
+        return new PodEventPipelineVO()
+                .setWorkers(workers)
+                .setQueueSize(queueSize)
+                .setOldestWaitMillis(oldestWaitMillis)
+                .setLastLagMillis(lastLagMillis)
+                .setMaxLagMillis(maxLagMillis.get())
+                .setReceived(received.get())
+                .setCoalesced(coalesced.get())
+                .setProcessed(processed.get())
+                .setFailed(failed.get())
+                .setCallbackRetries(podCallback.getCallbackRetries())
+                .setCallbackFailures(podCallback.getCallbackFailures());
+    }
+
+    /**
+     * 工作线程：依次处理本队列中的事件
+     *
+     * @param lane 队列
+     */
+    private void work(Lane lane) {
+        while (running) {
+            PodEvent event;
+            try {
+                event = lane.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            WatcherActionEnum watcherActionEnum;
+            BizPod pod;
+            synchronized (lane) {
+                lane.pending.remove(event.key, event);
+                watcherActionEnum = event.watcherActionEnum;
+                pod = event.pod;
+            }
+            long lag = System.currentTimeMillis() - event.enqueueTime;
+            lastLagMillis = lag;
+            maxLagMillis.accumulateAndGet(lag, Math::max);
+            if (lag > lagWarnMillis) {
+                LogUtil.warn(LogEnum.BIZ_K8S, "pod event {} {} lagged {}ms, queue size {}", event.key, watcherActionEnum, lag, lane.queue.size());
+            }
+            try {
+                podCallback.podCallback(watcherActionEnum, pod);
+                processed.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                LogUtil.error(LogEnum.BIZ_K8S, "pod event {} {} process error {}", event.key, watcherActionEnum, e);
+            }
+        }
+    }
+
+    /**
+     * 工作线程队列
+     */
+    private static class Lane {
+
+        private final BlockingQueue<PodEvent> queue;
+
+        /**
+         * podKey -> 尚未开始处理的最新事件，仅在持有Lane锁时访问
+         */
+        private final Map<String, PodEvent> pending = new HashMap<>();
+
+        private Thread thread;
+
+        Lane(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    /**
+     * 排队中的Pod事件，字段仅在持有Lane锁时修改
+     */
+    private static class PodEvent {
+
+        private final String key;
+
+        private final long enqueueTime = System.currentTimeMillis();
+
+        private WatcherActionEnum watcherActionEnum;
+
+        private BizPod pod;
+
+        PodEvent(String key, WatcherActionEnum watcherActionEnum, BizPod pod) {
+            this.key = key;
+            this.watcherActionEnum = watcherActionEnum;
+            this.pod = pod;
+        }
+
+        /**
+         * 以后到事件覆盖本事件，仅合并phase不变的MODIFIED事件，ADDED/DELETED及phase变化均需回调
+         *
+         * @param newAction 后到事件动作
+         * @param newPod 后到事件Pod
+         * @return boolean 是否已合并
+         */
+        boolean coalesce(WatcherActionEnum newAction, BizPod newPod) {
+            if (WatcherActionEnum.MODIFIED != watcherActionEnum || WatcherActionEnum.MODIFIED != newAction
+                    || !StringUtils.equals(pod.getPhase(), newPod.getPhase())) {
+                return false;
+            }
+            this.pod = newPod;
+            return true;
+        }
+    }
+}
@@ -19,13 +19,13 @@ package org.dubhe.dubhek8s.event.watcher;
 
 import com.alibaba.fastjson.JSON;
 import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodList;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.Watcher;
-import org.dubhe.biz.base.utils.SpringContextHolder;
 import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
-import org.dubhe.dubhek8s.event.callback.PodCallback;
+import org.dubhe.dubhek8s.event.pipeline.PodEventPipeline;
 import org.dubhe.k8s.domain.resource.BizPod;
 import org.dubhe.k8s.enums.WatcherActionEnum;
 import org.dubhe.k8s.utils.BizConvertUtils;
@@ -34,6 +34,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.net.HttpURLConnection;
+
 /**
  * @description Pod事件监听类
  * @date 2020-06-02
@@ -44,6 +46,14 @@ public class PodWatcher implements CommandLineRunner, Watcher<Pod> {
     @Autowired
     private K8sUtils k8sUtils;
 
+    @Autowired
+    private PodEventPipeline podEventPipeline;
+
+    /**
+     * 最近一次收到事件的resourceVersion，断线后从此处续接
+     */
+    private volatile String lastResourceVersion;
+
     /**
      * 重写SpringBoot事件监听类run方法
      *
@@ -67,13 +77,16 @@ public class PodWatcher implements CommandLineRunner, Watcher<Pod> {
     }
 
     /**
-     * 事件监听回调
+     * 事件监听回调，仅转换并投递到事件管道，不在watch线程上执行回调
      *
      * @param action pod动作，参考PodPhaseEnum
      * @param pod pod对象
      */
     @Override
     public void eventReceived(Action action, Pod pod) {
+        if (pod.getMetadata() != null && pod.getMetadata().getResourceVersion() != null) {
+            lastResourceVersion = pod.getMetadata().getResourceVersion();
+        }
         /**将监听到的Pod转换为BizPod**/
         BizPod bizPod = BizConvertUtils.toBizPod(pod);
 
@@ -82,21 +95,71 @@ public class PodWatcher implements CommandLineRunner, Watcher<Pod> {
 
         LogUtil.info(LogEnum.BIZ_K8S, "received event pod {} action {}",pod.getMetadata().getName(),JSON.toJSONString(action));
 
-        /**回调podCallback方法**/
-        PodCallback podCallback = SpringContextHolder.getBean(PodCallback.class);
-        podCallback.podCallback(watcherActionEnum, bizPod);
+        podEventPipeline.submit(watcherActionEnum, bizPod);
     }
 
     /**
      * 重写onClose()保证网络连接意外断开能够重连
+     * 从最近一次的resourceVersion续接；resourceVersion已过期(410 Gone)时重新list，
+     * 补发resourceVersion更新的Pod后从list的resourceVersion继续watch
      *
      * @param cause KubernetesClientException异常对象
      * @return void
      */
     @Override
     public void onClose(KubernetesClientException cause) {
-        LogUtil.warn(LogEnum.BIZ_K8S," onClose=>cause : {}", cause.getMessage());
-        k8sUtils.getClient().pods().inAnyNamespace().watch(this);
+        LogUtil.warn(LogEnum.BIZ_K8S," onClose=>cause : {}, last resourceVersion {}", cause == null ? null : cause.getMessage(), lastResourceVersion);
+        KubernetesClient client = k8sUtils.getClient();
+        if (lastResourceVersion == null) {
+            client.pods().inAnyNamespace().watch(this);
+            return;
+        }
+        if (cause == null || cause.getCode() != HttpURLConnection.HTTP_GONE) {
+            try {
+                client.pods().inAnyNamespace().watch(lastResourceVersion, this);
+                return;
+            } catch (KubernetesClientException e) {
+                if (e.getCode() != HttpURLConnection.HTTP_GONE) {
+                    throw e;
+                }
+            }
+        }
+        relistAndWatch(client);
+    }
+
+    /**
+     * 重新list全部Pod，补发错过的变化后继续watch
+     * 期间被删除的Pod无法补发DELETED事件
+     *
+     * @param client KubernetesClient
+     */
+    private void relistAndWatch(KubernetesClient client) {
+        PodList podList = client.pods().inAnyNamespace().list();
+        int resent = 0;
+        for (Pod pod : podList.getItems()) {
+            if (isNewer(pod.getMetadata().getResourceVersion(), lastResourceVersion)) {
+                podEventPipeline.submit(WatcherActionEnum.MODIFIED, BizConvertUtils.toBizPod(pod));
+                resent++;
+            }
+        }
+        LogUtil.warn(LogEnum.BIZ_K8S, "resourceVersion {} expired, relisted {} pods and resent {}", lastResourceVersion, podList.getItems().size(), resent);
+        lastResourceVersion = podList.getMetadata().getResourceVersion();
+        client.pods().inAnyNamespace().watch(lastResourceVersion, this);
+    }
+
+    /**
+     * resourceVersion应视为不透明值，无法按数值比较时一律视为更新
+     *
+     * @param resourceVersion 待比较的resourceVersion
+     * @param baseline 基准resourceVersion
+     * @return boolean 是否更新
+     */
+    private static boolean isNewer(String resourceVersion, String baseline) {
+        try {
+            return Long.parseLong(resourceVersion) > Long.parseLong(baseline);
+        } catch (NumberFormatException e) {
+            return true;
+        }
     }
 
 }
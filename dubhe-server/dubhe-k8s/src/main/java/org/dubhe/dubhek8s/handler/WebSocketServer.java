@@ -23,6 +23,7 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import org.dubhe.biz.base.constant.AuthConst;
+import org.dubhe.biz.base.constant.MagicNumConstant;
 import org.dubhe.biz.base.constant.ResponseCode;
 import org.dubhe.biz.base.utils.StringUtils;
 import org.dubhe.biz.base.vo.WebsocketDataResponseBody;
@@ -33,8 +34,11 @@ import org.dubhe.dubhek8s.service.SystemNamespaceService;
 import org.dubhe.k8s.enums.WebsocketTopicEnum;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
 import javax.websocket.OnClose;
 import javax.websocket.OnError;
 import javax.websocket.OnMessage;
@@ -43,21 +47,47 @@ import javax.websocket.Session;
 import javax.websocket.server.ServerEndpoint;
 import java.io.IOException;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @description WebSocket 服务处理类
+ * 资源监控推送按用户合并：同一用户在推送间隔内的多次变更只计算并推送一次，
+ * 计算结果由该用户的所有连接共享，与上次推送内容相同时不再推送；各连接异步发送，只保留最新一条待发消息
  * @date 2021-7-19
  */
 @ServerEndpoint("/ws")
 @Component
 public class WebSocketServer {
 
-    // ConcurrentHashMap 用于保存 session 信息
-    private static final ConcurrentMap<Long, WebSocketServer> USER_CLIENT_MAP = new ConcurrentHashMap<>();
+    // ConcurrentHashMap 用于保存 session 信息，同一用户可有多个连接
+    private static final ConcurrentMap<Long, Set<WebSocketServer>> USER_CLIENT_MAP = new ConcurrentHashMap<>();
+    // 等待推送的用户
+    private static final Set<Long> DIRTY_USERS = ConcurrentHashMap.newKeySet();
+    // 用户最近一次推送的资源监控消息
+    private static final ConcurrentMap<Long, String> LAST_PUSHED_MAP = new ConcurrentHashMap<>();
+    // 资源监控计算及推送线程
+    private static final ScheduledExecutorService PUSH_EXECUTOR = Executors.newScheduledThreadPool(MagicNumConstant.FOUR, runnable -> {
+        Thread thread = new Thread(runnable, "websocket-push");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 同一用户两次推送的最小间隔(毫秒)
+    private static long pushIntervalMillis = MagicNumConstant.FIVE_HUNDRED;
+
     private Session session;
     private Long userId;
+    // 是否有异步发送进行中
+    private final AtomicBoolean sending = new AtomicBoolean();
+    // 待发送的最新消息
+    private final AtomicReference<String> nextMessage = new AtomicReference<>();
 
     // 需要注入的 bean 声明为静态变量，保证每一个用户连接创建的 websocket 对象都能使用
     private static SystemNamespaceService systemNamespaceService;
@@ -73,6 +103,11 @@ public class WebSocketServer {
         WebSocketServer.userDetailsService = userDetailsService;
     }
 
+    @Value("${k8s.websocket.push-interval-millis:500}")
+    public void setPushIntervalMillis(long pushIntervalMillis){
+        WebSocketServer.pushIntervalMillis = pushIntervalMillis;
+    }
+
 
     /**
      * 连接成功调用的方法
@@ -90,7 +125,7 @@ public class WebSocketServer {
             return;
         }
         // 这里用 用户ID，不用 sessionId 是因为发送消息时需要通过用户Id查询消息内容
-        USER_CLIENT_MAP.put(userId, this);
+        USER_CLIENT_MAP.computeIfAbsent(userId, key -> new CopyOnWriteArraySet<>()).add(this);
     }
 
     /**
@@ -105,7 +140,8 @@ public class WebSocketServer {
         // 验证 session 是否合法
         Long userId = verify(session);
         // 如果不合法，或者 USER_CLIENT_MAP 不包含这个 session，则关闭
-        if (userId == null || !USER_CLIENT_MAP.containsKey(userId)){
+        Set<WebSocketServer> clients = userId == null ? null : USER_CLIENT_MAP.get(userId);
+        if (clients == null || !clients.contains(this)){
             this.close();
             return;
         }
@@ -149,17 +185,45 @@ public class WebSocketServer {
      * 给所有 session 发消息的方法
      */
     public void sendToAll() {
-        USER_CLIENT_MAP.keySet().parallelStream().forEach(userId -> USER_CLIENT_MAP.get(userId)
-                .sendMessage(JSON.toJSONString(new WebsocketDataResponseBody(WebsocketTopicEnum.RESOURCE_MONITOR.getTopic(),
-                        systemNamespaceService.findNamespace(userId)))));
+        USER_CLIENT_MAP.keySet().forEach(this::sendToClient);
     }
 
+    /**
+     * 标记用户资源监控信息已变化，推送间隔后合并推送
+     *
+     * @param userId 用户ID
+     */
     public void sendToClient(Long userId) {
-        if (USER_CLIENT_MAP.get(userId) != null){
-            USER_CLIENT_MAP.get(userId).sendMessage(JSON.toJSONString(new WebsocketDataResponseBody(WebsocketTopicEnum.RESOURCE_MONITOR.getTopic(),
-                    systemNamespaceService.findNamespace(userId))));
+        if (!USER_CLIENT_MAP.containsKey(userId)){
+            return;
+        }
+        if (DIRTY_USERS.add(userId)){
+            PUSH_EXECUTOR.schedule(() -> push(userId), pushIntervalMillis, TimeUnit.MILLISECONDS);
         }
+    }
 
+    /**
+     * 计算用户资源监控信息并推送到该用户的所有连接，内容未变化时不推送
+     *
+     * @param userId 用户ID
+     */
+    private static void push(Long userId) {
+        DIRTY_USERS.remove(userId);
+        Set<WebSocketServer> clients = USER_CLIENT_MAP.get(userId);
+        if (CollectionUtils.isEmpty(clients)){
+            LAST_PUSHED_MAP.remove(userId);
+            return;
+        }
+        try {
+            String message = JSON.toJSONString(new WebsocketDataResponseBody(WebsocketTopicEnum.RESOURCE_MONITOR.getTopic(),
+                    systemNamespaceService.findNamespace(userId)));
+            if (message.equals(LAST_PUSHED_MAP.put(userId, message))){
+                return;
+            }
+            clients.forEach(client -> client.sendMessage(message));
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_K8S, "WebSocketServer push error, userId:{}, error:{}", userId, e);
+        }
     }
 
     /**
@@ -170,14 +234,42 @@ public class WebSocketServer {
     }
 
     /**
-     * 推送消息
+     * 推送消息，异步发送不阻塞调用线程；上一条尚未发送完成时只保留最新一条
      *
      * @param message 消息内容
      */
     private void sendMessage(String message) {
+        nextMessage.set(message);
+        drain();
+    }
+
+    /**
+     * 发送待发消息，同一连接同时只有一个异步发送
+     */
+    private void drain() {
+        if (!sending.compareAndSet(false, true)){
+            return;
+        }
+        String message = nextMessage.getAndSet(null);
+        if (message == null || session == null || !session.isOpen()){
+            sending.set(false);
+            if (message == null && nextMessage.get() != null){
+                drain();
+            }
+            return;
+        }
         try {
-            session.getBasicRemote().sendText(message);
+            session.getAsyncRemote().sendText(message, result -> {
+                if (!result.isOK()){
+                    LogUtil.error(LogEnum.BIZ_K8S, "WebSocketServer sendMessage error, session:{}, error:{}", this, result.getException());
+                }
+                sending.set(false);
+                if (nextMessage.get() != null){
+                    drain();
+                }
+            });
         } catch (Exception e) {
+            sending.set(false);
             LogUtil.error(LogEnum.BIZ_K8S, "WebSocketServer sendMessage error, message:{}, session:{}, error:{}",message, this, e);
         }
     }
@@ -188,7 +280,10 @@ public class WebSocketServer {
     private void close() {
         // 从 map 中删除 session
         if (userId != null){
-            USER_CLIENT_MAP.remove(userId);
+            USER_CLIENT_MAP.computeIfPresent(userId, (key, clients) -> {
+                clients.remove(this);
+                return clients.isEmpty() ? null : clients;
+            });
         }
         if (session == null) {
             LogUtil.debug(LogEnum.BIZ_K8S, "Websocket connection had been closed, session:{}", this);
@@ -23,6 +23,7 @@ import org.dubhe.biz.base.utils.SpringContextHolder;
 import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
 import org.dubhe.dubhek8s.event.callback.PodCallback;
+import org.dubhe.dubhek8s.task.DelayActionScheduler;
 import org.dubhe.k8s.api.DistributeTrainApi;
 import org.dubhe.k8s.api.TrainJobApi;
 import org.dubhe.k8s.constant.K8sLabelConstants;
@@ -31,6 +32,7 @@ import org.dubhe.k8s.enums.PodPhaseEnum;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import java.util.Observable;
 import java.util.Observer;
 
@@ -40,6 +42,14 @@ import java.util.Observer;
  */
 @Component
 public class BatchservingObserver implements Observer {
+    /**
+     * 延时删除动作类型
+     */
+    private static final String DELAY_DELETE = "batch-serving-delete";
+
+    @Autowired
+    private DelayActionScheduler delayActionScheduler;
+
     @Autowired
     private DistributeTrainApi distributeTrainApi;
 
@@ -50,6 +60,17 @@ public class BatchservingObserver implements Observer {
         podCallback.addObserver(this);
     }
 
+    /**
+     * 注册延时删除动作
+     */
+    @PostConstruct
+    public void registerDelayAction() {
+        delayActionScheduler.register(DELAY_DELETE, (namespace, resourceName) -> {
+            distributeTrainApi.deleteByResourceName(namespace,resourceName);
+            trainJobApi.delete(namespace,resourceName);
+        });
+    }
+
     /**
      * Observer update
      * @param observable observable
@@ -61,19 +82,8 @@ public class BatchservingObserver implements Observer {
             BizPod pod = (BizPod)arg;
             boolean batchServingSucceedOrFailed = (PodPhaseEnum.FAILED.getPhase().equals(pod.getPhase()) || PodPhaseEnum.SUCCEEDED.getPhase().equals(pod.getPhase())) && BizEnum.BATCH_SERVING.getBizCode().equals(pod.getBusinessLabel()) && SpringContextHolder.getActiveProfile().equals(pod.getLabel(K8sLabelConstants.PLATFORM_RUNTIME_ENV));
             if (batchServingSucceedOrFailed){
-                new Thread(new Runnable(){
-                    @Override
-                    public void run(){
-                        try {
-                            Thread.sleep(MagicNumConstant.ONE_MINUTE);
-                        } catch (InterruptedException e) {
-                            LogUtil.error(LogEnum.BIZ_K8S,"BatchservingObserver update error {}",e.getMessage(),e);
-                        }
-                        LogUtil.warn(LogEnum.BIZ_K8S,"delete succeed or failed batchserving resourceName {};phase {};podName {}",pod.getLabel(K8sLabelConstants.BASE_TAG_SOURCE),pod.getPhase(),pod.getName());
-                        distributeTrainApi.deleteByResourceName(pod.getNamespace(),pod.getLabel(K8sLabelConstants.BASE_TAG_SOURCE));
-                        trainJobApi.delete(pod.getNamespace(),pod.getLabel(K8sLabelConstants.BASE_TAG_SOURCE));
-                    }
-                }).start();
+                LogUtil.warn(LogEnum.BIZ_K8S,"delete succeed or failed batchserving resourceName {};phase {};podName {} after {}ms",pod.getLabel(K8sLabelConstants.BASE_TAG_SOURCE),pod.getPhase(),pod.getName(),MagicNumConstant.ONE_MINUTE);
+                delayActionScheduler.schedule(DELAY_DELETE, pod.getNamespace(), pod.getLabel(K8sLabelConstants.BASE_TAG_SOURCE), MagicNumConstant.ONE_MINUTE);
             }
         }
     }
@@ -23,6 +23,7 @@ import org.dubhe.biz.base.utils.SpringContextHolder;
 import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
 import org.dubhe.dubhek8s.event.callback.PodCallback;
+import org.dubhe.dubhek8s.task.DelayActionScheduler;
 import org.dubhe.k8s.api.ModelServingApi;
 import org.dubhe.k8s.constant.K8sLabelConstants;
 import org.dubhe.k8s.domain.resource.BizPod;
@@ -30,6 +31,7 @@ import org.dubhe.k8s.enums.PodPhaseEnum;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import java.util.Observable;
 import java.util.Observer;
 
@@ -39,6 +41,14 @@ import java.util.Observer;
  */
 @Component
 public class ServingObserver implements Observer {
+    /**
+     * 延时删除动作类型
+     */
+    private static final String DELAY_DELETE = "serving-delete";
+
+    @Autowired
+    private DelayActionScheduler delayActionScheduler;
+
     @Autowired
     private ModelServingApi modelServingApi;
 
@@ -46,6 +56,14 @@ public class ServingObserver implements Observer {
         podCallback.addObserver(this);
     }
 
+    /**
+     * 注册延时删除动作
+     */
+    @PostConstruct
+    public void registerDelayAction() {
+        delayActionScheduler.register(DELAY_DELETE, (namespace, resourceName) -> modelServingApi.delete(namespace,resourceName));
+    }
+
     /**
      * Observer update
      * @param observable observable
@@ -57,18 +75,8 @@ public class ServingObserver implements Observer {
             BizPod pod = (BizPod)arg;
             boolean servingFailed = PodPhaseEnum.FAILED.getPhase().equals(pod.getPhase()) && BizEnum.SERVING.getBizCode().equals(pod.getBusinessLabel()) && SpringContextHolder.getActiveProfile().equals(pod.getLabel(K8sLabelConstants.PLATFORM_RUNTIME_ENV));
             if (servingFailed){
-                new Thread(new Runnable(){
-                    @Override
-                    public void run(){
-                        try {
-                            Thread.sleep(MagicNumConstant.ONE_MINUTE);
-                        } catch (InterruptedException e) {
-                            LogUtil.error(LogEnum.BIZ_K8S,"ServingObserver update error {}",e.getMessage(),e);
-                        }
-                        LogUtil.warn(LogEnum.BIZ_K8S,"delete failde serving resourceName {};phase {};podName {}",pod.getLabel(K8sLabelConstants.BASE_TAG_SOURCE),pod.getPhase(),pod.getName());
-                        modelServingApi.delete(pod.getNamespace(),pod.getLabel(K8sLabelConstants.BASE_TAG_SOURCE));
-                    }
-                }).start();
+                LogUtil.warn(LogEnum.BIZ_K8S,"delete failde serving resourceName {};phase {};podName {} after {}ms",pod.getLabel(K8sLabelConstants.BASE_TAG_SOURCE),pod.getPhase(),pod.getName(),MagicNumConstant.ONE_MINUTE);
+                delayActionScheduler.schedule(DELAY_DELETE, pod.getNamespace(), pod.getLabel(K8sLabelConstants.BASE_TAG_SOURCE), MagicNumConstant.ONE_MINUTE);
             }
         }
     }
@@ -22,6 +22,7 @@ import org.dubhe.biz.base.utils.SpringContextHolder;
 import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
 import org.dubhe.dubhek8s.event.callback.PodCallback;
+import org.dubhe.dubhek8s.task.DelayActionScheduler;
 import org.dubhe.k8s.api.TrainJobApi;
 import org.dubhe.k8s.constant.K8sLabelConstants;
 import org.dubhe.k8s.domain.resource.BizPod;
@@ -29,6 +30,7 @@ import org.dubhe.k8s.enums.PodPhaseEnum;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import java.util.Observable;
 import java.util.Observer;
 
@@ -38,6 +40,13 @@ import java.util.Observer;
  */
 @Component
 public class TadlTrialObserver implements Observer {
+    /**
+     * 延时删除动作类型
+     */
+    private static final String DELAY_DELETE = "tadl-trial-delete";
+
+    @Autowired
+    private DelayActionScheduler delayActionScheduler;
 
     @Autowired
     private TrainJobApi trainJobApi;
@@ -46,24 +55,22 @@ public class TadlTrialObserver implements Observer {
         podCallback.addObserver(this);
     }
 
+    /**
+     * 注册延时删除动作
+     */
+    @PostConstruct
+    public void registerDelayAction() {
+        delayActionScheduler.register(DELAY_DELETE, (namespace, resourceName) -> trainJobApi.delete(namespace,resourceName));
+    }
+
     @Override
     public void update(Observable o, Object arg) {
         if (arg instanceof BizPod){
             BizPod pod = (BizPod)arg;
             boolean trialSucceedOrFailed = (PodPhaseEnum.FAILED.getPhase().equals(pod.getPhase()) || PodPhaseEnum.SUCCEEDED.getPhase().equals(pod.getPhase())) && BizEnum.TADL.getBizCode().equals(pod.getBusinessLabel()) && SpringContextHolder.getActiveProfile().equals(pod.getLabel(K8sLabelConstants.PLATFORM_RUNTIME_ENV));
             if (trialSucceedOrFailed){
-                new Thread(new Runnable(){
-                    @Override
-                    public void run(){
-                        try {
-                            Thread.sleep(MagicNumConstant.ONE_MINUTE);
-                        } catch (InterruptedException e) {
-                            LogUtil.error(LogEnum.BIZ_K8S,"TadlTrialObserver update error {}",e.getMessage(),e);
-                        }
-                        LogUtil.warn(LogEnum.BIZ_K8S,"delete succeed or failed trial resourceName {};phase {};podName {}",pod.getLabel(K8sLabelConstants.BASE_TAG_SOURCE),pod.getPhase(),pod.getName());
-                        trainJobApi.delete(pod.getNamespace(),pod.getLabel(K8sLabelConstants.BASE_TAG_SOURCE));
-                    }
-                }).start();
+                LogUtil.warn(LogEnum.BIZ_K8S,"delete succeed or failed trial resourceName {};phase {};podName {} after {}ms",pod.getLabel(K8sLabelConstants.BASE_TAG_SOURCE),pod.getPhase(),pod.getName(),MagicNumConstant.ONE_MINUTE);
+                delayActionScheduler.schedule(DELAY_DELETE, pod.getNamespace(), pod.getLabel(K8sLabelConstants.BASE_TAG_SOURCE), MagicNumConstant.ONE_MINUTE);
             }
         }
     }
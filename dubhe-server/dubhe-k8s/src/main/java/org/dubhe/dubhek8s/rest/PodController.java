@@ -21,6 +21,7 @@ import io.swagger.annotations.ApiOperation;
 import org.dubhe.biz.base.utils.StringUtils;
 import org.dubhe.biz.base.vo.DataResponseBody;
 import org.dubhe.biz.dataresponse.factory.DataResponseFactory;
+import org.dubhe.dubhek8s.event.pipeline.PodEventPipeline;
 import org.dubhe.k8s.api.MetricsApi;
 import org.dubhe.k8s.domain.dto.PodLogDownloadQueryDTO;
 import org.dubhe.k8s.domain.dto.PodLogQueryDTO;
@@ -48,6 +49,9 @@ public class PodController {
     @Autowired
     private MetricsApi metricsApi;
 
+    @Autowired
+    private PodEventPipeline podEventPipeline;
+
     @GetMapping
     @ApiOperation("获取pod节点")
     public DataResponseBody getPods(@Validated PodQueryDTO podQueryDTO) {
@@ -102,4 +106,10 @@ public class PodController {
         }
         return DataResponseFactory.failed("缺少resourceName、podName参数");
     }
+
+    @GetMapping("/eventPipeline")
+    @ApiOperation("pod事件处理管道指标")
+    public DataResponseBody getEventPipelineMetrics() {
+        return DataResponseFactory.success(podEventPipeline.getMetrics());
+    }
 }
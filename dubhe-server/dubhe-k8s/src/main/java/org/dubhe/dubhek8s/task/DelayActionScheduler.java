@@ -0,0 +1,390 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.dubhek8s.task;
+
+import org.dubhe.biz.base.constant.MagicNumConstant;
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.utils.LogUtil;
+import org.dubhe.biz.redis.utils.RedisUtils;
+import org.dubhe.k8s.constant.RedisConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * @description 延时动作调度器
+ * 以内存哈希时间轮调度"X秒后对某资源执行某动作"，替代各观察者为每个事件单独创建并休眠的线程；
+ * 动作同时写入 RedisConstants.DELAY_ACTION_ZSET_KEY，重启后恢复，多实例到期时以ZREM抢占保证只执行一次；
+ * 同一动作类型+资源在执行前只保留一个，动作在有界线程池中执行；
+ * 由其他服务写入的延时队列(如K8sTask的延时创建/停止队列)按周期同步到时间轮，到期时以ZREM抢占原队列成员
+ * @date 2026-10-17
+ */
+@Component
+public class DelayActionScheduler implements CommandLineRunner {
+
+    /**
+     * 时间轮槽数，须为2的幂
+     */
+    private static final int WHEEL_SIZE = 512;
+
+    private static final String MEMBER_SEPARATOR = "__";
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    /**
+     * 时间轮刻度(毫秒)
+     */
+    @Value("${k8s.delay-action.tick-millis:1000}")
+    private long tickMillis;
+
+    /**
+     * 执行动作的线程数
+     */
+    @Value("${k8s.delay-action.workers:4}")
+    private int workers;
+
+    /**
+     * 执行队列容量，队列满时由时间轮线程直接执行
+     */
+    @Value("${k8s.delay-action.queue-capacity:1000}")
+    private int queueCapacity;
+
+    /**
+     * 从redis接管其他实例遗留的已到期动作的周期(毫秒)
+     */
+    @Value("${k8s.delay-action.recover-millis:60000}")
+    private long recoverMillis;
+
+    /**
+     * 同步其他服务写入的延时队列的周期(毫秒)
+     */
+    @Value("${k8s.delay-action.queue-sync-millis:10000}")
+    private long queueSyncMillis;
+
+    /**
+     * 动作类型 -> 动作(namespace, resourceName)
+     */
+    private final Map<String, BiConsumer<String, String>> handlers = new ConcurrentHashMap<>();
+
+    /**
+     * 动作类型 -> 其他服务写入的延时队列，成员为"命名空间__资源名称"，分值为到期秒级时间戳
+     */
+    private final Map<String, String> queues = new ConcurrentHashMap<>();
+
+    /**
+     * redis成员 -> 待执行动作，用于去重
+     */
+    private final Map<String, Timeout> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 时间轮，槽及刻度推进均在持有wheel锁时访问
+     */
+    private final List<List<Timeout>> wheel = new ArrayList<>(WHEEL_SIZE);
+
+    private ThreadPoolTaskExecutor executor;
+
+    private Thread ticker;
+
+    private volatile boolean running;
+
+    /**
+     * 时间轮当前刻度
+     */
+    private long currentTick;
+
+    private long startTime;
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("delay-action-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+
+        startTime = System.currentTimeMillis();
+        running = true;
+        ticker = new Thread(this::tick, "delay-action-ticker");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        ticker.interrupt();
+        executor.shutdown();
+    }
+
+    /**
+     * 所有观察者注册动作后，恢复redis中尚未执行的动作
+     *
+     * @param args 可变参数
+     */
+    @Override
+    public void run(String... args) {
+        recover(false);
+        syncQueues();
+    }
+
+    /**
+     * 注册动作类型
+     *
+     * @param type 动作类型，不含"__"
+     * @param action 动作(namespace, resourceName)
+     */
+    public void register(String type, BiConsumer<String, String> action) {
+        handlers.put(type, action);
+    }
+
+    /**
+     * 注册由其他服务写入延时队列的动作类型，队列成员到期时执行动作
+     *
+     * @param type 动作类型，不含"__"
+     * @param queueKey 延时队列
+     * @param action 动作(namespace, resourceName)
+     */
+    public void register(String type, String queueKey, BiConsumer<String, String> action) {
+        handlers.put(type, action);
+        queues.put(type, queueKey);
+    }
+
+    /**
+     * 延时执行动作，同一动作类型+资源已在等待时忽略
+     *
+     * @param type 动作类型
+     * @param namespace 命名空间
+     * @param resourceName 资源名称
+     * @param delayMillis 延时(毫秒)
+     * @return boolean 是否新加入
+     */
+    public boolean schedule(String type, String namespace, String resourceName, long delayMillis) {
+        String member = String.format(RedisConstants.DELAY_ACTION_ZSET_VALUE, type, namespace, resourceName);
+        long deadline = System.currentTimeMillis() + delayMillis;
+        if (!add(new Timeout(member, type, namespace, resourceName), deadline)) {
+            return false;
+        }
+        redisUtils.zAdd(RedisConstants.DELAY_ACTION_ZSET_KEY, deadline / MagicNumConstant.ONE_THOUSAND, member);
+        return true;
+    }
+
+    /**
+     * 加入时间轮
+     */
+    private boolean add(Timeout timeout, long deadline) {
+        if (pending.putIfAbsent(timeout.member, timeout) != null) {
+            return false;
+        }
+        synchronized (wheel) {
+            long deadlineTick = Math.max((deadline - startTime) / tickMillis, currentTick + 1);
+            timeout.rounds = (deadlineTick - currentTick - 1) / WHEEL_SIZE;
+            wheel.get((int) (deadlineTick & (WHEEL_SIZE - 1))).add(timeout);
+        }
+        return true;
+    }
+
+    /**
+     * 时间轮线程：逐刻度推进并派发到期动作，按周期接管redis中遗留的到期动作、同步其他服务写入的延时队列
+     */
+    private void tick() {
+        long lastRecover = System.currentTimeMillis();
+        long lastQueueSync = lastRecover;
+        long tick = 0;
+        while (running) {
+            long nextTickTime = startTime + (tick + 1) * tickMillis;
+            long sleep = nextTickTime - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(sleep);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            tick++;
+            List<Timeout> expired = new ArrayList<>();
+            synchronized (wheel) {
+                currentTick = tick;
+                Iterator<Timeout> iterator = wheel.get((int) (tick & (WHEEL_SIZE - 1))).iterator();
+                while (iterator.hasNext()) {
+                    Timeout timeout = iterator.next();
+                    if (timeout.rounds <= 0) {
+                        iterator.remove();
+                        expired.add(timeout);
+                    } else {
+                        timeout.rounds--;
+                    }
+                }
+            }
+            expired.forEach(timeout -> executor.execute(() -> fire(timeout)));
+            if (System.currentTimeMillis() - lastRecover >= recoverMillis) {
+                lastRecover = System.currentTimeMillis();
+                executor.execute(() -> recover(true));
+            }
+            if (!queues.isEmpty() && System.currentTimeMillis() - lastQueueSync >= queueSyncMillis) {
+                lastQueueSync = System.currentTimeMillis();
+                executor.execute(this::syncQueues);
+            }
+        }
+    }
+
+    /**
+     * 执行到期动作，先从redis抢占成员，已被其他实例执行的动作跳过；redis不可用时仍执行
+     *
+     * @param timeout 到期动作
+     */
+    private void fire(Timeout timeout) {
+        pending.remove(timeout.member, timeout);
+        Long removed = redisUtils.zRemCount(timeout.claimKey, timeout.claimMember);
+        if (removed != null && removed == 0) {
+            return;
+        }
+        BiConsumer<String, String> action = handlers.get(timeout.type);
+        if (action == null) {
+            LogUtil.error(LogEnum.BIZ_K8S, "delay action {} has no handler, dropped", timeout.member);
+            return;
+        }
+        LogUtil.info(LogEnum.BIZ_K8S, "execute delay action {}", timeout.member);
+        try {
+            action.accept(timeout.namespace, timeout.resourceName);
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_K8S, "delay action {} error {}", timeout.member, e);
+        }
+    }
+
+    /**
+     * 从redis恢复动作
+     *
+     * @param overdueOnly 为true时只接管已超期一个接管周期仍未执行的动作（原实例可能已下线）
+     */
+    private void recover(boolean overdueOnly) {
+        Set<ZSetOperations.TypedTuple<Object>> tuples = redisUtils.zRangeByScoreWithScores(RedisConstants.DELAY_ACTION_ZSET_KEY, Long.MIN_VALUE, Long.MAX_VALUE);
+        if (CollectionUtils.isEmpty(tuples)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int recovered = 0;
+        for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+            if (tuple.getValue() == null || tuple.getScore() == null) {
+                continue;
+            }
+            long deadline = tuple.getScore().longValue() * MagicNumConstant.ONE_THOUSAND;
+            if (overdueOnly && deadline > now - recoverMillis) {
+                continue;
+            }
+            String member = String.valueOf(tuple.getValue());
+            String[] parts = member.split(MEMBER_SEPARATOR);
+            if (parts.length != MagicNumConstant.THREE) {
+                continue;
+            }
+            if (add(new Timeout(member, parts[0], parts[1], parts[2]), deadline)) {
+                recovered++;
+            }
+        }
+        if (recovered > 0) {
+            LogUtil.info(LogEnum.BIZ_K8S, "recovered {} delay actions from redis", recovered);
+        }
+    }
+
+    /**
+     * 将其他服务写入的延时队列中尚未加入时间轮的成员加入时间轮
+     */
+    private void syncQueues() {
+        queues.forEach((type, queueKey) -> {
+            Set<ZSetOperations.TypedTuple<Object>> tuples = redisUtils.zRangeByScoreWithScores(queueKey, Long.MIN_VALUE, Long.MAX_VALUE);
+            if (CollectionUtils.isEmpty(tuples)) {
+                return;
+            }
+            for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+                if (tuple.getValue() == null || tuple.getScore() == null) {
+                    continue;
+                }
+                String queueMember = String.valueOf(tuple.getValue());
+                String[] parts = queueMember.split(MEMBER_SEPARATOR);
+                if (parts.length != MagicNumConstant.TWO) {
+                    continue;
+                }
+                String member = String.format(RedisConstants.DELAY_ACTION_ZSET_VALUE, type, parts[0], parts[1]);
+                // 分值为秒级时间戳，在该秒结束后执行
+                long deadline = (tuple.getScore().longValue() + 1) * MagicNumConstant.ONE_THOUSAND;
+                add(new Timeout(member, type, parts[0], parts[1], queueKey, queueMember), deadline);
+            }
+        });
+    }
+
+    /**
+     * 时间轮中的待执行动作
+     */
+    private static class Timeout {
+
+        private final String member;
+
+        private final String type;
+
+        private final String namespace;
+
+        private final String resourceName;
+
+        /**
+         * 执行前抢占的redis队列及成员
+         */
+        private final String claimKey;
+
+        private final String claimMember;
+
+        /**
+         * 剩余圈数，仅在持有wheel锁时访问
+         */
+        private long rounds;
+
+        Timeout(String member, String type, String namespace, String resourceName) {
+            this(member, type, namespace, resourceName, RedisConstants.DELAY_ACTION_ZSET_KEY, member);
+        }
+
+        Timeout(String member, String type, String namespace, String resourceName, String claimKey, String claimMember) {
+            this.member = member;
+            this.type = type;
+            this.namespace = namespace;
+            this.resourceName = resourceName;
+            this.claimKey = claimKey;
+            this.claimMember = claimMember;
+        }
+    }
+}
@@ -32,19 +32,30 @@ import org.dubhe.k8s.enums.K8sKindEnum;
 import org.dubhe.k8s.enums.K8sTaskStatusEnum;
 import org.dubhe.k8s.service.K8sTaskService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
+import javax.annotation.PostConstruct;
 import java.util.List;
 import java.util.UUID;
 
 /**
- * @description kubernetes 延时创建/删除定时任务
+ * @description kubernetes 延时创建/删除任务
+ * K8sTask的延时创建/停止队列由DelayActionScheduler同步到时间轮，成员到期时执行
  * @date 2020-09-01
  */
 @Component
-public class DelayCudResourceTask {
+public class DelayCudResourceTask implements CommandLineRunner {
+    /**
+     * 延时创建动作类型
+     */
+    private static final String DELAY_APPLY = "k8sTaskApply";
+    /**
+     * 延时停止动作类型
+     */
+    private static final String DELAY_STOP = "k8sTaskStop";
+
     @Autowired
     private DistributeTrainApi distributeTrainApi;
     @Autowired
@@ -53,41 +64,51 @@ public class DelayCudResourceTask {
     private RedisUtils redisUtils;
     @Autowired
     private K8sTaskService k8sTaskService;
-    /**
-     * 空闲计数,达到100后从数据库同步延时任务到redis
-     */
-    private static Integer idleCount = 0;
+    @Autowired
+    private DelayActionScheduler delayActionScheduler;
+
+    @PostConstruct
+    public void registerDelayAction() {
+        delayActionScheduler.register(DELAY_APPLY, RedisConstants.DELAY_APPLY_ZSET_KEY,
+                (namespace, resourceName) -> delayCudResource(RedisConstants.DELAY_APPLY_ZSET_KEY, namespace, resourceName));
+        delayActionScheduler.register(DELAY_STOP, RedisConstants.DELAY_STOP_ZSET_KEY,
+                (namespace, resourceName) -> delayCudResource(RedisConstants.DELAY_STOP_ZSET_KEY, namespace, resourceName));
+    }
 
     /**
-     * 每一秒执行一次，延时创建/删除定时任务
+     * 启动时从数据库同步已到期未执行的延时任务到redis
+     *
+     * @param args 可变参数
      */
-    @Scheduled(cron = "0/1 * * * * ?")
-    public void delayCudResource(){
+    @Override
+    public void run(String... args) {
         try {
-            //休眠 0-1 秒避免 频繁抢锁
-            Thread.sleep((long)Math.random()*MagicNumConstant.ONE_THOUSAND);
-        } catch (InterruptedException e) {
-            LogUtil.error(LogEnum.BIZ_K8S,e);
+            k8sTaskService.loadTaskToRedis();
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_K8S, "loadTaskToRedis error {}", e);
         }
+    }
+
+    /**
+     * 延时队列成员到期，处理所有已到期的延时任务；其他实例正在处理时将成员放回队列，下次同步时重试
+     *
+     * @param queueKey 延时队列
+     * @param namespace 命名空间
+     * @param resourceName 资源名称
+     */
+    private void delayCudResource(String queueKey, String namespace, String resourceName) {
         String uuid = UUID.randomUUID().toString();
+        if (!redisUtils.getDistributedLock(RedisConstants.DELAY_CUD_RESOURCE_KEY, uuid, RedisConstants.DELAY_CUD_RESOURCE_EXPIRE_TIME)) {
+            redisUtils.zAdd(queueKey, System.currentTimeMillis() / MagicNumConstant.ONE_THOUSAND,
+                    String.format(RedisConstants.DELAY_ZSET_VALUE, namespace, resourceName));
+            return;
+        }
         try {
-            if (!redisUtils.getDistributedLock(RedisConstants.DELAY_CUD_RESOURCE_KEY,uuid,RedisConstants.DELAY_CUD_RESOURCE_EXPIRE_TIME)){
-                return;
-            }
-            if (!CollectionUtils.isEmpty(redisUtils.zRangeByScorePop(RedisConstants.DELAY_APPLY_ZSET_KEY,System.currentTimeMillis()/1000)) ||
-                    !CollectionUtils.isEmpty(redisUtils.zRangeByScorePop(RedisConstants.DELAY_STOP_ZSET_KEY,System.currentTimeMillis()/1000))){
-                delayCud();
-            }else {
-                idleCount++;
-            }
-            if (idleCount%MagicNumConstant.ONE_HUNDRED == 0){
-                k8sTaskService.loadTaskToRedis();
-                idleCount = 1;
-            }
-        }catch (Exception e){
-            LogUtil.error(LogEnum.BIZ_K8S,"delayCudResource error {}",e);
-        }finally {
-            redisUtils.releaseDistributedLock(RedisConstants.DELAY_CUD_RESOURCE_KEY,uuid);
+            delayCud();
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.BIZ_K8S, "delayCudResource error {}", e);
+        } finally {
+            redisUtils.releaseDistributedLock(RedisConstants.DELAY_CUD_RESOURCE_KEY, uuid);
         }
     }
 
@@ -21,6 +21,9 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import org.apache.commons.lang3.StringUtils;
 import org.dubhe.biz.base.constant.SymbolConstant;
 import org.dubhe.biz.base.exception.BusinessException;
+import org.dubhe.biz.file.dto.MinioCopyItemDTO;
+import org.dubhe.biz.file.dto.MinioTransferResultDTO;
+import org.dubhe.biz.file.utils.MinioTransferUtil;
 import org.dubhe.biz.file.utils.MinioUtil;
 import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
@@ -43,11 +46,11 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.util.CollectionUtils;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -83,8 +86,11 @@ public class DifficultCaseAsyncCopy {
     private PcDatasetMapper pcDatasetMapper;
 
 
-    @Resource(name = "pointCloudExecutor")
-    private Executor pointCloudExecutor;
+    /**
+     * MinIO批量传输工具
+     */
+    @Resource
+    private MinioTransferUtil minioTransferUtil;
 
     /**
      * 复制点云难例相关文件
@@ -137,6 +143,7 @@ public class DifficultCaseAsyncCopy {
      * @param fileFolderMap
      */
     private void minioCopyFile(PcDataset casePcDataset, Long datasetId, String binFileUrl, Map<String, List<String>> fileFolderMap) {
+        MinioTransferResultDTO transferResult;
         try {
             //查询数据集文件 获取数据集目录下，当前数据集id所有对象文件
             List<String> objectList = minioUtil.getObjects(bucketName, pathUtil.getDatasetUrl(datasetId));
@@ -147,17 +154,18 @@ public class DifficultCaseAsyncCopy {
             Map<String, String> objectMap = objectSet.stream().filter(objectStr -> (!objectStr.contains(pathUtil.getLabel2Url(datasetId)) && !objectStr.contains(binFileUrl)))
                     .collect(Collectors.toMap(Function.identity(), objectStr -> objectStr.replace(pathUtil.getDatasetUrl(datasetId), pathUtil.getDatasetUrl(casePcDataset.getId()))));
 
-            //复制
+            //汇总全部复制项，由传输工具有界并发执行服务端复制并等待完成
+            List<MinioCopyItemDTO> copyItems = new ArrayList<>();
             for (Map.Entry<String, String> entry : objectMap.entrySet()) {
                 List<String> objects = minioUtil.getObjects(bucketName, entry.getKey());
-                copyMultiThread(objects, entry.getValue());
+                objects.forEach(object -> copyItems.add(MinioCopyItemDTO.toDir(bucketName, object, entry.getValue())));
             }
 
             //难例文件复制
             for (Map.Entry<String, List<String>> entry : fileFolderMap.entrySet()) {
-                copyMultiThread(entry.getValue(), entry.getKey());
+                entry.getValue().forEach(object -> copyItems.add(MinioCopyItemDTO.toDir(bucketName, object, entry.getKey())));
             }
-
+            transferResult = minioTransferUtil.copy(copyItems);
 
         } catch (Exception e) {
             casePcDataset.putStatusDetail("难例发布异常", "minio连接异常");
@@ -166,6 +174,13 @@ public class DifficultCaseAsyncCopy {
             LogUtil.error(LogEnum.POINT_CLOUD, "Minio connection exception,error message:{}", e.getMessage());
             throw new BusinessException("Minio连接异常");
         }
+        if (!transferResult.isSuccess()) {
+            casePcDataset.putStatusDetail("难例发布异常", "文件复制失败");
+            StateMachineUtil.stateChange(new StateChangeDTO(new Object[]{casePcDataset.getId(), casePcDataset.getStatusDetail()}, PcDatasetEventMachineConstant.PC_DATASET_MACHINE,
+                    PcDatasetEventMachineConstant.DIFFICULT_CASE_FAILED_TO_PUBLISH_EVENT));
+            LogUtil.error(LogEnum.POINT_CLOUD, "Failed to copy difficult case files, failed count:{}", transferResult.getFailedItems().size());
+            throw new BusinessException("复制点云难例文件失败");
+        }
     }
 
     /**
@@ -207,28 +222,4 @@ public class DifficultCaseAsyncCopy {
         }
     }
 
-    /**
-     * 多线程minio难例文件复制
-     * @param sourFiles
-     * @param targetFile
-     */
-    public void copyMultiThread(List<String> sourFiles, String targetFile) {
-        try {
-            int copyThreadNum = sourFiles.size() / Constant.MINIO_COPY_NUM + 1;
-            for (int i = 0; i < copyThreadNum; i++) {
-                List<String> sourFileList = sourFiles.stream().skip(i * Constant.MINIO_COPY_NUM).limit(Constant.MINIO_COPY_NUM).collect(Collectors.toList());
-                if (CollectionUtils.isEmpty(sourFileList)) {
-                    break;
-                }
-                pointCloudExecutor.execute(() -> minioUtil.copyObject(bucketName, sourFileList, targetFile));
-            }
-        } catch (Exception e) {
-            LogUtil.error(LogEnum.POINT_CLOUD, "Minio connection exception,error message:{}", e.getMessage());
-            throw new BusinessException("Minio连接异常");
-        }
-
-
-    }
-
-
 }
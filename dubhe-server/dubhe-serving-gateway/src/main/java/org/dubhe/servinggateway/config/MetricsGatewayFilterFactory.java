@@ -17,17 +17,14 @@
 
 package org.dubhe.servinggateway.config;
 
-import cn.hutool.core.io.IoUtil;
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONObject;
-import lombok.extern.slf4j.Slf4j;
+import lombok.Data;
 import org.apache.commons.lang3.StringUtils;
 import org.dubhe.biz.base.constant.NumberConstant;
-import org.dubhe.biz.base.exception.BusinessException;
 import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
 import org.dubhe.servinggateway.constant.GatewayConstant;
 import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
@@ -35,7 +32,6 @@ import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFac
 import org.springframework.cloud.gateway.route.Route;
 import org.springframework.core.Ordered;
 import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpResponse;
@@ -45,30 +41,51 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.zip.GZIPInputStream;
 
 import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
 
 /**
  * @description 监控指标网关过滤器
+ * 响应体原样流式转发，仅按状态码、响应头或响应体开头有限字节判断推理是否成功；
+ * 调用计数先累加在内存中，由后台线程定时写入redis，不在响应链路上阻塞
  * @date 2020-09-25
  */
 @Component
-@Slf4j
 public class MetricsGatewayFilterFactory extends AbstractGatewayFilterFactory<MetricsGatewayFilterFactory.Config> {
 
     @Resource
     private RedisTemplate<String, Object> redisTemplate;
 
+    /**
+     * 调用计数写入redis的间隔(毫秒)
+     */
+    @Value("${serving.gateway.metrics.flush-millis:5000}")
+    private long flushMillis;
+
+    /**
+     * 指标key -> 未写入redis的调用计数
+     */
+    private final Map<String, InferenceCounter> counters = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flushExecutor;
+
     /**
      * constructor
      */
@@ -77,6 +94,22 @@ public class MetricsGatewayFilterFactory extends AbstractGatewayFilterFactory<Me
         super(Config.class);
     }
 
+    @PostConstruct
+    public void init() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inference-metrics-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flushExecutor.shutdown();
+        flush();
+    }
+
     @Override
     public List<String> shortcutFieldOrder() {
         return Collections.emptyList();
@@ -87,11 +120,67 @@ public class MetricsGatewayFilterFactory extends AbstractGatewayFilterFactory<Me
         return new MetricsGatewayFilter(config);
     }
 
+    /**
+     * 将内存中的调用计数写入redis，写入失败的计数留待下次
+     */
+    private void flush() {
+        counters.forEach((metricsKey, counter) -> {
+            //sumThenReset与并发add之间非原子，会丢失计数，改为减去已读取的值
+            long callCount = counter.callCount.sum();
+            counter.callCount.add(-callCount);
+            long failedCount = counter.failedCount.sum();
+            counter.failedCount.add(-failedCount);
+            try {
+                if (callCount > 0) {
+                    redisTemplate.opsForHash().increment(metricsKey, GatewayConstant.INFERENCE_CALL_COUNT, callCount);
+                    callCount = 0;
+                }
+                if (failedCount > 0) {
+                    redisTemplate.opsForHash().increment(metricsKey, GatewayConstant.INFERENCE_FAILED_COUNT, failedCount);
+                }
+            } catch (Exception e) {
+                counter.callCount.add(callCount);
+                counter.failedCount.add(failedCount);
+                LogUtil.error(LogEnum.SERVING_GATEWAY, "Flush inference metrics {} failed: {}", metricsKey, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 记录一次推理调用
+     *
+     * @param metricsKey 指标key
+     * @param success    调用是否成功
+     */
+    private void record(String metricsKey, boolean success) {
+        InferenceCounter counter = counters.computeIfAbsent(metricsKey, key -> new InferenceCounter());
+        counter.callCount.increment();
+        if (!success) {
+            counter.failedCount.increment();
+        }
+    }
+
     /**
      * 自定义的config类，用来设置传入的参数
      */
+    @Data
     public static class Config {
 
+        /**
+         * 判断推理结果时最多检查的响应体字节数
+         */
+        private int sniffLimit = NumberConstant.NUMBER_1024;
+
+    }
+
+    /**
+     * 推理调用计数
+     */
+    private static class InferenceCounter {
+
+        private final LongAdder callCount = new LongAdder();
+
+        private final LongAdder failedCount = new LongAdder();
     }
 
     private class MetricsGatewayFilter implements GatewayFilter, Ordered {
@@ -111,112 +200,143 @@ public class MetricsGatewayFilterFactory extends AbstractGatewayFilterFactory<Me
          */
         @Override
         public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            // 判断该请求是否为推理请求
+            if (!exchange.getRequest().getPath().toString().endsWith(GatewayConstant.INFERENCE_INTERFACE_NAME)) {
+                return chain.filter(exchange);
+            }
+            // 获取路由配置
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            if (route == null) {
+                LogUtil.error(LogEnum.SERVING_GATEWAY, "路由配置不能为空");
+                return chain.filter(exchange);
+            }
+            String metricsKey = GatewayConstant.INFERENCE_METRICS_PREFIX + route.getMetadata().get("servingConfigId");
             ServerHttpResponse serverHttpResponse = exchange.getResponse();
             ServerHttpResponseDecorator responseDecorator = new ServerHttpResponseDecorator(serverHttpResponse) {
                 @Override
                 public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
-                    if (body instanceof Flux) {
-                        return super.writeWith(
-                                DataBufferUtils.join(body)
-                                        .doOnNext(dataBuffer -> {
-                                            // 判断该请求是否为推理请求
-                                            boolean isInference = exchange.getRequest().getPath().toString().endsWith(GatewayConstant.INFERENCE_INTERFACE_NAME);
-                                            if (isInference) {
-                                                LogUtil.info(LogEnum.SERVING_GATEWAY, "Begin deal inference request filter");
-                                                // 调用请求是否成功
-                                                boolean callFailed = !HttpStatus.OK.equals(serverHttpResponse.getStatusCode());
-
-                                                // 获取路由配置
-                                                Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
-                                                if(route == null){
-                                                    LogUtil.error(LogEnum.SERVING_GATEWAY,"路由配置不能为空");
-                                                    throw  new BusinessException("路由配置不能为空");
-                                                }
-
-                                                // 利用redis对接口调用进行计数
-                                                Map<String, Object> metadata = route.getMetadata();
-                                                String metricsKey = GatewayConstant.INFERENCE_METRICS_PREFIX + metadata.get("servingConfigId");
-                                                redisTemplate.opsForHash().increment(metricsKey, GatewayConstant.INFERENCE_CALL_COUNT, NumberConstant.NUMBER_1);
-                                                if (callFailed) {
-                                                    LogUtil.error(LogEnum.SERVING_GATEWAY, "Serving inference called failed");
-                                                    redisTemplate.opsForHash().increment(metricsKey, GatewayConstant.INFERENCE_FAILED_COUNT, NumberConstant.NUMBER_1);
-                                                    throw new BusinessException("调用服务失败，调用返回：" + serverHttpResponse.getStatusCode());
-                                                } else {
-                                                    boolean isJsonResponse = true;
-                                                    JSONObject inferenceResult = null;
-                                                    try {
-                                                        inferenceResult = JSON.parseObject(getResponseBody(serverHttpResponse, dataBuffer));
-                                                    } catch (Exception e) {
-                                                        isJsonResponse = false;
-                                                    }
-                                                    // 请求非JSON或请求失败则算作调用失败
-                                                    if (!isJsonResponse || Objects.isNull(inferenceResult) ||
-                                                            !Boolean.TRUE.equals(inferenceResult.getBoolean(GatewayConstant.SUCCESS))) {
-                                                        LogUtil.error(LogEnum.SERVING_GATEWAY, "Serving inference result JSON parse failed");
-                                                        redisTemplate.opsForHash().increment(metricsKey, GatewayConstant.INFERENCE_FAILED_COUNT, NumberConstant.NUMBER_1);
-                                                        throw new BusinessException("调用服务失败");
-                                                    }
-                                                }
-                                                LogUtil.info(LogEnum.SERVING_GATEWAY, "Deal inference request filter Done");
-                                            }
-                                        })
-                        );
-                    }
-                    return super.writeWith(body);
+                    InferenceResultSniffer sniffer = new InferenceResultSniffer(serverHttpResponse, config.getSniffLimit());
+                    return super.writeWith(Flux.from(body)
+                            .doOnNext(sniffer::accept)
+                            .doFinally(signal -> sniffer.finish(metricsKey)));
                 }
             };
             return chain.filter(exchange.mutate().response(responseDecorator).build());
         }
 
         /**
-         * @param response   请求
+         * 获取拦截器优先级
+         *
+         * @return int 返回优先级
+         */
+        @Override
+        public int getOrder() {
+            // -1 is response write filter, must be called before that
+            // 需保证过滤器的优先级高于WriteFilter
+            return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - NumberConstant.NUMBER_1;
+        }
+    }
+
+    /**
+     * 推理结果判断：状态码非200为失败；有成功标识响应头时以响应头为准；
+     * 否则在响应体开头有限字节内查找 "success": true，不改动也不缓存完整响应体
+     */
+    private class InferenceResultSniffer {
+
+        private final ServerHttpResponse response;
+
+        private final int limit;
+
+        private final ByteArrayOutputStream prefix;
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        InferenceResultSniffer(ServerHttpResponse response, int limit) {
+            this.response = response;
+            this.limit = limit;
+            this.prefix = new ByteArrayOutputStream(limit);
+        }
+
+        /**
+         * 复制响应体开头的字节，不移动数据缓冲区的读位置
+         *
          * @param dataBuffer 数据缓冲
-         * @return String 返回response body内容
          */
-        private String getResponseBody(ServerHttpResponse response, DataBuffer dataBuffer) {
-            String bodyContent = "";
-            // 获取response的编码
-            String contentEncoding = response.getHeaders().getFirst("Content-Encoding");
-            // 判断response编码是否为gzip
-            if (StringUtils.isNotBlank(contentEncoding) && contentEncoding.contains("gzip")) {
-                // 进行gzip解压内容
-                bodyContent = decompressWithGZIP(dataBuffer, StandardCharsets.UTF_8);
-            } else {
-                bodyContent = dataBuffer.toString(StandardCharsets.UTF_8);
+        void accept(DataBuffer dataBuffer) {
+            int readPosition = dataBuffer.readPosition();
+            int count = Math.min(limit - prefix.size(), dataBuffer.readableByteCount());
+            for (int i = 0; i < count; i++) {
+                prefix.write(dataBuffer.getByte(readPosition + i));
             }
-            return bodyContent;
         }
 
         /**
-         * 根据输入字符集对缓冲区进行gzip解压
+         * 响应结束(完成、出错或取消)时记录一次调用
          *
-         * @param dataBuffer 数据缓冲区
-         * @param charset    字符集编码
-         * @return String 返回解压后的数据
+         * @param metricsKey 指标key
          */
-        private String decompressWithGZIP(DataBuffer dataBuffer, Charset charset) {
-            GZIPInputStream gis;
-            String content = "";
-            try {
-                gis = new GZIPInputStream(new ByteArrayInputStream(dataBuffer.asByteBuffer().array()));
+        void finish(String metricsKey) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            boolean success = isSuccess();
+            if (!success) {
+                LogUtil.error(LogEnum.SERVING_GATEWAY, "Serving inference called failed, status: {}", response.getStatusCode());
+            }
+            record(metricsKey, success);
+        }
+
+        private boolean isSuccess() {
+            if (!HttpStatus.OK.equals(response.getStatusCode())) {
+                return false;
+            }
+            String successHeader = response.getHeaders().getFirst(GatewayConstant.INFERENCE_SUCCESS_HEADER);
+            if (StringUtils.isNotBlank(successHeader)) {
+                return Boolean.parseBoolean(successHeader.trim());
+            }
+            return sniffSuccess(getPrefixContent());
+        }
 
-                content = IoUtil.read(gis, charset);
+        /**
+         * 获取响应体开头内容，gzip编码时解压已收到的部分
+         *
+         * @return String 响应体开头内容
+         */
+        private String getPrefixContent() {
+            byte[] bytes = prefix.toByteArray();
+            String contentEncoding = response.getHeaders().getFirst("Content-Encoding");
+            if (StringUtils.isBlank(contentEncoding) || !contentEncoding.contains("gzip")) {
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            ByteArrayOutputStream content = new ByteArrayOutputStream(limit);
+            byte[] buffer = new byte[NumberConstant.NUMBER_1024];
+            try (GZIPInputStream gis = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                int read;
+                while (content.size() < limit && (read = gis.read(buffer)) > 0) {
+                    content.write(buffer, 0, read);
+                }
             } catch (IOException e) {
-                log.error("解压失败");
+                // 只截取了压缩流开头，解压到截断处即结束
             }
-            return content;
+            return new String(content.toByteArray(), StandardCharsets.UTF_8);
         }
 
         /**
-         * 获取拦截器优先级
+         * 在响应体开头查找 "success" 字段的布尔值
          *
-         * @return int 返回优先级
+         * @param content 响应体开头内容
+         * @return boolean 是否为 "success": true
          */
-        @Override
-        public int getOrder() {
-            // -1 is response write filter, must be called before that
-            // 需保证过滤器的优先级高于WriteFilter
-            return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - NumberConstant.NUMBER_1;
+        private boolean sniffSuccess(String content) {
+            int index = content.indexOf("\"" + GatewayConstant.SUCCESS + "\"");
+            if (index < 0) {
+                return false;
+            }
+            index += GatewayConstant.SUCCESS.length() + NumberConstant.NUMBER_2;
+            while (index < content.length() && (Character.isWhitespace(content.charAt(index)) || content.charAt(index) == ':')) {
+                index++;
+            }
+            return content.startsWith(Boolean.TRUE.toString(), index);
         }
     }
 }
@@ -14,7 +14,6 @@
  * limitations under the License.
  * =============================================================
  */
-
 package org.dubhe.servinggateway.config;
 
 import com.alibaba.fastjson.JSON;
@@ -22,31 +21,84 @@ import lombok.extern.slf4j.Slf4j;
 import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
 import org.dubhe.servinggateway.constant.GatewayConstant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
 import org.springframework.cloud.gateway.route.RouteDefinition;
 import org.springframework.cloud.gateway.route.RouteDefinitionRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.security.core.parameters.P;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @description redis路由定义加载类
+ * 路由以redis为准，内存中保留一份快照：保存/删除路由时同步增量更新快照，网关刷新路由时直接读取快照；
+ * 权重为0的路由由后台任务在下一轮清理，同时按相同周期以redis全量校准快照，快照有变化时发布路由刷新事件，保证多实例间最终一致
  * @date 2020-09-07
  */
 @Component
 @Slf4j
-public class RedisRouteDefinitionRepository implements RouteDefinitionRepository {
+public class RedisRouteDefinitionRepository implements RouteDefinitionRepository, ApplicationEventPublisherAware {
 
     @Resource
     private RedisTemplate<Object, Object> redisTemplate;
 
+    private ApplicationEventPublisher publisher;
+
+    /**
+     * 权重为0路由的清理及快照校准周期(毫秒)
+     */
+    @Value("${serving.gateway.route-sweep-millis:60000}")
+    private long routeSweepMillis;
+
+    /**
+     * 路由id -> 路由快照
+     */
+    private final Map<String, RouteEntry> routes = new ConcurrentHashMap<>();
+
+    /**
+     * 上一轮清理时已是权重为0的路由id，下一轮清理时删除
+     */
+    private final Set<String> zeroWeightRoutes = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService sweepExecutor;
+
+    @PostConstruct
+    public void init() {
+        reload();
+        sweepExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "route-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweepExecutor.scheduleWithFixedDelay(this::sweep, routeSweepMillis, routeSweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        sweepExecutor.shutdownNow();
+    }
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+        this.publisher = applicationEventPublisher;
+    }
+
     /**
      * 保存路由信息
      *
@@ -56,8 +108,12 @@ public class RedisRouteDefinitionRepository implements RouteDefinitionRepository
     @Override
     public Mono<Void> save(Mono<RouteDefinition> route) {
         return route.flatMap(routeDefinition -> {
-            LogUtil.info(LogEnum.SERVING_GATEWAY, "save route :" + JSON.toJSONString(routeDefinition));
-            redisTemplate.opsForHash().put(GatewayConstant.SERVING_GATEWAY_ROUTES, routeDefinition.getId(), JSON.toJSONString(routeDefinition));
+            String routeDefinitionString = JSON.toJSONString(routeDefinition);
+            LogUtil.info(LogEnum.SERVING_GATEWAY, "save route :" + routeDefinitionString);
+            synchronized (this) {
+                redisTemplate.opsForHash().put(GatewayConstant.SERVING_GATEWAY_ROUTES, routeDefinition.getId(), routeDefinitionString);
+                putRoute(routeDefinition.getId(), routeDefinitionString);
+            }
             return Mono.empty();
         });
     }
@@ -71,9 +127,13 @@ public class RedisRouteDefinitionRepository implements RouteDefinitionRepository
     @Override
     public Mono<Void> delete(Mono<String> routeId) {
         return routeId.flatMap(id -> {
-            if (redisTemplate.opsForHash().hasKey(GatewayConstant.SERVING_GATEWAY_ROUTES, id)) {
-                String routeDefinitionString = redisTemplate.opsForHash().get(GatewayConstant.SERVING_GATEWAY_ROUTES, id).toString().replace(GatewayConstant.ROUTE_WEIGHT_100,GatewayConstant.ROUTE_WEIGHT_0);
-                redisTemplate.opsForHash().put(GatewayConstant.SERVING_GATEWAY_ROUTES, id, routeDefinitionString);
+            Object routeDefinitionObject = redisTemplate.opsForHash().get(GatewayConstant.SERVING_GATEWAY_ROUTES, id);
+            if (routeDefinitionObject != null) {
+                String routeDefinitionString = routeDefinitionObject.toString().replace(GatewayConstant.ROUTE_WEIGHT_100,GatewayConstant.ROUTE_WEIGHT_0);
+                synchronized (this) {
+                    redisTemplate.opsForHash().put(GatewayConstant.SERVING_GATEWAY_ROUTES, id, routeDefinitionString);
+                    putRoute(id, routeDefinitionString);
+                }
                 LogUtil.info(LogEnum.SERVING_GATEWAY, "update route :" + id + " weight : 0");
                 return Mono.empty();
             }
@@ -88,14 +148,91 @@ public class RedisRouteDefinitionRepository implements RouteDefinitionRepository
      */
     @Override
     public Flux<RouteDefinition> getRouteDefinitions() {
-        List<RouteDefinition> routeDefinitions = new ArrayList<>();
-         redisTemplate.opsForHash().entries(GatewayConstant.SERVING_GATEWAY_ROUTES).forEach((k,v) ->{
-             routeDefinitions.add(JSON.parseObject(v.toString(), RouteDefinition.class));
-             if (v.toString().contains(GatewayConstant.ROUTE_WEIGHT_0)){
-                 redisTemplate.opsForHash().delete(GatewayConstant.SERVING_GATEWAY_ROUTES, k);
-                 LogUtil.info(LogEnum.SERVING_GATEWAY, "delete route :" + k);
-             }
-         });
+        List<RouteDefinition> routeDefinitions = new ArrayList<>(routes.size());
+        routes.values().forEach(entry -> routeDefinitions.add(entry.definition));
         return Flux.fromIterable(routeDefinitions);
     }
+
+    /**
+     * 更新单个路由快照
+     *
+     * @param id 路由id
+     * @param routeDefinitionString 路由信息json
+     * @return boolean 快照是否发生变化
+     */
+    private synchronized boolean putRoute(String id, String routeDefinitionString) {
+        RouteEntry current = routes.get(id);
+        if (current != null && current.json.equals(routeDefinitionString)) {
+            return false;
+        }
+        routes.put(id, new RouteEntry(routeDefinitionString));
+        if (!routeDefinitionString.contains(GatewayConstant.ROUTE_WEIGHT_0)) {
+            zeroWeightRoutes.remove(id);
+        }
+        return true;
+    }
+
+    /**
+     * 以redis全量校准路由快照，与单个路由更新互斥，避免旧数据覆盖新保存的路由
+     *
+     * @return boolean 快照是否发生变化
+     */
+    private synchronized boolean reload() {
+        Map<String, String> latest = new HashMap<>();
+        redisTemplate.opsForHash().entries(GatewayConstant.SERVING_GATEWAY_ROUTES)
+                .forEach((k, v) -> latest.put(k.toString(), v.toString()));
+        boolean changed = false;
+        for (Map.Entry<String, String> entry : latest.entrySet()) {
+            changed |= putRoute(entry.getKey(), entry.getValue());
+        }
+        changed |= routes.keySet().retainAll(latest.keySet());
+        return changed;
+    }
+
+    /**
+     * 删除上一轮已是权重为0的路由，并记录本轮权重为0的路由，保证权重为0的路由至少被网关刷新读取过一次
+     */
+    private void sweep() {
+        try {
+            boolean changed = reload();
+            synchronized (this) {
+                for (String id : zeroWeightRoutes) {
+                    RouteEntry entry = routes.get(id);
+                    if (entry != null && entry.json.contains(GatewayConstant.ROUTE_WEIGHT_0)) {
+                        redisTemplate.opsForHash().delete(GatewayConstant.SERVING_GATEWAY_ROUTES, id);
+                        routes.remove(id);
+                        changed = true;
+                        LogUtil.info(LogEnum.SERVING_GATEWAY, "delete route :" + id);
+                    }
+                }
+                zeroWeightRoutes.clear();
+                routes.forEach((id, entry) -> {
+                    if (entry.json.contains(GatewayConstant.ROUTE_WEIGHT_0)) {
+                        zeroWeightRoutes.add(id);
+                    }
+                });
+            }
+            //校准或清理改变了快照时刷新网关路由缓存
+            if (changed && publisher != null) {
+                publisher.publishEvent(new RefreshRoutesEvent(this));
+            }
+        } catch (Exception e) {
+            LogUtil.error(LogEnum.SERVING_GATEWAY, "Sweep routes error: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 路由快照
+     */
+    private static class RouteEntry {
+
+        private final String json;
+
+        private final RouteDefinition definition;
+
+        RouteEntry(String json) {
+            this.json = json;
+            this.definition = JSON.parseObject(json, RouteDefinition.class);
+        }
+    }
 }
@@ -59,6 +59,10 @@ public class GatewayConstant {
 	 * 成功
 	 */
 	public static final String SUCCESS = "success";
+	/**
+	 * 推理服务标识调用是否成功的响应头
+	 */
+	public static final String INFERENCE_SUCCESS_HEADER = "X-Inference-Success";
 	/**
 	 * AES加密方式
 	 */
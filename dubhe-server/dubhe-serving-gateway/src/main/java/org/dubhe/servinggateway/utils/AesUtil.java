@@ -28,6 +28,8 @@ import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @description AES加解密工具
@@ -42,6 +44,16 @@ public class AesUtil {
     }
 
 
+    /**
+     * 秘钥 -> 由秘钥MD5摘要生成的AES秘钥
+     */
+    private static final Map<String, SecretKeySpec> SECRET_KEY_SPECS = new ConcurrentHashMap<>();
+
+    /**
+     * 线程内复用的Cipher实例
+     */
+    private static final ThreadLocal<Cipher> CIPHERS = new ThreadLocal<>();
+
     /**
      * @param mode Cipher mode
      * @param key  秘钥
@@ -51,9 +63,17 @@ public class AesUtil {
      * @throws InvalidKeyException
      */
     private static Cipher getCipher(int mode, String key) throws NoSuchAlgorithmException, NoSuchPaddingException, InvalidKeyException {
-        MessageDigest md5Digest = MessageDigest.getInstance(GatewayConstant.MD5);
-        SecretKeySpec secretKeySpec = new SecretKeySpec(md5Digest.digest(key.getBytes(StandardCharsets.UTF_8)), GatewayConstant.AES);
-        Cipher cipher = Cipher.getInstance(GatewayConstant.AES);
+        SecretKeySpec secretKeySpec = SECRET_KEY_SPECS.get(key);
+        if (secretKeySpec == null) {
+            MessageDigest md5Digest = MessageDigest.getInstance(GatewayConstant.MD5);
+            secretKeySpec = new SecretKeySpec(md5Digest.digest(key.getBytes(StandardCharsets.UTF_8)), GatewayConstant.AES);
+            SECRET_KEY_SPECS.put(key, secretKeySpec);
+        }
+        Cipher cipher = CIPHERS.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(GatewayConstant.AES);
+            CIPHERS.set(cipher);
+        }
         cipher.init(mode, secretKeySpec);
         return cipher;
     }
@@ -24,7 +24,11 @@ import org.dubhe.biz.base.constant.NumberConstant;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.AbstractMap;
 import java.util.Date;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @description token工具类
@@ -43,6 +47,21 @@ public class TokenValidateUtil {
 	 */
 	@Value("${serving.gateway.token.expire-seconds}")
 	private Integer expireSeconds;
+	/**
+	 * 已验证token的最大缓存数
+	 */
+	@Value("${serving.gateway.token.cache-size:10000}")
+	private Integer cacheSize;
+
+	/**
+	 * token -> 解密得到的过期时间(毫秒)，避免同一token每次请求都解密、解析时间
+	 */
+	private final Map<String, Long> tokenExpireCache = new ConcurrentHashMap<>();
+
+	/**
+	 * 按过期时间排序的缓存token，缓存已满时淘汰最早过期的token，仅在持有自身锁时访问
+	 */
+	private final PriorityQueue<Map.Entry<String, Long>> tokenExpireQueue = new PriorityQueue<>(Map.Entry.comparingByValue());
 
 	/**
 	 * 生成token
@@ -64,11 +83,54 @@ public class TokenValidateUtil {
 	 * @return boolean
 	 */
 	public boolean validateToken(String token) {
-		String expireTime = AesUtil.decrypt(token, secretKey);
-		String nowTime = DateUtil.format(
-				new Date(),
-				DatePattern.PURE_DATETIME_PATTERN
-		);
-		return expireTime.compareTo(nowTime) > NumberConstant.NUMBER_0;
+		Long expireMillis = tokenExpireCache.get(token);
+		if (expireMillis == null) {
+			String expireTime = AesUtil.decrypt(token, secretKey);
+			if (expireTime == null) {
+				return false;
+			}
+			try {
+				expireMillis = DateUtil.parse(expireTime, DatePattern.PURE_DATETIME_PATTERN).getTime();
+			} catch (Exception e) {
+				return false;
+			}
+			if (expireMillis > currentSecondMillis()) {
+				cacheToken(token, expireMillis);
+			}
+		}
+		if (expireMillis > currentSecondMillis()) {
+			return true;
+		}
+		tokenExpireCache.remove(token);
+		return false;
+	}
+
+	/**
+	 * 缓存token过期时间，先清理已过期的token，缓存仍满时淘汰最早过期的token
+	 *
+	 * @param token
+	 * @param expireMillis 过期时间(毫秒)
+	 */
+	private void cacheToken(String token, long expireMillis) {
+		synchronized (tokenExpireQueue) {
+			long nowMillis = currentSecondMillis();
+			while (!tokenExpireQueue.isEmpty()
+					&& (tokenExpireQueue.peek().getValue() <= nowMillis || tokenExpireCache.size() >= cacheSize)) {
+				Map.Entry<String, Long> evicted = tokenExpireQueue.poll();
+				tokenExpireCache.remove(evicted.getKey(), evicted.getValue());
+			}
+			if (tokenExpireCache.putIfAbsent(token, expireMillis) == null) {
+				tokenExpireQueue.offer(new AbstractMap.SimpleImmutableEntry<>(token, expireMillis));
+			}
+		}
+	}
+
+	/**
+	 * token时间精确到秒，与当前时间的秒比较
+	 *
+	 * @return long 当前时间截断到秒的毫秒值
+	 */
+	private static long currentSecondMillis() {
+		return System.currentTimeMillis() / NumberConstant.NUMBER_1000 * NumberConstant.NUMBER_1000;
 	}
 }
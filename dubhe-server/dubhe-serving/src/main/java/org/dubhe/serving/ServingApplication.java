@@ -20,6 +20,7 @@ import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * @description serving 云端Serving模块启动类
@@ -28,6 +29,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 @SpringBootApplication(scanBasePackages = "org.dubhe")
 @MapperScan(basePackages = {"org.dubhe.**.dao"})
 @EnableAsync
+@EnableScheduling
 public class ServingApplication {
     public static void main(String[] args) {
         SpringApplication.run(ServingApplication.class, args);
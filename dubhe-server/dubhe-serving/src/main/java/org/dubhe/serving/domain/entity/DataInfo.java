@@ -17,6 +17,7 @@
 
 package org.dubhe.serving.domain.entity;
 
+import com.google.protobuf.ByteString;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -30,9 +31,9 @@ public class DataInfo implements Serializable {
     private static final long serialVersionUID = 1L;
 
     /**
-     * base64编码后的图片文件
+     * 图片文件二进制内容
      */
-    private String dataFile;
+    private ByteString dataBytes;
 
     /**
      * 图片名称
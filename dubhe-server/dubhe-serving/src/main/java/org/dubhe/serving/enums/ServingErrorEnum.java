@@ -57,6 +57,10 @@ public enum ServingErrorEnum implements ErrorCode {
     IMAGE_NOT_EXIST(1629, "镜像不存在"),
     DATABASE_ERROR(1630, "数据库操作失败"),
     MODEL_CONFIG_NOT_EXIST(1631, "模型配置信息不存在"),
+    PREDICT_DATA_READ_FAIL(1632, "预测数据读取失败"),
+    PREDICT_TIMEOUT(1633, "推理请求超时"),
+    PREDICT_TOO_MANY_REQUESTS(1634, "推理请求过多，请稍后重试"),
+    CALL_INFERENCE_SERVER_FAIL(1635, "推理服务调用失败"),
     ;
 
     private Integer code;
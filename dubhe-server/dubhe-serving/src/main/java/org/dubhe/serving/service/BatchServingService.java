@@ -113,6 +113,11 @@ public interface BatchServingService extends IService<BatchServing> {
      */
     BatchServingQueryVO queryStatusAndProgress(Long id);
 
+    /**
+     * 刷新运行中批量服务的推理进度缓存
+     */
+    void refreshWorkingProgress();
+
     /**
      * 判断模型是否正在使用
      * @param ptModelStatusQueryDTO 模型查询条件
@@ -95,6 +95,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 
@@ -141,6 +142,21 @@ public class BatchServingServiceImpl extends ServiceImpl<BatchServingMapper, Bat
     private ResourceCache resourceCache;
     @Value("Task:BatchServing:"+"${spring.profiles.active}_batch_serving_id_")
     private String batchServingIdPrefix;
+    /**
+     * 运行中批量服务进度，<服务id, 进度>
+     */
+    @Value("Task:BatchServing:" + "${spring.profiles.active}_progress")
+    private String batchServingProgressKey;
+    /**
+     * 批量服务输入文件数量，任务运行期间不变，只统计一次
+     */
+    @Value("Task:BatchServing:" + "${spring.profiles.active}_input_count")
+    private String batchServingInputCountKey;
+    /**
+     * 进度刷新锁过期时间（秒），多实例部署时同一时刻仅一个实例刷新
+     */
+    @Value("${serving.batch.progress-lock-seconds:60}")
+    private long progressLockSeconds;
 
     private final static List<String> FILE_NAMES;
 
@@ -206,9 +222,19 @@ public class BatchServingServiceImpl extends ServiceImpl<BatchServingMapper, Bat
             throw new BusinessException(ServingErrorEnum.INTERNAL_SERVER_ERROR);
         }
         IPage<BatchServing> batchServings = batchServingMapper.selectPage(page, wrapper);
+        //运行中的任务统一从缓存读取进度，整页只访问一次redis
+        Map<Object, Object> progressMap = batchServings.getRecords().stream()
+                .anyMatch(batchServing -> ServingStatusEnum.WORKING.getStatus().equals(batchServing.getStatus()))
+                ? redisUtils.hmget(batchServingProgressKey) : Collections.emptyMap();
         List<BatchServingQueryVO> queryList = batchServings.getRecords().stream().map(batchServing -> {
             BatchServingQueryVO batchServingQueryVO = new BatchServingQueryVO();
             BeanUtils.copyProperties(batchServing, batchServingQueryVO);
+            if (ServingStatusEnum.WORKING.getStatus().equals(batchServing.getStatus())) {
+                Object progress = progressMap.get(String.valueOf(batchServing.getId()));
+                if (progress != null) {
+                    batchServingQueryVO.setProgress(String.valueOf(progress));
+                }
+            }
             return batchServingQueryVO;
         }).collect(Collectors.toList());
         LogUtil.info(LogEnum.SERVING, "User {} queried batching service list, the number of batching service is {}", user.getUsername(), queryList.size());
@@ -556,6 +582,7 @@ public class BatchServingServiceImpl extends ServiceImpl<BatchServingMapper, Bat
         if (StringUtils.isNotEmpty(taskIdentify)){
             redisUtils.del(taskIdentify, batchServingIdPrefix + String.valueOf(batchServing.getId()));
         }
+        clearProgressCache(batchServing.getId());
         String sourcePath = k8sNameTool.getAbsolutePath(ServingConstant.BATCH_ROOT_PATH + batchServing.getCreateUserId() + File.separator + batchServing.getId() + File.separator);
         String recyclePath = k8sNameTool.getAbsolutePath(batchServing.getInputPath()) + StrUtil.COMMA + k8sNameTool.getAbsolutePath(batchServing.getOutputPath()) + StrUtil.COMMA + sourcePath;
         createRecycleTask(batchServing, recyclePath, true);
@@ -597,6 +624,7 @@ public class BatchServingServiceImpl extends ServiceImpl<BatchServingMapper, Bat
         //删除之前的推理结果，重新推理
         createRecycleTask(batchServing, k8sNameTool.getAbsolutePath(batchServing.getOutputPath()), true);
         batchServing.setProgress(SymbolConstant.ZERO);
+        clearProgressCache(batchServing.getId());
         batchServing.setStatus(ServingStatusEnum.IN_DEPLOYMENT.getStatus());
         //生成新的输出路径
         String outputPath = ServingConstant.OUTPUT_NFS_PATH + user.getId() + File.separator + StringUtils.getTimestamp() + File.separator;
@@ -659,8 +687,7 @@ public class BatchServingServiceImpl extends ServiceImpl<BatchServingMapper, Bat
         }
         //运行中的任务计算进度
         if (batchServing.getStatus().equals(ServingStatusEnum.WORKING.getStatus())) {
-            String progress = queryProgressByMinIO(batchServing);
-            batchServingDetailVO.setProgress(progress);
+            batchServingDetailVO.setProgress(queryProgress(batchServing));
         }
         //采用自定义脚本且算法id不为空时，获取算法名称
         if (batchServing.getUseScript() && batchServing.getAlgorithmId() != null) {
@@ -735,6 +762,7 @@ public class BatchServingServiceImpl extends ServiceImpl<BatchServingMapper, Bat
             batchServing.setEndTime(DateUtil.getCurrentTimestamp());
             batchServing.setStatus(ServingStatusEnum.COMPLETED.getStatus());
             batchServing.setProgress(String.valueOf(NumberConstant.NUMBER_100));
+            clearProgressCache(batchServing.getId());
             // 批量推理成功异步发送短信通知
             DataResponseBody<UserDTO> userDTODataResponseBody = adminClient.getUsers(batchServing.getCreateUserId());
             if (userDTODataResponseBody.succeed() && userDTODataResponseBody.getData() != null) {
@@ -742,14 +770,12 @@ public class BatchServingServiceImpl extends ServiceImpl<BatchServingMapper, Bat
             }
         }
         if (PodPhaseEnum.FAILED.getPhase().equals(req.getPhase())) {
-            String progress = queryProgressByMinIO(batchServing);
-            batchServing.setProgress(progress);
+            batchServing.setProgress(reconcileProgress(batchServing));
             batchServing.setStatus(ServingStatusEnum.EXCEPTION.getStatus());
         }
         //运行失败被删掉的服务，不修改状态
         if (PodPhaseEnum.DELETED.getPhase().equals(req.getPhase()) && !ServingStatusEnum.EXCEPTION.getStatus().equals(batchServing.getStatus())) {
-            String progress = queryProgressByMinIO(batchServing);
-            batchServing.setProgress(progress);
+            batchServing.setProgress(reconcileProgress(batchServing));
             batchServing.setStatus(ServingStatusEnum.STOP.getStatus());
         }
         if (PodPhaseEnum.UNKNOWN.getPhase().equals(req.getPhase())) {
@@ -801,7 +827,8 @@ public class BatchServingServiceImpl extends ServiceImpl<BatchServingMapper, Bat
         if (Objects.isNull(batchServing)) {
             throw new BusinessException(ServingErrorEnum.SERVING_INFO_ABSENT);
         }
-        String progress = queryProgressByMinIO(batchServing);
+        String progress = ServingStatusEnum.WORKING.getStatus().equals(batchServing.getStatus())
+                ? queryProgress(batchServing) : batchServing.getProgress();
         return BatchServingQueryVO.builder()
                 .id(id)
                 .name(batchServing.getName())
@@ -816,22 +843,88 @@ public class BatchServingServiceImpl extends ServiceImpl<BatchServingMapper, Bat
     }
 
     /**
-     * 通过minio查询推理进度
+     * 从缓存读取运行中任务的推理进度，缓存尚未刷新时返回库中进度
      *
      * @param batchServing 批量服务信息
      * @return String 返回进度结果
      */
-    private String queryProgressByMinIO(BatchServing batchServing) {
-        DecimalFormat df = new DecimalFormat(String.valueOf(NumberConstant.NUMBER_0));
-        int inputCount = queryCount(batchServing.getInputPath());
-        int outputCount = queryCount(batchServing.getOutputPath());
-        String progress = String.valueOf(NumberConstant.NUMBER_0);
-        if (inputCount != NumberConstant.NUMBER_0) {
-            progress = df.format((float) outputCount / inputCount * NumberConstant.NUMBER_100);
+    private String queryProgress(BatchServing batchServing) {
+        Object progress = redisUtils.hget(batchServingProgressKey, String.valueOf(batchServing.getId()));
+        if (progress != null) {
+            return String.valueOf(progress);
         }
+        return StringUtils.isBlank(batchServing.getProgress()) ? String.valueOf(NumberConstant.NUMBER_0) : batchServing.getProgress();
+    }
+
+    /**
+     * 刷新运行中批量服务的推理进度缓存
+     */
+    @Override
+    public void refreshWorkingProgress() {
+        String requestId = UUID.randomUUID().toString();
+        String lockKey = batchServingProgressKey + "_lock";
+        if (!redisUtils.getDistributedLock(lockKey, requestId, progressLockSeconds)) {
+            return;
+        }
+        try {
+            List<BatchServing> batchServingList = batchServingMapper.selectList(new LambdaQueryWrapper<BatchServing>()
+                    .select(BatchServing::getId, BatchServing::getInputPath, BatchServing::getOutputPath)
+                    .eq(BatchServing::getStatus, ServingStatusEnum.WORKING.getStatus()));
+            for (BatchServing batchServing : batchServingList) {
+                String field = String.valueOf(batchServing.getId());
+                Object cachedInputCount = redisUtils.hget(batchServingInputCountKey, field);
+                int inputCount;
+                if (cachedInputCount == null) {
+                    inputCount = queryCount(batchServing.getInputPath());
+                    redisUtils.hset(batchServingInputCountKey, field, inputCount);
+                } else {
+                    inputCount = Integer.parseInt(String.valueOf(cachedInputCount));
+                }
+                redisUtils.hset(batchServingProgressKey, field, calculateProgress(inputCount, queryCount(batchServing.getOutputPath())));
+            }
+        } finally {
+            redisUtils.releaseDistributedLock(lockKey, requestId);
+        }
+    }
+
+    /**
+     * 任务结束时通过minio核对最终推理进度，并清除进度缓存
+     *
+     * @param batchServing 批量服务信息
+     * @return String 返回进度结果
+     */
+    private String reconcileProgress(BatchServing batchServing) {
+        String progress = calculateProgress(queryCount(batchServing.getInputPath()), queryCount(batchServing.getOutputPath()));
+        clearProgressCache(batchServing.getId());
         return progress;
     }
 
+    /**
+     * 清除进度缓存
+     *
+     * @param id 批量服务id
+     */
+    private void clearProgressCache(Long id) {
+        String field = String.valueOf(id);
+        redisUtils.hdel(batchServingProgressKey, field);
+        redisUtils.hdel(batchServingInputCountKey, field);
+    }
+
+    /**
+     * 计算推理进度
+     *
+     * @param inputCount  输入文件数量
+     * @param outputCount 输出文件数量
+     * @return String 返回进度结果
+     */
+    private String calculateProgress(int inputCount, int outputCount) {
+        if (inputCount == NumberConstant.NUMBER_0) {
+            return String.valueOf(NumberConstant.NUMBER_0);
+        }
+        DecimalFormat df = new DecimalFormat(String.valueOf(NumberConstant.NUMBER_0));
+        return df.format((float) outputCount / inputCount * NumberConstant.NUMBER_100);
+    }
+
     /**
      * 通过minio查询文件数量
      *
@@ -24,8 +24,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import io.grpc.ManagedChannel;
-import org.apache.commons.codec.binary.Base64;
+import com.google.protobuf.ByteString;
 import org.apache.commons.collections4.CollectionUtils;
 import org.dubhe.biz.base.constant.NumberConstant;
 import org.dubhe.biz.base.constant.StringConstant;
@@ -132,6 +131,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -828,24 +829,24 @@ public class ServingServiceImpl implements ServingService {
             if (fileName == null) {
                 throw new BusinessException("文件名不能为空");
             }
-            String base64File;
-            try {
-                base64File = Base64.encodeBase64String(file.getBytes());
-            } catch (Exception e) {
-                throw new BusinessException(ServingErrorEnum.DATA_CONVERT_BASE64_FAIL);
+            // 直接读取上传流为二进制，避免base64编码带来的额外拷贝与体积膨胀
+            ByteString dataBytes;
+            try (InputStream inputStream = file.getInputStream()) {
+                dataBytes = ByteString.readFrom(inputStream);
+            } catch (IOException e) {
+                throw new BusinessException(ServingErrorEnum.PREDICT_DATA_READ_FAIL);
             }
-            if (StringUtils.isNotBlank(base64File)) {
+            if (!dataBytes.isEmpty()) {
                 DataInfo dataInfo = new DataInfo();
                 dataInfo.setDataName(fileName);
-                dataInfo.setDataFile(base64File);
+                dataInfo.setDataBytes(dataBytes);
                 dataInfoList.add(dataInfo);
             }
         }
         if (dataInfoList.isEmpty()) {
             throw new BusinessException(ServingErrorEnum.PREDICT_DATA_EMPTY);
         }
-        ManagedChannel channel = grpcClient.getChannel(id, url);
-        return GrpcClient.getResult(channel, dataInfoList).getJsonResult();
+        return grpcClient.getResult(id, url, dataInfoList).getJsonResult();
     }
 
     /**
@@ -898,7 +899,7 @@ public class ServingServiceImpl implements ServingService {
             servingModelConfigMapper.updateById(servingModelConfig);
         });
         if (ServingTypeEnum.GRPC.getType().equals(servingInfo.getType())) {
-            GrpcClient.shutdownChannel(servingInfo.getId());
+            grpcClient.shutdownChannel(servingInfo.getId());
         }
     }
 
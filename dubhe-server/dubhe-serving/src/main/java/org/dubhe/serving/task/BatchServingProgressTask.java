@@ -0,0 +1,51 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.serving.task;
+
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.handler.ScheduleTaskHandler;
+import org.dubhe.biz.log.utils.LogUtil;
+import org.dubhe.serving.service.BatchServingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * @description 定时刷新运行中批量服务的推理进度，查询接口直接读取缓存
+ * @date 2026-10-17
+ */
+@Component
+public class BatchServingProgressTask {
+
+    @Autowired
+    private BatchServingService batchServingService;
+
+    /**
+     * 默认每隔30秒刷新进度
+     */
+    @Scheduled(fixedDelayString = "${serving.batch.progress-refresh-millis:30000}")
+    public void process() {
+        ScheduleTaskHandler.process(() -> {
+            try {
+                batchServingService.refreshWorkingProgress();
+            } catch (Exception e) {
+                LogUtil.error(LogEnum.SERVING, "There is an error when refresh batch serving progress, exception is {}", e);
+            }
+        });
+    }
+}
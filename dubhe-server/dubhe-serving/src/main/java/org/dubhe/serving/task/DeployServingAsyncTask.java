@@ -331,7 +331,7 @@ public class DeployServingAsyncTask {
         LogUtil.info(LogEnum.SERVING, "Stopped the service with SUCCESS, service name:{}", servingInfo.getName());
         //grpc协议关闭对应通道
         if (ServingTypeEnum.GRPC.getType().equals(servingInfo.getType())) {
-            GrpcClient.shutdownChannel(servingInfo.getId());
+            grpcClient.shutdownChannel(servingInfo.getId());
         }
         int result = servingInfoMapper.updateById(servingInfo);
         if (result < NumberConstant.NUMBER_1) {
@@ -17,22 +17,31 @@
 
 package org.dubhe.serving.utils;
 
+import io.grpc.ConnectivityState;
 import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.grpc.netty.shaded.io.grpc.netty.NegotiationType;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import org.apache.commons.codec.binary.Base64;
 import org.dubhe.biz.base.constant.NumberConstant;
 import org.dubhe.biz.base.context.UserContext;
+import org.dubhe.biz.base.exception.BusinessException;
 import org.dubhe.biz.log.enums.LogEnum;
 import org.dubhe.biz.log.utils.LogUtil;
 import org.dubhe.serving.domain.entity.DataInfo;
+import org.dubhe.serving.enums.ServingErrorEnum;
 import org.dubhe.serving.proto.Inference;
 import org.dubhe.serving.proto.InferenceServiceGrpc;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.net.ssl.SSLException;
+import javax.annotation.PreDestroy;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @description Grpc配置类
@@ -42,117 +51,270 @@ import java.util.concurrent.TimeUnit;
 public class GrpcClient {
 
     /**
-     * <服务id, grpc客户端channel>
+     * 每个服务的通道数，多条连接经由Service分散到不同副本
      */
-    public static ConcurrentHashMap<Long, ManagedChannel> channelMap = new ConcurrentHashMap<>();
+    @Value("${serving.grpc.pool-size:4}")
+    private int poolSize;
+
+    /**
+     * 单次推理调用的超时时间（秒）
+     */
+    @Value("${serving.grpc.deadline-seconds:60}")
+    private long deadlineSeconds;
+
+    /**
+     * 每个服务允许的最大并发调用数
+     */
+    @Value("${serving.grpc.max-concurrent-calls:64}")
+    private int maxConcurrentCalls;
+
+    /**
+     * 等待并发许可的最长时间（毫秒）
+     */
+    @Value("${serving.grpc.acquire-timeout-millis:1000}")
+    private long acquireTimeoutMillis;
+
+    /**
+     * 连接保活探测间隔（秒）
+     */
+    @Value("${serving.grpc.keep-alive-seconds:30}")
+    private long keepAliveSeconds;
+
+    /**
+     * 是否以base64编码的data_file传输图片，兼容只识别data_file的旧版推理服务；关闭后只以二进制data_bytes传输，全部服务升级后关闭
+     */
+    @Value("${serving.grpc.legacy-base64:true}")
+    private boolean legacyBase64;
+
+    /**
+     * <服务id, grpc客户端通道池>
+     */
+    private final ConcurrentHashMap<Long, ChannelPool> channelPools = new ConcurrentHashMap<>();
 
     /**
      * 创建grpc通道
      *
-     * @param url
+     * @param url api地址
      * @return ManagedChannel 通道
-     * @throws SSLException
      */
     public ManagedChannel createChannel(String url) {
         String[] host = url.split(":");
-        ManagedChannel channel = NettyChannelBuilder.forAddress(host[0], Integer.parseInt(host[1])).maxInboundMessageSize(NumberConstant.MAX_MESSAGE_LENGTH).negotiationType(NegotiationType.PLAINTEXT).build();
-        return channel;
+        return NettyChannelBuilder.forAddress(host[0], Integer.parseInt(host[1]))
+                .maxInboundMessageSize(NumberConstant.MAX_MESSAGE_LENGTH)
+                .keepAliveTime(keepAliveSeconds, TimeUnit.SECONDS)
+                .keepAliveWithoutCalls(true)
+                .negotiationType(NegotiationType.PLAINTEXT)
+                .build();
     }
 
     /**
      * 关闭通道
      *
-     * @param channel tls通道
+     * @param channel 通道
      * @throws InterruptedException 异常
      */
     public static void shutdown(ManagedChannel channel) throws InterruptedException {
-        channel.shutdown().awaitTermination(NumberConstant.NUMBER_5, TimeUnit.SECONDS);
+        if (!channel.shutdown().awaitTermination(NumberConstant.NUMBER_5, TimeUnit.SECONDS)) {
+            channel.shutdownNow();
+        }
     }
 
     /**
      * 执行推理
      *
+     * @param servingId     在线服务id
+     * @param url           api地址
      * @param imageInfoList 图片集合
      * @return Inference.DataResponse 预测结果
      */
-    public static Inference.DataResponse getResult(ManagedChannel channel, List<DataInfo> imageInfoList) {
-        //构建使用该channel的客户端stub，需要用到时创建，不可复用
-        //阻塞存根，用于客户端本地调用
-        InferenceServiceGrpc.InferenceServiceBlockingStub blockingStub = InferenceServiceGrpc.newBlockingStub(channel);
-        Inference.DataRequest.Builder builder = Inference.DataRequest.newBuilder();
-        for (DataInfo dataInfo : imageInfoList) {
-            Inference.Data data = Inference.Data.newBuilder().setDataName(dataInfo.getDataName())
-                    .setDataFile(dataInfo.getDataFile()).build();
-            builder.addDataList(data);
+    public Inference.DataResponse getResult(Long servingId, String url, List<DataInfo> imageInfoList) {
+        ChannelPool pool = getChannelPool(servingId, url);
+        acquire(pool, servingId);
+        try {
+            //阻塞存根，用于客户端本地调用
+            return InferenceServiceGrpc.newBlockingStub(pool.next())
+                    .withDeadlineAfter(deadlineSeconds, TimeUnit.SECONDS)
+                    .inference(buildRequest(imageInfoList));
+        } catch (StatusRuntimeException e) {
+            throw convertException(servingId, e);
+        } finally {
+            pool.permits.release();
         }
-        Inference.DataRequest request = builder.build();
-        //3.调用服务端方法
-        Inference.DataResponse inference = blockingStub.inference(request);
-        return inference;
     }
 
     /**
-     * 创建grpc通道
+     * 创建grpc通道池，已存在则销毁重建
      *
      * @param servingId 在线服务ID
      * @param url       api地址
-     * @param user   用户信息
+     * @param user      用户信息
      */
     public void createChannel(Long servingId, String url, UserContext user) {
-        //channel已存在，则销毁重建
-        if (channelMap.containsKey(servingId)) {
-            ManagedChannel channel = channelMap.get(servingId);
-            try {
-                GrpcClient.shutdown(channel);
-            } catch (InterruptedException e) {
-                LogUtil.error(LogEnum.SERVING, "An Exception occurred when user {} shutting down the grpc channel, service id：{}", user.getUsername(), servingId, e);
-            }
+        ChannelPool old = channelPools.remove(servingId);
+        if (old != null) {
+            old.shutdown(servingId);
         }
-        ManagedChannel channel = null;
         try {
-            channel = this.createChannel(url);
-            channelMap.put(servingId, channel);
+            channelPools.put(servingId, new ChannelPool(url));
         } catch (Exception e) {
             LogUtil.error(LogEnum.SERVING, "An Exception occurred when user {} creating the grpc channel, service id：{}", user.getUsername(), servingId, e);
         }
-
     }
 
     /**
-     * 获取grpc通道
+     * 获取grpc通道池，地址变化时重建
      *
      * @param servingId 在线服务id
-     * @param url       tls证书地址
-     * @return grpc channel
+     * @param url       api地址
+     * @return ChannelPool 通道池
      */
-    public ManagedChannel getChannel(Long servingId, String url) {
-        if (channelMap.containsKey(servingId)) {
-            return channelMap.get(servingId);
+    private ChannelPool getChannelPool(Long servingId, String url) {
+        ChannelPool pool = channelPools.get(servingId);
+        if (pool != null && pool.url.equals(url)) {
+            return pool;
         }
-        ManagedChannel channel = null;
         try {
-            channel = this.createChannel(url);
-            channelMap.put(servingId, channel);
+            ChannelPool created = new ChannelPool(url);
+            ChannelPool previous = pool == null ? channelPools.putIfAbsent(servingId, created)
+                    : (channelPools.replace(servingId, pool, created) ? null : channelPools.get(servingId));
+            if (previous != null) {
+                created.shutdown(servingId);
+                return previous;
+            }
+            if (pool != null) {
+                pool.shutdown(servingId);
+            }
+            return created;
         } catch (Exception e) {
             LogUtil.error(LogEnum.SERVING, "An Exception occurred when getting grpc channel, service id：{}", servingId, e);
+            throw new BusinessException(ServingErrorEnum.CALL_INFERENCE_SERVER_FAIL);
         }
-        return channel;
     }
 
     /**
-     * 关闭grpc通道
+     * 关闭并移除grpc通道池
      *
      * @param servingId 在线服务id
      */
-    public static void shutdownChannel(Long servingId) {
-        if (channelMap.containsKey(servingId)) {
-            ManagedChannel channel = channelMap.get(servingId);
-            try {
-                GrpcClient.shutdown(channel);
-            } catch (InterruptedException e) {
-                LogUtil.error(LogEnum.SERVING, "An Exception occurred when shutting down the grpc channel, service id：{}", servingId, e);
+    public void shutdownChannel(Long servingId) {
+        ChannelPool pool = channelPools.remove(servingId);
+        if (pool != null) {
+            pool.shutdown(servingId);
+        }
+    }
+
+    /**
+     * 应用关闭时释放全部通道
+     */
+    @PreDestroy
+    public void shutdownAll() {
+        channelPools.keySet().forEach(this::shutdownChannel);
+    }
+
+    /**
+     * 构建推理请求，兼容期内图片以base64编码的data_file传输，之后以二进制data_bytes传输
+     *
+     * @param imageInfoList 图片集合
+     * @return Inference.DataRequest 推理请求
+     */
+    private Inference.DataRequest buildRequest(List<DataInfo> imageInfoList) {
+        Inference.DataRequest.Builder builder = Inference.DataRequest.newBuilder();
+        for (DataInfo dataInfo : imageInfoList) {
+            Inference.Data.Builder data = Inference.Data.newBuilder().setDataName(dataInfo.getDataName());
+            if (legacyBase64) {
+                data.setDataFile(Base64.encodeBase64String(dataInfo.getDataBytes().toByteArray()));
+            } else {
+                data.setDataBytes(dataInfo.getDataBytes());
+            }
+            builder.addDataList(data);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 获取并发许可
+     *
+     * @param pool      通道池
+     * @param servingId 在线服务id
+     */
+    private void acquire(ChannelPool pool, Long servingId) {
+        boolean acquired;
+        try {
+            acquired = pool.permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            LogUtil.warn(LogEnum.SERVING, "Too many concurrent grpc calls, service id：{}", servingId);
+            throw new BusinessException(ServingErrorEnum.PREDICT_TOO_MANY_REQUESTS);
+        }
+    }
+
+    /**
+     * grpc调用异常转换为业务异常
+     *
+     * @param servingId 在线服务id
+     * @param e         grpc异常
+     * @return BusinessException 业务异常
+     */
+    private BusinessException convertException(Long servingId, StatusRuntimeException e) {
+        if (Status.Code.DEADLINE_EXCEEDED == e.getStatus().getCode()) {
+            LogUtil.error(LogEnum.SERVING, "Grpc inference timed out after {}s, service id：{}", deadlineSeconds, servingId);
+            return new BusinessException(ServingErrorEnum.PREDICT_TIMEOUT);
+        }
+        LogUtil.error(LogEnum.SERVING, "An Exception occurred when calling grpc inference, service id：{}", servingId, e);
+        return new BusinessException(ServingErrorEnum.CALL_INFERENCE_SERVER_FAIL);
+    }
+
+    /**
+     * 单个服务的通道池，轮询选取通道并限制并发调用数
+     */
+    private class ChannelPool {
+
+        private final String url;
+
+        private final ManagedChannel[] channels;
+
+        private final AtomicInteger index = new AtomicInteger();
+
+        private final Semaphore permits = new Semaphore(maxConcurrentCalls);
+
+        ChannelPool(String url) {
+            this.url = url;
+            this.channels = new ManagedChannel[Math.max(poolSize, NumberConstant.NUMBER_1)];
+            for (int i = 0; i < channels.length; i++) {
+                channels[i] = createChannel(url);
+            }
+        }
+
+        /**
+         * 轮询选取通道，跳过处于连接失败状态的通道
+         *
+         * @return ManagedChannel 通道
+         */
+        ManagedChannel next() {
+            int start = index.getAndIncrement() & Integer.MAX_VALUE;
+            for (int i = 0; i < channels.length; i++) {
+                ManagedChannel channel = channels[(start + i) % channels.length];
+                if (channel.getState(false) != ConnectivityState.TRANSIENT_FAILURE) {
+                    return channel;
+                }
+            }
+            return channels[start % channels.length];
+        }
+
+        void shutdown(Long servingId) {
+            for (ManagedChannel channel : channels) {
+                try {
+                    GrpcClient.shutdown(channel);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    channel.shutdownNow();
+                    LogUtil.error(LogEnum.SERVING, "An Exception occurred when shutting down the grpc channel, service id：{}", servingId, e);
+                }
             }
         }
     }
-    
+
 }
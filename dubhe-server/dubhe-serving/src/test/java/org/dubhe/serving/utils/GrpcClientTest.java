@@ -0,0 +1,175 @@
+/**
+ * Copyright 2020 Tianshu AI Platform. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =============================================================
+ */
+
+package org.dubhe.serving.utils;
+
+import com.google.protobuf.ByteString;
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.grpc.testing.GrpcCleanupRule;
+import org.apache.commons.codec.binary.Base64;
+import org.dubhe.biz.base.exception.BusinessException;
+import org.dubhe.serving.domain.entity.DataInfo;
+import org.dubhe.serving.enums.ServingErrorEnum;
+import org.dubhe.serving.proto.Inference;
+import org.dubhe.serving.proto.InferenceServiceGrpc;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @description GrpcClient测试类，使用进程内grpc服务验证超时、并发限制及图片传输方式
+ * @date 2026-10-17
+ */
+public class GrpcClientTest {
+
+    private static final Long SERVING_ID = 1L;
+
+    private static final byte[] IMAGE = "image".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
+
+    /**
+     * 为true时推理服务阻塞，直到release
+     */
+    private volatile boolean blocking;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final CountDownLatch received = new CountDownLatch(1);
+
+    private final AtomicReference<Inference.DataRequest> lastRequest = new AtomicReference<>();
+
+    private final ExecutorService callers = Executors.newSingleThreadExecutor();
+
+    private String serverName;
+
+    private GrpcClient grpcClient;
+
+    @Before
+    public void setUp() throws Exception {
+        serverName = InProcessServerBuilder.generateName();
+        grpcCleanup.register(InProcessServerBuilder.forName(serverName)
+                .addService(new InferenceServiceGrpc.InferenceServiceImplBase() {
+                    @Override
+                    public void inference(Inference.DataRequest request, StreamObserver<Inference.DataResponse> responseObserver) {
+                        lastRequest.set(request);
+                        received.countDown();
+                        if (blocking) {
+                            try {
+                                release.await(10, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        responseObserver.onNext(Inference.DataResponse.newBuilder().setJsonResult("ok").build());
+                        responseObserver.onCompleted();
+                    }
+                })
+                .build()
+                .start());
+
+        grpcClient = new GrpcClient() {
+            @Override
+            public ManagedChannel createChannel(String url) {
+                return grpcCleanup.register(InProcessChannelBuilder.forName(url).build());
+            }
+        };
+        ReflectionTestUtils.setField(grpcClient, "poolSize", 1);
+        ReflectionTestUtils.setField(grpcClient, "deadlineSeconds", 1L);
+        ReflectionTestUtils.setField(grpcClient, "maxConcurrentCalls", 1);
+        ReflectionTestUtils.setField(grpcClient, "acquireTimeoutMillis", 100L);
+        ReflectionTestUtils.setField(grpcClient, "keepAliveSeconds", 30L);
+        ReflectionTestUtils.setField(grpcClient, "legacyBase64", false);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        grpcClient.shutdownAll();
+    }
+
+    @Test
+    public void deadlineExceeded() {
+        blocking = true;
+        try {
+            grpcClient.getResult(SERVING_ID, serverName, images());
+            Assert.fail("inference should time out");
+        } catch (BusinessException e) {
+            Assert.assertEquals(ServingErrorEnum.PREDICT_TIMEOUT.getCode(), e.getResponseBody().getCode());
+        }
+    }
+
+    @Test
+    public void concurrentCallsLimited() throws Exception {
+        blocking = true;
+        Future<Inference.DataResponse> first = callers.submit(() -> grpcClient.getResult(SERVING_ID, serverName, images()));
+        Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+        try {
+            grpcClient.getResult(SERVING_ID, serverName, images());
+            Assert.fail("second call should be rejected while the only permit is held");
+        } catch (BusinessException e) {
+            Assert.assertEquals(ServingErrorEnum.PREDICT_TOO_MANY_REQUESTS.getCode(), e.getResponseBody().getCode());
+        }
+
+        release.countDown();
+        Assert.assertEquals("ok", first.get(5, TimeUnit.SECONDS).getJsonResult());
+        blocking = false;
+        Assert.assertEquals("ok", grpcClient.getResult(SERVING_ID, serverName, images()).getJsonResult());
+    }
+
+    @Test
+    public void sendBytesOnly() {
+        grpcClient.getResult(SERVING_ID, serverName, images());
+        Inference.Data data = lastRequest.get().getDataList(0);
+        Assert.assertEquals(ByteString.copyFrom(IMAGE), data.getDataBytes());
+        Assert.assertTrue(data.getDataFile().isEmpty());
+    }
+
+    @Test
+    public void sendLegacyBase64Only() {
+        ReflectionTestUtils.setField(grpcClient, "legacyBase64", true);
+        grpcClient.getResult(SERVING_ID, serverName, images());
+        Inference.Data data = lastRequest.get().getDataList(0);
+        Assert.assertEquals(Base64.encodeBase64String(IMAGE), data.getDataFile());
+        Assert.assertTrue(data.getDataBytes().isEmpty());
+    }
+
+    private static List<DataInfo> images() {
+        DataInfo dataInfo = new DataInfo();
+        dataInfo.setDataName("image.jpg");
+        dataInfo.setDataBytes(ByteString.copyFrom(IMAGE));
+        return Collections.singletonList(dataInfo);
+    }
+}
@@ -23,6 +23,7 @@ import org.dubhe.train.client.fallback.AlgorithmClientFallback;
 import org.dubhe.train.client.fallback.DatasetClientFallback;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
 /**
@@ -34,5 +35,14 @@ public interface DatasetClient {
 
 	@GetMapping("/datasets/getPresetDatasetByName")
 	DataResponseBody<DatasetVO> getPresetDatasetByName(@RequestParam String datasetName);
+
+	/**
+	 * 异步物化清单版本目录，立即返回，需轮询直至返回true
+	 *
+	 * @param path 数据集版本路径
+	 * @return DataResponseBody<Boolean> 是否已物化完成
+	 */
+	@PostMapping("/datasets/versions/materialize")
+	DataResponseBody<Boolean> materialize(@RequestParam("path") String path);
 	
 }
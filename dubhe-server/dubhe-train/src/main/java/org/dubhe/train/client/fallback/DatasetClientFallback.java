@@ -31,4 +31,9 @@ public class DatasetClientFallback implements DatasetClient {
 	public DataResponseBody<DatasetVO> getPresetDatasetByName(String datasetName) {
 		return DataResponseFactory.failed("call dubhe-data server getPresetDatasetByName error");
 	}
+
+	@Override
+	public DataResponseBody<Boolean> materialize(String path) {
+		return DataResponseFactory.failed("call dubhe-data server materialize error");
+	}
 }
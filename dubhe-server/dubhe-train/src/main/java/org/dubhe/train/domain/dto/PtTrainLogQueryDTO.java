@@ -50,4 +50,7 @@ public class PtTrainLogQueryDTO implements Serializable {
     @Max(value = MagicNumConstant.ONE_THOUSAND, message = "lines不能大于1000")
     private Integer lines;
 
+    @ApiModelProperty(value = "日志游标，传入上次查询返回的游标时只查询其后新增的日志")
+    private String cursor;
+
 }
@@ -47,4 +47,7 @@ public class PtTrainLogQueryVO {
     @ApiModelProperty(value = "查询行数")
     private Integer lines;
 
+    @ApiModelProperty(value = "最后一行日志的游标，用于增量查询")
+    private String cursor;
+
 }
@@ -17,17 +17,25 @@
 
 package org.dubhe.train.inner.handler;
 
+import org.dubhe.biz.base.constant.MagicNumConstant;
 import org.dubhe.biz.base.enums.ModelResourceEnum;
+import org.dubhe.biz.base.exception.BusinessException;
 import org.dubhe.biz.base.utils.StringUtils;
+import org.dubhe.biz.base.vo.DataResponseBody;
 import org.dubhe.biz.file.api.FileStoreApi;
+import org.dubhe.biz.log.enums.LogEnum;
+import org.dubhe.biz.log.utils.LogUtil;
 import org.dubhe.k8s.domain.bo.DistributeTrainBO;
 import org.dubhe.k8s.domain.bo.PtJupyterJobBO;
+import org.dubhe.train.client.DatasetClient;
 import org.dubhe.train.config.TrainJobConfig;
 import org.dubhe.train.domain.dto.BaseTrainJobDTO;
 import org.dubhe.train.enums.TrainSystemRunParamEnum;
+import org.springframework.beans.factory.annotation.Value;
 
 import javax.annotation.Resource;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 import static org.dubhe.biz.base.constant.StringConstant.PYTHON_COMMAND_PATTERN;
 
@@ -37,12 +45,32 @@ import static org.dubhe.biz.base.constant.StringConstant.PYTHON_COMMAND_PATTERN;
  */
 public class SystemMountRunParamHandler implements SystemRunParamHandler {
 
+    /**
+     * 数据集版本目录标识
+     */
+    private static final String VERSION_FILE_PATH = "/versionFile/";
+
     @Resource
     private TrainJobConfig trainJobConfig;
 
     @Resource(name = "hostFileStoreApiImpl")
     private FileStoreApi fileStoreApi;
 
+    @Resource
+    private DatasetClient datasetClient;
+
+    /**
+     * 等待数据集版本物化完成的最长时间（秒），超时则本次提交失败，物化在数据服务侧继续执行，稍后重试即可
+     */
+    @Value("${train-job.materialize-timeout-seconds:1800}")
+    private long materializeTimeoutSeconds;
+
+    /**
+     * 轮询物化状态的间隔（毫秒）
+     */
+    @Value("${train-job.materialize-poll-millis:3000}")
+    private long materializePollMillis;
+
     @Override
     public String buildSystemRunCommand(PtJupyterJobBO jobBo, Long userId, DistributeTrainBO distributeTrainBO, BaseTrainJobDTO baseTrainJobDTO, boolean isTrainModelOut,
                                         boolean isTrainOut, boolean isVisualizedLog, String paramName, boolean needCreate) {
@@ -81,6 +109,7 @@ public class SystemMountRunParamHandler implements SystemRunParamHandler {
         }
 
         if (needCreate) {
+            materializeDataSource(paramName, baseTrainJobDTO);
             if (jobBo != null) {
                 jobBo.putFsMounts(paramValue, dir);
             } else if (distributeTrainBO != null) {
@@ -92,4 +121,40 @@ public class SystemMountRunParamHandler implements SystemRunParamHandler {
         return String.format(PYTHON_COMMAND_PATTERN , userParamName, paramValue);
 
     }
+
+    /**
+     * 数据集版本以清单方式发布时，挂载前需先物化出真实目录
+     *
+     * @param paramName       参数名称
+     * @param baseTrainJobDTO 训练任务参数
+     */
+    private void materializeDataSource(String paramName, BaseTrainJobDTO baseTrainJobDTO) {
+        String dataSourcePath = TrainSystemRunParamEnum.data_url.name().equals(paramName) ? baseTrainJobDTO.getDataSourcePath()
+                : TrainSystemRunParamEnum.val_data_url.name().equals(paramName) ? baseTrainJobDTO.getValDataSourcePath() : null;
+        if (StringUtils.isBlank(dataSourcePath) || !dataSourcePath.contains(VERSION_FILE_PATH)) {
+            return;
+        }
+        //物化为异步执行，每次调用立即返回，避免整版本复制阻塞在单次远程调用的读超时内
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(materializeTimeoutSeconds);
+        while (true) {
+            DataResponseBody<Boolean> dataResponseBody = datasetClient.materialize(dataSourcePath);
+            if (!dataResponseBody.succeed()) {
+                LogUtil.error(LogEnum.BIZ_TRAIN, "materialize dataset version {} failed: {}", dataSourcePath, dataResponseBody.getMsg());
+                throw new BusinessException("数据集版本目录准备失败");
+            }
+            if (Boolean.TRUE.equals(dataResponseBody.getData())) {
+                return;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                LogUtil.error(LogEnum.BIZ_TRAIN, "materialize dataset version {} timed out after {}s", dataSourcePath, materializeTimeoutSeconds);
+                throw new BusinessException("数据集版本目录准备超时，请稍后重试");
+            }
+            try {
+                Thread.sleep(Math.max(materializePollMillis, MagicNumConstant.ONE_THOUSAND));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException("数据集版本目录准备被中断");
+            }
+        }
+    }
 }
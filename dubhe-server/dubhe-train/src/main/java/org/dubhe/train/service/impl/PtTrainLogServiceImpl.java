@@ -92,8 +92,16 @@ public class PtTrainLogServiceImpl implements PtTrainLogService {
 
         PtTrainLogQueryVO ptTrainLogQueryVO = new PtTrainLogQueryVO();
 
-        LogMonitoringVO result = logMonitoringApi.searchLogByResName(startLine, lines, logMonitoringBo);
+        /** 传入游标时增量查询游标之后的日志，否则按起始行分页查询 **/
+        LogMonitoringVO result;
+        if (StringUtils.isNotBlank(ptTrainLogQueryDTO.getCursor())) {
+            logMonitoringBo.setSearchAfter(ptTrainLogQueryDTO.getCursor());
+            result = logMonitoringApi.searchLogAfter(lines, logMonitoringBo);
+        } else {
+            result = logMonitoringApi.searchLogByResName(startLine, lines, logMonitoringBo);
+        }
         List<String> list = result.getLogs();
+        ptTrainLogQueryVO.setCursor(result.getCursor());
 
         if (CollectionUtils.isEmpty(list)) {
             ptTrainLogQueryVO.setContent(list);
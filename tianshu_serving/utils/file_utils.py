@@ -66,7 +66,7 @@ def upload_data(files):
 
 def upload_image_by_base64(data_list):
     """
-    base64图片信息保存到本地
+    图片信息保存到本地，优先使用二进制data_bytes，兼容base64编码的data_file
     """
     save_data_dir = "/usr/local/data/"
     if not os.path.exists(save_data_dir):
@@ -74,7 +74,7 @@ def upload_image_by_base64(data_list):
     data_list_b64 = list()
     for data in data_list:
         file_path = save_data_dir + str(int(round(time.time() * MAX_TIME_LENGTH))) + "." + data.data_name.split(".")[-1]
-        file_b64 = base64.b64decode(data.data_file)
+        file_b64 = data.data_bytes if data.data_bytes else base64.b64decode(data.data_file)
         file = open(file_path, 'wb')
         file.write(file_b64)
         file.close()